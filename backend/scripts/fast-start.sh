@@ -0,0 +1,28 @@
+#!/usr/bin/env bash
+#
+# 使用 AppCDS 归档 + Spring AOT 启动应用
+# 先执行 mvn -Pfast-start package 生成 target/fast-start/app.jsa
+#
+# 用法: scripts/fast-start.sh [额外的 JVM/应用参数...]
+#
+set -euo pipefail
+
+BACKEND_DIR="$(cd "$(dirname "$0")/.." && pwd)"
+TARGET_DIR="${BACKEND_DIR}/target"
+FAST_START_DIR="${TARGET_DIR}/fast-start"
+
+APP_JAR="$(ls "${TARGET_DIR}"/drools-dynamic-rules-*.jar 2>/dev/null | grep -v -- '-exec.jar' | head -n 1 || true)"
+if [[ -z "${APP_JAR}" || ! -f "${FAST_START_DIR}/app.jsa" ]]; then
+    echo "未找到 fast-start 构建产物，请先执行: mvn -Pfast-start package" >&2
+    exit 1
+fi
+
+# 类路径必须与训练运行一致（主jar + lib/*），否则JVM会拒绝使用归档
+cd "${FAST_START_DIR}"
+exec java \
+    -XX:SharedArchiveFile=app.jsa \
+    -Dspring.aot.enabled=true \
+    ${JAVA_OPTS:-} \
+    -cp "../$(basename "${APP_JAR}"):lib/*" \
+    com.example.drools.DroolsDynamicRulesApplication \
+    "$@"
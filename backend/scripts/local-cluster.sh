@@ -0,0 +1,54 @@
+#!/usr/bin/env bash
+#
+# 在本机启动多个后端节点组成集群，验证租户分片与请求路由
+# 各节点共享 target/cluster-local 下的H2文件数据库（cluster-local 配置），先执行 mvn package 生成可执行jar
+#
+# 用法: scripts/local-cluster.sh [节点数，默认3] [起始端口，默认8081]
+# 按 Ctrl+C 停止所有节点
+#
+set -euo pipefail
+
+NODES="${1:-3}"
+BASE_PORT="${2:-8081}"
+
+BACKEND_DIR="$(cd "$(dirname "$0")/.." && pwd)"
+TARGET_DIR="${BACKEND_DIR}/target"
+LOG_DIR="${TARGET_DIR}/cluster-local/logs"
+
+# fast-start 构建时可执行jar带 exec 分类器，普通构建时即为主jar
+APP_JAR="$(ls "${TARGET_DIR}"/drools-dynamic-rules-*-exec.jar 2>/dev/null | head -n 1 || true)"
+if [[ -z "${APP_JAR}" ]]; then
+    APP_JAR="$(ls "${TARGET_DIR}"/drools-dynamic-rules-*.jar 2>/dev/null | head -n 1 || true)"
+fi
+if [[ -z "${APP_JAR}" ]]; then
+    echo "未找到可执行jar，请先执行: mvn package" >&2
+    exit 1
+fi
+
+mkdir -p "${LOG_DIR}"
+PIDS=()
+trap 'echo "停止所有节点..."; kill "${PIDS[@]}" 2>/dev/null || true; wait' INT TERM EXIT
+
+cd "${BACKEND_DIR}"
+for ((i = 0; i < NODES; i++)); do
+    PORT=$((BASE_PORT + i))
+    java ${JAVA_OPTS:-} -jar "${APP_JAR}" \
+        --spring.profiles.active=cluster-local \
+        --server.port="${PORT}" \
+        --drools.cluster.node-id="node-${PORT}" \
+        --drools.cluster.advertised-url="http://localhost:${PORT}" \
+        > "${LOG_DIR}/node-${PORT}.log" 2>&1 &
+    PIDS+=($!)
+    echo "节点 node-${PORT} 已启动 (pid $!)，日志: ${LOG_DIR}/node-${PORT}.log"
+
+    # 第一个节点创建H2数据库并初始化表结构后再启动其余节点，避免同时打开数据库文件
+    if ((i == 0)); then
+        until curl -sf "http://localhost:${PORT}/actuator/health" > /dev/null; do
+            kill -0 "${PIDS[0]}" 2>/dev/null || { echo "节点 node-${PORT} 启动失败" >&2; exit 1; }
+            sleep 1
+        done
+    fi
+done
+
+echo "查看分片: curl http://localhost:${BASE_PORT}/api/rules/container/cluster"
+wait
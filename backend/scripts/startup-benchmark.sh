@@ -0,0 +1,63 @@
+#!/usr/bin/env bash
+#
+# 对比默认可执行jar与 fast-start（AppCDS + Spring AOT）的启动耗时
+# 计时从进程启动到 /actuator/health 返回 UP（规则容器已构建完成）为止
+# 两种方式均使用 training 配置（内存H2 + 示例规则集），无需外部数据库
+#
+# 用法: scripts/startup-benchmark.sh [运行次数，默认5]
+#
+set -euo pipefail
+
+RUNS="${1:-5}"
+PORT="${BENCHMARK_PORT:-18080}"
+BACKEND_DIR="$(cd "$(dirname "$0")/.." && pwd)"
+TARGET_DIR="${BACKEND_DIR}/target"
+EXEC_JAR="$(ls "${TARGET_DIR}"/drools-dynamic-rules-*-exec.jar 2>/dev/null | head -n 1 || true)"
+
+if [[ -z "${EXEC_JAR}" || ! -f "${TARGET_DIR}/fast-start/app.jsa" ]]; then
+    echo "未找到 fast-start 构建产物，请先执行: mvn -Pfast-start package" >&2
+    exit 1
+fi
+
+APP_ARGS=(--spring.profiles.active=training --server.port="${PORT}")
+
+now_ms() {
+    date +%s%3N
+}
+
+# 启动应用并等待健康检查返回 UP，输出耗时（毫秒）
+measure() {
+    local start pid elapsed
+    start="$(now_ms)"
+    "$@" "${APP_ARGS[@]}" >/dev/null 2>&1 &
+    pid=$!
+
+    until curl -fs "http://localhost:${PORT}/actuator/health" 2>/dev/null | grep -q '"status":"UP"'; do
+        if ! kill -0 "${pid}" 2>/dev/null; then
+            echo "应用启动失败: $*" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    elapsed=$(( $(now_ms) - start ))
+
+    kill "${pid}"
+    wait "${pid}" 2>/dev/null || true
+    echo "${elapsed}"
+}
+
+# 多次运行取中位数
+benchmark() {
+    local name="$1"
+    shift
+    local samples=()
+    for ((i = 1; i <= RUNS; i++)); do
+        samples+=("$(measure "$@")")
+    done
+    local median
+    median="$(printf '%s\n' "${samples[@]}" | sort -n | awk '{a[NR]=$1} END {print a[int((NR+1)/2)]}')"
+    printf '%-12s 中位数 %6s ms  (样本: %s)\n' "${name}" "${median}" "${samples[*]}"
+}
+
+benchmark "default" java -jar "${EXEC_JAR}"
+benchmark "fast-start" "${BACKEND_DIR}/scripts/fast-start.sh"
@@ -1,19 +1,23 @@
 package com.example.drools.config;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Drools配置类
  * 配置Drools相关的组件和服务
- * 
+ *
  * @author System
  * @since 1.0.0
  */
 @Configuration
 @ComponentScan(basePackages = "com.example.drools.service")
+@EnableScheduling
+@EnableConfigurationProperties(DroolsProperties.class)
 public class DroolsConfig {
-    
+
     // 这个配置类确保DroolsContainerService被正确扫描和初始化
     // 如果需要额外的Drools配置，可以在这里添加
-}
\ No newline at end of file
+}
@@ -0,0 +1,878 @@
+package com.example.drools.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drools相关配置属性
+ * 对应配置文件中 drools.* 前缀的配置项
+ *
+ * @author System
+ * @since 1.0.0
+ */
+@ConfigurationProperties(prefix = "drools")
+public class DroolsProperties {
+
+    /**
+     * 容器健康探测配置
+     */
+    private Health health = new Health();
+
+    /**
+     * 规则变更发件箱配置
+     */
+    private Outbox outbox = new Outbox();
+
+    /**
+     * 多租户容器配置
+     */
+    private Tenants tenants = new Tenants();
+
+    /**
+     * 集群分片配置
+     */
+    private Cluster cluster = new Cluster();
+
+    /**
+     * KieSession池配置
+     */
+    private SessionPool sessionPool = new SessionPool();
+
+    /**
+     * 规则族配置，键为规则族名称，未配置的规则族使用默认选项
+     */
+    private Map<String, Family> families = new HashMap<>();
+
+    /**
+     * 规则评估接口配置
+     */
+    private Evaluation evaluation = new Evaluation();
+
+    /**
+     * 规则测试配置
+     */
+    private RuleTest ruleTest = new RuleTest();
+
+    public Health getHealth() {
+        return health;
+    }
+
+    public void setHealth(Health health) {
+        this.health = health;
+    }
+
+    public Outbox getOutbox() {
+        return outbox;
+    }
+
+    public void setOutbox(Outbox outbox) {
+        this.outbox = outbox;
+    }
+
+    public Tenants getTenants() {
+        return tenants;
+    }
+
+    public void setTenants(Tenants tenants) {
+        this.tenants = tenants;
+    }
+
+    public Cluster getCluster() {
+        return cluster;
+    }
+
+    public void setCluster(Cluster cluster) {
+        this.cluster = cluster;
+    }
+
+    public SessionPool getSessionPool() {
+        return sessionPool;
+    }
+
+    public void setSessionPool(SessionPool sessionPool) {
+        this.sessionPool = sessionPool;
+    }
+
+    public Map<String, Family> getFamilies() {
+        return families;
+    }
+
+    public void setFamilies(Map<String, Family> families) {
+        this.families = families;
+    }
+
+    public Evaluation getEvaluation() {
+        return evaluation;
+    }
+
+    public void setEvaluation(Evaluation evaluation) {
+        this.evaluation = evaluation;
+    }
+
+    public RuleTest getRuleTest() {
+        return ruleTest;
+    }
+
+    public void setRuleTest(RuleTest ruleTest) {
+        this.ruleTest = ruleTest;
+    }
+
+    /**
+     * 获取规则族的配置，未配置时返回默认选项
+     *
+     * @param family 规则族名称
+     * @return 规则族配置
+     */
+    public Family resolveFamily(String family) {
+        return families.getOrDefault(family, Family.DEFAULTS);
+    }
+
+    /**
+     * 容器健康探测配置
+     */
+    public static class Health {
+
+        /**
+         * 后台探测间隔（毫秒）
+         */
+        private long probeIntervalMs = 5000L;
+
+        /**
+         * 快照过期阈值（毫秒），超过该时间未刷新的快照视为不健康
+         */
+        private long staleThresholdMs = 30000L;
+
+        public long getProbeIntervalMs() {
+            return probeIntervalMs;
+        }
+
+        public void setProbeIntervalMs(long probeIntervalMs) {
+            this.probeIntervalMs = probeIntervalMs;
+        }
+
+        public long getStaleThresholdMs() {
+            return staleThresholdMs;
+        }
+
+        public void setStaleThresholdMs(long staleThresholdMs) {
+            this.staleThresholdMs = staleThresholdMs;
+        }
+    }
+
+    /**
+     * 规则变更发件箱配置
+     */
+    public static class Outbox {
+
+        /**
+         * 轮询间隔（毫秒），作为事务提交通知之外的兜底
+         */
+        private long pollIntervalMs = 1000L;
+
+        /**
+         * 每批处理的最大变更数量
+         */
+        private int batchSize = 200;
+
+        /**
+         * 单批变更的最大尝试次数，超过后逐条隔离失败的规则
+         */
+        private int maxAttempts = 5;
+
+        /**
+         * 重试的初始退避时间（毫秒），每次失败后翻倍
+         */
+        private long retryBackoffMs = 1000L;
+
+        /**
+         * 已应用变更的保留天数
+         */
+        private int retentionDays = 7;
+
+        /**
+         * 序号缺口的宽限期（毫秒），在此期间重新读取游标之下被跳过的序号，应不短于最长的规则变更事务
+         */
+        private long gapGraceMs = 60000L;
+
+        public long getPollIntervalMs() {
+            return pollIntervalMs;
+        }
+
+        public void setPollIntervalMs(long pollIntervalMs) {
+            this.pollIntervalMs = pollIntervalMs;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getRetryBackoffMs() {
+            return retryBackoffMs;
+        }
+
+        public void setRetryBackoffMs(long retryBackoffMs) {
+            this.retryBackoffMs = retryBackoffMs;
+        }
+
+        public int getRetentionDays() {
+            return retentionDays;
+        }
+
+        public void setRetentionDays(int retentionDays) {
+            this.retentionDays = retentionDays;
+        }
+
+        public long getGapGraceMs() {
+            return gapGraceMs;
+        }
+
+        public void setGapGraceMs(long gapGraceMs) {
+            this.gapGraceMs = gapGraceMs;
+        }
+    }
+
+    /**
+     * 多租户容器配置
+     */
+    public static class Tenants {
+
+        /**
+         * 同时保持加载的租户容器上限，超过后按最近最少使用淘汰（默认租户不会被淘汰）
+         */
+        private int maxActiveContainers = 16;
+
+        /**
+         * 空闲淘汰时间（毫秒），超过该时间未被访问的租户容器将被卸载，下次访问时重新加载
+         */
+        private long idleEvictionMs = 1800000L;
+
+        /**
+         * 空闲淘汰检查间隔（毫秒）
+         */
+        private long evictionCheckIntervalMs = 60000L;
+
+        /**
+         * 租户容器构建线程数，不同租户的构建并行进行
+         */
+        private int buildThreads = 4;
+
+        /**
+         * 默认配额，未单独配置的租户使用该配额
+         */
+        private Quota defaultQuota = new Quota();
+
+        /**
+         * 按租户ID单独配置的配额
+         */
+        private Map<String, Quota> quotas = new HashMap<>();
+
+        /**
+         * 获取租户生效的配额
+         *
+         * @param tenantId 租户ID
+         * @return 配额
+         */
+        public Quota resolveQuota(String tenantId) {
+            return quotas.getOrDefault(tenantId, defaultQuota);
+        }
+
+        public int getMaxActiveContainers() {
+            return maxActiveContainers;
+        }
+
+        public void setMaxActiveContainers(int maxActiveContainers) {
+            this.maxActiveContainers = maxActiveContainers;
+        }
+
+        public long getIdleEvictionMs() {
+            return idleEvictionMs;
+        }
+
+        public void setIdleEvictionMs(long idleEvictionMs) {
+            this.idleEvictionMs = idleEvictionMs;
+        }
+
+        public long getEvictionCheckIntervalMs() {
+            return evictionCheckIntervalMs;
+        }
+
+        public void setEvictionCheckIntervalMs(long evictionCheckIntervalMs) {
+            this.evictionCheckIntervalMs = evictionCheckIntervalMs;
+        }
+
+        public int getBuildThreads() {
+            return buildThreads;
+        }
+
+        public void setBuildThreads(int buildThreads) {
+            this.buildThreads = buildThreads;
+        }
+
+        public Quota getDefaultQuota() {
+            return defaultQuota;
+        }
+
+        public void setDefaultQuota(Quota defaultQuota) {
+            this.defaultQuota = defaultQuota;
+        }
+
+        public Map<String, Quota> getQuotas() {
+            return quotas;
+        }
+
+        public void setQuotas(Map<String, Quota> quotas) {
+            this.quotas = quotas;
+        }
+    }
+
+    /**
+     * 租户配额，0表示不限制
+     */
+    public static class Quota {
+
+        /**
+         * 租户容器可加载的最大规则数
+         */
+        private int maxRules = 0;
+
+        /**
+         * 单次容器构建允许分配的最大堆内存（MB）
+         * JVM无法精确统计单个KieBase的常驻内存，这里以构建线程在编译期间分配的内存作为上界估算
+         */
+        private long maxBuildHeapMb = 0L;
+
+        public int getMaxRules() {
+            return maxRules;
+        }
+
+        public void setMaxRules(int maxRules) {
+            this.maxRules = maxRules;
+        }
+
+        public long getMaxBuildHeapMb() {
+            return maxBuildHeapMb;
+        }
+
+        public void setMaxBuildHeapMb(long maxBuildHeapMb) {
+            this.maxBuildHeapMb = maxBuildHeapMb;
+        }
+    }
+
+    /**
+     * 集群分片配置
+     * 启用后租户按一致性哈希分配到存活节点，每个节点只加载自己负责的租户，
+     * 其他租户的评估请求转发到所属节点
+     */
+    public static class Cluster {
+
+        /**
+         * 是否启用集群分片，关闭时本节点加载所有租户
+         */
+        private boolean enabled = false;
+
+        /**
+         * 节点ID，未配置时使用 主机名:端口
+         */
+        private String nodeId;
+
+        /**
+         * 其他节点访问本节点的地址，未配置时使用 http://主机名:端口
+         */
+        private String advertisedUrl;
+
+        /**
+         * 心跳间隔（毫秒）
+         */
+        private long heartbeatIntervalMs = 3000L;
+
+        /**
+         * 节点超时时间（毫秒），超过该时间未心跳的节点视为已离开
+         */
+        private long nodeTimeoutMs = 10000L;
+
+        /**
+         * 每个节点在哈希环上的虚拟节点数量
+         */
+        private int virtualNodes = 128;
+
+        /**
+         * 需要按租户路由的请求路径
+         * 转发前需要缓存完整的请求体，流式评估（/api/evaluate/stream）不在其中，由接收请求的节点处理
+         */
+        private List<String> routedPaths = new ArrayList<>(List.of("/api/rules/test/demo",
+                "/api/evaluate", "/api/evaluate/batch", "/api/evaluate/columnar"));
+
+        /**
+         * 转发请求的超时时间（毫秒）
+         */
+        private long forwardTimeoutMs = 10000L;
+
+        /**
+         * 转发时缓存的请求体上限（字节），超过时不转发，由接收请求的节点处理
+         */
+        private int maxForwardBodyBytes = 10 * 1024 * 1024;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        public void setNodeId(String nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        public String getAdvertisedUrl() {
+            return advertisedUrl;
+        }
+
+        public void setAdvertisedUrl(String advertisedUrl) {
+            this.advertisedUrl = advertisedUrl;
+        }
+
+        public long getHeartbeatIntervalMs() {
+            return heartbeatIntervalMs;
+        }
+
+        public void setHeartbeatIntervalMs(long heartbeatIntervalMs) {
+            this.heartbeatIntervalMs = heartbeatIntervalMs;
+        }
+
+        public long getNodeTimeoutMs() {
+            return nodeTimeoutMs;
+        }
+
+        public void setNodeTimeoutMs(long nodeTimeoutMs) {
+            this.nodeTimeoutMs = nodeTimeoutMs;
+        }
+
+        public int getVirtualNodes() {
+            return virtualNodes;
+        }
+
+        public void setVirtualNodes(int virtualNodes) {
+            this.virtualNodes = virtualNodes;
+        }
+
+        public List<String> getRoutedPaths() {
+            return routedPaths;
+        }
+
+        public void setRoutedPaths(List<String> routedPaths) {
+            this.routedPaths = routedPaths;
+        }
+
+        public long getForwardTimeoutMs() {
+            return forwardTimeoutMs;
+        }
+
+        public void setForwardTimeoutMs(long forwardTimeoutMs) {
+            this.forwardTimeoutMs = forwardTimeoutMs;
+        }
+
+        public int getMaxForwardBodyBytes() {
+            return maxForwardBodyBytes;
+        }
+
+        public void setMaxForwardBodyBytes(int maxForwardBodyBytes) {
+            this.maxForwardBodyBytes = maxForwardBodyBytes;
+        }
+    }
+
+    /**
+     * KieSession池配置
+     */
+    public static class SessionPool {
+
+        /**
+         * 每个容器代次预创建的最少会话数；新代次按上一代次观测到的并发峰值预创建，不低于该值
+         */
+        private int minIdle = 2;
+
+        /**
+         * 同一容器代次同时借出的最大会话数，0表示不限制
+         */
+        private int maxActive = 64;
+
+        /**
+         * 会话全部借出时的最长等待时间（毫秒）
+         */
+        private long borrowTimeoutMs = 5000L;
+
+        /**
+         * 会话借出超过该时间（毫秒）未归还时判定为泄漏
+         */
+        private long leakThresholdMs = 30000L;
+
+        /**
+         * 泄漏检测间隔（毫秒）
+         */
+        private long leakCheckIntervalMs = 10000L;
+
+        /**
+         * 借出时是否记录调用栈，便于定位泄漏位置；开启后借出开销增加
+         */
+        private boolean captureBorrowStack = false;
+
+        public int getMinIdle() {
+            return minIdle;
+        }
+
+        public void setMinIdle(int minIdle) {
+            this.minIdle = minIdle;
+        }
+
+        public int getMaxActive() {
+            return maxActive;
+        }
+
+        public void setMaxActive(int maxActive) {
+            this.maxActive = maxActive;
+        }
+
+        public long getBorrowTimeoutMs() {
+            return borrowTimeoutMs;
+        }
+
+        public void setBorrowTimeoutMs(long borrowTimeoutMs) {
+            this.borrowTimeoutMs = borrowTimeoutMs;
+        }
+
+        public long getLeakThresholdMs() {
+            return leakThresholdMs;
+        }
+
+        public void setLeakThresholdMs(long leakThresholdMs) {
+            this.leakThresholdMs = leakThresholdMs;
+        }
+
+        public long getLeakCheckIntervalMs() {
+            return leakCheckIntervalMs;
+        }
+
+        public void setLeakCheckIntervalMs(long leakCheckIntervalMs) {
+            this.leakCheckIntervalMs = leakCheckIntervalMs;
+        }
+
+        public boolean isCaptureBorrowStack() {
+            return captureBorrowStack;
+        }
+
+        public void setCaptureBorrowStack(boolean captureBorrowStack) {
+            this.captureBorrowStack = captureBorrowStack;
+        }
+    }
+
+    /**
+     * 规则族配置
+     */
+    public static class Family {
+
+        static final Family DEFAULTS = new Family();
+
+        /**
+         * 是否使用顺序模式（SequentialOption.YES）评估该规则族
+         * 顺序模式下规则按显著性和定义顺序各执行一次，不因事实修改重新匹配，仅适用于无状态评估；
+         * 启用后规则族构建为独立的KieBase
+         */
+        private boolean sequential = false;
+
+        /**
+         * 规则族对应的议程组（可选）
+         * 设置后评估该规则族时只让该议程组获得焦点，议程组执行完即停止，不对其他规则求值；
+         * 规则族中的规则需在DRL中声明 agenda-group，与此处一致，否则退回到按规则名称过滤
+         */
+        private String agendaGroup;
+
+        /**
+         * 是否使用首个匹配模式，适用于规则互斥的规则族（如按价格区间划分的优惠规则）
+         * 启用后评估在第一条规则触发后即停止，其余规则不再求值；多条规则可能同时匹配时按显著性决定哪条先触发
+         */
+        private boolean firstMatch = false;
+
+        /**
+         * 是否为纯规则族：评估结果只取决于提交的事实和规则本身，不读取全局变量、外部服务或当前时间，RHS也没有外部副作用
+         * 启用后相同事实在同一容器代次上的评估结果会被缓存（drools.evaluation.decision-cache-*）
+         */
+        private boolean pure = false;
+
+        /**
+         * 是否尝试将规则族编译为决策索引
+         * 规则都是同一属性与字面量比较的单模式规则、取值范围互不相交且RHS只调用setter时，评估直接在索引上查找，
+         * 不使用Drools会话；不满足条件的规则族和无法证明等价的请求仍由Drools执行
+         */
+        private boolean decisionIndex = false;
+
+        /**
+         * 是否使用多线程评估（MultithreadEvaluationOption.YES），适用于单次评估插入大量事实的规则族
+         * 启用后规则族构建为独立的KieBase，Rete网络按分区在多个线程上求值和触发。规则使用议程组、激活组、显著性或查询，
+         * 或规则族使用顺序模式、首个匹配模式时不能启用；Rete网络无法分区（如只有一个可用处理器）时Drools按单线程执行。
+         * 多线程评估时RHS在多个线程上执行，触发顺序不确定，触发次数上限对每个分区分别生效
+         */
+        private boolean multithread = false;
+
+        public boolean isSequential() {
+            return sequential;
+        }
+
+        public void setSequential(boolean sequential) {
+            this.sequential = sequential;
+        }
+
+        public String getAgendaGroup() {
+            return agendaGroup;
+        }
+
+        public void setAgendaGroup(String agendaGroup) {
+            this.agendaGroup = agendaGroup;
+        }
+
+        public boolean isFirstMatch() {
+            return firstMatch;
+        }
+
+        public void setFirstMatch(boolean firstMatch) {
+            this.firstMatch = firstMatch;
+        }
+
+        public boolean isPure() {
+            return pure;
+        }
+
+        public void setPure(boolean pure) {
+            this.pure = pure;
+        }
+
+        public boolean isDecisionIndex() {
+            return decisionIndex;
+        }
+
+        public void setDecisionIndex(boolean decisionIndex) {
+            this.decisionIndex = decisionIndex;
+        }
+
+        public boolean isMultithread() {
+            return multithread;
+        }
+
+        public void setMultithread(boolean multithread) {
+            this.multithread = multithread;
+        }
+    }
+
+    /**
+     * 规则评估接口配置
+     */
+    public static class Evaluation {
+
+        /**
+         * 允许作为事实提交的类型，键为请求中使用的类型名，值为全限定类名；未列出的类型一律拒绝
+         */
+        private Map<String, String> factTypes = new LinkedHashMap<>(Map.of(
+                "Order", "com.example.drools.entity.Order",
+                "Student", "com.example.drools.entity.Student"));
+
+        /**
+         * 单次评估允许提交的事实数量上限，0表示不限制
+         */
+        private int maxFacts = 1000;
+
+        /**
+         * 批量评估允许提交的事实组数量上限，0表示不限制
+         */
+        private int maxBatchGroups = 10000;
+
+        /**
+         * 批量评估的并行度（工作线程数），0表示使用可用处理器数
+         */
+        private int parallelism = 0;
+
+        /**
+         * 批量评估每个分区至少包含的事实组数量，事实组较少时减少分区，避免线程切换开销超过收益
+         */
+        private int minPartitionSize = 64;
+
+        /**
+         * 单组事实的规则执行时间上限（毫秒），超过时由看门狗停止执行并返回部分结果，0表示不限制
+         */
+        private long timeoutMs = 5000L;
+
+        /**
+         * 单组事实的规则触发次数上限，达到时停止执行并返回部分结果，0表示不限制
+         */
+        private int maxFirings = 10000;
+
+        /**
+         * 看门狗检查执行时间的间隔（毫秒），决定超时停止的精度
+         */
+        private long watchdogIntervalMs = 10L;
+
+        /**
+         * 纯规则族评估结果缓存的条目数量上限，按最近使用淘汰，0表示不缓存
+         */
+        private int decisionCacheSize = 10000;
+
+        /**
+         * 纯规则族评估结果缓存条目的有效期（毫秒），0表示只在容器代次切换或被淘汰时失效
+         */
+        private long decisionCacheTtlMs = 60000L;
+
+        /**
+         * 列式评估单次请求的行数上限，0表示不限制
+         */
+        private int maxColumnarRows = 1000000;
+
+        /**
+         * 按键分片评估使用的分片键，键为事实类型名，值为事实类的属性名
+         * 请求启用分片时事实按分片键的取值分组，每组在独立的会话中并行评估，不同分片的事实之间不会匹配
+         */
+        private Map<String, String> shardKeys = new LinkedHashMap<>();
+
+        public Map<String, String> getFactTypes() {
+            return factTypes;
+        }
+
+        public void setFactTypes(Map<String, String> factTypes) {
+            this.factTypes = factTypes;
+        }
+
+        public int getMaxFacts() {
+            return maxFacts;
+        }
+
+        public void setMaxFacts(int maxFacts) {
+            this.maxFacts = maxFacts;
+        }
+
+        public int getMaxBatchGroups() {
+            return maxBatchGroups;
+        }
+
+        public void setMaxBatchGroups(int maxBatchGroups) {
+            this.maxBatchGroups = maxBatchGroups;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getMinPartitionSize() {
+            return minPartitionSize;
+        }
+
+        public void setMinPartitionSize(int minPartitionSize) {
+            this.minPartitionSize = minPartitionSize;
+        }
+
+        public long getTimeoutMs() {
+            return timeoutMs;
+        }
+
+        public void setTimeoutMs(long timeoutMs) {
+            this.timeoutMs = timeoutMs;
+        }
+
+        public int getMaxFirings() {
+            return maxFirings;
+        }
+
+        public void setMaxFirings(int maxFirings) {
+            this.maxFirings = maxFirings;
+        }
+
+        public long getWatchdogIntervalMs() {
+            return watchdogIntervalMs;
+        }
+
+        public void setWatchdogIntervalMs(long watchdogIntervalMs) {
+            this.watchdogIntervalMs = watchdogIntervalMs;
+        }
+
+        public int getDecisionCacheSize() {
+            return decisionCacheSize;
+        }
+
+        public void setDecisionCacheSize(int decisionCacheSize) {
+            this.decisionCacheSize = decisionCacheSize;
+        }
+
+        public long getDecisionCacheTtlMs() {
+            return decisionCacheTtlMs;
+        }
+
+        public void setDecisionCacheTtlMs(long decisionCacheTtlMs) {
+            this.decisionCacheTtlMs = decisionCacheTtlMs;
+        }
+
+        public int getMaxColumnarRows() {
+            return maxColumnarRows;
+        }
+
+        public void setMaxColumnarRows(int maxColumnarRows) {
+            this.maxColumnarRows = maxColumnarRows;
+        }
+
+        public Map<String, String> getShardKeys() {
+            return shardKeys;
+        }
+
+        public void setShardKeys(Map<String, String> shardKeys) {
+            this.shardKeys = shardKeys;
+        }
+
+        /**
+         * 获取实际使用的并行度
+         *
+         * @return 并行度，未配置时为可用处理器数
+         */
+        public int resolveParallelism() {
+            return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    /**
+     * 规则测试配置
+     */
+    public static class RuleTest {
+
+        /**
+         * 缓存的已编译测试容器数量上限，按最近使用淘汰，0表示不缓存
+         */
+        private int containerCacheSize = 32;
+
+        public int getContainerCacheSize() {
+            return containerCacheSize;
+        }
+
+        public void setContainerCacheSize(int containerCacheSize) {
+            this.containerCacheSize = containerCacheSize;
+        }
+    }
+}
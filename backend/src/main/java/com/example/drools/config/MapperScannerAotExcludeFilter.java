@@ -0,0 +1,21 @@
+package com.example.drools.config;
+
+import org.mybatis.spring.mapper.MapperScannerConfigurer;
+import org.springframework.beans.factory.aot.BeanRegistrationExcludeFilter;
+import org.springframework.beans.factory.support.RegisteredBean;
+
+/**
+ * Spring AOT 排除过滤器
+ * Mapper 的 Bean 定义已在 AOT 预处理阶段生成，运行时不能再执行 MapperScannerConfigurer 重复扫描，
+ * 否则会与预生成的 MapperFactoryBean 定义冲突
+ *
+ * @author System
+ * @since 1.0.0
+ */
+class MapperScannerAotExcludeFilter implements BeanRegistrationExcludeFilter {
+
+    @Override
+    public boolean isExcludedFromAotProcessing(RegisteredBean registeredBean) {
+        return MapperScannerConfigurer.class.isAssignableFrom(registeredBean.getBeanClass());
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.drools.config;
+
+import org.mybatis.spring.SqlSessionTemplate;
+import org.mybatis.spring.mapper.MapperFactoryBean;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.ClassUtils;
+
+/**
+ * MyBatis Spring AOT 支持配置
+ * 供 fast-start 构建（Spring AOT 预处理）使用，普通启动时对 Mapper 的装配结果与原先一致
+ *
+ * @author System
+ * @since 1.0.0
+ */
+@Configuration(proxyBeanMethods = false)
+public class MyBatisAotConfig {
+
+    /**
+     * 解析 MapperFactoryBean 的 Mapper 接口类型
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static MapperFactoryBeanPostProcessor mapperFactoryBeanPostProcessor() {
+        return new MapperFactoryBeanPostProcessor();
+    }
+
+    /**
+     * 扫描器注册的 MapperFactoryBean 定义只以字符串保存 Mapper 接口名，泛型类型无法解析。
+     * AOT 生成代码前将构造参数替换为 Class 并设置带泛型的目标类型，生成的 Bean 定义才能按类型注入。
+     * 同时，AOT 生成的 Bean 定义不支持按类型自动装配属性，需要显式引用 SqlSessionTemplate。
+     */
+    static class MapperFactoryBeanPostProcessor implements MergedBeanDefinitionPostProcessor {
+
+        @Override
+        public void postProcessMergedBeanDefinition(RootBeanDefinition beanDefinition, Class<?> beanType, String beanName) {
+            if (!beanDefinition.hasBeanClass() || !MapperFactoryBean.class.isAssignableFrom(beanDefinition.getBeanClass())) {
+                return;
+            }
+            if (!beanDefinition.getResolvableType().hasUnresolvableGenerics()) {
+                return;
+            }
+
+            Class<?> mapperInterface = getMapperInterface(beanDefinition);
+            if (mapperInterface != null) {
+                ConstructorArgumentValues constructorArgumentValues = new ConstructorArgumentValues();
+                constructorArgumentValues.addGenericArgumentValue(mapperInterface);
+                beanDefinition.setConstructorArgumentValues(constructorArgumentValues);
+                beanDefinition.setTargetType(
+                        ResolvableType.forClassWithGenerics(beanDefinition.getBeanClass(), mapperInterface));
+            }
+
+            if (beanDefinition.getResolvedAutowireMode() == AutowireCapableBeanFactory.AUTOWIRE_BY_TYPE) {
+                beanDefinition.getPropertyValues().add("sqlSessionTemplate",
+                        new RuntimeBeanReference(SqlSessionTemplate.class));
+                beanDefinition.setAutowireMode(AutowireCapableBeanFactory.AUTOWIRE_NO);
+            }
+        }
+
+        private Class<?> getMapperInterface(RootBeanDefinition beanDefinition) {
+            Object value = beanDefinition.getPropertyValues().get("mapperInterface");
+            if (value instanceof Class<?> mapperInterface) {
+                return mapperInterface;
+            }
+            if (value instanceof String className) {
+                return ClassUtils.resolveClassName(className, getClass().getClassLoader());
+            }
+            return null;
+        }
+    }
+}
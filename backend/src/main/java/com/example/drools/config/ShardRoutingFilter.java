@@ -0,0 +1,268 @@
+package com.example.drools.config;
+
+import com.example.drools.dto.ApiResponse;
+import com.example.drools.entity.ClusterNode;
+import com.example.drools.entity.DroolsRule;
+import com.example.drools.service.ClusterMembershipService;
+import com.example.drools.service.RuleContainerRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 租户分片路由过滤器
+ * 启用集群分片时，对配置的评估类请求按租户ID（请求参数 tenantId 或请求头 X-Tenant-Id）查找所属节点，
+ * 不属于本节点的请求原样转发到所属节点并返回其响应。
+ * <p>
+ * 转发的请求带有 X-Drools-Forwarded 头，接收节点不再二次转发；所属节点无法连接时在本节点处理（按需加载租户容器）。
+ * 所属节点已接收请求但未在超时时间内响应时返回504，不在本节点重复处理。
+ * 转发需要缓存完整的请求体，流式请求（application/x-ndjson）即使匹配路由路径也不转发；
+ * 请求体超过上限时同样不转发，已读取的部分与剩余的请求体一起交给本节点处理。
+ * 只路由存在的租户，其他租户ID由本节点处理（返回租户不存在），不会产生按租户标记的指标。
+ *
+ * @author System
+ * @since 1.0.0
+ */
+@Component
+public class ShardRoutingFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardRoutingFilter.class);
+
+    public static final String TENANT_HEADER = "X-Tenant-Id";
+    public static final String FORWARDED_HEADER = "X-Drools-Forwarded";
+
+    // 不随转发复制的请求/响应头
+    private static final Set<String> EXCLUDED_HEADERS = Set.of(
+            "host", "connection", "content-length", "transfer-encoding", "keep-alive", "upgrade", "expect",
+            "te", "trailer", "proxy-connection", "http2-settings");
+
+    private final ClusterMembershipService clusterMembershipService;
+    private final RuleContainerRegistry ruleContainerRegistry;
+    private final DroolsProperties.Cluster clusterProperties;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final HttpClient httpClient;
+
+    public ShardRoutingFilter(ClusterMembershipService clusterMembershipService,
+                              RuleContainerRegistry ruleContainerRegistry,
+                              DroolsProperties droolsProperties,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry) {
+        this.clusterMembershipService = clusterMembershipService;
+        this.ruleContainerRegistry = ruleContainerRegistry;
+        this.clusterProperties = droolsProperties.getCluster();
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(clusterProperties.getForwardTimeoutMs()))
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!clusterMembershipService.isEnabled() || request.getHeader(FORWARDED_HEADER) != null) {
+            return true;
+        }
+        String contentType = request.getContentType();
+        if (contentType != null && contentType.startsWith(MediaType.APPLICATION_NDJSON_VALUE)) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return clusterProperties.getRoutedPaths().stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String tenantId = resolveTenantId(request);
+        ClusterNode owner = ruleContainerRegistry.isKnownTenant(tenantId)
+                ? clusterMembershipService.findRemoteOwner(tenantId) : null;
+        if (owner == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        int maxBodyBytes = clusterProperties.getMaxForwardBodyBytes();
+        if (request.getContentLengthLong() > maxBodyBytes) {
+            countForward(tenantId, "oversized");
+            filterChain.doFilter(request, response);
+            return;
+        }
+        InputStream input = request.getInputStream();
+        byte[] body = input.readNBytes(maxBodyBytes + 1);
+        if (body.length > maxBodyBytes) {
+            // 未声明长度的请求体超过上限，连同剩余部分在本节点处理
+            countForward(tenantId, "oversized");
+            InputStream remaining = new SequenceInputStream(new ByteArrayInputStream(body), input);
+            filterChain.doFilter(new CachedBodyRequest(request, remaining), response);
+            return;
+        }
+        try {
+            forward(request, body, owner, response);
+            countForward(tenantId, "forwarded");
+        } catch (ConnectException | HttpConnectTimeoutException e) {
+            logger.warn("转发请求到节点 {} 失败，在本节点处理: 租户 {} - {}", owner.getNodeId(), tenantId, e.getMessage());
+            countForward(tenantId, "fallback");
+            filterChain.doFilter(new CachedBodyRequest(request, new ByteArrayInputStream(body)), response);
+        } catch (HttpTimeoutException e) {
+            // 所属节点可能仍在处理该请求，本节点不再处理
+            logger.warn("等待节点 {} 响应超时: 租户 {} - {}", owner.getNodeId(), tenantId, e.getMessage());
+            countForward(tenantId, "timeout");
+            writeError(response, HttpStatus.GATEWAY_TIMEOUT, "等待节点 " + owner.getNodeId() + " 响应超时");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            countForward(tenantId, "failed");
+            writeError(response, HttpStatus.BAD_GATEWAY, "转发请求被中断");
+        } catch (IOException e) {
+            logger.error("转发请求到节点 {} 失败: 租户 {}", owner.getNodeId(), tenantId, e);
+            countForward(tenantId, "failed");
+            writeError(response, HttpStatus.BAD_GATEWAY, "转发请求到节点 " + owner.getNodeId() + " 失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 将请求转发到所属节点，并把响应写回客户端
+     */
+    private void forward(HttpServletRequest request, byte[] body, ClusterNode owner, HttpServletResponse response)
+            throws IOException, InterruptedException {
+        String target = owner.getBaseUrl() + request.getRequestURI()
+                + (request.getQueryString() != null ? "?" + request.getQueryString() : "");
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(target))
+                .timeout(Duration.ofMillis(clusterProperties.getForwardTimeoutMs()))
+                .method(request.getMethod(), body.length > 0
+                        ? HttpRequest.BodyPublishers.ofByteArray(body) : HttpRequest.BodyPublishers.noBody());
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (!EXCLUDED_HEADERS.contains(name.toLowerCase())) {
+                for (String value : Collections.list(request.getHeaders(name))) {
+                    builder.header(name, value);
+                }
+            }
+        }
+        builder.header(FORWARDED_HEADER, clusterMembershipService.getLocalNodeId());
+
+        logger.debug("转发请求到节点 {}: {} {}", owner.getNodeId(), request.getMethod(), target);
+        HttpResponse<byte[]> forwarded = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        response.setStatus(forwarded.statusCode());
+        forwarded.headers().map().forEach((name, values) -> {
+            if (!EXCLUDED_HEADERS.contains(name.toLowerCase()) && !name.startsWith(":")) {
+                values.forEach(value -> response.addHeader(name, value));
+            }
+        });
+        response.setContentLength(forwarded.body().length);
+        response.getOutputStream().write(forwarded.body());
+    }
+
+    private String resolveTenantId(HttpServletRequest request) {
+        String tenantId = request.getParameter("tenantId");
+        if (!StringUtils.hasText(tenantId)) {
+            tenantId = request.getHeader(TENANT_HEADER);
+        }
+        return StringUtils.hasText(tenantId) ? tenantId.trim() : DroolsRule.DEFAULT_TENANT;
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(),
+                new ApiResponse<>(status.value(), message, null, false));
+    }
+
+    private void countForward(String tenantId, String result) {
+        Counter.builder("drools.cluster.forwards")
+                .tag("tenant", tenantId)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 请求体已被读取后，为本地处理重新提供请求体
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final ServletInputStream inputStream;
+
+        CachedBodyRequest(HttpServletRequest request, InputStream body) {
+            super(request);
+            this.inputStream = new ServletInputStream() {
+                private boolean finished = false;
+
+                @Override
+                public boolean isFinished() {
+                    return finished;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // 请求体已读取（或剩余部分可阻塞读取），立即通知可读并结束
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() throws IOException {
+                    int value = body.read();
+                    finished = value < 0;
+                    return value;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int read = body.read(b, off, len);
+                    finished = read < 0;
+                    return read;
+                }
+            };
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return inputStream;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.drools.controller;
+
+import com.example.drools.dto.ApiResponse;
+import com.example.drools.dto.ClusterStatus;
+import com.example.drools.dto.RuleFamilyStatus;
+import com.example.drools.dto.TenantContainerStatus;
+import com.example.drools.entity.DroolsRule;
+import com.example.drools.service.ClusterMembershipService;
+import com.example.drools.service.ContainerHealthProbe;
+import com.example.drools.service.ContainerHealthStatus;
+import com.example.drools.service.RuleContainerRegistry;
+import com.example.drools.service.RuleFamily;
+import com.example.drools.service.TenantRuleContainer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Drools容器控制器
+ * 提供容器运行状态相关的REST API
+ *
+ * @author System
+ * @since 1.0.0
+ */
+@RestController
+@RequestMapping("/api/rules/container")
+public class DroolsContainerController {
+
+    @Autowired
+    private ContainerHealthProbe containerHealthProbe;
+
+    @Autowired
+    private RuleContainerRegistry ruleContainerRegistry;
+
+    @Autowired
+    private ClusterMembershipService clusterMembershipService;
+
+    /**
+     * 获取容器健康状态
+     * 返回后台探测的缓存快照，不加锁也不创建KieSession，可被高频调用
+     *
+     * @return 容器健康状态
+     */
+    @GetMapping("/health")
+    public ResponseEntity<ApiResponse<ContainerHealthStatus>> getContainerHealth() {
+        ContainerHealthStatus status = containerHealthProbe.getContainerHealthStatus();
+
+        if (status.isFullyOperational()) {
+            return ResponseEntity.ok(ApiResponse.success(status.getStatusSummary(), status));
+        }
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new ApiResponse<>(503, status.getStatusMessage(), status, false));
+    }
+
+    /**
+     * 获取各租户容器的状态
+     *
+     * @return 租户容器状态列表
+     */
+    @GetMapping("/tenants")
+    public ResponseEntity<ApiResponse<List<TenantContainerStatus>>> getTenantContainers() {
+        List<TenantContainerStatus> statuses = ruleContainerRegistry.getAllContainers().stream()
+                .map(TenantRuleContainer::getStatus)
+                .sorted(Comparator.comparing(TenantContainerStatus::getTenantId))
+                .toList();
+        return ResponseEntity.ok(ApiResponse.success(statuses));
+    }
+
+    /**
+     * 获取租户当前容器代次中各规则族的执行方式，包括能否使用多线程评估及原因
+     * 租户容器未加载时先加载
+     *
+     * @param tenantId 租户ID，未提供时使用默认租户
+     * @return 按名称排序的规则族状态列表
+     */
+    @GetMapping("/families")
+    public ResponseEntity<ApiResponse<List<RuleFamilyStatus>>> getRuleFamilies(
+            @RequestParam(defaultValue = DroolsRule.DEFAULT_TENANT) String tenantId) {
+        List<RuleFamilyStatus> statuses = ruleContainerRegistry.getActiveGeneration(tenantId).getFamilies().values()
+                .stream()
+                .map(RuleFamily::getStatus)
+                .sorted(Comparator.comparing(RuleFamilyStatus::getFamily))
+                .toList();
+        return ResponseEntity.ok(ApiResponse.success(statuses));
+    }
+
+    /**
+     * 获取集群分片状态，包括存活节点及各租户的所属节点
+     *
+     * @return 集群分片状态
+     */
+    @GetMapping("/cluster")
+    public ResponseEntity<ApiResponse<ClusterStatus>> getClusterStatus() {
+        ClusterStatus status = clusterMembershipService.getClusterStatus(ruleContainerRegistry.getEnabledTenantIds());
+        return ResponseEntity.ok(ApiResponse.success(status));
+    }
+}
@@ -4,13 +4,17 @@ import com.example.drools.dto.ApiResponse;
 import com.example.drools.dto.TestResult;
 import com.example.drools.dto.TestRuleRequest;
 import com.example.drools.dto.ValidateRuleRequest;
+import com.example.drools.entity.DroolsRule;
 import com.example.drools.entity.Order;
 import com.example.drools.service.DroolsContainerService;
 import com.example.drools.service.DroolsRuleService;
 import com.example.drools.service.DroolsRuleTestService;
+import com.example.drools.service.PooledKieSession;
+import com.example.drools.service.RuleFamily;
 import com.example.drools.service.ValidationResult;
 import org.drools.core.base.RuleNameStartsWithAgendaFilter;
 import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.AgendaGroup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,6 +24,8 @@ import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Drools规则测试控制器
  * 专门处理规则测试相关的REST API
@@ -33,6 +39,9 @@ public class DroolsRuleTestController {
 
     private static final Logger logger = LoggerFactory.getLogger(DroolsRuleTestController.class);
 
+    // 演示使用的订单优惠规则族
+    private static final String ORDER_DISCOUNT_FAMILY = "order_discount";
+
     @Autowired
     private DroolsRuleTestService droolsRuleTestService;
 
@@ -42,8 +51,7 @@ public class DroolsRuleTestController {
     private DroolsContainerService containerService;
 
     @GetMapping("/demo")
-    public ResponseEntity<ApiResponse<Void>> demo() {
-        KieSession kieSession = containerService.createKieSession();
+    public ResponseEntity<ApiResponse<Void>> demo(@RequestParam(defaultValue = DroolsRule.DEFAULT_TENANT) String tenantId) {
         //构造订单对象，设置原始价格，由规则引擎根据优惠规则计算优惠后的价格
         Order p = new Order();
         p.setOriginalPrice(10D);
@@ -51,16 +59,29 @@ public class DroolsRuleTestController {
         Order p2 = new Order();
         p2.setOriginalPrice(10D);
 
-        //将数据提供给规则引擎，规则引擎会根据提供的数据进行规则匹配
-        kieSession.insert(p);
-        kieSession.insert(p2);
-
-        //激活规则引擎，如果规则匹配成功则执行规则
-//        new RuleNameEqualsAgendaFilter() 怎么根据这个快速定位到对应的rule ?
-        // 规范话命名，例如使用规则引擎，要求rule_name 必须是 order开头的
-        kieSession.fireAllRules(new RuleNameStartsWithAgendaFilter("order"));
-        //关闭会话
-        kieSession.dispose();
+        //从会话池借出会话，使用完毕后自动归还
+        try (PooledKieSession pooledSession = containerService.borrowKieSession(tenantId)) {
+            KieSession kieSession = pooledSession.getSession();
+
+            //将数据提供给规则引擎，规则引擎会根据提供的数据进行规则匹配
+            kieSession.insert(p);
+            kieSession.insert(p2);
+
+            //激活规则引擎，如果规则匹配成功则执行规则
+            // 只执行订单优惠规则族的规则，规则族按议程组路由时其他规则不会被求值
+            RuleFamily family = pooledSession.getFamily(ORDER_DISCOUNT_FAMILY);
+            if (family != null) {
+                family.fireAllRules(kieSession);
+            } else {
+                // 规则未设置规则族（例如迁移前已存在的规则）时按规则名称前缀执行订单规则，
+                // 订单规则声明了议程组时需要让其获得焦点；只有MAIN议程组的KieBase中不存在该议程组
+                AgendaGroup orderGroup = kieSession.getAgenda().getAgendaGroup(ORDER_DISCOUNT_FAMILY);
+                if (orderGroup != null) {
+                    orderGroup.setFocus();
+                }
+                kieSession.fireAllRules(new RuleNameStartsWithAgendaFilter("order"));
+            }
+        }
 
         logger.info("优惠前原始价格：{}，优惠后价格：{}", p.getOriginalPrice(), p.getRealPrice());
         return ResponseEntity.ok(ApiResponse.success());
@@ -68,44 +89,39 @@ public class DroolsRuleTestController {
 
     /**
      * 执行规则测试
+     * 使用Servlet异步处理，请求线程不等待测试线程池中的规则执行
      *
      * @param request       测试请求
      * @param bindingResult 验证结果
      * @return 测试结果
      */
     @PostMapping
-    public ResponseEntity<ApiResponse<TestResult>> executeTest(
+    public CompletableFuture<ResponseEntity<ApiResponse<TestResult>>> executeTest(
             @RequestBody TestRuleRequest request,
             BindingResult bindingResult) {
 
         logger.info("接收到规则测试请求");
 
-        try {
+        // 验证测试请求的完整性
+        if (!isValidTestRequest(request)) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(ApiResponse.badRequest("必须提供规则ID")));
+        }
 
-            // 验证测试请求的完整性
-            if (!isValidTestRequest(request)) {
-                return ResponseEntity.badRequest()
-                        .body(ApiResponse.badRequest("必须提供规则ID"));
+        // 执行测试
+        return droolsRuleTestService.executeTestAsync(request).handle((result, e) -> {
+            if (e != null) {
+                logger.error("规则测试执行失败", e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(ApiResponse.<TestResult>error("规则测试执行失败: " + e.getMessage()));
             }
 
-            // 执行测试
-            TestResult result = droolsRuleTestService.executeTest(request);
-
             String message = result.getSuccess() ? "规则测试执行成功" : "规则测试执行失败";
             logger.info("规则测试完成: {} - 触发规则数: {}, 执行时间: {}ms",
                     message, result.getFiredRulesCount(), result.getExecutionTime());
 
             return ResponseEntity.ok(ApiResponse.success(message, result));
-
-        } catch (IllegalArgumentException e) {
-            logger.warn("测试请求参数无效: {}", e.getMessage());
-            return ResponseEntity.badRequest()
-                    .body(ApiResponse.badRequest("测试请求参数无效: " + e.getMessage()));
-        } catch (Exception e) {
-            logger.error("规则测试执行失败", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(ApiResponse.error("规则测试执行失败: " + e.getMessage()));
-        }
+        });
     }
 
     /**
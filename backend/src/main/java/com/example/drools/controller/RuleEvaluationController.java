@@ -0,0 +1,136 @@
+package com.example.drools.controller;
+
+import com.example.drools.config.ShardRoutingFilter;
+import com.example.drools.dto.ApiResponse;
+import com.example.drools.dto.BatchEvaluateRequest;
+import com.example.drools.dto.ColumnarEvaluateRequest;
+import com.example.drools.dto.ColumnarEvaluateResponse;
+import com.example.drools.dto.EvaluateRequest;
+import com.example.drools.dto.EvaluateResponse;
+import com.example.drools.entity.DroolsRule;
+import com.example.drools.service.EvaluationOptions;
+import com.example.drools.service.RuleEvaluationService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 规则评估控制器
+ * 在租户当前生效的容器代次上评估提交的事实，供业务系统调用。
+ * 评估、批量评估与列式评估使用Servlet异步处理：请求线程在提交评估后即返回容器，规则在评估线程池中执行，
+ * 完成后再分派写出响应
+ *
+ * @author System
+ * @since 1.0.0
+ */
+@RestController
+@RequestMapping("/api/evaluate")
+public class RuleEvaluationController {
+
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
+    @Autowired
+    private RuleEvaluationService ruleEvaluationService;
+
+    /**
+     * 评估一组事实
+     * 租户ID取自请求参数 tenantId 或请求头 X-Tenant-Id，都未提供时使用默认租户
+     *
+     * @param tenantId 租户ID（请求参数）
+     * @param tenantHeader 租户ID（请求头）
+     * @param request 评估请求
+     * @return 触发的规则和评估后的事实
+     */
+    @PostMapping
+    public CompletableFuture<ResponseEntity<ApiResponse<EvaluateResponse>>> evaluate(
+            @RequestParam(required = false) String tenantId,
+            @RequestHeader(value = ShardRoutingFilter.TENANT_HEADER, required = false) String tenantHeader,
+            @Valid @RequestBody EvaluateRequest request) {
+        return ruleEvaluationService.evaluateAsync(resolveTenantId(tenantId, tenantHeader), request)
+                .thenApply(response -> ResponseEntity.ok(ApiResponse.success(response)));
+    }
+
+    /**
+     * 批量评估相互独立的事实组
+     * 事实组在评估线程池中按分区并行执行，结果与事实组顺序一致
+     *
+     * @param tenantId 租户ID（请求参数）
+     * @param tenantHeader 租户ID（请求头）
+     * @param request 批量评估请求
+     * @return 各事实组的评估结果
+     */
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<ApiResponse<List<EvaluateResponse>>>> evaluateBatch(
+            @RequestParam(required = false) String tenantId,
+            @RequestHeader(value = ShardRoutingFilter.TENANT_HEADER, required = false) String tenantHeader,
+            @Valid @RequestBody BatchEvaluateRequest request) {
+        return ruleEvaluationService.evaluateBatchAsync(resolveTenantId(tenantId, tenantHeader), request)
+                .thenApply(responses -> ResponseEntity.ok(ApiResponse.success(responses)));
+    }
+
+    /**
+     * 按列评估单个事实的事实组
+     * 事实的double属性按列提交，每行一个独立的事实组，返回各规则触发的行与规则修改的属性的输出列；
+     * 只支持启用了决策索引且比较与修改的属性都是double的规则族
+     *
+     * @param tenantId 租户ID（请求参数）
+     * @param tenantHeader 租户ID（请求头）
+     * @param request 列式评估请求
+     * @return 各规则触发的行与输出列
+     */
+    @PostMapping("/columnar")
+    public CompletableFuture<ResponseEntity<ApiResponse<ColumnarEvaluateResponse>>> evaluateColumnar(
+            @RequestParam(required = false) String tenantId,
+            @RequestHeader(value = ShardRoutingFilter.TENANT_HEADER, required = false) String tenantHeader,
+            @Valid @RequestBody ColumnarEvaluateRequest request) {
+        return ruleEvaluationService.evaluateColumnarAsync(resolveTenantId(tenantId, tenantHeader), request)
+                .thenApply(response -> ResponseEntity.ok(ApiResponse.success(response)));
+    }
+
+    /**
+     * 流式评估NDJSON记录
+     * 请求体每行一条记录 {"facts":[...]}，响应逐行写出每条记录的评估结果（分块传输），
+     * 规则族与议程组通过请求参数指定，对所有记录生效
+     *
+     * @param tenantId 租户ID（请求参数）
+     * @param tenantHeader 租户ID（请求头）
+     * @param family 规则族（可选）
+     * @param agendaGroup 议程组（可选）
+     * @param request HTTP请求
+     * @param response HTTP响应
+     * @throws IOException 读写请求或响应失败时抛出
+     */
+    @PostMapping(value = "/stream", consumes = NDJSON_VALUE)
+    public void evaluateStream(
+            @RequestParam(required = false) String tenantId,
+            @RequestHeader(value = ShardRoutingFilter.TENANT_HEADER, required = false) String tenantHeader,
+            @RequestParam(required = false) String family,
+            @RequestParam(required = false) String agendaGroup,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        EvaluationOptions options = EvaluationOptions.defaults()
+                .family(family)
+                .agendaGroup(agendaGroup)
+                .trackFiredRules(true);
+        response.setContentType(NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        ruleEvaluationService.evaluateStream(resolveTenantId(tenantId, tenantHeader), options,
+                request.getInputStream(), response.getOutputStream());
+    }
+
+    private String resolveTenantId(String tenantId, String tenantHeader) {
+        if (StringUtils.hasText(tenantId)) {
+            return tenantId.trim();
+        }
+        return StringUtils.hasText(tenantHeader) ? tenantHeader.trim() : DroolsRule.DEFAULT_TENANT;
+    }
+}
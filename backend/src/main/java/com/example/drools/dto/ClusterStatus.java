@@ -0,0 +1,78 @@
+package com.example.drools.dto;
+
+import com.example.drools.entity.ClusterNode;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 集群分片状态DTO
+ *
+ * @author System
+ * @since 1.0.0
+ */
+public class ClusterStatus {
+
+    /**
+     * 是否启用集群分片
+     */
+    private Boolean enabled;
+
+    /**
+     * 本节点ID
+     */
+    private String localNodeId;
+
+    /**
+     * 存活节点列表
+     */
+    private List<ClusterNode> nodes;
+
+    /**
+     * 租户ID到所属节点ID的映射
+     */
+    private Map<String, String> tenantOwners;
+
+    // Getter and Setter methods
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getLocalNodeId() {
+        return localNodeId;
+    }
+
+    public void setLocalNodeId(String localNodeId) {
+        this.localNodeId = localNodeId;
+    }
+
+    public List<ClusterNode> getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(List<ClusterNode> nodes) {
+        this.nodes = nodes;
+    }
+
+    public Map<String, String> getTenantOwners() {
+        return tenantOwners;
+    }
+
+    public void setTenantOwners(Map<String, String> tenantOwners) {
+        this.tenantOwners = tenantOwners;
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterStatus{" +
+                "enabled=" + enabled +
+                ", localNodeId='" + localNodeId + '\'' +
+                ", nodes=" + nodes +
+                ", tenantOwners=" + tenantOwners +
+                '}';
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.drools.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+import java.util.Map;
+
+/**
+ * 列式规则评估请求DTO
+ * 每行是只包含一个该类型事实的独立事实组，事实的数值属性按列提交，如 {"originalPrice":[120.0,80.5,...]}
+ *
+ * @author System
+ * @since 1.0.0
+ */
+public class ColumnarEvaluateRequest {
+
+    /**
+     * 规则族，规则族需要启用决策索引且可以按列评估
+     */
+    @NotBlank(message = "规则族不能为空")
+    @Size(max = 64, message = "规则族长度不能超过64个字符")
+    @Pattern(regexp = "^[A-Za-z0-9_]*$", message = "规则族只能包含字母、数字和下划线")
+    private String family;
+
+    /**
+     * 事实类型，与配置中的事实类型名称一致
+     */
+    @NotBlank(message = "事实类型不能为空")
+    private String type;
+
+    /**
+     * 属性名到取值的列，各列长度必须相同；包装类型属性用NaN表示null，缺少的列为新建事实的默认值
+     */
+    @NotEmpty(message = "列不能为空")
+    private Map<String, double[]> columns;
+
+    // Getter and Setter methods
+    public String getFamily() {
+        return family;
+    }
+
+    public void setFamily(String family) {
+        this.family = family;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Map<String, double[]> getColumns() {
+        return columns;
+    }
+
+    public void setColumns(Map<String, double[]> columns) {
+        this.columns = columns;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarEvaluateRequest{" +
+                "family='" + family + '\'' +
+                ", type='" + type + '\'' +
+                ", columns=" + (columns != null ? columns.keySet() : null) +
+                '}';
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.drools.dto;
+
+import java.util.Map;
+
+/**
+ * 列式规则评估响应DTO
+ * 行集合按 {@link java.util.BitSet#toLongArray()} 编码：第 i 行对应第 i/64 个字的第 i%64 位，末尾全0的字被省略
+ *
+ * @author System
+ * @since 1.0.0
+ */
+public class ColumnarEvaluateResponse {
+
+    /**
+     * 租户ID
+     */
+    private String tenantId;
+
+    /**
+     * 执行评估的容器代次编号
+     */
+    private Long generation;
+
+    /**
+     * 行数
+     */
+    private Integer rows;
+
+    /**
+     * 规则名称到触发该规则的行
+     */
+    private Map<String, long[]> firedRows;
+
+    /**
+     * 规则动作无法执行（如null拆箱）的行，这些行不算触发，输出列保持输入值
+     */
+    private long[] errorRows;
+
+    /**
+     * 规则修改的属性的输出列，未触发规则的行为输入值
+     */
+    private Map<String, double[]> outputs;
+
+    // Getter and Setter methods
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public Long getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(Long generation) {
+        this.generation = generation;
+    }
+
+    public Integer getRows() {
+        return rows;
+    }
+
+    public void setRows(Integer rows) {
+        this.rows = rows;
+    }
+
+    public Map<String, long[]> getFiredRows() {
+        return firedRows;
+    }
+
+    public void setFiredRows(Map<String, long[]> firedRows) {
+        this.firedRows = firedRows;
+    }
+
+    public long[] getErrorRows() {
+        return errorRows;
+    }
+
+    public void setErrorRows(long[] errorRows) {
+        this.errorRows = errorRows;
+    }
+
+    public Map<String, double[]> getOutputs() {
+        return outputs;
+    }
+
+    public void setOutputs(Map<String, double[]> outputs) {
+        this.outputs = outputs;
+    }
+}
@@ -2,6 +2,7 @@ package com.example.drools.dto;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 
 /**
@@ -19,6 +20,20 @@ public class CreateRuleRequest {
     @Size(max = 255, message = "规则名称长度不能超过255个字符")
     private String ruleName;
 
+    /**
+     * 租户ID（可选，默认为 default），创建后不可修改
+     */
+    @Size(max = 64, message = "租户ID长度不能超过64个字符")
+    @Pattern(regexp = "^[A-Za-z0-9_-]*$", message = "租户ID只能包含字母、数字、下划线和连字符")
+    private String tenantId;
+
+    /**
+     * 规则族（可选），同一规则族的规则一起评估并共享规则族配置
+     */
+    @Size(max = 64, message = "规则族长度不能超过64个字符")
+    @Pattern(regexp = "^[A-Za-z0-9_]*$", message = "规则族只能包含字母、数字和下划线")
+    private String ruleFamily;
+
     /**
      * 规则内容
      */
@@ -67,6 +82,22 @@ public class CreateRuleRequest {
         this.ruleName = ruleName;
     }
 
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public String getRuleFamily() {
+        return ruleFamily;
+    }
+
+    public void setRuleFamily(String ruleFamily) {
+        this.ruleFamily = ruleFamily;
+    }
+
     public String getRuleContent() {
         return ruleContent;
     }
@@ -103,6 +134,8 @@ public class CreateRuleRequest {
     public String toString() {
         return "CreateRuleRequest{" +
                 "ruleName='" + ruleName + '\'' +
+                ", tenantId='" + tenantId + '\'' +
+                ", ruleFamily='" + ruleFamily + '\'' +
                 ", ruleContent='" + ruleContent + '\'' +
                 ", description='" + description + '\'' +
                 ", enabled=" + enabled +
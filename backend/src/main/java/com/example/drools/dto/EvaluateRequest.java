@@ -0,0 +1,134 @@
+package com.example.drools.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 规则评估请求DTO
+ *
+ * @author System
+ * @since 1.0.0
+ */
+public class EvaluateRequest {
+
+    /**
+     * 事实列表
+     */
+    @NotEmpty(message = "事实列表不能为空")
+    private List<@Valid TypedFact> facts;
+
+    /**
+     * 规则族（可选），只评估该规则族的规则
+     */
+    @Size(max = 64, message = "规则族长度不能超过64个字符")
+    @Pattern(regexp = "^[A-Za-z0-9_]*$", message = "规则族只能包含字母、数字和下划线")
+    private String family;
+
+    /**
+     * 议程组（可选），只评估该议程组的规则
+     */
+    @Size(max = 128, message = "议程组长度不能超过128个字符")
+    private String agendaGroup;
+
+    /**
+     * 规则执行后需要读取结果的查询名称（可选）
+     */
+    private List<String> queries;
+
+    /**
+     * 是否按键分片评估（可选），事实按 drools.evaluation.shard-keys 配置的属性取值分组，各组在独立的会话中并行评估
+     */
+    private Boolean sharded;
+
+    /**
+     * 是否使用精简响应（可选），不返回评估后的全部事实，只返回触发的规则名称与ID、outputFields 选择的属性与评估耗时
+     */
+    private Boolean compact;
+
+    /**
+     * 精简响应中返回的事实属性（可选），键为事实类型名，值为属性名列表；未列出的事实类型不返回
+     */
+    private Map<String, List<String>> outputFields;
+
+    // Getter and Setter methods
+    public List<TypedFact> getFacts() {
+        return facts;
+    }
+
+    public void setFacts(List<TypedFact> facts) {
+        this.facts = facts;
+    }
+
+    public String getFamily() {
+        return family;
+    }
+
+    public void setFamily(String family) {
+        this.family = family;
+    }
+
+    public String getAgendaGroup() {
+        return agendaGroup;
+    }
+
+    public void setAgendaGroup(String agendaGroup) {
+        this.agendaGroup = agendaGroup;
+    }
+
+    public List<String> getQueries() {
+        return queries;
+    }
+
+    public void setQueries(List<String> queries) {
+        this.queries = queries;
+    }
+
+    public Boolean getSharded() {
+        return sharded;
+    }
+
+    public void setSharded(Boolean sharded) {
+        this.sharded = sharded;
+    }
+
+    public boolean isSharded() {
+        return Boolean.TRUE.equals(sharded);
+    }
+
+    public Boolean getCompact() {
+        return compact;
+    }
+
+    public void setCompact(Boolean compact) {
+        this.compact = compact;
+    }
+
+    public boolean isCompact() {
+        return Boolean.TRUE.equals(compact);
+    }
+
+    public Map<String, List<String>> getOutputFields() {
+        return outputFields;
+    }
+
+    public void setOutputFields(Map<String, List<String>> outputFields) {
+        this.outputFields = outputFields;
+    }
+
+    @Override
+    public String toString() {
+        return "EvaluateRequest{" +
+                "facts=" + (facts != null ? facts.size() : 0) +
+                ", family='" + family + '\'' +
+                ", agendaGroup='" + agendaGroup + '\'' +
+                ", sharded=" + sharded +
+                ", compact=" + compact +
+                ", queries=" + queries +
+                '}';
+    }
+}
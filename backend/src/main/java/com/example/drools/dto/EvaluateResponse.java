@@ -0,0 +1,172 @@
+package com.example.drools.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 规则评估响应DTO
+ *
+ * @author System
+ * @since 1.0.0
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EvaluateResponse {
+
+    /**
+     * 租户ID
+     */
+    private String tenantId;
+
+    /**
+     * 执行评估的容器代次编号
+     */
+    private Long generation;
+
+    /**
+     * 触发的规则数量
+     */
+    private Integer firedRulesCount;
+
+    /**
+     * 按触发顺序排列的规则名称
+     */
+    private List<String> firedRules;
+
+    /**
+     * 与 firedRules 一一对应的规则ID，只在精简响应中返回，不是由规则表加载的规则为null
+     */
+    private List<Long> firedRuleIds;
+
+    /**
+     * 评估后工作内存中的事实，包括被规则修改的提交事实和规则插入的事实；精简响应中不返回
+     */
+    private List<TypedFact> facts;
+
+    /**
+     * 查询结果，键为查询名称
+     */
+    private Map<String, List<Map<String, Object>>> queryResults;
+
+    /**
+     * 执行被停止的原因（DEADLINE 或 MAX_FIRINGS），正常结束时不返回；被停止时响应为部分结果
+     */
+    private String haltReason;
+
+    /**
+     * 精简响应中按请求选择的事实属性，按事实在工作内存中的顺序排列
+     */
+    private List<TypedFact> outputs;
+
+    /**
+     * 按键分片评估时的分片数量，未分片时不返回
+     */
+    private Integer shards;
+
+    /**
+     * 评估耗时（微秒），包括事实转换与规则执行，批量评估中不返回
+     */
+    private Long executionTimeMicros;
+
+    // Getter and Setter methods
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public Long getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(Long generation) {
+        this.generation = generation;
+    }
+
+    public Integer getFiredRulesCount() {
+        return firedRulesCount;
+    }
+
+    public void setFiredRulesCount(Integer firedRulesCount) {
+        this.firedRulesCount = firedRulesCount;
+    }
+
+    public List<String> getFiredRules() {
+        return firedRules;
+    }
+
+    public void setFiredRules(List<String> firedRules) {
+        this.firedRules = firedRules;
+    }
+
+    public List<Long> getFiredRuleIds() {
+        return firedRuleIds;
+    }
+
+    public void setFiredRuleIds(List<Long> firedRuleIds) {
+        this.firedRuleIds = firedRuleIds;
+    }
+
+    public List<TypedFact> getFacts() {
+        return facts;
+    }
+
+    public void setFacts(List<TypedFact> facts) {
+        this.facts = facts;
+    }
+
+    public Map<String, List<Map<String, Object>>> getQueryResults() {
+        return queryResults;
+    }
+
+    public void setQueryResults(Map<String, List<Map<String, Object>>> queryResults) {
+        this.queryResults = queryResults;
+    }
+
+    public String getHaltReason() {
+        return haltReason;
+    }
+
+    public void setHaltReason(String haltReason) {
+        this.haltReason = haltReason;
+    }
+
+    public List<TypedFact> getOutputs() {
+        return outputs;
+    }
+
+    public void setOutputs(List<TypedFact> outputs) {
+        this.outputs = outputs;
+    }
+
+    public Integer getShards() {
+        return shards;
+    }
+
+    public void setShards(Integer shards) {
+        this.shards = shards;
+    }
+
+    public Long getExecutionTimeMicros() {
+        return executionTimeMicros;
+    }
+
+    public void setExecutionTimeMicros(Long executionTimeMicros) {
+        this.executionTimeMicros = executionTimeMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "EvaluateResponse{" +
+                "tenantId='" + tenantId + '\'' +
+                ", generation=" + generation +
+                ", firedRulesCount=" + firedRulesCount +
+                ", facts=" + (facts != null ? facts.size() : 0) +
+                ", haltReason='" + haltReason + '\'' +
+                ", executionTimeMicros=" + executionTimeMicros +
+                '}';
+    }
+}
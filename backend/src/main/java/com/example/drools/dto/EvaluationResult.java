@@ -0,0 +1,118 @@
+package com.example.drools.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 无状态评估结果DTO
+ * 对应一组事实的评估结果，每组事实在独立的工作内存中执行
+ *
+ * @author System
+ * @since 1.0.0
+ */
+public class EvaluationResult {
+
+    /**
+     * 执行评估的容器代次编号
+     */
+    private Long generation;
+
+    /**
+     * 触发的规则数量
+     */
+    private Integer firedRulesCount;
+
+    /**
+     * 按触发顺序排列的规则名称，仅在要求记录时返回
+     */
+    private List<String> firedRules;
+
+    /**
+     * 与触发规则名称一一对应的规则ID，在执行评估的容器代次上解析，不是由规则表加载的规则为null
+     */
+    private List<Long> firedRuleIds;
+
+    /**
+     * 规则执行后工作内存中的全部事实，包括规则插入的事实
+     */
+    private List<Object> facts;
+
+    /**
+     * 查询结果，键为查询名称，每行为查询声明的变量到值的映射
+     */
+    private Map<String, List<Map<String, Object>>> queryResults;
+
+    /**
+     * 执行被停止的原因（DEADLINE：超过执行时间上限，MAX_FIRINGS：达到触发次数上限），
+     * 正常结束时为null；被停止时其他字段为停止时的部分结果
+     */
+    private String haltReason;
+
+    // Getter and Setter methods
+    public Long getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(Long generation) {
+        this.generation = generation;
+    }
+
+    public Integer getFiredRulesCount() {
+        return firedRulesCount;
+    }
+
+    public void setFiredRulesCount(Integer firedRulesCount) {
+        this.firedRulesCount = firedRulesCount;
+    }
+
+    public List<String> getFiredRules() {
+        return firedRules;
+    }
+
+    public void setFiredRules(List<String> firedRules) {
+        this.firedRules = firedRules;
+    }
+
+    public List<Long> getFiredRuleIds() {
+        return firedRuleIds;
+    }
+
+    public void setFiredRuleIds(List<Long> firedRuleIds) {
+        this.firedRuleIds = firedRuleIds;
+    }
+
+    public List<Object> getFacts() {
+        return facts;
+    }
+
+    public void setFacts(List<Object> facts) {
+        this.facts = facts;
+    }
+
+    public Map<String, List<Map<String, Object>>> getQueryResults() {
+        return queryResults;
+    }
+
+    public void setQueryResults(Map<String, List<Map<String, Object>>> queryResults) {
+        this.queryResults = queryResults;
+    }
+
+    public String getHaltReason() {
+        return haltReason;
+    }
+
+    public void setHaltReason(String haltReason) {
+        this.haltReason = haltReason;
+    }
+
+    @Override
+    public String toString() {
+        return "EvaluationResult{" +
+                "generation=" + generation +
+                ", firedRulesCount=" + firedRulesCount +
+                ", facts=" + (facts != null ? facts.size() : 0) +
+                ", queryResults=" + (queryResults != null ? queryResults.keySet() : null) +
+                ", haltReason='" + haltReason + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.drools.dto;
+
+import java.util.List;
+
+/**
+ * 规则族状态DTO
+ * 描述规则族在租户当前容器代次中的执行方式
+ *
+ * @author System
+ * @since 1.0.0
+ */
+public class RuleFamilyStatus {
+
+    /**
+     * 规则族名称
+     */
+    private String family;
+
+    /**
+     * 规则数量
+     */
+    private Integer rulesCount;
+
+    /**
+     * 路由使用的议程组，不按议程组路由时为空
+     */
+    private String agendaGroup;
+
+    /**
+     * 是否构建了独立KieBase
+     */
+    private Boolean dedicatedKieBase;
+
+    /**
+     * 是否建立了无匹配预过滤
+     */
+    private Boolean prefilter;
+
+    /**
+     * 是否编译为决策索引
+     */
+    private Boolean decisionIndex;
+
+    /**
+     * 配置中是否启用了多线程评估
+     */
+    private Boolean multithreadRequested;
+
+    /**
+     * 是否实际使用多线程评估
+     */
+    private Boolean multithreadEvaluation;
+
+    /**
+     * 不能使用多线程评估的原因，可以使用时为空列表
+     */
+    private List<String> multithreadRestrictions;
+
+    // Getter and Setter methods
+    public String getFamily() {
+        return family;
+    }
+
+    public void setFamily(String family) {
+        this.family = family;
+    }
+
+    public Integer getRulesCount() {
+        return rulesCount;
+    }
+
+    public void setRulesCount(Integer rulesCount) {
+        this.rulesCount = rulesCount;
+    }
+
+    public String getAgendaGroup() {
+        return agendaGroup;
+    }
+
+    public void setAgendaGroup(String agendaGroup) {
+        this.agendaGroup = agendaGroup;
+    }
+
+    public Boolean getDedicatedKieBase() {
+        return dedicatedKieBase;
+    }
+
+    public void setDedicatedKieBase(Boolean dedicatedKieBase) {
+        this.dedicatedKieBase = dedicatedKieBase;
+    }
+
+    public Boolean getPrefilter() {
+        return prefilter;
+    }
+
+    public void setPrefilter(Boolean prefilter) {
+        this.prefilter = prefilter;
+    }
+
+    public Boolean getDecisionIndex() {
+        return decisionIndex;
+    }
+
+    public void setDecisionIndex(Boolean decisionIndex) {
+        this.decisionIndex = decisionIndex;
+    }
+
+    public Boolean getMultithreadRequested() {
+        return multithreadRequested;
+    }
+
+    public void setMultithreadRequested(Boolean multithreadRequested) {
+        this.multithreadRequested = multithreadRequested;
+    }
+
+    public Boolean getMultithreadEvaluation() {
+        return multithreadEvaluation;
+    }
+
+    public void setMultithreadEvaluation(Boolean multithreadEvaluation) {
+        this.multithreadEvaluation = multithreadEvaluation;
+    }
+
+    public List<String> getMultithreadRestrictions() {
+        return multithreadRestrictions;
+    }
+
+    public void setMultithreadRestrictions(List<String> multithreadRestrictions) {
+        this.multithreadRestrictions = multithreadRestrictions;
+    }
+}
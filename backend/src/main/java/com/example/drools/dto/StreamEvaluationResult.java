@@ -0,0 +1,76 @@
+package com.example.drools.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 流式评估的单条结果DTO
+ * 每条输入记录对应一行输出，index 为记录在输入流中的序号（从0开始）；评估失败时只包含错误信息
+ *
+ * @author System
+ * @since 1.0.0
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StreamEvaluationResult {
+
+    /**
+     * 记录序号
+     */
+    private long index;
+
+    /**
+     * 评估结果，失败时为null
+     */
+    private EvaluateResponse result;
+
+    /**
+     * 错误信息，成功时为null
+     */
+    private String error;
+
+    /**
+     * 错误代码，成功时为null
+     */
+    private String errorCode;
+
+    public static StreamEvaluationResult success(long index, EvaluateResponse result) {
+        StreamEvaluationResult line = new StreamEvaluationResult();
+        line.index = index;
+        line.result = result;
+        return line;
+    }
+
+    public static StreamEvaluationResult failure(long index, String error, String errorCode) {
+        StreamEvaluationResult line = new StreamEvaluationResult();
+        line.index = index;
+        line.error = error;
+        line.errorCode = errorCode;
+        return line;
+    }
+
+    // Getter methods
+    public long getIndex() {
+        return index;
+    }
+
+    public EvaluateResponse getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    @Override
+    public String toString() {
+        return "StreamEvaluationResult{" +
+                "index=" + index +
+                ", result=" + result +
+                ", error='" + error + '\'' +
+                ", errorCode='" + errorCode + '\'' +
+                '}';
+    }
+}
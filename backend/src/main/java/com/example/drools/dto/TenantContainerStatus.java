@@ -0,0 +1,149 @@
+package com.example.drools.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * 租户容器状态DTO
+ *
+ * @author System
+ * @since 1.0.0
+ */
+public class TenantContainerStatus {
+
+    /**
+     * 租户ID
+     */
+    private String tenantId;
+
+    /**
+     * 容器是否已加载（未加载表示尚未访问或已被淘汰）
+     */
+    private Boolean loaded;
+
+    /**
+     * 当前生效的容器代次
+     */
+    private Long generation;
+
+    /**
+     * 已加载的规则数量
+     */
+    private Integer loadedRulesCount;
+
+    /**
+     * 当前代次构建完成时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime builtTime;
+
+    /**
+     * 最近访问时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime lastAccessTime;
+
+    /**
+     * 最近一次构建期间分配的堆内存（字节）
+     */
+    private Long lastBuildAllocatedBytes;
+
+    /**
+     * 当前代次会话池已创建的会话数
+     */
+    private Integer pooledSessions;
+
+    /**
+     * 当前代次会话池借出的会话数
+     */
+    private Integer activeSessions;
+
+    // Getter and Setter methods
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public Boolean getLoaded() {
+        return loaded;
+    }
+
+    public void setLoaded(Boolean loaded) {
+        this.loaded = loaded;
+    }
+
+    public Long getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(Long generation) {
+        this.generation = generation;
+    }
+
+    public Integer getLoadedRulesCount() {
+        return loadedRulesCount;
+    }
+
+    public void setLoadedRulesCount(Integer loadedRulesCount) {
+        this.loadedRulesCount = loadedRulesCount;
+    }
+
+    public LocalDateTime getBuiltTime() {
+        return builtTime;
+    }
+
+    public void setBuiltTime(LocalDateTime builtTime) {
+        this.builtTime = builtTime;
+    }
+
+    public LocalDateTime getLastAccessTime() {
+        return lastAccessTime;
+    }
+
+    public void setLastAccessTime(LocalDateTime lastAccessTime) {
+        this.lastAccessTime = lastAccessTime;
+    }
+
+    public Long getLastBuildAllocatedBytes() {
+        return lastBuildAllocatedBytes;
+    }
+
+    public void setLastBuildAllocatedBytes(Long lastBuildAllocatedBytes) {
+        this.lastBuildAllocatedBytes = lastBuildAllocatedBytes;
+    }
+
+    public Integer getPooledSessions() {
+        return pooledSessions;
+    }
+
+    public void setPooledSessions(Integer pooledSessions) {
+        this.pooledSessions = pooledSessions;
+    }
+
+    public Integer getActiveSessions() {
+        return activeSessions;
+    }
+
+    public void setActiveSessions(Integer activeSessions) {
+        this.activeSessions = activeSessions;
+    }
+
+    @Override
+    public String toString() {
+        return "TenantContainerStatus{" +
+                "tenantId='" + tenantId + '\'' +
+                ", loaded=" + loaded +
+                ", generation=" + generation +
+                ", loadedRulesCount=" + loadedRulesCount +
+                ", builtTime=" + builtTime +
+                ", lastAccessTime=" + lastAccessTime +
+                ", lastBuildAllocatedBytes=" + lastBuildAllocatedBytes +
+                ", pooledSessions=" + pooledSessions +
+                ", activeSessions=" + activeSessions +
+                '}';
+    }
+}
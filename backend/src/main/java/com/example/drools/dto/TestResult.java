@@ -1,15 +1,19 @@
 package com.example.drools.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
 /**
  * 规则测试结果DTO
+ * 工作内存快照（resultData）与错误堆栈只在请求诊断信息时返回，未设置的字段不出现在响应中
  * 
  * @author System
  * @since 1.0.0
  */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class TestResult {
 
     /**
@@ -33,7 +37,12 @@ public class TestResult {
     private List<FiredRuleInfo> firedRules;
 
     /**
-     * 测试后的数据状态
+     * 执行测试的容器代次编号，在测试容器中执行时为null
+     */
+    private Long generation;
+
+    /**
+     * 测试后的数据状态，只在请求诊断信息时返回
      */
     private Map<String, Object> resultData;
 
@@ -43,7 +52,7 @@ public class TestResult {
     private String errorMessage;
 
     /**
-     * 错误堆栈跟踪（如果测试失败）
+     * 错误堆栈跟踪（如果测试失败），只在请求诊断信息时返回
      */
     private String stackTrace;
 
@@ -57,6 +66,12 @@ public class TestResult {
      */
     private String executionDetails;
 
+    /**
+     * 规则执行被停止的原因（DEADLINE：超过执行时间上限，MAX_FIRINGS：达到触发次数上限），
+     * 正常结束时为null；被停止时结果为停止时的部分结果
+     */
+    private String haltReason;
+
     // 默认构造函数
     public TestResult() {
         this.testTime = LocalDateTime.now();
@@ -90,6 +105,14 @@ public class TestResult {
         this.success = success;
     }
 
+    public Long getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(Long generation) {
+        this.generation = generation;
+    }
+
     public Long getExecutionTime() {
         return executionTime;
     }
@@ -154,11 +177,20 @@ public class TestResult {
         this.executionDetails = executionDetails;
     }
 
+    public String getHaltReason() {
+        return haltReason;
+    }
+
+    public void setHaltReason(String haltReason) {
+        this.haltReason = haltReason;
+    }
+
     @Override
     public String toString() {
         return "TestResult{" +
                 "success=" + success +
                 ", executionTime=" + executionTime +
+                ", generation=" + generation +
                 ", firedRulesCount=" + firedRulesCount +
                 ", firedRules=" + firedRules +
                 ", resultData=" + resultData +
@@ -166,6 +198,7 @@ public class TestResult {
                 ", stackTrace='" + stackTrace + '\'' +
                 ", testTime=" + testTime +
                 ", executionDetails='" + executionDetails + '\'' +
+                ", haltReason='" + haltReason + '\'' +
                 '}';
     }
 
@@ -25,6 +25,11 @@ public class TestRuleRequest {
      */
     private Boolean verbose;
 
+    /**
+     * 是否返回诊断信息：执行后工作内存中的全部对象（resultData）与失败时的错误堆栈，默认不返回
+     */
+    private Boolean diagnostics;
+
     /**
      * 最大执行时间（毫秒）
      */
@@ -33,6 +38,7 @@ public class TestRuleRequest {
     // 默认构造函数
     public TestRuleRequest() {
         this.verbose = false;
+        this.diagnostics = false;
         this.maxExecutionTime = 30000L; // 默认30秒超时
     }
 
@@ -52,6 +58,18 @@ public class TestRuleRequest {
         this.verbose = verbose;
     }
 
+    public Boolean getDiagnostics() {
+        return diagnostics;
+    }
+
+    public void setDiagnostics(Boolean diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    public boolean isDiagnostics() {
+        return Boolean.TRUE.equals(diagnostics);
+    }
+
     public Long getMaxExecutionTime() {
         return maxExecutionTime;
     }
@@ -73,6 +91,7 @@ public class TestRuleRequest {
         return "TestRuleRequest{" +
                 ", ruleIds=" + ruleIds +
                 ", verbose=" + verbose +
+                ", diagnostics=" + diagnostics +
                 ", maxExecutionTime=" + maxExecutionTime +
                 '}';
     }
@@ -0,0 +1,61 @@
+package com.example.drools.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * 带类型的事实DTO
+ * 请求中 type 为配置允许的事实类型名，data 为该类型的字段；响应中 data 为评估后的事实
+ *
+ * @author System
+ * @since 1.0.0
+ */
+public class TypedFact {
+
+    /**
+     * 事实类型名，对应 drools.evaluation.fact-types 中的键
+     */
+    @NotBlank(message = "事实类型不能为空")
+    private String type;
+
+    /**
+     * 事实字段
+     * 反序列化时按token缓冲，在确定事实类型后直接绑定到事实类，与请求体的格式（JSON、Smile、CBOR）无关
+     */
+    @JsonDeserialize(as = TokenBuffer.class)
+    private Object data;
+
+    public TypedFact() {
+    }
+
+    public TypedFact(String type, Object data) {
+        this.type = type;
+        this.data = data;
+    }
+
+    // Getter and Setter methods
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Object getData() {
+        return data;
+    }
+
+    public void setData(Object data) {
+        this.data = data;
+    }
+
+    @Override
+    public String toString() {
+        return "TypedFact{" +
+                "type='" + type + '\'' +
+                ", data=" + data +
+                '}';
+    }
+}
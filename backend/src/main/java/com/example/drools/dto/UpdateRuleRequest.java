@@ -2,6 +2,7 @@ package com.example.drools.dto;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 
 /**
@@ -19,6 +20,13 @@ public class UpdateRuleRequest {
     @Size(max = 255, message = "规则名称长度不能超过255个字符")
     private String ruleName;
 
+    /**
+     * 规则族（可选），同一规则族的规则一起评估并共享规则族配置
+     */
+    @Size(max = 64, message = "规则族长度不能超过64个字符")
+    @Pattern(regexp = "^[A-Za-z0-9_]*$", message = "规则族只能包含字母、数字和下划线")
+    private String ruleFamily;
+
     /**
      * 规则内容
      */
@@ -66,6 +74,14 @@ public class UpdateRuleRequest {
         this.ruleName = ruleName;
     }
 
+    public String getRuleFamily() {
+        return ruleFamily;
+    }
+
+    public void setRuleFamily(String ruleFamily) {
+        this.ruleFamily = ruleFamily;
+    }
+
     public String getRuleContent() {
         return ruleContent;
     }
@@ -102,6 +118,7 @@ public class UpdateRuleRequest {
     public String toString() {
         return "UpdateRuleRequest{" +
                 "ruleName='" + ruleName + '\'' +
+                ", ruleFamily='" + ruleFamily + '\'' +
                 ", ruleContent='" + ruleContent + '\'' +
                 ", description='" + description + '\'' +
                 ", enabled=" + enabled +
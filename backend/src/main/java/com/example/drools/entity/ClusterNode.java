@@ -0,0 +1,99 @@
+package com.example.drools.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * 集群节点实体类
+ * 对应数据库表 cluster_node，各后端节点定时写入心跳，心跳未过期的节点参与租户分片分配
+ *
+ * @author System
+ * @since 1.0.0
+ */
+@TableName("cluster_node")
+public class ClusterNode {
+
+    /**
+     * 节点ID
+     */
+    @TableId(value = "node_id", type = IdType.INPUT)
+    private String nodeId;
+
+    /**
+     * 节点访问地址，用于转发请求
+     */
+    @TableField("base_url")
+    private String baseUrl;
+
+    /**
+     * 节点启动时间
+     */
+    @TableField("start_time")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime startTime;
+
+    /**
+     * 最近心跳时间
+     */
+    @TableField("heartbeat_time")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime heartbeatTime;
+
+    // 默认构造函数
+    public ClusterNode() {
+    }
+
+    // 带参构造函数
+    public ClusterNode(String nodeId, String baseUrl) {
+        this.nodeId = nodeId;
+        this.baseUrl = baseUrl;
+    }
+
+    // Getter and Setter methods
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public void setBaseUrl(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalDateTime getHeartbeatTime() {
+        return heartbeatTime;
+    }
+
+    public void setHeartbeatTime(LocalDateTime heartbeatTime) {
+        this.heartbeatTime = heartbeatTime;
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterNode{" +
+                "nodeId='" + nodeId + '\'' +
+                ", baseUrl='" + baseUrl + '\'' +
+                ", startTime=" + startTime +
+                ", heartbeatTime=" + heartbeatTime +
+                '}';
+    }
+}
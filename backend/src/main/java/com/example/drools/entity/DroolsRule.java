@@ -15,18 +15,35 @@ import java.time.LocalDateTime;
 @TableName("drools_rule")
 public class DroolsRule {
 
+    /**
+     * 默认租户ID
+     */
+    public static final String DEFAULT_TENANT = "default";
+
     /**
      * 主键ID
      */
     @TableId(type = IdType.AUTO)
     private Long id;
 
+    /**
+     * 租户ID，同一租户的规则加载到同一个容器中
+     */
+    @TableField("tenant_id")
+    private String tenantId;
+
     /**
      * 规则名称，必须唯一
      */
     @TableField("rule_name")
     private String ruleName;
 
+    /**
+     * 规则族（可选），同一规则族的规则一起评估并共享规则族配置
+     */
+    @TableField(value = "rule_family", updateStrategy = FieldStrategy.ALWAYS)
+    private String ruleFamily;
+
     /**
      * 规则内容，DRL格式
      */
@@ -74,6 +91,7 @@ public class DroolsRule {
 
     // 默认构造函数
     public DroolsRule() {
+        this.tenantId = DEFAULT_TENANT;
         this.enabled = true;
         this.version = "1.0";
         this.deleted = 0;
@@ -96,6 +114,14 @@ public class DroolsRule {
         this.id = id;
     }
 
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
     public String getRuleName() {
         return ruleName;
     }
@@ -104,6 +130,14 @@ public class DroolsRule {
         this.ruleName = ruleName;
     }
 
+    public String getRuleFamily() {
+        return ruleFamily;
+    }
+
+    public void setRuleFamily(String ruleFamily) {
+        this.ruleFamily = ruleFamily;
+    }
+
     public String getRuleContent() {
         return ruleContent;
     }
@@ -164,7 +198,9 @@ public class DroolsRule {
     public String toString() {
         return "DroolsRule{" +
                 "id=" + id +
+                ", tenantId='" + tenantId + '\'' +
                 ", ruleName='" + ruleName + '\'' +
+                ", ruleFamily='" + ruleFamily + '\'' +
                 ", ruleContent='" + ruleContent + '\'' +
                 ", description='" + description + '\'' +
                 ", enabled=" + enabled +
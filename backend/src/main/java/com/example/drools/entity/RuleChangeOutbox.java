@@ -0,0 +1,132 @@
+package com.example.drools.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * 规则变更发件箱实体类
+ * 对应数据库表 rule_change_outbox，与规则变更在同一事务中写入，
+ * 事务提交后由后台任务按序号顺序应用到Drools容器
+ *
+ * @author System
+ * @since 1.0.0
+ */
+@TableName("rule_change_outbox")
+public class RuleChangeOutbox {
+
+    /**
+     * 变更类型：创建
+     */
+    public static final String CHANGE_CREATE = "CREATE";
+
+    /**
+     * 变更类型：更新
+     */
+    public static final String CHANGE_UPDATE = "UPDATE";
+
+    /**
+     * 变更类型：启用状态变更
+     */
+    public static final String CHANGE_STATUS = "STATUS";
+
+    /**
+     * 变更类型：删除
+     */
+    public static final String CHANGE_DELETE = "DELETE";
+
+    /**
+     * 主键ID，同时作为变更序号
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 规则ID
+     */
+    @TableField("rule_id")
+    private Long ruleId;
+
+    /**
+     * 变更类型
+     */
+    @TableField("change_type")
+    private String changeType;
+
+    /**
+     * 变更后的规则版本
+     */
+    @TableField("rule_version")
+    private String ruleVersion;
+
+    /**
+     * 创建时间，自动填充
+     */
+    @TableField(value = "create_time", fill = FieldFill.INSERT)
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createTime;
+
+    // 默认构造函数
+    public RuleChangeOutbox() {
+    }
+
+    // 带参构造函数
+    public RuleChangeOutbox(Long ruleId, String changeType, String ruleVersion) {
+        this.ruleId = ruleId;
+        this.changeType = changeType;
+        this.ruleVersion = ruleVersion;
+    }
+
+    // Getter and Setter methods
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getRuleId() {
+        return ruleId;
+    }
+
+    public void setRuleId(Long ruleId) {
+        this.ruleId = ruleId;
+    }
+
+    public String getChangeType() {
+        return changeType;
+    }
+
+    public void setChangeType(String changeType) {
+        this.changeType = changeType;
+    }
+
+    public String getRuleVersion() {
+        return ruleVersion;
+    }
+
+    public void setRuleVersion(String ruleVersion) {
+        this.ruleVersion = ruleVersion;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(LocalDateTime createTime) {
+        this.createTime = createTime;
+    }
+
+    @Override
+    public String toString() {
+        return "RuleChangeOutbox{" +
+                "id=" + id +
+                ", ruleId=" + ruleId +
+                ", changeType='" + changeType + '\'' +
+                ", ruleVersion='" + ruleVersion + '\'' +
+                ", createTime=" + createTime +
+                '}';
+    }
+}
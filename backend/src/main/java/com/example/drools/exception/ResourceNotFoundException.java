@@ -129,6 +129,27 @@ public class ResourceNotFoundException extends RuntimeException {
         return new ResourceNotFoundException("规则", ruleName);
     }
 
+    /**
+     * 创建规则族不存在异常
+     * 
+     * @param tenantId 租户ID
+     * @param family 规则族名称
+     * @return 资源不存在异常
+     */
+    public static ResourceNotFoundException ruleFamilyNotFound(String tenantId, String family) {
+        return new ResourceNotFoundException("规则族", tenantId + "/" + family);
+    }
+
+    /**
+     * 创建租户不存在异常
+     * 
+     * @param tenantId 租户ID
+     * @return 资源不存在异常
+     */
+    public static ResourceNotFoundException tenantNotFound(String tenantId) {
+        return new ResourceNotFoundException("租户", tenantId);
+    }
+
     /**
      * 创建用户不存在异常
      * 
@@ -0,0 +1,48 @@
+package com.example.drools.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.drools.entity.ClusterNode;
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 集群节点数据访问层接口
+ *
+ * @author System
+ * @since 1.0.0
+ */
+@Mapper
+public interface ClusterNodeMapper extends BaseMapper<ClusterNode> {
+
+    /**
+     * 更新节点心跳
+     *
+     * @param nodeId 节点ID
+     * @param baseUrl 节点访问地址
+     * @param heartbeatTime 心跳时间
+     * @return 影响的行数
+     */
+    @Update("UPDATE cluster_node SET base_url = #{baseUrl}, heartbeat_time = #{heartbeatTime} WHERE node_id = #{nodeId}")
+    int updateHeartbeat(@Param("nodeId") String nodeId, @Param("baseUrl") String baseUrl,
+                        @Param("heartbeatTime") LocalDateTime heartbeatTime);
+
+    /**
+     * 查询心跳未过期的节点
+     *
+     * @param since 心跳时间下限
+     * @return 节点列表
+     */
+    @Select("SELECT * FROM cluster_node WHERE heartbeat_time >= #{since} ORDER BY node_id ASC")
+    List<ClusterNode> selectAliveSince(@Param("since") LocalDateTime since);
+
+    /**
+     * 删除心跳早于指定时间的节点
+     *
+     * @param before 时间上限
+     * @return 影响的行数
+     */
+    @Delete("DELETE FROM cluster_node WHERE heartbeat_time < #{before}")
+    int deleteExpiredBefore(@Param("before") LocalDateTime before);
+}
@@ -26,6 +26,23 @@ public interface DroolsRuleMapper extends BaseMapper<DroolsRule> {
     @Select("SELECT * FROM drools_rule WHERE enabled = 1 AND deleted = 0 ORDER BY create_time DESC")
     List<DroolsRule> selectEnabledRules();
 
+    /**
+     * 查询指定租户的所有启用规则
+     * 
+     * @param tenantId 租户ID
+     * @return 启用的规则列表
+     */
+    @Select("SELECT * FROM drools_rule WHERE tenant_id = #{tenantId} AND enabled = 1 AND deleted = 0 ORDER BY create_time DESC")
+    List<DroolsRule> selectEnabledRulesByTenant(@Param("tenantId") String tenantId);
+
+    /**
+     * 查询存在启用规则的租户ID
+     * 
+     * @return 租户ID列表
+     */
+    @Select("SELECT DISTINCT tenant_id FROM drools_rule WHERE enabled = 1 AND deleted = 0")
+    List<String> selectEnabledTenantIds();
+
     /**
      * 查询所有禁用的规则
      * 
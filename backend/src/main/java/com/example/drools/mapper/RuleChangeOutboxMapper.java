@@ -0,0 +1,58 @@
+package com.example.drools.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.drools.entity.RuleChangeOutbox;
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 规则变更发件箱数据访问层接口
+ *
+ * @author System
+ * @since 1.0.0
+ */
+@Mapper
+public interface RuleChangeOutboxMapper extends BaseMapper<RuleChangeOutbox> {
+
+    /**
+     * 按序号顺序查询指定序号之后的变更
+     *
+     * @param afterId 起始序号（不包含）
+     * @param limit 限制数量
+     * @return 变更列表
+     */
+    @Select("SELECT * FROM rule_change_outbox WHERE id > #{afterId} ORDER BY id ASC LIMIT #{limit}")
+    List<RuleChangeOutbox> selectAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 按序号顺序查询指定序号区间内的变更
+     *
+     * @param fromId 起始序号（包含）
+     * @param toId 结束序号（包含）
+     * @param limit 限制数量
+     * @return 变更列表
+     */
+    @Select("SELECT * FROM rule_change_outbox WHERE id BETWEEN #{fromId} AND #{toId} ORDER BY id ASC LIMIT #{limit}")
+    List<RuleChangeOutbox> selectBetween(@Param("fromId") long fromId, @Param("toId") long toId, @Param("limit") int limit);
+
+    /**
+     * 统计指定序号之后的变更数量
+     *
+     * @param afterId 起始序号（不包含）
+     * @return 变更数量
+     */
+    @Select("SELECT COUNT(*) FROM rule_change_outbox WHERE id > #{afterId}")
+    long countAfter(@Param("afterId") long afterId);
+
+    /**
+     * 删除已应用且早于指定时间的变更
+     *
+     * @param maxId 已应用的最大序号
+     * @param before 时间上限
+     * @return 影响的行数
+     */
+    @Delete("DELETE FROM rule_change_outbox WHERE id <= #{maxId} AND create_time < #{before}")
+    int deleteAppliedBefore(@Param("maxId") long maxId, @Param("before") LocalDateTime before);
+}
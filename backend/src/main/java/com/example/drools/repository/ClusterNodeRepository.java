@@ -0,0 +1,68 @@
+package com.example.drools.repository;
+
+import com.example.drools.entity.ClusterNode;
+import com.example.drools.mapper.ClusterNodeMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 集群节点仓储类
+ *
+ * @author System
+ * @since 1.0.0
+ */
+@Repository
+public class ClusterNodeRepository {
+
+    @Autowired
+    private ClusterNodeMapper clusterNodeMapper;
+
+    /**
+     * 写入节点心跳，节点不存在时注册
+     *
+     * @param nodeId 节点ID
+     * @param baseUrl 节点访问地址
+     * @param heartbeatTime 心跳时间
+     */
+    public void heartbeat(String nodeId, String baseUrl, LocalDateTime heartbeatTime) {
+        if (clusterNodeMapper.updateHeartbeat(nodeId, baseUrl, heartbeatTime) == 0) {
+            ClusterNode node = new ClusterNode(nodeId, baseUrl);
+            node.setStartTime(heartbeatTime);
+            node.setHeartbeatTime(heartbeatTime);
+            clusterNodeMapper.insert(node);
+        }
+    }
+
+    /**
+     * 查询心跳未过期的节点
+     *
+     * @param since 心跳时间下限
+     * @return 节点列表，按节点ID排序
+     */
+    public List<ClusterNode> findAliveSince(LocalDateTime since) {
+        return clusterNodeMapper.selectAliveSince(since);
+    }
+
+    /**
+     * 注销节点
+     *
+     * @param nodeId 节点ID
+     * @return 是否删除成功
+     */
+    public boolean deleteById(String nodeId) {
+        return clusterNodeMapper.deleteById(nodeId) > 0;
+    }
+
+    /**
+     * 清理心跳过期的节点
+     *
+     * @param before 时间上限
+     * @return 删除的记录数
+     */
+    public int deleteExpiredBefore(LocalDateTime before) {
+        return clusterNodeMapper.deleteExpiredBefore(before);
+    }
+}
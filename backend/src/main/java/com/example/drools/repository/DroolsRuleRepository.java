@@ -7,6 +7,7 @@ import com.example.drools.mapper.DroolsRuleMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -47,6 +48,19 @@ public class DroolsRuleRepository {
         return droolsRuleMapper.selectById(id);
     }
 
+    /**
+     * 根据ID列表批量查找规则
+     *
+     * @param ids 规则ID列表
+     * @return 规则列表（不包含已删除的规则）
+     */
+    public List<DroolsRule> findByIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return droolsRuleMapper.selectBatchIds(ids);
+    }
+
     /**
      * 根据规则名称查找规则
      * 
@@ -66,6 +80,25 @@ public class DroolsRuleRepository {
         return droolsRuleMapper.selectEnabledRules();
     }
 
+    /**
+     * 查找指定租户的所有启用规则
+     * 
+     * @param tenantId 租户ID
+     * @return 启用的规则列表
+     */
+    public List<DroolsRule> findEnabledRulesByTenant(String tenantId) {
+        return droolsRuleMapper.selectEnabledRulesByTenant(tenantId);
+    }
+
+    /**
+     * 查找存在启用规则的租户ID
+     * 
+     * @return 租户ID列表
+     */
+    public List<String> findEnabledTenantIds() {
+        return droolsRuleMapper.selectEnabledTenantIds();
+    }
+
     /**
      * 查找所有禁用的规则
      * 
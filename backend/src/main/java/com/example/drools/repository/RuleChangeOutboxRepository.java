@@ -0,0 +1,77 @@
+package com.example.drools.repository;
+
+import com.example.drools.entity.RuleChangeOutbox;
+import com.example.drools.mapper.RuleChangeOutboxMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 规则变更发件箱仓储类
+ *
+ * @author System
+ * @since 1.0.0
+ */
+@Repository
+public class RuleChangeOutboxRepository {
+
+    @Autowired
+    private RuleChangeOutboxMapper ruleChangeOutboxMapper;
+
+    /**
+     * 记录一条规则变更
+     *
+     * @param change 变更对象
+     * @return 保存后的变更对象
+     */
+    public RuleChangeOutbox save(RuleChangeOutbox change) {
+        ruleChangeOutboxMapper.insert(change);
+        return change;
+    }
+
+    /**
+     * 按序号顺序查询指定序号之后的变更
+     *
+     * @param afterId 起始序号（不包含）
+     * @param limit 限制数量
+     * @return 变更列表
+     */
+    public List<RuleChangeOutbox> findAfter(long afterId, int limit) {
+        return ruleChangeOutboxMapper.selectAfter(afterId, limit);
+    }
+
+    /**
+     * 按序号顺序查询指定序号区间内的变更
+     *
+     * @param fromId 起始序号（包含）
+     * @param toId 结束序号（包含）
+     * @param limit 限制数量
+     * @return 变更列表
+     */
+    public List<RuleChangeOutbox> findBetween(long fromId, long toId, int limit) {
+        return ruleChangeOutboxMapper.selectBetween(fromId, toId, limit);
+    }
+
+    /**
+     * 统计指定序号之后的变更数量
+     *
+     * @param afterId 起始序号（不包含）
+     * @return 变更数量
+     */
+    public long countAfter(long afterId) {
+        return ruleChangeOutboxMapper.countAfter(afterId);
+    }
+
+    /**
+     * 清理已应用且早于指定时间的变更
+     *
+     * @param maxId 已应用的最大序号
+     * @param before 时间上限
+     * @return 删除的记录数
+     */
+    public int deleteAppliedBefore(long maxId, LocalDateTime before) {
+        return ruleChangeOutboxMapper.deleteAppliedBefore(maxId, before);
+    }
+}
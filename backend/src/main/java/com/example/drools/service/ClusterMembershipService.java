@@ -0,0 +1,197 @@
+package com.example.drools.service;
+
+import com.example.drools.config.DroolsProperties;
+import com.example.drools.dto.ClusterStatus;
+import com.example.drools.entity.ClusterNode;
+import com.example.drools.entity.DroolsRule;
+import com.example.drools.repository.ClusterNodeRepository;
+import com.example.drools.utils.ConsistentHashRing;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 集群成员管理服务
+ * 各节点通过共享数据库中的 cluster_node 表定时心跳，心跳未过期的节点组成一致性哈希环，
+ * 租户按租户ID分配到环上的节点。节点加入、离开或心跳超时时重建哈希环并发布 {@link ShardAssignmentChangedEvent}。
+ * <p>
+ * 默认租户不参与分片，每个节点都会加载。未启用集群分片时，所有租户均由本节点负责。
+ *
+ * @author System
+ * @since 1.0.0
+ */
+@Service
+public class ClusterMembershipService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterMembershipService.class);
+
+    private final ClusterNodeRepository clusterNodeRepository;
+    private final DroolsProperties.Cluster clusterProperties;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final String localNodeId;
+    private final String localBaseUrl;
+
+    // 当前哈希环及存活节点，成员变化时整体替换
+    private volatile ConsistentHashRing ring;
+    private volatile Map<String, ClusterNode> aliveNodes = Map.of();
+
+    public ClusterMembershipService(ClusterNodeRepository clusterNodeRepository,
+                                    DroolsProperties droolsProperties,
+                                    ApplicationEventPublisher applicationEventPublisher,
+                                    @Value("${server.port:8080}") int serverPort) {
+        this.clusterNodeRepository = clusterNodeRepository;
+        this.clusterProperties = droolsProperties.getCluster();
+        this.applicationEventPublisher = applicationEventPublisher;
+
+        String hostName = resolveHostName();
+        this.localNodeId = StringUtils.hasText(clusterProperties.getNodeId())
+                ? clusterProperties.getNodeId() : hostName + ":" + serverPort;
+        this.localBaseUrl = StringUtils.hasText(clusterProperties.getAdvertisedUrl())
+                ? clusterProperties.getAdvertisedUrl() : "http://" + hostName + ":" + serverPort;
+        this.ring = new ConsistentHashRing(List.of(localNodeId), clusterProperties.getVirtualNodes());
+    }
+
+    /**
+     * 启动时注册本节点并构建初始哈希环，确保租户容器初始化时只预加载本节点负责的租户
+     */
+    @PostConstruct
+    public void join() {
+        if (!clusterProperties.isEnabled()) {
+            return;
+        }
+        logger.info("节点加入集群: {} ({})", localNodeId, localBaseUrl);
+        refreshMembership();
+    }
+
+    /**
+     * 定时心跳并刷新存活节点
+     */
+    @Scheduled(fixedDelayString = "${drools.cluster.heartbeat-interval-ms:3000}")
+    public void heartbeat() {
+        if (!clusterProperties.isEnabled()) {
+            return;
+        }
+        try {
+            refreshMembership();
+        } catch (Exception e) {
+            logger.error("集群心跳失败: {}", localNodeId, e);
+        }
+    }
+
+    /**
+     * 写入本节点心跳，读取存活节点，成员变化时重建哈希环
+     */
+    private synchronized void refreshMembership() {
+        LocalDateTime now = LocalDateTime.now();
+        clusterNodeRepository.heartbeat(localNodeId, localBaseUrl, now);
+
+        LocalDateTime aliveSince = now.minusNanos(clusterProperties.getNodeTimeoutMs() * 1_000_000L);
+        Map<String, ClusterNode> nodes = new LinkedHashMap<>();
+        for (ClusterNode node : clusterNodeRepository.findAliveSince(aliveSince)) {
+            nodes.put(node.getNodeId(), node);
+        }
+        aliveNodes = nodes;
+
+        // 长时间未心跳的节点记录直接清理
+        clusterNodeRepository.deleteExpiredBefore(now.minusNanos(clusterProperties.getNodeTimeoutMs() * 10_000_000L));
+
+        ConsistentHashRing previous = ring;
+        if (!previous.getNodes().equals(new ArrayList<>(new TreeSet<>(nodes.keySet())))) {
+            ring = new ConsistentHashRing(nodes.keySet(), clusterProperties.getVirtualNodes());
+            logger.info("集群成员变化，重新分配租户分片: {} -> {}", previous.getNodes(), ring.getNodes());
+            applicationEventPublisher.publishEvent(
+                    new ShardAssignmentChangedEvent(previous.getNodes(), ring.getNodes()));
+        }
+    }
+
+    /**
+     * 判断租户是否由本节点负责
+     *
+     * @param tenantId 租户ID
+     * @return 是否由本节点负责
+     */
+    public boolean isLocal(String tenantId) {
+        if (!clusterProperties.isEnabled() || DroolsRule.DEFAULT_TENANT.equals(tenantId)) {
+            return true;
+        }
+        String owner = ring.nodeFor(tenantId);
+        return owner == null || owner.equals(localNodeId);
+    }
+
+    /**
+     * 获取负责租户的节点
+     *
+     * @param tenantId 租户ID
+     * @return 节点，由本节点负责或所属节点未知时返回null
+     */
+    public ClusterNode findRemoteOwner(String tenantId) {
+        if (isLocal(tenantId)) {
+            return null;
+        }
+        return aliveNodes.get(ring.nodeFor(tenantId));
+    }
+
+    /**
+     * 获取集群分片状态
+     *
+     * @param tenantIds 需要展示归属的租户ID
+     * @return 集群状态
+     */
+    public ClusterStatus getClusterStatus(Collection<String> tenantIds) {
+        ClusterStatus status = new ClusterStatus();
+        status.setEnabled(clusterProperties.isEnabled());
+        status.setLocalNodeId(localNodeId);
+        status.setNodes(List.copyOf(aliveNodes.values()));
+
+        Map<String, String> tenantOwners = new TreeMap<>();
+        for (String tenantId : tenantIds) {
+            tenantOwners.put(tenantId, isLocal(tenantId) ? localNodeId : ring.nodeFor(tenantId));
+        }
+        status.setTenantOwners(tenantOwners);
+        return status;
+    }
+
+    public boolean isEnabled() {
+        return clusterProperties.isEnabled();
+    }
+
+    public String getLocalNodeId() {
+        return localNodeId;
+    }
+
+    /**
+     * 服务销毁时注销本节点，其他节点在下一次心跳时接管本节点负责的租户
+     */
+    @PreDestroy
+    public void leave() {
+        if (!clusterProperties.isEnabled()) {
+            return;
+        }
+        try {
+            clusterNodeRepository.deleteById(localNodeId);
+            logger.info("节点已离开集群: {}", localNodeId);
+        } catch (Exception e) {
+            logger.warn("注销集群节点失败，将在心跳超时后被移除: {}", localNodeId, e);
+        }
+    }
+
+    private static String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.drools.service;
+
+import org.kie.api.definition.KiePackage;
+import org.kie.api.definition.rule.Rule;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.StatelessKieSession;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 容器代次
+ * 每次容器构建成功后生成一个新的不可变代次，读取方无需加锁即可获取当前生效的容器及其会话池
+ *
+ * @author System
+ * @since 1.0.0
+ */
+public final class ContainerGeneration {
+
+    private final long generation;
+    private final KieContainer kieContainer;
+    private final KieSessionPool sessionPool;
+    private final StatelessKieSession statelessSession;
+    private final Map<String, RuleFamily> families;
+    private final List<String> routedAgendaGroups;
+    private final Map<String, Long> ruleIndex;
+    // 规则名称（不含包名）到规则ID，不同包中同名的规则不收录
+    private final Map<String, Long> ruleIdsByName;
+    private final Map<Long, String> ruleVersions;
+    private final List<Long> ruleIds;
+    private final LocalDateTime builtTime;
+
+    /**
+     * 构造函数
+     *
+     * @param generation 代次编号
+     * @param kieContainer 该代次对应的KieContainer
+     * @param sessionPool 该代次的KieSession池
+     * @param statelessSession 该代次共享的无状态会话
+     * @param families 该代次的规则族，键为规则族名称
+     * @param ruleIndex 规则名称到规则ID的索引，键为 包名.规则名
+     * @param ruleVersions 该代次加载的规则ID到规则版本的映射
+     * @param builtTime 构建完成时间
+     */
+    public ContainerGeneration(long generation, KieContainer kieContainer, KieSessionPool sessionPool,
+                               StatelessKieSession statelessSession, Map<String, RuleFamily> families,
+                               Map<String, Long> ruleIndex, Map<Long, String> ruleVersions, LocalDateTime builtTime) {
+        this.generation = generation;
+        this.kieContainer = kieContainer;
+        this.sessionPool = sessionPool;
+        this.statelessSession = statelessSession;
+        this.families = Map.copyOf(families);
+        this.routedAgendaGroups = families.values().stream()
+                .filter(RuleFamily::isRouted)
+                .map(RuleFamily::getAgendaGroup)
+                .distinct()
+                .sorted()
+                .toList();
+        this.ruleIndex = Map.copyOf(ruleIndex);
+        this.ruleIdsByName = indexByRuleName(kieContainer, ruleIndex);
+        this.ruleVersions = Map.copyOf(ruleVersions);
+        this.ruleIds = List.copyOf(ruleVersions.keySet());
+        this.builtTime = builtTime;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public KieContainer getKieContainer() {
+        return kieContainer;
+    }
+
+    public KieSessionPool getSessionPool() {
+        return sessionPool;
+    }
+
+    /**
+     * 获取该代次的无状态会话
+     * 无状态会话线程安全，每次执行内部使用独立的工作内存，可被并发请求共享
+     *
+     * @return 无状态会话
+     */
+    public StatelessKieSession getStatelessSession() {
+        return statelessSession;
+    }
+
+    /**
+     * 获取规则族
+     *
+     * @param family 规则族名称
+     * @return 规则族，该代次没有该规则族的规则时返回null
+     */
+    public RuleFamily getFamily(String family) {
+        return families.get(family);
+    }
+
+    public Map<String, RuleFamily> getFamilies() {
+        return families;
+    }
+
+    /**
+     * 获取按议程组路由的规则族使用的议程组
+     * 评估全部规则时这些议程组需要依次获得焦点，否则其中的规则不会执行
+     *
+     * @return 议程组名称列表
+     */
+    public List<String> getRoutedAgendaGroups() {
+        return routedAgendaGroups;
+    }
+
+    /**
+     * 按规则名称查找规则ID
+     *
+     * @param qualifiedName 包名.规则名
+     * @return 规则ID，不是由规则表加载的规则（如议程组结束规则）返回null
+     */
+    public Long getRuleId(String qualifiedName) {
+        return ruleIndex.get(qualifiedName);
+    }
+
+    /**
+     * 按不含包名的规则名称查找规则ID，评估结果中的触发规则只记录该名称
+     *
+     * @param ruleName 规则名
+     * @return 规则ID，不是由规则表加载的规则或多个包中有同名规则时返回null
+     */
+    public Long getRuleIdByName(String ruleName) {
+        return ruleIdsByName.get(ruleName);
+    }
+
+    private static Map<String, Long> indexByRuleName(KieContainer kieContainer, Map<String, Long> ruleIndex) {
+        Map<String, Long> ruleIdsByName = new HashMap<>();
+        Set<String> ambiguous = new HashSet<>();
+        for (KiePackage kiePackage : kieContainer.getKieBase().getKiePackages()) {
+            for (Rule rule : kiePackage.getRules()) {
+                Long ruleId = ruleIndex.get(RuleFamily.qualifiedName(rule));
+                if (ruleId != null && ruleIdsByName.putIfAbsent(rule.getName(), ruleId) != null) {
+                    ambiguous.add(rule.getName());
+                }
+            }
+        }
+        ambiguous.forEach(ruleIdsByName::remove);
+        return Map.copyOf(ruleIdsByName);
+    }
+
+    /**
+     * 获取该代次加载的规则版本
+     *
+     * @param ruleId 规则ID
+     * @return 规则版本，该代次未加载该规则时返回null
+     */
+    public String getRuleVersion(Long ruleId) {
+        return ruleVersions.get(ruleId);
+    }
+
+    public List<Long> getRuleIds() {
+        return ruleIds;
+    }
+
+    public int getRuleCount() {
+        return ruleIds.size();
+    }
+
+    public LocalDateTime getBuiltTime() {
+        return builtTime;
+    }
+
+    @Override
+    public String toString() {
+        return "ContainerGeneration{" +
+                "generation=" + generation +
+                ", ruleCount=" + ruleIds.size() +
+                ", builtTime=" + builtTime +
+                '}';
+    }
+}
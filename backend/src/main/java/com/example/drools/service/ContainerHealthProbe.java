@@ -0,0 +1,94 @@
+package com.example.drools.service;
+
+import com.example.drools.config.DroolsProperties;
+import org.kie.api.runtime.KieSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 容器健康探测服务
+ * 后台定时对当前生效的容器代次进行探测，并发布不可变的健康状态快照。
+ * 健康检查接口直接读取快照，不加锁也不创建KieSession，因此不会被容器重建阻塞。
+ *
+ * @author System
+ * @since 1.0.0
+ */
+@Service
+public class ContainerHealthProbe {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContainerHealthProbe.class);
+
+    private final DroolsContainerService droolsContainerService;
+    private final DroolsProperties droolsProperties;
+
+    // 最近一次探测得到的健康状态快照
+    private volatile ContainerHealthStatus snapshot = new ContainerHealthStatus();
+
+    public ContainerHealthProbe(DroolsContainerService droolsContainerService, DroolsProperties droolsProperties) {
+        this.droolsContainerService = droolsContainerService;
+        this.droolsProperties = droolsProperties;
+    }
+
+    /**
+     * 探测当前生效的容器代次
+     * 通过创建并销毁一个KieSession验证容器可用，探测结果整体替换当前快照
+     */
+    @Scheduled(fixedDelayString = "${drools.health.probe-interval-ms:5000}")
+    public void probe() {
+        ContainerGeneration generation = droolsContainerService.getActiveGeneration();
+        LocalDateTime probeTime = LocalDateTime.now();
+
+        if (generation == null) {
+            snapshot = new ContainerHealthStatus(false, false, "Container not initialized", 0,
+                    null, 0L, probeTime, 0L);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean healthy;
+        String statusMessage;
+        try {
+            KieSession testSession = generation.getKieContainer().newKieSession();
+            testSession.dispose();
+            healthy = true;
+            statusMessage = "Container is healthy";
+        } catch (Exception e) {
+            logger.warn("容器健康探测失败: 代次 {}", generation.getGeneration(), e);
+            healthy = false;
+            statusMessage = "Container error: " + e.getMessage();
+        }
+        long latencyMs = (System.nanoTime() - start) / 1_000_000L;
+
+        snapshot = new ContainerHealthStatus(true, healthy, statusMessage, generation.getRuleCount(),
+                generation.getRuleIds(), generation.getGeneration(), probeTime, latencyMs);
+        logger.debug("容器健康探测完成: 代次 {}, 健康 {}, 耗时 {} ms", generation.getGeneration(), healthy, latencyMs);
+    }
+
+    /**
+     * 获取容器健康状态
+     * 直接返回最近一次探测的快照；若快照超过过期阈值未刷新，则视为不健康
+     *
+     * @return 容器健康状态快照
+     */
+    public ContainerHealthStatus getContainerHealthStatus() {
+        ContainerHealthStatus current = snapshot;
+        LocalDateTime lastProbeTime = current.getLastProbeTime();
+        if (lastProbeTime == null || !current.isHealthy()) {
+            return current;
+        }
+
+        long staleThresholdMs = droolsProperties.getHealth().getStaleThresholdMs();
+        if (Duration.between(lastProbeTime, LocalDateTime.now()).toMillis() > staleThresholdMs) {
+            return new ContainerHealthStatus(current.isInitialized(), false,
+                    "Health snapshot is stale, last probe at " + lastProbeTime,
+                    current.getLoadedRulesCount(), current.getLoadedRuleIds(), current.getGeneration(),
+                    lastProbeTime, current.getProbeLatencyMs());
+        }
+        return current;
+    }
+}
@@ -1,122 +1,113 @@
 package com.example.drools.service;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
  * 容器健康状态类
  * 封装Drools容器的健康状态信息
- * 
+ * 由后台探测任务生成的不可变快照，可以在任意线程中安全读取
+ *
  * @author System
  * @since 1.0.0
  */
-public class ContainerHealthStatus {
-    
-    private boolean initialized;
-    private boolean healthy;
-    private String statusMessage;
-    private int loadedRulesCount;
-    private List<Long> loadedRuleIds;
+public final class ContainerHealthStatus {
+
+    private final boolean initialized;
+    private final boolean healthy;
+    private final String statusMessage;
+    private final int loadedRulesCount;
+    private final List<Long> loadedRuleIds;
+    private final long generation;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private final LocalDateTime lastProbeTime;
+    private final long probeLatencyMs;
 
     /**
      * 默认构造函数
      */
     public ContainerHealthStatus() {
-        this.initialized = false;
-        this.healthy = false;
-        this.statusMessage = "Not initialized";
-        this.loadedRulesCount = 0;
+        this(false, false, "Not initialized", 0);
     }
 
     /**
      * 构造函数
-     * 
+     *
      * @param initialized 是否已初始化
      * @param healthy 是否健康
      * @param statusMessage 状态消息
      * @param loadedRulesCount 已加载规则数量
      */
     public ContainerHealthStatus(boolean initialized, boolean healthy, String statusMessage, int loadedRulesCount) {
+        this(initialized, healthy, statusMessage, loadedRulesCount, List.of(), 0L, null, 0L);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param initialized 是否已初始化
+     * @param healthy 是否健康
+     * @param statusMessage 状态消息
+     * @param loadedRulesCount 已加载规则数量
+     * @param loadedRuleIds 已加载规则ID列表
+     * @param generation 探测时生效的容器代次
+     * @param lastProbeTime 最近一次探测时间
+     * @param probeLatencyMs 最近一次探测耗时（毫秒）
+     */
+    public ContainerHealthStatus(boolean initialized, boolean healthy, String statusMessage, int loadedRulesCount,
+                                 List<Long> loadedRuleIds, long generation, LocalDateTime lastProbeTime,
+                                 long probeLatencyMs) {
         this.initialized = initialized;
         this.healthy = healthy;
         this.statusMessage = statusMessage;
         this.loadedRulesCount = loadedRulesCount;
+        this.loadedRuleIds = loadedRuleIds != null ? List.copyOf(loadedRuleIds) : List.of();
+        this.generation = generation;
+        this.lastProbeTime = lastProbeTime;
+        this.probeLatencyMs = probeLatencyMs;
     }
 
     /**
      * 检查容器是否已初始化
-     * 
+     *
      * @return 是否已初始化
      */
     public boolean isInitialized() {
         return initialized;
     }
 
-    /**
-     * 设置初始化状态
-     * 
-     * @param initialized 是否已初始化
-     */
-    public void setInitialized(boolean initialized) {
-        this.initialized = initialized;
-    }
-
     /**
      * 检查容器是否健康
-     * 
+     *
      * @return 是否健康
      */
     public boolean isHealthy() {
         return healthy;
     }
 
-    /**
-     * 设置健康状态
-     * 
-     * @param healthy 是否健康
-     */
-    public void setHealthy(boolean healthy) {
-        this.healthy = healthy;
-    }
-
     /**
      * 获取状态消息
-     * 
+     *
      * @return 状态消息
      */
     public String getStatusMessage() {
         return statusMessage;
     }
 
-    /**
-     * 设置状态消息
-     * 
-     * @param statusMessage 状态消息
-     */
-    public void setStatusMessage(String statusMessage) {
-        this.statusMessage = statusMessage;
-    }
-
     /**
      * 获取已加载规则数量
-     * 
+     *
      * @return 已加载规则数量
      */
     public int getLoadedRulesCount() {
         return loadedRulesCount;
     }
 
-    /**
-     * 设置已加载规则数量
-     * 
-     * @param loadedRulesCount 已加载规则数量
-     */
-    public void setLoadedRulesCount(int loadedRulesCount) {
-        this.loadedRulesCount = loadedRulesCount;
-    }
-
     /**
      * 获取已加载规则ID列表
-     * 
+     *
      * @return 已加载规则ID列表
      */
     public List<Long> getLoadedRuleIds() {
@@ -124,17 +115,35 @@ public class ContainerHealthStatus {
     }
 
     /**
-     * 设置已加载规则ID列表
-     * 
-     * @param loadedRuleIds 已加载规则ID列表
+     * 获取探测时生效的容器代次
+     *
+     * @return 容器代次，未初始化时为0
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * 获取最近一次探测时间
+     *
+     * @return 探测时间，尚未探测时为null
+     */
+    public LocalDateTime getLastProbeTime() {
+        return lastProbeTime;
+    }
+
+    /**
+     * 获取最近一次探测耗时
+     *
+     * @return 探测耗时（毫秒）
      */
-    public void setLoadedRuleIds(List<Long> loadedRuleIds) {
-        this.loadedRuleIds = loadedRuleIds;
+    public long getProbeLatencyMs() {
+        return probeLatencyMs;
     }
 
     /**
      * 检查容器是否完全正常（已初始化且健康）
-     * 
+     *
      * @return 是否完全正常
      */
     public boolean isFullyOperational() {
@@ -143,7 +152,7 @@ public class ContainerHealthStatus {
 
     /**
      * 获取简要状态描述
-     * 
+     *
      * @return 状态描述
      */
     public String getStatusSummary() {
@@ -164,6 +173,9 @@ public class ContainerHealthStatus {
                 ", statusMessage='" + statusMessage + '\'' +
                 ", loadedRulesCount=" + loadedRulesCount +
                 ", loadedRuleIds=" + loadedRuleIds +
+                ", generation=" + generation +
+                ", lastProbeTime=" + lastProbeTime +
+                ", probeLatencyMs=" + probeLatencyMs +
                 '}';
     }
 
@@ -177,9 +189,10 @@ public class ContainerHealthStatus {
         if (initialized != that.initialized) return false;
         if (healthy != that.healthy) return false;
         if (loadedRulesCount != that.loadedRulesCount) return false;
+        if (generation != that.generation) return false;
         if (statusMessage != null ? !statusMessage.equals(that.statusMessage) : that.statusMessage != null)
             return false;
-        return loadedRuleIds != null ? loadedRuleIds.equals(that.loadedRuleIds) : that.loadedRuleIds == null;
+        return loadedRuleIds.equals(that.loadedRuleIds);
     }
 
     @Override
@@ -188,7 +201,8 @@ public class ContainerHealthStatus {
         result = 31 * result + (healthy ? 1 : 0);
         result = 31 * result + (statusMessage != null ? statusMessage.hashCode() : 0);
         result = 31 * result + loadedRulesCount;
-        result = 31 * result + (loadedRuleIds != null ? loadedRuleIds.hashCode() : 0);
+        result = 31 * result + loadedRuleIds.hashCode();
+        result = 31 * result + Long.hashCode(generation);
         return result;
     }
-}
\ No newline at end of file
+}
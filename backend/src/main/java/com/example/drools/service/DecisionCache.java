@@ -0,0 +1,408 @@
+package com.example.drools.service;
+
+import com.example.drools.config.DroolsProperties;
+import com.example.drools.dto.EvaluationResult;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 纯规则族的评估结果缓存
+ * 键由租户、容器代次、评估范围（规则族、议程组、查询、是否记录触发规则、超时与触发次数上限）与事实的规范化摘要组成：
+ * 事实按提交顺序以类名和按属性名排序的JSON计算SHA-256，字段顺序不同但取值相同的事实得到相同的摘要。
+ * 租户切换到新的容器代次后，该租户旧代次的条目在下一次访问时全部清除。
+ * <p>
+ * 相同键的并发评估只执行一次，其他请求等待并使用该次结果；被看门狗停止的结果不缓存也不共享。
+ * <p>
+ * 缓存保存评估后的状态而不是结果对象本身：每个提交事实在评估后的JSON状态，以及结果中的事实与查询结果，
+ * 其中引用提交事实的位置只记录其下标。命中或等待其他请求时，先把缓存的状态写回调用方提交的事实，
+ * 再构造独立的结果，结果引用的提交事实就是调用方自己的事实对象，规则插入的事实为缓存状态的副本。
+ * 因此无论是否命中，调用方的事实都会被规则修改，结果与执行规则得到的一致。
+ * 事实的状态无法通过JSON完整读写（如只读属性）时不使用缓存。
+ *
+ * @author System
+ * @since 1.0.0
+ */
+@Service
+public class DecisionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(DecisionCache.class);
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final ObjectMapper canonicalMapper;
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Long> tenantGenerations = new ConcurrentHashMap<>();
+    private final Map<Key, CompletableFuture<Snapshot>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter shared;
+    private final Counter evictions;
+
+    public DecisionCache(DroolsProperties droolsProperties, MeterRegistry meterRegistry) {
+        DroolsProperties.Evaluation properties = droolsProperties.getEvaluation();
+        this.maxSize = Math.max(0, properties.getDecisionCacheSize());
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, properties.getDecisionCacheTtlMs()));
+        this.canonicalMapper = JsonMapper.builder()
+                .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .findAndAddModules()
+                .build();
+        this.hits = Counter.builder("drools.decision.cache")
+                .description("纯规则族评估结果缓存的访问，shared为等待相同键正在进行的评估")
+                .tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("drools.decision.cache")
+                .tag("result", "miss").register(meterRegistry);
+        this.shared = Counter.builder("drools.decision.cache")
+                .tag("result", "shared").register(meterRegistry);
+        this.evictions = Counter.builder("drools.decision.cache.evictions").register(meterRegistry);
+        Gauge.builder("drools.decision.cache.size", this, DecisionCache::size)
+                .description("缓存的评估结果数量")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * 获取缓存的评估结果，未命中时执行评估
+     * 事实无法序列化为JSON时不使用缓存，直接执行评估
+     *
+     * @param scope 评估范围
+     * @param facts 事实，命中缓存时写入缓存的评估后状态
+     * @param evaluator 执行评估
+     * @return 评估结果
+     */
+    public EvaluationResult get(Scope scope, Collection<?> facts, Supplier<EvaluationResult> evaluator) {
+        String digest = digest(facts);
+        if (digest == null) {
+            return evaluator.get();
+        }
+        List<?> inputs = facts instanceof List<?> list ? list : new ArrayList<>(facts);
+        Key key = new Key(scope, digest);
+        invalidateOlderGenerations(scope.tenantId(), scope.generation());
+
+        Snapshot cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            return restore(cached, inputs);
+        }
+
+        CompletableFuture<Snapshot> flight = new CompletableFuture<>();
+        CompletableFuture<Snapshot> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            Snapshot snapshot = await(existing);
+            if (snapshot == null) {
+                return evaluator.get();
+            }
+            shared.increment();
+            return restore(snapshot, inputs);
+        }
+        Snapshot snapshot = null;
+        try {
+            // 上一次评估可能在本次查找之后、登记之前完成
+            snapshot = lookup(key);
+            if (snapshot != null) {
+                hits.increment();
+                return restore(snapshot, inputs);
+            }
+            misses.increment();
+            EvaluationResult result = evaluator.get();
+            // 被停止的结果取决于执行时间，等待的请求自行评估
+            if (result.getHaltReason() == null) {
+                snapshot = trySnapshot(result, inputs);
+                if (snapshot != null && isCurrentGeneration(scope)) {
+                    put(key, snapshot);
+                }
+            }
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flight.complete(snapshot);
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private synchronized Snapshot lookup(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (ttlNanos > 0 && System.nanoTime() - entry.createdNanos >= ttlNanos) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.snapshot;
+    }
+
+    private synchronized void put(Key key, Snapshot snapshot) {
+        entries.put(key, new Entry(snapshot, System.nanoTime()));
+        Iterator<Key> iterator = entries.keySet().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * 租户切换到新的容器代次后清除其旧代次的条目
+     */
+    private void invalidateOlderGenerations(String tenantId, long generation) {
+        Long known = tenantGenerations.get(tenantId);
+        if (known != null && known >= generation) {
+            return;
+        }
+        tenantGenerations.merge(tenantId, generation, Math::max);
+        if (known != null) {
+            int removed;
+            synchronized (this) {
+                int before = entries.size();
+                entries.keySet().removeIf(key -> key.scope().tenantId().equals(tenantId)
+                        && key.scope().generation() < generation);
+                removed = before - entries.size();
+            }
+            logger.debug("租户 {} 切换到容器代次 {}，清除评估结果缓存 {} 条", tenantId, generation, removed);
+        }
+    }
+
+    /**
+     * 评估期间租户可能已切换到新的容器代次，旧代次的结果不再放入缓存
+     */
+    private boolean isCurrentGeneration(Scope scope) {
+        Long known = tenantGenerations.get(scope.tenantId());
+        return known == null || known <= scope.generation();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static Snapshot await(CompletableFuture<Snapshot> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 记录评估后的状态，无法通过JSON完整读写时返回null
+     *
+     * @param result 评估结果
+     * @param inputs 提交的事实，已被规则修改
+     */
+    private Snapshot trySnapshot(EvaluationResult result, List<?> inputs) {
+        try {
+            Map<Object, Integer> inputIndexes = new IdentityHashMap<>();
+            List<byte[]> inputStates = new ArrayList<>(inputs.size());
+            for (int i = 0; i < inputs.size(); i++) {
+                Object input = inputs.get(i);
+                inputIndexes.putIfAbsent(input, i);
+                inputStates.add(isImmutable(input) ? null : stateOf(input));
+            }
+            EvaluationResult cached = copy(result, value -> {
+                Integer index = inputIndexes.get(value);
+                return index != null ? new InputRef(index) : copyValue(value);
+            });
+            return new Snapshot(cached, inputStates);
+        } catch (IllegalStateException e) {
+            logger.debug("评估结果无法复制，不使用评估结果缓存: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 把缓存的状态写回调用方提交的事实，并构造引用这些事实的结果
+     */
+    private EvaluationResult restore(Snapshot snapshot, List<?> inputs) {
+        for (int i = 0; i < inputs.size(); i++) {
+            byte[] state = snapshot.inputStates().get(i);
+            if (state != null) {
+                try {
+                    canonicalMapper.readerForUpdating(inputs.get(i)).readValue(state);
+                } catch (IOException e) {
+                    throw new IllegalStateException("无法写回 " + inputs.get(i).getClass().getName()
+                            + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return copy(snapshot.result(),
+                value -> value instanceof InputRef ref ? inputs.get(ref.index()) : copyValue(value));
+    }
+
+    /**
+     * 复制评估结果，事实与查询结果中的对象由 valueMapper 转换
+     */
+    private static EvaluationResult copy(EvaluationResult result, Function<Object, Object> valueMapper) {
+        EvaluationResult copy = new EvaluationResult();
+        copy.setGeneration(result.getGeneration());
+        copy.setFiredRulesCount(result.getFiredRulesCount());
+        copy.setFiredRules(result.getFiredRules() != null ? new ArrayList<>(result.getFiredRules()) : null);
+        copy.setFiredRuleIds(result.getFiredRuleIds() != null ? new ArrayList<>(result.getFiredRuleIds()) : null);
+        copy.setHaltReason(result.getHaltReason());
+        if (result.getFacts() != null) {
+            List<Object> facts = new ArrayList<>(result.getFacts().size());
+            for (Object fact : result.getFacts()) {
+                facts.add(valueMapper.apply(fact));
+            }
+            copy.setFacts(facts);
+        }
+        if (result.getQueryResults() != null) {
+            Map<String, List<Map<String, Object>>> queryResults = new LinkedHashMap<>();
+            result.getQueryResults().forEach((queryName, rows) -> {
+                List<Map<String, Object>> copiedRows = new ArrayList<>(rows.size());
+                for (Map<String, Object> row : rows) {
+                    Map<String, Object> copiedRow = new LinkedHashMap<>();
+                    row.forEach((name, value) -> copiedRow.put(name, valueMapper.apply(value)));
+                    copiedRows.add(copiedRow);
+                }
+                queryResults.put(queryName, copiedRows);
+            });
+            copy.setQueryResults(queryResults);
+        }
+        return copy;
+    }
+
+    /**
+     * 事实评估后的JSON状态，确认读回后得到相同的状态，否则命中时无法得到与执行规则相同的事实
+     */
+    private byte[] stateOf(Object fact) {
+        try {
+            byte[] state = canonicalMapper.writeValueAsBytes(fact);
+            Object restored = canonicalMapper.readValue(state, fact.getClass());
+            if (!Arrays.equals(state, canonicalMapper.writeValueAsBytes(restored))) {
+                throw new IllegalStateException(fact.getClass().getName() + " 的状态无法通过JSON完整读写");
+            }
+            return state;
+        } catch (IOException e) {
+            throw new IllegalStateException("无法复制 " + fact.getClass().getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private Object copyValue(Object value) {
+        if (value == null || isImmutable(value)) {
+            return value;
+        }
+        try {
+            return canonicalMapper.readValue(canonicalMapper.writeValueAsBytes(value), value.getClass());
+        } catch (IOException e) {
+            throw new IllegalStateException("无法复制 " + value.getClass().getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value instanceof String || value instanceof Number || value instanceof Boolean;
+    }
+
+    /**
+     * 计算事实的规范化摘要，事实无法序列化时返回null
+     */
+    private String digest(Collection<?> facts) {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        try (OutputStream output = new DigestOutputStream(OutputStream.nullOutputStream(), messageDigest)) {
+            for (Object fact : facts) {
+                output.write(fact.getClass().getName().getBytes(StandardCharsets.UTF_8));
+                output.write(0);
+                canonicalMapper.writeValue(output, fact);
+                output.write(0);
+            }
+        } catch (JsonProcessingException e) {
+            logger.debug("事实无法序列化，不使用评估结果缓存: {}", e.getOriginalMessage());
+            return null;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return HexFormat.of().formatHex(messageDigest.digest());
+    }
+
+    /**
+     * 评估范围，与事实摘要一起组成缓存键
+     *
+     * @param tenantId 租户ID
+     * @param generation 容器代次编号
+     * @param family 规则族名称
+     * @param agendaGroup 议程组，未指定时为null
+     * @param queryNames 需要读取结果的查询名称
+     * @param trackFiredRules 是否记录触发的规则名称
+     * @param timeoutMs 生效的评估超时时间（毫秒）
+     * @param maxFirings 生效的规则触发次数上限
+     */
+    public record Scope(String tenantId, long generation, String family, String agendaGroup,
+                        List<String> queryNames, boolean trackFiredRules, long timeoutMs, int maxFirings) {
+    }
+
+    private record Key(Scope scope, String digest) {
+    }
+
+    private record Entry(Snapshot snapshot, long createdNanos) {
+    }
+
+    /**
+     * 缓存的评估后状态
+     *
+     * @param result 评估结果，引用提交事实的位置为 {@link InputRef}
+     * @param inputStates 各提交事实评估后的JSON状态，不可变的值为null
+     */
+    private record Snapshot(EvaluationResult result, List<byte[]> inputStates) {
+    }
+
+    /**
+     * 结果中对提交事实的引用
+     *
+     * @param index 事实的提交下标
+     */
+    private record InputRef(int index) {
+    }
+}
@@ -0,0 +1,944 @@
+package com.example.drools.service;
+
+import org.drools.compiler.lang.descr.AttributeDescr;
+import org.drools.compiler.lang.descr.RuleDescr;
+import org.drools.core.base.ClassFieldReader;
+import org.drools.core.base.ClassObjectType;
+import org.drools.core.definitions.rule.impl.RuleImpl;
+import org.drools.core.rule.Declaration;
+import org.drools.core.rule.GroupElement;
+import org.drools.core.rule.IndexableConstraint;
+import org.drools.core.rule.Pattern;
+import org.drools.core.spi.Constraint;
+import org.drools.core.spi.FieldValue;
+import org.drools.core.util.index.IndexUtil;
+import org.drools.mvel.MVELConstraint;
+import org.kie.api.definition.rule.Rule;
+
+import java.beans.Introspector;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+
+/**
+ * 阈值规则族的决策索引
+ * 规则族的每条规则都只有一个模式，模式只在同一个属性上与字面量比较（如 Order(originalPrice &lt; 200 &amp;&amp; originalPrice &gt;= 100)），
+ * 且各规则的取值范围互不相交时，规则族编译为按该属性查找的索引：数值属性为按下界排序的区间（二分查找），
+ * 其他属性（字符串、枚举、布尔）为哈希表。规则的RHS只允许对绑定的事实调用setter（参数为字面量、getter或二者的一次四则运算）
+ * 和打印字符串字面量，编译为预先解析好的动作。
+ * <p>
+ * 评估时只要求事实中至多有一个该类型的事实，结果与Drools执行一致：范围互不相交保证至多一条规则被激活，
+ * RHS不调用 modify/update，不会引起重新匹配。无法证明等价的情况（多个该类型的事实、NaN、getter返回null
+ * 导致拆箱失败、整数除零）返回null，由调用方退回到Drools执行，此时事实尚未被修改。
+ * <p>
+ * 比较属性与修改的属性都是double的规则族还可以按列评估：每行一个事实，区间判断在整列的基本类型数组上执行，
+ * 结果为每条规则触发的行集合与输出列，不创建事实对象。RHS中的打印只是调试输出，按列评估时不执行。
+ *
+ * @author System
+ * @since 1.0.0
+ */
+public final class DecisionIndex {
+
+    // 编译时允许规则使用的属性，其他属性（enabled、timer、date-effective、ruleflow-group等）改变触发条件，不编译；
+    // agenda-group 只在规则族按该议程组路由时与Drools等价，由构建规则族时检查
+    private static final Set<String> SUPPORTED_ATTRIBUTES =
+            Set.of("salience", "agenda-group", "activation-group", "no-loop", "lock-on-active", "dialect");
+
+    private static final java.util.regex.Pattern PRINT = java.util.regex.Pattern.compile(
+            "System\\.out\\.println\\(\\s*\"((?:[^\"\\\\]|\\\\[\"\\\\nt])*)\"\\s*\\)");
+    private static final java.util.regex.Pattern ASSIGN = java.util.regex.Pattern.compile(
+            "(\\$?\\w+)\\s*\\.\\s*set(\\w+)\\s*\\((.*)\\)", java.util.regex.Pattern.DOTALL);
+    private static final String OPERAND = "(\\$?\\w+\\s*\\.\\s*(?:get|is)\\w+\\s*\\(\\s*\\)|-?\\d+(?:\\.\\d+)?[dDlL]?|null)";
+    private static final java.util.regex.Pattern EXPRESSION = java.util.regex.Pattern.compile(
+            "\\s*" + OPERAND + "\\s*(?:([-+*/])\\s*" + OPERAND + "\\s*)?");
+    private static final java.util.regex.Pattern INTEGER_COMPARISON = java.util.regex.Pattern.compile(
+            "\\s*\\w+\\s*(?:==|<=|>=|<|>)\\s*-?\\d+[lL]?\\s*");
+    private static final java.util.regex.Pattern GETTER = java.util.regex.Pattern.compile(
+            "(\\$?\\w+)\\s*\\.\\s*((?:get|is)\\w+)\\s*\\(\\s*\\)");
+
+    private final Class<?> factType;
+    private final ClassFieldReader keyReader;
+    private final int ruleCount;
+
+    // 数值属性：按下界排序、互不相交的区间
+    private final Interval[] intervals;
+    private final double[] lows;
+
+    // 非数值属性：字面量到规则的映射
+    private final Map<Object, CompiledRule> equalities;
+
+    // 不能按列评估的原因，可以按列评估时为null
+    private final String columnarRestriction;
+
+    private DecisionIndex(Class<?> factType, ClassFieldReader keyReader, int ruleCount, Interval[] intervals,
+                          Map<Object, CompiledRule> equalities) {
+        this.factType = factType;
+        this.keyReader = keyReader;
+        this.ruleCount = ruleCount;
+        this.intervals = intervals;
+        this.equalities = equalities;
+        if (intervals != null) {
+            this.lows = new double[intervals.length];
+            for (int i = 0; i < intervals.length; i++) {
+                lows[i] = intervals[i].low;
+            }
+        } else {
+            this.lows = null;
+        }
+        this.columnarRestriction = columnarRestriction(keyReader, intervals);
+    }
+
+    /**
+     * 编译规则族的决策索引
+     *
+     * @param familyRules 规则族的规则
+     * @param ruleDescrs 规则的DRL描述，键为 包名.规则名；包的方言不是java时不应提供
+     * @return 决策索引
+     * @throws IllegalArgumentException 规则族不满足编译条件时抛出，消息为原因
+     */
+    public static DecisionIndex compile(Collection<? extends Rule> familyRules, Map<String, RuleDescr> ruleDescrs) {
+        if (familyRules.isEmpty()) {
+            throw new IllegalArgumentException("规则族没有规则");
+        }
+        Class<?> factType = null;
+        ClassFieldReader keyReader = null;
+        List<Interval> intervals = new ArrayList<>();
+        Map<Object, CompiledRule> equalities = new HashMap<>();
+        for (Rule rule : familyRules) {
+            String name = RuleFamily.qualifiedName(rule);
+            RuleDescr descr = ruleDescrs.get(name);
+            if (descr == null) {
+                throw new IllegalArgumentException("规则 " + name + " 没有可解析的DRL或方言不是java");
+            }
+            checkAttributes(name, descr);
+
+            Pattern pattern = singlePattern(name, (RuleImpl) rule);
+            Class<?> type = ((ClassObjectType) pattern.getObjectType()).getClassType();
+            if (factType != null && factType != type) {
+                throw new IllegalArgumentException("规则匹配的事实类型不同: " + factType.getName() + ", " + type.getName());
+            }
+            factType = type;
+
+            List<IndexableConstraint> literals = literalConstraints(name, pattern);
+            ClassFieldReader reader = (ClassFieldReader) literals.get(0).getFieldExtractor();
+            if (keyReader != null && !keyReader.getFieldName().equals(reader.getFieldName())) {
+                throw new IllegalArgumentException("规则在不同的属性上比较: " + keyReader.getFieldName() + ", "
+                        + reader.getFieldName());
+            }
+            keyReader = reader;
+
+            Declaration declaration = pattern.getDeclaration();
+            CompiledRule compiled = new CompiledRule(rule.getName(),
+                    compileActions(name, consequenceOf(descr), declaration != null ? declaration.getIdentifier() : null,
+                            type));
+            if (isNumeric(reader.getExtractToClass())) {
+                Interval interval = toInterval(name, literals, compiled);
+                if (interval != null) {
+                    intervals.add(interval);
+                }
+            } else {
+                Object literal = equalityLiteral(name, literals);
+                if (equalities.put(literal, compiled) != null) {
+                    throw new IllegalArgumentException("多条规则匹配相同的取值: " + literal);
+                }
+            }
+        }
+
+        if (isNumeric(keyReader.getExtractToClass())) {
+            intervals.sort(Comparator.comparingDouble(Interval::low).thenComparing(interval -> !interval.lowInclusive()));
+            for (int i = 1; i < intervals.size(); i++) {
+                if (intervals.get(i - 1).overlaps(intervals.get(i))) {
+                    throw new IllegalArgumentException("规则 " + intervals.get(i - 1).rule.name() + " 与 "
+                            + intervals.get(i).rule.name() + " 的取值范围相交");
+                }
+            }
+            return new DecisionIndex(factType, keyReader, familyRules.size(), intervals.toArray(new Interval[0]), null);
+        }
+        return new DecisionIndex(factType, keyReader, familyRules.size(), null, Map.copyOf(equalities));
+    }
+
+    /**
+     * 在索引上评估一组事实，匹配的规则的动作作用于事实
+     *
+     * @param facts 事实
+     * @return 评估结果；无法保证与Drools执行一致时返回null，事实未被修改
+     */
+    public Decision evaluate(Collection<?> facts) {
+        Object target = null;
+        for (Object fact : facts) {
+            if (factType.isInstance(fact)) {
+                if (target != null || fact.getClass() != factType) {
+                    return null;
+                }
+                target = fact;
+            }
+        }
+        if (target == null) {
+            return Decision.NO_MATCH;
+        }
+
+        Object key = keyReader.getValue(null, target);
+        CompiledRule rule;
+        if (key == null) {
+            // 与null的比较不成立
+            return Decision.NO_MATCH;
+        } else if (intervals != null) {
+            double value = ((Number) key).doubleValue();
+            if (Double.isNaN(value) || (key instanceof Long longKey && Math.abs(longKey) > 1L << 53)) {
+                return null;
+            }
+            rule = findInterval(value);
+        } else {
+            rule = equalities.get(key);
+        }
+        if (rule == null) {
+            return Decision.NO_MATCH;
+        }
+        return rule.apply(target) ? new Decision(rule.name()) : null;
+    }
+
+    /**
+     * 查找包含该值的区间：区间按下界排序且互不相交，只需检查下界等于该值的区间和其前一个区间
+     */
+    private CompiledRule findInterval(double value) {
+        int low = 0;
+        int high = lows.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (lows[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        for (int i = low - 1; i >= 0; i--) {
+            if (intervals[i].contains(value)) {
+                return intervals[i].rule;
+            }
+            if (intervals[i].low < value) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按列评估一批事实，每行为一个只包含该类型单个事实的事实组
+     * 列为属性名到取值数组的映射，包装类型属性的NaN表示null，缺少的列视为新建事实的默认值（包装类型为null，基本类型为0）。
+     * 每条规则在比较属性的整列上执行区间判断得到触发的行，再对触发的行计算setter参数写入输出列；
+     * 参数无法计算（拆箱null）的行记为错误行，不算触发，其输出列保持输入值。
+     * 打印动作不执行：按列评估一次处理大量行，逐行打印会成为主要开销，且输出不属于评估结果。
+     *
+     * @param columns 输入列，长度不小于行数
+     * @param rows 行数
+     * @return 各规则触发的行、错误行与setter修改的属性的输出列
+     * @throws IllegalStateException 规则族不能按列评估时抛出，见 {@link #getColumnarRestriction()}
+     */
+    public ColumnarDecision evaluateColumns(Map<String, double[]> columns, int rows) {
+        if (columnarRestriction != null) {
+            throw new IllegalStateException(columnarRestriction);
+        }
+        double[] keys = column(columns, getKeyProperty(), keyReader.getExtractToClass(), rows);
+        Map<String, double[]> outputs = new LinkedHashMap<>();
+        for (Interval interval : intervals) {
+            for (Action action : interval.rule.actions()) {
+                if (action instanceof Assign assign) {
+                    outputs.computeIfAbsent(assign.property(),
+                            property -> column(columns, property, assign.parameterType(), rows).clone());
+                }
+            }
+        }
+
+        Map<String, BitSet> firedRows = new LinkedHashMap<>();
+        long[] errorRows = new long[(rows + 63) >>> 6];
+        for (Interval interval : intervals) {
+            long[] selected = interval.select(keys, rows);
+            interval.rule.applyColumns(selected, columns, outputs, errorRows, rows);
+            firedRows.put(interval.rule.name(), BitSet.valueOf(selected));
+        }
+        return new ColumnarDecision(rows, firedRows, BitSet.valueOf(errorRows), outputs);
+    }
+
+    /**
+     * 获取不能按列评估的原因
+     *
+     * @return 原因，规则族可以按列评估时返回null
+     */
+    public String getColumnarRestriction() {
+        return columnarRestriction;
+    }
+
+    /**
+     * 按列评估要求比较属性、读取的属性与setter参数都是double或Double，二元运算的结果为double
+     */
+    private static String columnarRestriction(ClassFieldReader keyReader, Interval[] intervals) {
+        if (intervals == null || !isDouble(keyReader.getExtractToClass())) {
+            return "规则族的比较属性不是double类型: " + keyReader.getFieldName();
+        }
+        for (Interval interval : intervals) {
+            for (Action action : interval.rule.actions()) {
+                if (action instanceof Assign assign && (!isDouble(assign.parameterType())
+                        || !isColumnOperand(assign.left())
+                        || (assign.right() != null && (assign.resultType() != double.class
+                        || !isColumnOperand(assign.right()))))) {
+                    return "规则 " + interval.rule.name() + " 修改的属性 " + assign.property() + " 不是double运算的结果";
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isColumnOperand(Operand operand) {
+        return operand.getter() == null || isDouble(operand.type());
+    }
+
+    private static boolean isDouble(Class<?> type) {
+        return type == double.class || type == Double.class;
+    }
+
+    /**
+     * 获取属性的列，缺少时为新建事实的默认值
+     */
+    private static double[] column(Map<String, double[]> columns, String property, Class<?> type, int rows) {
+        double[] column = columns.get(property);
+        if (column != null) {
+            if (column.length < rows) {
+                throw new IllegalArgumentException("列 " + property + " 的长度小于行数: " + column.length + " < " + rows);
+            }
+            return column;
+        }
+        column = new double[rows];
+        if (!type.isPrimitive()) {
+            Arrays.fill(column, Double.NaN);
+        }
+        return column;
+    }
+
+    public Class<?> getFactType() {
+        return factType;
+    }
+
+    public int getRuleCount() {
+        return ruleCount;
+    }
+
+    public String getKeyProperty() {
+        return keyReader.getFieldName();
+    }
+
+    private static void checkAttributes(String name, RuleDescr descr) {
+        if (descr.getParentName() != null || !descr.getNamedConsequences().isEmpty()) {
+            throw new IllegalArgumentException("规则 " + name + " 使用了规则继承或命名结果");
+        }
+        for (Map.Entry<String, AttributeDescr> attribute : descr.getAttributes().entrySet()) {
+            if (!SUPPORTED_ATTRIBUTES.contains(attribute.getKey())
+                    || ("dialect".equals(attribute.getKey()) && !"java".equals(attribute.getValue().getValue()))) {
+                throw new IllegalArgumentException("规则 " + name + " 使用了不支持的属性 " + attribute.getKey());
+            }
+        }
+    }
+
+    private static Pattern singlePattern(String name, RuleImpl rule) {
+        GroupElement lhs = rule.getLhs();
+        if (!lhs.isAnd() || lhs.getChildren().size() != 1 || !(lhs.getChildren().get(0) instanceof Pattern pattern)
+                || pattern.getSource() != null || !(pattern.getObjectType() instanceof ClassObjectType)) {
+            throw new IllegalArgumentException("规则 " + name + " 不是单个模式");
+        }
+        return pattern;
+    }
+
+    /**
+     * 模式的约束必须都是同一属性与字面量的比较
+     */
+    private static List<IndexableConstraint> literalConstraints(String name, Pattern pattern) {
+        List<IndexableConstraint> literals = new ArrayList<>();
+        for (Constraint constraint : pattern.getConstraints()) {
+            if (constraint.getType() != Constraint.ConstraintType.ALPHA
+                    || !(constraint instanceof IndexableConstraint indexable)
+                    || !(indexable.getFieldExtractor() instanceof ClassFieldReader reader)
+                    || indexable.getField() == null || indexable.getField().isNull()
+                    || !(indexable.getConstraintType().isEquality() || indexable.getConstraintType().isComparison())
+                    || indexable.getConstraintType() == IndexUtil.ConstraintType.NOT_EQUAL) {
+                throw new IllegalArgumentException("规则 " + name + " 的约束不是属性与字面量的比较: " + constraint);
+            }
+            if (!literals.isEmpty()
+                    && !((ClassFieldReader) literals.get(0).getFieldExtractor()).getFieldName().equals(reader.getFieldName())) {
+                throw new IllegalArgumentException("规则 " + name + " 在多个属性上比较");
+            }
+            literals.add(indexable);
+        }
+        if (literals.isEmpty()) {
+            throw new IllegalArgumentException("规则 " + name + " 没有约束");
+        }
+        return literals;
+    }
+
+    /**
+     * 将约束合并为区间，区间为空（规则不会被激活）时返回null
+     */
+    private static Interval toInterval(String name, List<IndexableConstraint> literals, CompiledRule rule) {
+        double low = Double.NEGATIVE_INFINITY;
+        double high = Double.POSITIVE_INFINITY;
+        boolean lowInclusive = false;
+        boolean highInclusive = false;
+        for (IndexableConstraint literal : literals) {
+            FieldValue field = literal.getField();
+            if (!(field.getValue() instanceof Number number) || number instanceof Float
+                    || Double.isNaN(number.doubleValue())
+                    || (number instanceof Long longValue && Math.abs(longValue) > 1L << 53)) {
+                throw new IllegalArgumentException("规则 " + name + " 的比较值不是数值: " + field.getValue());
+            }
+            if (!isDouble(((ClassFieldReader) literal.getFieldExtractor()).getExtractToClass())
+                    && !isIntegerLiteral(literal)) {
+                throw new IllegalArgumentException("规则 " + name + " 在整数属性上与非整数字面量比较: " + literal);
+            }
+            double value = number.doubleValue();
+            IndexUtil.ConstraintType operator = literal.getConstraintType();
+            if (operator == IndexUtil.ConstraintType.GREATER_THAN || operator == IndexUtil.ConstraintType.GREATER_OR_EQUAL
+                    || operator == IndexUtil.ConstraintType.EQUAL) {
+                boolean inclusive = operator != IndexUtil.ConstraintType.GREATER_THAN;
+                if (value > low || (value == low && !inclusive)) {
+                    low = value;
+                    lowInclusive = inclusive;
+                }
+            }
+            if (operator == IndexUtil.ConstraintType.LESS_THAN || operator == IndexUtil.ConstraintType.LESS_OR_EQUAL
+                    || operator == IndexUtil.ConstraintType.EQUAL) {
+                boolean inclusive = operator != IndexUtil.ConstraintType.LESS_THAN;
+                if (value < high || (value == high && !inclusive)) {
+                    high = value;
+                    highInclusive = inclusive;
+                }
+            }
+        }
+        // 没有上界或下界时无穷大也满足约束（如 Infinity > 100）
+        if (high == Double.POSITIVE_INFINITY) {
+            highInclusive = true;
+        }
+        if (low == Double.NEGATIVE_INFINITY) {
+            lowInclusive = true;
+        }
+        if (low > high || (low == high && !(lowInclusive && highInclusive))) {
+            return null;
+        }
+        return new Interval(low, lowInclusive, high, highInclusive, rule);
+    }
+
+    /**
+     * 整数属性的比较值被Drools截断为整数（如 count &lt; 10.5 的比较值为10），条件仍按原字面量计算，
+     * 因此只接受整数字面量
+     */
+    private static boolean isIntegerLiteral(IndexableConstraint literal) {
+        return literal instanceof MVELConstraint constraint
+                && INTEGER_COMPARISON.matcher(constraint.getExpression()).matches();
+    }
+
+    private static Object equalityLiteral(String name, List<IndexableConstraint> literals) {
+        Class<?> keyType = ((ClassFieldReader) literals.get(0).getFieldExtractor()).getExtractToClass();
+        if (literals.size() != 1 || literals.get(0).getConstraintType() != IndexUtil.ConstraintType.EQUAL
+                || !(keyType == String.class || keyType.isEnum() || keyType == Boolean.class || keyType == boolean.class)) {
+            throw new IllegalArgumentException("规则 " + name + " 不是字符串、枚举或布尔属性的相等比较");
+        }
+        Object value = literals.get(0).getField().getValue();
+        if (keyType.isPrimitive() ? !(value instanceof Boolean) : !keyType.isInstance(value)) {
+            throw new IllegalArgumentException("规则 " + name + " 的比较值类型与属性不同: " + value);
+        }
+        return value;
+    }
+
+    private static boolean isNumeric(Class<?> type) {
+        return type == Double.class || type == double.class || type == Integer.class || type == int.class
+                || type == Long.class || type == long.class;
+    }
+
+    private static String consequenceOf(RuleDescr descr) {
+        if (!(descr.getConsequence() instanceof String consequence)) {
+            throw new IllegalArgumentException("规则 " + descr.getName() + " 没有RHS");
+        }
+        return consequence;
+    }
+
+    /**
+     * 将RHS解析为动作，语句之间以分号分隔，注释被忽略
+     */
+    private static Action[] compileActions(String name, String consequence, String binding, Class<?> factType) {
+        List<Action> actions = new ArrayList<>();
+        Set<String> assigned = new HashSet<>();
+        for (String statement : splitStatements(name, consequence)) {
+            Matcher print = PRINT.matcher(statement);
+            if (print.matches()) {
+                actions.add(new Print(unescape(print.group(1))));
+                continue;
+            }
+            Matcher assign = ASSIGN.matcher(statement);
+            if (binding == null || !assign.matches() || !assign.group(1).equals(binding)) {
+                throw new IllegalArgumentException("规则 " + name + " 的RHS语句不受支持: " + statement);
+            }
+            Assign action = compileAssign(name, assign.group(2), assign.group(3), binding, factType, assigned);
+            assigned.add(assign.group(2));
+            actions.add(action);
+        }
+        return actions.toArray(new Action[0]);
+    }
+
+    private static Assign compileAssign(String name, String property, String expression, String binding,
+                                        Class<?> factType, Set<String> assigned) {
+        Method setter = null;
+        for (Method method : factType.getMethods()) {
+            if (method.getName().equals("set" + property) && method.getParameterCount() == 1
+                    && !Modifier.isStatic(method.getModifiers())) {
+                if (setter != null) {
+                    throw new IllegalArgumentException("规则 " + name + " 调用的setter有重载: set" + property);
+                }
+                setter = method;
+            }
+        }
+        if (setter == null) {
+            throw new IllegalArgumentException("规则 " + name + " 调用的setter不存在: set" + property);
+        }
+
+        Matcher matcher = EXPRESSION.matcher(expression);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("规则 " + name + " 的setter参数不受支持: " + expression);
+        }
+        Operand left = operand(name, matcher.group(1), binding, factType, assigned);
+        Operand right = matcher.group(3) != null ? operand(name, matcher.group(3), binding, factType, assigned) : null;
+        char operator = matcher.group(2) != null ? matcher.group(2).charAt(0) : 0;
+        Class<?> resultType = right == null ? left.type() : promote(name, left.type(), right.type());
+        Class<?> parameterType = setter.getParameterTypes()[0];
+        if (!isAssignable(parameterType, resultType)) {
+            throw new IllegalArgumentException("规则 " + name + " 的setter参数类型不匹配: " + expression);
+        }
+        return new Assign(setter, Introspector.decapitalize(property), parameterType, left, operator, right, resultType);
+    }
+
+    private static Operand operand(String name, String text, String binding, Class<?> factType, Set<String> assigned) {
+        Matcher getter = GETTER.matcher(text);
+        if (getter.matches()) {
+            if (!getter.group(1).equals(binding)) {
+                throw new IllegalArgumentException("规则 " + name + " 读取了其他变量: " + text);
+            }
+            String methodName = getter.group(2);
+            String property = methodName.substring(methodName.startsWith("is") ? 2 : 3);
+            if (assigned.contains(property)) {
+                // 动作先统一计算参数再依次执行，读取前面语句修改过的属性时结果会不同
+                throw new IllegalArgumentException("规则 " + name + " 读取了前面语句修改的属性: " + property);
+            }
+            try {
+                Method method = factType.getMethod(methodName);
+                return new Operand(method.getReturnType(), method, null, Introspector.decapitalize(property));
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException("规则 " + name + " 调用的getter不存在: " + methodName);
+            }
+        }
+        if ("null".equals(text)) {
+            return new Operand(Void.class, null, null, null);
+        }
+        char suffix = Character.toLowerCase(text.charAt(text.length() - 1));
+        String digits = Character.isLetter(suffix) ? text.substring(0, text.length() - 1) : text;
+        if (suffix == 'l') {
+            if (digits.contains(".")) {
+                throw new IllegalArgumentException("规则 " + name + " 的字面量不合法: " + text);
+            }
+            return new Operand(long.class, null, Long.parseLong(digits), null);
+        }
+        if (suffix == 'd' || digits.contains(".")) {
+            return new Operand(double.class, null, Double.parseDouble(digits), null);
+        }
+        return new Operand(int.class, null, Integer.parseInt(digits), null);
+    }
+
+    /**
+     * 二元数值运算的结果类型（Java的二元数值提升）
+     */
+    private static Class<?> promote(String name, Class<?> left, Class<?> right) {
+        Class<?> leftType = unboxed(left);
+        Class<?> rightType = unboxed(right);
+        if (!isNumeric(leftType) || !isNumeric(rightType)) {
+            throw new IllegalArgumentException("规则 " + name + " 的运算数不是数值");
+        }
+        if (leftType == double.class || rightType == double.class) {
+            return double.class;
+        }
+        return leftType == long.class || rightType == long.class ? long.class : int.class;
+    }
+
+    private static Class<?> unboxed(Class<?> type) {
+        if (type == Double.class) {
+            return double.class;
+        }
+        if (type == Long.class) {
+            return long.class;
+        }
+        return type == Integer.class ? int.class : type;
+    }
+
+    private static Class<?> boxed(Class<?> type) {
+        if (type == double.class) {
+            return Double.class;
+        }
+        if (type == long.class) {
+            return Long.class;
+        }
+        if (type == int.class) {
+            return Integer.class;
+        }
+        return type == boolean.class ? Boolean.class : type;
+    }
+
+    /**
+     * 按Java方法调用的转换规则判断是否可以赋值：拆箱后的宽化，或装箱为对应的包装类型
+     */
+    private static boolean isAssignable(Class<?> parameter, Class<?> value) {
+        if (value == Void.class) {
+            return !parameter.isPrimitive();
+        }
+        if (parameter.isPrimitive()) {
+            Class<?> source = unboxed(value);
+            if (parameter == source) {
+                return true;
+            }
+            return (parameter == double.class && (source == int.class || source == long.class))
+                    || (parameter == long.class && source == int.class);
+        }
+        return parameter.isAssignableFrom(boxed(value));
+    }
+
+    private static List<String> splitStatements(String name, String consequence) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int length = consequence.length();
+        for (int i = 0; i < length; i++) {
+            char c = consequence.charAt(i);
+            if (c == '"') {
+                int end = i + 1;
+                while (end < length && consequence.charAt(end) != '"') {
+                    end += consequence.charAt(end) == '\\' ? 2 : 1;
+                }
+                if (end >= length) {
+                    throw new IllegalArgumentException("规则 " + name + " 的RHS字符串未结束");
+                }
+                current.append(consequence, i, end + 1);
+                i = end;
+            } else if (c == '/' && i + 1 < length && consequence.charAt(i + 1) == '/') {
+                int end = consequence.indexOf('\n', i);
+                i = end < 0 ? length : end;
+            } else if (c == '/' && i + 1 < length && consequence.charAt(i + 1) == '*') {
+                int end = consequence.indexOf("*/", i + 2);
+                if (end < 0) {
+                    throw new IllegalArgumentException("规则 " + name + " 的RHS注释未结束");
+                }
+                i = end + 1;
+            } else if (c == ';') {
+                addStatement(statements, current);
+            } else {
+                current.append(c);
+            }
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String statement = current.toString().trim();
+        if (!statement.isEmpty()) {
+            statements.add(statement);
+        }
+        current.setLength(0);
+    }
+
+    private static String unescape(String literal) {
+        return literal.replace("\\n", "\n").replace("\\t", "\t").replace("\\\"", "\"").replace("\\\\", "\\");
+    }
+
+    /**
+     * 按列评估的结果
+     *
+     * @param rows 行数
+     * @param firedRows 规则名称到触发的行，按区间顺序包含每条规则
+     * @param errorRows setter参数无法计算的行
+     * @param outputs 规则修改的属性的输出列，未触发的行为输入值
+     */
+    public record ColumnarDecision(int rows, Map<String, BitSet> firedRows, BitSet errorRows,
+                                   Map<String, double[]> outputs) {
+    }
+
+    /**
+     * 索引上的评估结果
+     *
+     * @param firedRule 触发的规则名称，没有规则触发时为null
+     */
+    public record Decision(String firedRule) {
+
+        static final Decision NO_MATCH = new Decision(null);
+    }
+
+    private record Interval(double low, boolean lowInclusive, double high, boolean highInclusive, CompiledRule rule) {
+
+        boolean contains(double value) {
+            return (lowInclusive ? value >= low : value > low) && (highInclusive ? value <= high : value < high);
+        }
+
+        /**
+         * 在整列上判断取值是否落在区间内，每64行合成一个字；NaN（null）不在任何区间内
+         */
+        long[] select(double[] values, int rows) {
+            long[] words = new long[(rows + 63) >>> 6];
+            // 按边界是否包含展开为四个循环，循环体内没有分支
+            if (lowInclusive && highInclusive) {
+                for (int row = 0; row < rows; row++) {
+                    double value = values[row];
+                    words[row >>> 6] |= (value >= low & value <= high ? 1L : 0L) << row;
+                }
+            } else if (lowInclusive) {
+                for (int row = 0; row < rows; row++) {
+                    double value = values[row];
+                    words[row >>> 6] |= (value >= low & value < high ? 1L : 0L) << row;
+                }
+            } else if (highInclusive) {
+                for (int row = 0; row < rows; row++) {
+                    double value = values[row];
+                    words[row >>> 6] |= (value > low & value <= high ? 1L : 0L) << row;
+                }
+            } else {
+                for (int row = 0; row < rows; row++) {
+                    double value = values[row];
+                    words[row >>> 6] |= (value > low & value < high ? 1L : 0L) << row;
+                }
+            }
+            return words;
+        }
+
+        /**
+         * 与下界不小于本区间下界的区间是否相交
+         */
+        boolean overlaps(Interval next) {
+            return next.low < high || (next.low == high && highInclusive && next.lowInclusive);
+        }
+    }
+
+    private record CompiledRule(String name, Action[] actions) {
+
+        /**
+         * 先计算所有setter参数，全部成功后再依次执行动作
+         *
+         * @return 参数无法计算（拆箱null、整数除零）时返回false，事实未被修改
+         */
+        boolean apply(Object fact) {
+            Object[] values = new Object[actions.length];
+            for (int i = 0; i < actions.length; i++) {
+                if (actions[i] instanceof Assign assign) {
+                    values[i] = assign.compute(fact);
+                    if (values[i] == Assign.FAILED) {
+                        return false;
+                    }
+                }
+            }
+            for (int i = 0; i < actions.length; i++) {
+                if (actions[i] instanceof Assign assign) {
+                    assign.invoke(fact, values[i]);
+                } else {
+                    System.out.println(((Print) actions[i]).text());
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 对触发的行计算setter参数并写入输出列：先按动作在整列上找出参数无法计算（拆箱null）的行，
+         * 将其从触发的行中移除并记为错误行，再按动作依次对剩余的行计算参数，打印动作被忽略
+         */
+        void applyColumns(long[] selected, Map<String, double[]> columns, Map<String, double[]> outputs,
+                          long[] errorRows, int rows) {
+            ColumnOperand[] lefts = new ColumnOperand[actions.length];
+            ColumnOperand[] rights = new ColumnOperand[actions.length];
+            for (int i = 0; i < actions.length; i++) {
+                if (actions[i] instanceof Assign assign) {
+                    lefts[i] = ColumnOperand.of(assign.left(), columns, rows);
+                    rights[i] = assign.right() != null ? ColumnOperand.of(assign.right(), columns, rows) : null;
+                    // 包装类型参数可以接收null，基本类型参数与二元运算遇到null时拆箱失败
+                    if (rights[i] != null || assign.parameterType().isPrimitive()) {
+                        lefts[i].rejectNulls(selected, errorRows);
+                        if (rights[i] != null) {
+                            rights[i].rejectNulls(selected, errorRows);
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i < actions.length; i++) {
+                if (actions[i] instanceof Assign assign) {
+                    assign.applyColumns(selected, outputs.get(assign.property()), lefts[i], rights[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * 按列评估时的运算数：输入列或字面量，包装类型列中的NaN表示null
+     */
+    private record ColumnOperand(double[] column, boolean nullable, double literal) {
+
+        static ColumnOperand of(Operand operand, Map<String, double[]> columns, int rows) {
+            if (operand.getter() != null) {
+                return new ColumnOperand(DecisionIndex.column(columns, operand.property(), operand.type(), rows),
+                        !operand.type().isPrimitive(), 0.0);
+            }
+            // null字面量只能直接传给包装类型参数
+            return new ColumnOperand(null, false,
+                    operand.literal() != null ? ((Number) operand.literal()).doubleValue() : Double.NaN);
+        }
+
+        /**
+         * 将取值为null的行从触发的行中移除并记为错误行
+         */
+        void rejectNulls(long[] selected, long[] errorRows) {
+            if (!nullable) {
+                return;
+            }
+            for (int word = 0; word < selected.length; word++) {
+                long bits = selected[word];
+                long nulls = 0L;
+                int base = word << 6;
+                while (bits != 0) {
+                    int bit = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (Double.isNaN(column[base + bit])) {
+                        nulls |= 1L << bit;
+                    }
+                }
+                selected[word] &= ~nulls;
+                errorRows[word] |= nulls;
+            }
+        }
+    }
+
+    private sealed interface Action permits Print, Assign {
+    }
+
+    private record Print(String text) implements Action {
+    }
+
+    private record Operand(Class<?> type, Method getter, Object literal, String property) {
+
+        Object value(Object fact) {
+            return getter != null ? invoke(getter, fact) : literal;
+        }
+    }
+
+    private record Assign(Method setter, String property, Class<?> parameterType, Operand left, char operator,
+                          Operand right, Class<?> resultType) implements Action {
+
+        static final Object FAILED = new Object();
+
+        Object compute(Object fact) {
+            Object leftValue = left.value(fact);
+            if (right == null) {
+                return convert(leftValue);
+            }
+            Object rightValue = right.value(fact);
+            if (!(leftValue instanceof Number a) || !(rightValue instanceof Number b)) {
+                return FAILED;
+            }
+            if (resultType == double.class) {
+                double x = a.doubleValue();
+                double y = b.doubleValue();
+                return convert(switch (operator) {
+                    case '+' -> x + y;
+                    case '-' -> x - y;
+                    case '*' -> x * y;
+                    default -> x / y;
+                });
+            }
+            long x = a.longValue();
+            long y = b.longValue();
+            if (operator == '/' && y == 0) {
+                return FAILED;
+            }
+            long result = switch (operator) {
+                case '+' -> x + y;
+                case '-' -> x - y;
+                case '*' -> x * y;
+                default -> x / y;
+            };
+            return convert(resultType == int.class ? (Object) (int) result : (Object) result);
+        }
+
+        /**
+         * 转换为setter参数类型，基本类型参数遇到null（拆箱失败）时返回FAILED
+         */
+        private Object convert(Object value) {
+            if (value == null) {
+                return parameterType.isPrimitive() ? FAILED : null;
+            }
+            if (parameterType == double.class) {
+                return ((Number) value).doubleValue();
+            }
+            if (parameterType == long.class) {
+                return ((Number) value).longValue();
+            }
+            return value;
+        }
+
+        /**
+         * 对触发的行计算参数写入输出列，调用前已移除参数无法计算的行
+         */
+        void applyColumns(long[] selected, double[] target, ColumnOperand left, ColumnOperand right) {
+            double[] leftColumn = left.column();
+            double[] rightColumn = right != null ? right.column() : null;
+            for (int word = 0; word < selected.length; word++) {
+                long bits = selected[word];
+                int base = word << 6;
+                while (bits != 0) {
+                    int row = base + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    double x = leftColumn != null ? leftColumn[row] : left.literal();
+                    if (right == null) {
+                        target[row] = x;
+                        continue;
+                    }
+                    double y = rightColumn != null ? rightColumn[row] : right.literal();
+                    target[row] = switch (operator) {
+                        case '+' -> x + y;
+                        case '-' -> x - y;
+                        case '*' -> x * y;
+                        default -> x / y;
+                    };
+                }
+            }
+        }
+
+        void invoke(Object fact, Object value) {
+            try {
+                setter.invoke(fact, value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            } catch (InvocationTargetException e) {
+                throw e.getCause() instanceof RuntimeException runtimeException
+                        ? runtimeException : new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    private static Object invoke(Method getter, Object fact) {
+        try {
+            return getter.invoke(fact);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            throw e.getCause() instanceof RuntimeException runtimeException
+                    ? runtimeException : new IllegalStateException(e.getCause());
+        }
+    }
+}
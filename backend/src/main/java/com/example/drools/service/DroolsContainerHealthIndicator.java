@@ -0,0 +1,35 @@
+package com.example.drools.service;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drools容器健康指示器
+ * 将后台探测得到的健康状态快照暴露到 /actuator/health，供负载均衡器健康检查使用
+ *
+ * @author System
+ * @since 1.0.0
+ */
+@Component
+public class DroolsContainerHealthIndicator implements HealthIndicator {
+
+    private final ContainerHealthProbe containerHealthProbe;
+
+    public DroolsContainerHealthIndicator(ContainerHealthProbe containerHealthProbe) {
+        this.containerHealthProbe = containerHealthProbe;
+    }
+
+    @Override
+    public Health health() {
+        ContainerHealthStatus status = containerHealthProbe.getContainerHealthStatus();
+        Health.Builder builder = status.isFullyOperational() ? Health.up() : Health.down();
+        return builder
+                .withDetail("generation", status.getGeneration())
+                .withDetail("loadedRulesCount", status.getLoadedRulesCount())
+                .withDetail("lastProbeTime", String.valueOf(status.getLastProbeTime()))
+                .withDetail("probeLatencyMs", status.getProbeLatencyMs())
+                .withDetail("statusMessage", status.getStatusMessage())
+                .build();
+    }
+}
@@ -1,26 +1,49 @@
 package com.example.drools.service;
 
+import com.example.drools.config.DroolsProperties;
+import com.example.drools.dto.EvaluationResult;
 import com.example.drools.entity.DroolsRule;
 import com.example.drools.exception.DroolsContainerException;
-import com.example.drools.repository.DroolsRuleRepository;
-import jakarta.annotation.PostConstruct;
-import jakarta.annotation.PreDestroy;
+import com.example.drools.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.drools.core.command.runtime.AddEventListenerCommand;
+import org.drools.core.command.runtime.RemoveEventListenerCommand;
+import org.drools.core.command.runtime.rule.FireAllRulesCommand;
+import org.drools.core.definitions.rule.impl.RuleImpl;
+import org.drools.core.impl.InternalKnowledgeBase;
 import org.kie.api.KieServices;
 import org.kie.api.builder.*;
+import org.kie.api.command.Command;
+import org.kie.api.command.KieCommands;
+import org.kie.api.definition.rule.Rule;
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+import org.kie.api.runtime.Context;
+import org.kie.api.runtime.ExecutionResults;
 import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.StatelessKieSession;
+import org.kie.api.runtime.rule.AgendaFilter;
+import org.kie.api.runtime.rule.QueryResults;
+import org.kie.api.runtime.rule.QueryResultsRow;
+import org.kie.internal.command.RegistryContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Drools容器管理服务
  * 负责管理Drools规则引擎容器的生命周期，包括初始化、规则加载和容器管理
+ * <p>
+ * 每个租户的规则加载到独立的 {@link TenantRuleContainer} 中，由 {@link RuleContainerRegistry} 统一管理；
+ * 不带租户参数的方法作用于默认租户
  * 
  * @author System
  * @since 1.0.0
@@ -29,235 +52,537 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 public class DroolsContainerService {
 
     private static final Logger logger = LoggerFactory.getLogger(DroolsContainerService.class);
-    
-    private static final String DEFAULT_PACKAGE = "com.example.rules";
-    private static final String RULES_PATH = "src/main/resources/rules/";
+
+    // 批量命令执行结果的输出标识
+    private static final String FACTS_OUT = "facts";
+    private static final String QUERY_OUT_PREFIX = "query:";
     
     @Autowired
-    private DroolsRuleRepository droolsRuleRepository;
-    
-    private KieServices kieServices;
-    private KieContainer kieContainer;
-    private KieFileSystem kieFileSystem;
-    
-    // 用于存储规则ID到文件路径的映射
-    private final ConcurrentHashMap<Long, String> rulePathMap = new ConcurrentHashMap<>();
+    private RuleContainerRegistry ruleContainerRegistry;
+
+    @Autowired
+    private EvaluationWatchdog evaluationWatchdog;
+
+    @Autowired
+    private DroolsProperties droolsProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DecisionCache decisionCache;
+
+    // 首个匹配模式的短路统计，键为 租户/规则族
+    private final Map<String, FirstMatchMeters> firstMatchMeters = new ConcurrentHashMap<>();
+
+    // 无匹配预过滤的统计，键为 租户/规则族
+    private final Map<String, PrefilterMeters> prefilterMeters = new ConcurrentHashMap<>();
+
+    // 决策索引的统计，键为 租户/规则族
+    private final Map<String, DecisionIndexMeters> decisionIndexMeters = new ConcurrentHashMap<>();
     
-    // 读写锁，保证容器操作的线程安全
-    private final ReentrantReadWriteLock containerLock = new ReentrantReadWriteLock();
-    private final ReentrantReadWriteLock.ReadLock readLock = containerLock.readLock();
-    private final ReentrantReadWriteLock.WriteLock writeLock = containerLock.writeLock();
+    private final KieServices kieServices = KieServices.Factory.get();
 
     /**
-     * 服务初始化方法
-     * 在Spring容器启动后自动调用，初始化Drools容器并加载现有规则
+     * 获取默认租户的KieSession实例
+     * 
+     * @return KieSession实例
      */
-    @PostConstruct
-    public void initializeContainer() {
-        logger.info("开始初始化Drools容器服务...");
-        
-        try {
-            // 初始化KieServices
-            kieServices = KieServices.Factory.get();
-            kieFileSystem = kieServices.newKieFileSystem();
-            
-            // 加载数据库中的所有启用规则
-            loadRulesFromDatabase();
-            
-            // 构建并创建容器
-            buildContainer();
-            
-            logger.info("Drools容器服务初始化完成，共加载 {} 条规则", rulePathMap.size());
-            
-        } catch (Exception e) {
-            logger.error("Drools容器服务初始化失败", e);
-            throw new RuntimeException("Failed to initialize Drools container", e);
-        }
+    public KieSession createKieSession() {
+        return createKieSession(DroolsRule.DEFAULT_TENANT);
     }
 
     /**
-     * 从数据库加载所有启用的规则到容器中
+     * 获取指定租户的KieSession实例
+     * 每次调用新建会话，调用方负责dispose；单次评估优先使用 {@link #borrowKieSession(String)}
+     * 
+     * @param tenantId 租户ID
+     * @return KieSession实例
      */
-    private void loadRulesFromDatabase() {
-        logger.info("开始从数据库加载规则...");
-        
-        try {
-            List<DroolsRule> enabledRules = droolsRuleRepository.findEnabledRules();
-            logger.info("从数据库查询到 {} 条启用的规则", enabledRules.size());
-            
-            for (DroolsRule rule : enabledRules) {
-                addRuleToFileSystem(rule);
-            }
-            
-            logger.info("规则加载完成，共加载 {} 条规则", enabledRules.size());
-            
-        } catch (Exception e) {
-            logger.error("从数据库加载规则失败", e);
-            throw new RuntimeException("Failed to load rules from database", e);
-        }
+    public KieSession createKieSession(String tenantId) {
+        return ruleContainerRegistry.getActiveGeneration(tenantId).getKieContainer().newKieSession();
     }
 
     /**
-     * 将规则添加到KieFileSystem中
+     * 从默认租户的会话池借出KieSession
      * 
-     * @param rule 规则对象
+     * @return 借出的会话，使用完毕后调用close归还
      */
-    private void addRuleToFileSystem(DroolsRule rule) {
-        if (rule == null || rule.getId() == null || rule.getRuleContent() == null) {
-            logger.warn("规则对象无效，跳过加载: {}", rule);
-            return;
-        }
-        
-        try {
-            String rulePath = generateRulePath(rule);
-            
-            kieFileSystem.write(rulePath, rule.getRuleContent());
-            rulePathMap.put(rule.getId(), rulePath);
-            
-            logger.debug("规则已添加到文件系统: {} -> {}", rule.getRuleName(), rulePath);
-            
-        } catch (Exception e) {
-            logger.error("添加规则到文件系统失败: {}", rule.getRuleName(), e);
-            throw new RuntimeException("Failed to add rule to file system: " + rule.getRuleName(), e);
-        }
+    public PooledKieSession borrowKieSession() {
+        return borrowKieSession(DroolsRule.DEFAULT_TENANT);
     }
 
     /**
-     * 生成规则文件路径
+     * 从指定租户当前代次的会话池借出KieSession
+     * 会话归还时被重置并复用，避免每次评估重新分配会话；借出后应在 try-with-resources 中使用
      * 
-     * @param rule 规则对象
-     * @return 规则文件路径
+     * @param tenantId 租户ID
+     * @return 借出的会话，使用完毕后调用close归还
+     * @throws DroolsContainerException 当等待会话超时时抛出
      */
-    private String generateRulePath(DroolsRule rule) {
-        // rule 里面有PACKAGE,那么是不是我看可以创建一个
-        return RULES_PATH + rule.getRuleName() + ".drl";
+    public PooledKieSession borrowKieSession(String tenantId) {
+        return ruleContainerRegistry.borrowSession(tenantId);
     }
 
     /**
-     * 包装规则内容，添加package声明和必要的import语句
+     * 使用默认租户的规则对一组事实进行无状态评估
      * 
-     * @param rule 规则对象
-     * @return 完整的规则内容
+     * @param facts 事实对象
+     * @param queryNames 规则执行后需要读取结果的查询名称
+     * @return 评估结果
      */
-    private String wrapRuleContent(DroolsRule rule) {
-        StringBuilder sb = new StringBuilder();
-        
-        // 添加package声明
-        sb.append("package ").append(DEFAULT_PACKAGE).append(";\n\n");
-        
-        // 添加常用的import语句
-        sb.append("import java.util.*;\n");
-        sb.append("import java.math.*;\n");
-        sb.append("import java.time.*;\n\n");
-        
-        // 添加规则内容注释
-        sb.append("// 规则ID: ").append(rule.getId()).append("\n");
-        sb.append("// 规则名称: ").append(rule.getRuleName()).append("\n");
-        if (rule.getDescription() != null && !rule.getDescription().trim().isEmpty()) {
-            sb.append("// 规则描述: ").append(rule.getDescription()).append("\n");
-        }
-        sb.append("// 创建时间: ").append(rule.getCreateTime()).append("\n");
-        sb.append("// 更新时间: ").append(rule.getUpdateTime()).append("\n\n");
-        
-        // 添加实际的规则内容
-        sb.append(rule.getRuleContent());
-        
-        return sb.toString();
+    public EvaluationResult evaluate(Collection<?> facts, List<String> queryNames) {
+        return evaluate(DroolsRule.DEFAULT_TENANT, facts, queryNames);
     }
 
     /**
-     * 构建KieContainer
+     * 使用指定租户的规则对一组事实进行无状态评估
+     * 
+     * @param tenantId 租户ID
+     * @param facts 事实对象
+     * @param queryNames 规则执行后需要读取结果的查询名称
+     * @return 评估结果
      */
-    private void buildContainer() {
-        logger.info("开始构建Drools容器...");
-        
+    public EvaluationResult evaluate(String tenantId, Collection<?> facts, List<String> queryNames) {
+        return evaluate(tenantId, null, facts, queryNames);
+    }
+
+    /**
+     * 使用指定租户某个规则族的规则对一组事实进行无状态评估
+     * 
+     * @param tenantId 租户ID
+     * @param family 规则族名称，为空时使用租户的全部规则
+     * @param facts 事实对象
+     * @param queryNames 规则执行后需要读取结果的查询名称
+     * @return 评估结果
+     */
+    public EvaluationResult evaluate(String tenantId, String family, Collection<?> facts, List<String> queryNames) {
+        return evaluate(tenantId, EvaluationOptions.defaults().family(family).queryNames(queryNames), facts);
+    }
+
+    /**
+     * 按评估选项使用指定租户的规则对一组事实进行无状态评估
+     * 
+     * @param tenantId 租户ID
+     * @param options 评估选项
+     * @param facts 事实对象
+     * @return 评估结果
+     */
+    public EvaluationResult evaluate(String tenantId, EvaluationOptions options, Collection<?> facts) {
+        return evaluateBatch(tenantId, options, List.of(facts)).get(0);
+    }
+
+    /**
+     * 使用指定租户的规则对多组事实进行无状态评估
+     * 所有事实组使用同一容器代次的无状态会话，每组事实通过一次批量命令（插入、触发规则、读取事实与查询）执行，
+     * 各组之间的工作内存互相独立；无需创建和销毁有状态会话
+     * 
+     * @param tenantId 租户ID
+     * @param factGroups 事实组列表
+     * @param queryNames 规则执行后需要读取结果的查询名称，对每组事实都会执行
+     * @return 与事实组顺序一致的评估结果
+     */
+    public List<EvaluationResult> evaluateBatch(String tenantId, List<? extends Collection<?>> factGroups,
+                                                List<String> queryNames) {
+        return evaluateBatch(tenantId, null, factGroups, queryNames);
+    }
+
+    /**
+     * 使用指定租户某个规则族的规则对多组事实进行无状态评估
+     * 
+     * @param tenantId 租户ID
+     * @param family 规则族名称，为空时使用租户的全部规则
+     * @param factGroups 事实组列表
+     * @param queryNames 规则执行后需要读取结果的查询名称，对每组事实都会执行
+     * @return 与事实组顺序一致的评估结果
+     * @throws ResourceNotFoundException 当租户当前代次没有该规则族的规则时抛出
+     */
+    public List<EvaluationResult> evaluateBatch(String tenantId, String family, List<? extends Collection<?>> factGroups,
+                                                List<String> queryNames) {
+        return evaluateBatch(tenantId, EvaluationOptions.defaults().family(family).queryNames(queryNames), factGroups);
+    }
+
+    /**
+     * 按评估选项使用指定租户的规则对多组事实进行无状态评估
+     * 规则族构建了独立KieBase（如顺序模式）时使用其无状态会话，否则在租户的KieBase上只允许该规则族的规则触发；
+     * 指定议程组时该议程组获得焦点，且只允许其中的规则触发
+     * 
+     * @param tenantId 租户ID
+     * @param options 评估选项
+     * @param factGroups 事实组列表
+     * @return 与事实组顺序一致的评估结果
+     * @throws ResourceNotFoundException 当租户当前代次没有指定规则族的规则时抛出
+     */
+    public List<EvaluationResult> evaluateBatch(String tenantId, EvaluationOptions options,
+                                                List<? extends Collection<?>> factGroups) {
+        EvaluationPlan plan = plan(tenantId, options);
+        EvaluationResult[] results = new EvaluationResult[factGroups.size()];
+        evaluateRange(plan, options, factGroups, 0, factGroups.size(), results);
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 按评估选项将多组事实划分为连续的分区，在线程池中并行评估
+     * 所有分区使用同一容器代次；每个分区在一个工作线程上依次执行，复用该线程从Drools会话池取得的会话。
+     * 任一分区失败时取消尚未完成的分区并抛出该异常
+     * 
+     * @param tenantId 租户ID
+     * @param options 评估选项
+     * @param factGroups 相互独立的事实组列表
+     * @param pool 执行分区的线程池
+     * @param partitions 分区数量，不大于1时在调用线程中执行
+     * @return 与事实组顺序一致的评估结果
+     * @throws ResourceNotFoundException 当租户当前代次没有指定规则族的规则时抛出
+     */
+    public List<EvaluationResult> evaluateBatch(String tenantId, EvaluationOptions options,
+                                                List<? extends Collection<?>> factGroups,
+                                                ForkJoinPool pool, int partitions) {
+        EvaluationPlan plan = plan(tenantId, options);
+        int size = factGroups.size();
+        EvaluationResult[] results = new EvaluationResult[size];
+        int partitionCount = Math.min(partitions, size);
+        if (partitionCount <= 1) {
+            evaluateRange(plan, options, factGroups, 0, size, results);
+            return Arrays.asList(results);
+        }
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(partitionCount);
+        for (int partition = 0; partition < partitionCount; partition++) {
+            int from = (int) ((long) size * partition / partitionCount);
+            int to = (int) ((long) size * (partition + 1) / partitionCount);
+            tasks.add(pool.submit(() -> evaluateRange(plan, options, factGroups, from, to, results)));
+        }
         try {
-            writeLock.lock();
-            
-            KieBuilder kieBuilder = kieServices.newKieBuilder(kieFileSystem);
-            kieBuilder.buildAll();
-            
-            Results results = kieBuilder.getResults();
-            if (results.hasMessages(Message.Level.ERROR)) {
-                logger.error("构建Drools容器时发现错误:");
-                for (Message message : results.getMessages(Message.Level.ERROR)) {
-                    logger.error("  - {}", message.getText());
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        } catch (RuntimeException e) {
+            tasks.forEach(task -> task.cancel(false));
+            throw e;
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 确定评估使用的会话、过滤条件与获得焦点的议程组
+     * 按议程组路由的规则族只让其议程组获得焦点并插入 {@link RouteMarker}，不使用过滤器；
+     * 评估全部规则时按议程组路由的规则族的议程组依次获得焦点，不插入 {@link RouteMarker}
+     */
+    private EvaluationPlan plan(String tenantId, EvaluationOptions options) {
+        ContainerGeneration generation = ruleContainerRegistry.getActiveGeneration(tenantId);
+        DroolsProperties.Evaluation limits = droolsProperties.getEvaluation();
+        long timeoutMs = options.getTimeoutMs() != null ? options.getTimeoutMs() : limits.getTimeoutMs();
+        int maxFirings = options.getMaxFirings() != null ? options.getMaxFirings() : limits.getMaxFirings();
+        StatelessKieSession session = generation.getStatelessSession();
+        AgendaFilter agendaFilter = null;
+        List<String> focusGroups = List.of();
+        String routeGroup = null;
+        FirstMatchMeters firstMatch = null;
+        DecisionCache.Scope decisionScope = null;
+        NoMatchPrefilter prefilter = null;
+        PrefilterMeters prefilterCounters = null;
+        DecisionIndex decisionIndex = null;
+        DecisionIndexMeters decisionIndexCounters = null;
+        String family = options.getFamily();
+        String agendaGroup = options.getAgendaGroup();
+        boolean hasFamily = family != null && !family.isEmpty();
+        boolean hasAgendaGroup = agendaGroup != null && !agendaGroup.isEmpty();
+        boolean routed = false;
+        if (hasFamily) {
+            RuleFamily ruleFamily = generation.getFamily(family);
+            if (ruleFamily == null) {
+                throw ResourceNotFoundException.ruleFamilyNotFound(tenantId, family);
+            }
+            boolean routable = ruleFamily.isRouted() && (!hasAgendaGroup || agendaGroup.equals(ruleFamily.getAgendaGroup()));
+            if (ruleFamily.hasDedicatedKieBase()) {
+                session = ruleFamily.getDedicatedSession();
+                // 独立KieBase只包含该规则族的规则，议程组获得焦点即可，无需结束规则
+                if (routable && hasMultipleAgendaGroups(session)) {
+                    focusGroups = List.of(ruleFamily.getAgendaGroup());
+                    routed = true;
                 }
-                throw new RuntimeException("Failed to build Drools container due to compilation errors");
+            } else if (routable) {
+                focusGroups = List.of(ruleFamily.getAgendaGroup());
+                routeGroup = ruleFamily.getAgendaGroup();
+                routed = true;
+            } else {
+                agendaFilter = ruleFamily.getAgendaFilter();
             }
-            
-            if (results.hasMessages(Message.Level.WARNING)) {
-                logger.warn("构建Drools容器时发现警告:");
-                for (Message message : results.getMessages(Message.Level.WARNING)) {
-                    logger.warn("  - {}", message.getText());
+            // 首个匹配模式：第一条规则触发后即停止，其余规则不再求值
+            if (ruleFamily.getOptions().isFirstMatch()) {
+                maxFirings = 1;
+                firstMatch = firstMatchMeters(tenantId, family);
+            }
+            // 需要读取查询结果时即使没有规则触发也要在工作内存中执行查询，不使用预过滤与决策索引
+            if (ruleFamily.getPrefilter() != null && options.getQueryNames().isEmpty()) {
+                prefilter = ruleFamily.getPrefilter();
+                prefilterCounters = prefilterMeters(tenantId, family);
+            }
+            // 指定了规则族以外的议程组时只有其中的规则可以触发，与索引不等价；
+            // 规则族不按议程组路由且有规则不在MAIN议程组中时，这些规则不会获得焦点，同样与索引不等价
+            if (ruleFamily.getDecisionIndex() != null && options.getQueryNames().isEmpty()
+                    && (!hasAgendaGroup || routable)
+                    && (ruleFamily.isRouted() || ruleFamily.isMainAgendaGroup())) {
+                decisionIndex = ruleFamily.getDecisionIndex();
+                decisionIndexCounters = decisionIndexMeters(tenantId, family);
+            }
+            if (ruleFamily.getOptions().isPure() && decisionCache.isEnabled()) {
+                decisionScope = new DecisionCache.Scope(tenantId, generation.getGeneration(), family,
+                        hasAgendaGroup ? agendaGroup : null, options.getQueryNames(), options.isTrackFiredRules(),
+                        timeoutMs, maxFirings);
+            }
+        } else if (!hasAgendaGroup) {
+            focusGroups = generation.getRoutedAgendaGroups();
+        }
+        if (hasAgendaGroup && !routed) {
+            AgendaFilter familyFilter = agendaFilter;
+            agendaFilter = match -> agendaGroup.equals(((RuleImpl) match.getRule()).getAgendaGroup())
+                    && (familyFilter == null || familyFilter.accept(match));
+            // 只有MAIN议程组的KieBase不支持切换焦点，此时过滤即可
+            if (hasMultipleAgendaGroups(session)) {
+                focusGroups = List.of(agendaGroup);
+            }
+        }
+        return new EvaluationPlan(generation, session, agendaFilter, focusGroups, routeGroup,
+                timeoutMs, maxFirings, firstMatch, decisionScope, prefilter, prefilterCounters,
+                decisionIndex, decisionIndexCounters);
+    }
+
+    private FirstMatchMeters firstMatchMeters(String tenantId, String family) {
+        return firstMatchMeters.computeIfAbsent(tenantId + '/' + family, key -> new FirstMatchMeters(
+                Counter.builder("drools.evaluation.first.match")
+                        .description("首个匹配模式的评估，short_circuit为在首条规则触发后停止，no_match为没有规则触发")
+                        .tag("tenant", tenantId).tag("family", family).tag("outcome", "short_circuit")
+                        .register(meterRegistry),
+                Counter.builder("drools.evaluation.first.match")
+                        .tag("tenant", tenantId).tag("family", family).tag("outcome", "no_match")
+                        .register(meterRegistry)));
+    }
+
+    private PrefilterMeters prefilterMeters(String tenantId, String family) {
+        return prefilterMeters.computeIfAbsent(tenantId + '/' + family, key -> new PrefilterMeters(
+                Counter.builder("drools.evaluation.prefilter")
+                        .description("无匹配预过滤的判断，rejected为确定没有规则能被激活而直接返回的评估")
+                        .tag("tenant", tenantId).tag("family", family).tag("result", "rejected")
+                        .register(meterRegistry),
+                Counter.builder("drools.evaluation.prefilter")
+                        .tag("tenant", tenantId).tag("family", family).tag("result", "passed")
+                        .register(meterRegistry)));
+    }
+
+    private DecisionIndexMeters decisionIndexMeters(String tenantId, String family) {
+        return decisionIndexMeters.computeIfAbsent(tenantId + '/' + family, key -> new DecisionIndexMeters(
+                Counter.builder("drools.evaluation.decision.index")
+                        .description("决策索引的评估，fallback为无法保证等价而退回到Drools执行")
+                        .tag("tenant", tenantId).tag("family", family).tag("result", "hit")
+                        .register(meterRegistry),
+                Counter.builder("drools.evaluation.decision.index")
+                        .tag("tenant", tenantId).tag("family", family).tag("result", "fallback")
+                        .register(meterRegistry)));
+    }
+
+    private static boolean hasMultipleAgendaGroups(StatelessKieSession session) {
+        return ((InternalKnowledgeBase) session.getKieBase()).hasMultipleAgendaGroups();
+    }
+
+    /**
+     * 依次评估 [from, to) 范围内的事实组，结果写入对应下标
+     */
+    private void evaluateRange(EvaluationPlan plan, EvaluationOptions options, List<? extends Collection<?>> factGroups,
+                               int from, int to, EvaluationResult[] results) {
+        for (int i = from; i < to; i++) {
+            Collection<?> facts = factGroups.get(i);
+            DecisionIndex.Decision decision = null;
+            if (plan.decisionIndex() != null) {
+                decision = plan.decisionIndex().evaluate(facts);
+                (decision != null ? plan.decisionIndexCounters().hits() : plan.decisionIndexCounters().fallbacks())
+                        .increment();
+            }
+            EvaluationResult result;
+            if (decision != null) {
+                result = decided(plan, options, facts, decision);
+            } else if (plan.prefilter() != null && !plan.prefilter().mayMatch(facts)) {
+                plan.prefilterCounters().rejected().increment();
+                result = noMatch(plan, options, facts);
+            } else {
+                if (plan.prefilter() != null) {
+                    plan.prefilterCounters().passed().increment();
                 }
+                // 纯规则族相同事实的评估结果来自缓存，或等待相同事实正在进行的评估
+                // 被停止的结果不缓存也不共享，停止指标只在实际执行时记录
+                result = plan.decisionScope() != null
+                        ? decisionCache.get(plan.decisionScope(), facts, () -> execute(plan, options, facts))
+                        : execute(plan, options, facts);
             }
-            
-            KieModule kieModule = kieBuilder.getKieModule();
-            kieContainer = kieServices.newKieContainer(kieModule.getReleaseId());
-            
-            logger.info("Drools容器构建成功");
-            
-        } catch (Exception e) {
-            logger.error("构建Drools容器失败", e);
-            throw new RuntimeException("Failed to build Drools container", e);
-        } finally {
-            writeLock.unlock();
+            // 首个匹配指标在所有路径上记录，包括决策索引、预过滤与评估结果缓存
+            if (plan.firstMatch() != null) {
+                (result.getFiredRulesCount() > 0 ? plan.firstMatch().shortCircuits() : plan.firstMatch().noMatches())
+                        .increment();
+            }
+            result.setGeneration(plan.generation().getGeneration());
+            if (result.getFiredRules() != null) {
+                // 规则ID在执行评估的代次上解析，评估期间租户可能已切换到新的代次
+                List<Long> firedRuleIds = new ArrayList<>(result.getFiredRules().size());
+                for (String ruleName : result.getFiredRules()) {
+                    firedRuleIds.add(plan.generation().getRuleIdByName(ruleName));
+                }
+                result.setFiredRuleIds(firedRuleIds);
+            }
+            results[i] = result;
         }
     }
 
     /**
-     * 获取KieSession实例
-     * 
-     * @return KieSession实例
+     * 预过滤确定没有规则能被激活时的评估结果，与执行规则后没有规则触发的结果一致
      */
-    public KieSession createKieSession() {
-        readLock.lock();
-        try {
-            if (kieContainer == null) {
-                throw new IllegalStateException("Drools container is not initialized");
+    private static EvaluationResult noMatch(EvaluationPlan plan, EvaluationOptions options, Collection<?> facts) {
+        return decided(plan, options, facts, DecisionIndex.Decision.NO_MATCH);
+    }
+
+    /**
+     * 不经过Drools得到的评估结果，与执行规则的结果一致
+     */
+    private static EvaluationResult decided(EvaluationPlan plan, EvaluationOptions options, Collection<?> facts,
+                                            DecisionIndex.Decision decision) {
+        boolean fired = decision.firedRule() != null;
+        EvaluationResult result = new EvaluationResult();
+        result.setFiredRulesCount(fired ? 1 : 0);
+        if (options.isTrackFiredRules()) {
+            List<String> firedRules = new ArrayList<>(1);
+            if (fired) {
+                firedRules.add(decision.firedRule());
+            }
+            result.setFiredRules(firedRules);
+        }
+        result.setFacts(new ArrayList<>(facts));
+        result.setQueryResults(new LinkedHashMap<>());
+        return result;
+    }
+
+    /**
+     * 通过一次批量命令完成一组事实的评估
+     */
+    private EvaluationResult execute(EvaluationPlan plan, EvaluationOptions options, Collection<?> facts) {
+        KieCommands commands = kieServices.getCommands();
+        List<String> queryNames = options.getQueryNames();
+        List<Command<?>> batch = new ArrayList<>(6 + queryNames.size());
+        batch.add(commands.newInsertElements(facts));
+        RouteMarker marker = plan.routeGroup() != null ? new RouteMarker(plan.routeGroup()) : null;
+        if (marker != null) {
+            batch.add(commands.newInsert(marker));
+        }
+        // 后获得焦点的议程组先执行，倒序设置使列表中靠前的议程组先执行
+        List<String> focusGroups = plan.focusGroups();
+        for (int i = focusGroups.size() - 1; i >= 0; i--) {
+            batch.add(commands.newAgendaGroupSetFocus(focusGroups.get(i)));
+        }
+        // 监听器只在本次执行期间注册，会话归还到Drools会话池前移除
+        FiredRulesListener firedRulesListener = options.isTrackFiredRules() ? new FiredRulesListener() : null;
+        if (firedRulesListener != null) {
+            batch.add(new AddEventListenerCommand(firedRulesListener));
+        }
+        GuardedFireAllRulesCommand fireAllRules = new GuardedFireAllRulesCommand(evaluationWatchdog,
+                plan.agendaFilter(), plan.timeoutMs(), plan.maxFirings());
+        batch.add(fireAllRules);
+        if (firedRulesListener != null) {
+            batch.add(new RemoveEventListenerCommand(firedRulesListener));
+        }
+        batch.add(marker != null
+                ? commands.newGetObjects(object -> !(object instanceof RouteMarker), FACTS_OUT)
+                : commands.newGetObjects(FACTS_OUT));
+        for (String queryName : queryNames) {
+            batch.add(commands.newQuery(QUERY_OUT_PREFIX + queryName, queryName));
+        }
+
+        ExecutionResults executionResults = plan.session().execute(commands.newBatchExecution(batch));
+
+        EvaluationResult result = new EvaluationResult();
+        EvaluationWatchdog.FireResult fireResult = fireAllRules.result;
+        if (marker != null && marker.isReached()) {
+            // 到达结束规则说明议程组已执行完，结束规则不计入触发数量
+            fireResult = fireResult.completed();
+            result.setFiredRulesCount(fireResult.firedRules() - 1);
+        } else {
+            result.setFiredRulesCount(fireResult.firedRules());
+        }
+        if (plan.firstMatch() != null) {
+            // 首个匹配模式下在第一次触发后停止是预期行为，不是达到触发次数上限
+            fireResult = fireResult.completed();
+        }
+        result.setHaltReason(fireResult.haltReason());
+        evaluationWatchdog.recordHalt(fireResult);
+        result.setFacts(new ArrayList<>((Collection<?>) executionResults.getValue(FACTS_OUT)));
+        if (firedRulesListener != null) {
+            result.setFiredRules(firedRulesListener.firedRules);
+        }
+
+        Map<String, List<Map<String, Object>>> queryResults = new LinkedHashMap<>();
+        for (String queryName : queryNames) {
+            QueryResults rows = (QueryResults) executionResults.getValue(QUERY_OUT_PREFIX + queryName);
+            List<Map<String, Object>> values = new ArrayList<>(rows.size());
+            for (QueryResultsRow row : rows) {
+                Map<String, Object> value = new LinkedHashMap<>();
+                for (String identifier : rows.getIdentifiers()) {
+                    value.put(identifier, row.get(identifier));
+                }
+                values.add(value);
             }
-            return kieContainer.newKieSession();
-        } finally {
-            readLock.unlock();
+            queryResults.put(queryName, values);
         }
+        result.setQueryResults(queryResults);
+        return result;
     }
 
     /**
-     * 获取KieContainer实例
+     * 获取默认租户的KieContainer实例
      * 
-     * @return KieContainer实例
+     * @return KieContainer实例，容器未初始化时返回null
      */
     public KieContainer getKieContainer() {
-        readLock.lock();
-        try {
-            return kieContainer;
-        } finally {
-            readLock.unlock();
-        }
+        ContainerGeneration generation = getActiveGeneration();
+        return generation != null ? generation.getKieContainer() : null;
     }
 
     /**
-     * 检查容器是否已初始化
+     * 检查默认租户容器是否已初始化
      * 
      * @return 是否已初始化
      */
     public boolean isContainerInitialized() {
-        readLock.lock();
-        try {
-            return kieContainer != null;
-        } finally {
-            readLock.unlock();
-        }
+        return getActiveGeneration() != null;
+    }
+
+    /**
+     * 获取默认租户当前生效的容器代次
+     * 该方法不加锁，不会被正在进行的容器重建阻塞
+     * 
+     * @return 当前容器代次，容器未初始化时返回null
+     */
+    public ContainerGeneration getActiveGeneration() {
+        TenantRuleContainer container = ruleContainerRegistry.findLoadedContainer(DroolsRule.DEFAULT_TENANT);
+        return container != null ? container.getActiveGeneration() : null;
+    }
+
+    /**
+     * 获取指定租户当前生效的容器代次
+     * 租户容器已加载时不加锁；未加载或已被淘汰时先从数据库加载
+     * 
+     * @param tenantId 租户ID
+     * @return 当前容器代次
+     */
+    public ContainerGeneration getActiveGeneration(String tenantId) {
+        return ruleContainerRegistry.getActiveGeneration(tenantId);
     }
 
     /**
-     * 获取当前加载的规则数量
+     * 获取所有已加载租户的规则数量
      * 
      * @return 规则数量
      */
     public int getLoadedRulesCount() {
-        return rulePathMap.size();
+        return ruleContainerRegistry.getLoadedContainers().stream()
+            .mapToInt(TenantRuleContainer::getLoadedRulesCount)
+            .sum();
     }
 
     /**
@@ -267,7 +592,29 @@ public class DroolsContainerService {
      * @return 是否已加载
      */
     public boolean isRuleLoaded(Long ruleId) {
-        return rulePathMap.containsKey(ruleId);
+        return ruleContainerRegistry.findContainerOfRule(ruleId) != null;
+    }
+
+    /**
+     * 获取指定规则在容器中已加载的版本
+     * 
+     * @param ruleId 规则ID
+     * @return 已加载的规则版本，未加载时返回null
+     */
+    public String getLoadedRuleVersion(Long ruleId) {
+        TenantRuleContainer container = ruleContainerRegistry.findContainerOfRule(ruleId);
+        return container != null ? container.getLoadedRuleVersion(ruleId) : null;
+    }
+
+    /**
+     * 获取已加载指定规则的租户
+     * 
+     * @param ruleId 规则ID
+     * @return 租户ID，未加载时返回null
+     */
+    public String getLoadedRuleTenant(Long ruleId) {
+        TenantRuleContainer container = ruleContainerRegistry.findContainerOfRule(ruleId);
+        return container != null ? container.getTenantId() : null;
     }
 
     /**
@@ -276,37 +623,29 @@ public class DroolsContainerService {
      * @return 规则ID列表
      */
     public List<Long> getLoadedRuleIds() {
-        return List.copyOf(rulePathMap.keySet());
+        return ruleContainerRegistry.getLoadedContainers().stream()
+            .flatMap(container -> container.getLoadedRuleIds().stream())
+            .toList();
     }
 
     /**
      * 重新构建容器
-     * 当规则发生变化时调用此方法重新构建容器
+     * 从数据库重新加载所有已加载的租户容器
      */
     public void rebuildContainer() {
         logger.info("开始重新构建Drools容器...");
-        
-        try {
-            writeLock.lock();
-            
-            // 清理现有的文件系统
-            kieFileSystem = kieServices.newKieFileSystem();
-            rulePathMap.clear();
-            
-            // 重新加载规则
-            loadRulesFromDatabase();
-            
-            // 重新构建容器
-            buildContainer();
-            
-            logger.info("Drools容器重新构建完成");
-            
-        } catch (Exception e) {
-            logger.error("重新构建Drools容器失败", e);
-            throw new RuntimeException("Failed to rebuild Drools container", e);
-        } finally {
-            writeLock.unlock();
-        }
+        ruleContainerRegistry.reloadAll();
+        logger.info("Drools容器重新构建完成");
+    }
+
+    /**
+     * 重新构建指定租户的容器
+     * 
+     * @param tenantId 租户ID
+     */
+    public void rebuildContainer(String tenantId) {
+        logger.info("开始重新构建租户容器: {}", tenantId);
+        ruleContainerRegistry.reload(tenantId);
     }
 
     /**
@@ -321,35 +660,7 @@ public class DroolsContainerService {
         }
         
         logger.info("开始添加规则到容器: {} (ID: {})", rule.getRuleName(), rule.getId());
-        
-        try {
-            writeLock.lock();
-            
-            // 检查规则是否已存在
-            if (rulePathMap.containsKey(rule.getId())) {
-                logger.warn("规则已存在于容器中，将进行更新: {} (ID: {})", rule.getRuleName(), rule.getId());
-                updateRuleInContainer(rule);
-                return;
-            }
-            
-            // 添加规则到文件系统
-            addRuleToFileSystem(rule);
-            
-            // 重新构建容器
-            buildContainer();
-            
-            logger.info("规则成功添加到容器: {} (ID: {})", rule.getRuleName(), rule.getId());
-            
-        } catch (DroolsContainerException e) {
-            throw e;
-        } catch (Exception e) {
-            logger.error("添加规则到容器失败: {} (ID: {})", rule.getRuleName(), rule.getId(), e);
-            throw new DroolsContainerException(
-                "Failed to add rule to container: " + rule.getRuleName(), 
-                e, "ADD_RULE", rule.getId());
-        } finally {
-            writeLock.unlock();
-        }
+        applyRuleChanges(List.of(rule), List.of());
     }
 
     /**
@@ -365,46 +676,15 @@ public class DroolsContainerService {
         
         logger.info("开始更新容器中的规则: {} (ID: {})", rule.getRuleName(), rule.getId());
         
-        try {
-            writeLock.lock();
-            
-            // 验证规则语法
-            ValidationResult validationResult = validateRuleContent(rule.getRuleContent());
-            if (!validationResult.isValid()) {
-                throw new DroolsContainerException(
-                    "Rule validation failed: " + validationResult.getErrorMessage(),
-                    "UPDATE_RULE", rule.getId());
-            }
-            
-            // 检查规则是否存在
-            if (!rulePathMap.containsKey(rule.getId())) {
-                logger.warn("规则不存在于容器中，将进行添加: {} (ID: {})", rule.getRuleName(), rule.getId());
-                addRuleToContainer(rule);
-                return;
-            }
-            
-            // 移除旧规则
-            String oldRulePath = rulePathMap.get(rule.getId());
-            kieFileSystem.delete(oldRulePath);
-            
-            // 添加新规则
-            addRuleToFileSystem(rule);
-            
-            // 重新构建容器
-            buildContainer();
-            
-            logger.info("规则成功更新: {} (ID: {})", rule.getRuleName(), rule.getId());
-            
-        } catch (DroolsContainerException e) {
-            throw e;
-        } catch (Exception e) {
-            logger.error("更新容器中的规则失败: {} (ID: {})", rule.getRuleName(), rule.getId(), e);
+        // 验证规则语法
+        ValidationResult validationResult = validateRuleContent(rule.getRuleContent());
+        if (!validationResult.isValid()) {
             throw new DroolsContainerException(
-                "Failed to update rule in container: " + rule.getRuleName(), 
-                e, "UPDATE_RULE", rule.getId());
-        } finally {
-            writeLock.unlock();
+                "Rule validation failed: " + validationResult.getErrorMessage(),
+                "UPDATE_RULE", rule.getId());
         }
+        
+        applyRuleChanges(List.of(rule), List.of());
     }
 
     /**
@@ -419,34 +699,23 @@ public class DroolsContainerService {
         }
         
         logger.info("开始从容器中移除规则: ID {}", ruleId);
-        
-        try {
-            writeLock.lock();
-            
-            // 检查规则是否存在
-            if (!rulePathMap.containsKey(ruleId)) {
-                logger.warn("规则不存在于容器中，无需移除: ID {}", ruleId);
-                return;
-            }
-            
-            // 从文件系统中删除规则
-            String rulePath = rulePathMap.get(ruleId);
-            kieFileSystem.delete(rulePath);
-            rulePathMap.remove(ruleId);
-            
-            // 重新构建容器
-            buildContainer();
-            
-            logger.info("规则成功从容器中移除: ID {}", ruleId);
-            
-        } catch (Exception e) {
-            logger.error("从容器中移除规则失败: ID {}", ruleId, e);
-            throw new DroolsContainerException(
-                "Failed to remove rule from container", 
-                e, "REMOVE_RULE", ruleId);
-        } finally {
-            writeLock.unlock();
+        applyRuleChanges(List.of(), List.of(ruleId));
+    }
+
+    /**
+     * 批量应用规则变更
+     * 变更按租户分组，每个租户只触发一次容器构建；构建失败的租户文件系统恢复到变更前的状态，
+     * 当前生效的容器代次保持不变
+     * 
+     * @param upserts 需要新增或更新的规则
+     * @param removals 需要移除的规则ID
+     * @throws DroolsContainerException 当构建失败时抛出
+     */
+    public void applyRuleChanges(List<DroolsRule> upserts, List<Long> removals) {
+        if (upserts.isEmpty() && removals.isEmpty()) {
+            return;
         }
+        ruleContainerRegistry.applyRuleChanges(upserts, removals);
     }
 
     /**
@@ -505,194 +774,110 @@ public class DroolsContainerService {
 
     /**
      * 同步容器与数据库
-     * 确保容器中的规则与数据库中的启用规则保持一致
+     * 确保所有已加载租户容器中的规则与数据库中的启用规则保持一致
      */
     public void syncContainerWithDatabase() {
         logger.info("开始同步容器与数据库...");
         
         try {
-            writeLock.lock();
-            
-            // 获取数据库中的所有启用规则
-            List<DroolsRule> enabledRules = droolsRuleRepository.findEnabledRules();
-            
-            // 获取当前容器中的规则ID
-            List<Long> currentRuleIds = getLoadedRuleIds();
-            
-            // 找出需要添加的规则
-            List<DroolsRule> rulesToAdd = enabledRules.stream()
-                .filter(rule -> !currentRuleIds.contains(rule.getId()))
-                .toList();
-            
-            // 找出需要移除的规则
-            List<Long> ruleIdsToRemove = currentRuleIds.stream()
-                .filter(ruleId -> enabledRules.stream().noneMatch(rule -> rule.getId().equals(ruleId)))
-                .toList();
-            
-            // 找出需要更新的规则（通过比较更新时间）
-            List<DroolsRule> rulesToUpdate = enabledRules.stream()
-                .filter(rule -> currentRuleIds.contains(rule.getId()))
-                .toList();
-            
-            logger.info("同步统计: 添加 {} 条规则, 移除 {} 条规则, 检查更新 {} 条规则", 
-                       rulesToAdd.size(), ruleIdsToRemove.size(), rulesToUpdate.size());
-            
-            boolean needRebuild = false;
-            
-            // 添加新规则
-            for (DroolsRule rule : rulesToAdd) {
-                try {
-                    addRuleToFileSystem(rule);
-                    needRebuild = true;
-                    logger.debug("已添加规则到文件系统: {} (ID: {})", rule.getRuleName(), rule.getId());
-                } catch (Exception e) {
-                    logger.error("添加规则到文件系统失败: {} (ID: {})", rule.getRuleName(), rule.getId(), e);
-                }
-            }
-            
-            // 移除规则
-            for (Long ruleId : ruleIdsToRemove) {
-                try {
-                    String rulePath = rulePathMap.get(ruleId);
-                    if (rulePath != null) {
-                        kieFileSystem.delete(rulePath);
-                        rulePathMap.remove(ruleId);
-                        needRebuild = true;
-                        logger.debug("已从文件系统移除规则: ID {}", ruleId);
-                    }
-                } catch (Exception e) {
-                    logger.error("从文件系统移除规则失败: ID {}", ruleId, e);
-                }
-            }
-            
-            // 更新规则（简化处理：重新添加所有需要更新的规则）
-            for (DroolsRule rule : rulesToUpdate) {
-                try {
-                    String oldRulePath = rulePathMap.get(rule.getId());
-                    if (oldRulePath != null) {
-                        kieFileSystem.delete(oldRulePath);
-                        addRuleToFileSystem(rule);
-                        needRebuild = true;
-                        logger.debug("已更新规则: {} (ID: {})", rule.getRuleName(), rule.getId());
-                    }
-                } catch (Exception e) {
-                    logger.error("更新规则失败: {} (ID: {})", rule.getRuleName(), rule.getId(), e);
-                }
-            }
-            
-            // 如果有变化，重新构建容器
-            if (needRebuild) {
-                buildContainer();
-                logger.info("容器同步完成，当前加载 {} 条规则", rulePathMap.size());
-            } else {
-                logger.info("容器与数据库已同步，无需更新");
-            }
-            
+            ruleContainerRegistry.reloadAll();
+            logger.info("容器同步完成，当前加载 {} 条规则", getLoadedRulesCount());
         } catch (Exception e) {
             logger.error("同步容器与数据库失败", e);
             throw new DroolsContainerException("Failed to sync container with database", e);
-        } finally {
-            writeLock.unlock();
         }
     }
 
     /**
      * 容器错误恢复
-     * 当容器出现错误时，尝试重新初始化
+     * 当容器出现错误时，卸载所有租户容器并重新初始化
      */
     public void recoverContainer() {
         logger.warn("开始容器错误恢复...");
         
         try {
-            writeLock.lock();
-            
-            // 清理当前状态
-            if (kieContainer != null) {
-                try {
-                    kieContainer.dispose();
-                } catch (Exception e) {
-                    logger.warn("销毁旧容器时发生错误", e);
-                }
-            }
-            
-            kieContainer = null;
-            kieFileSystem = null;
-            rulePathMap.clear();
-            
-            // 重新初始化
-            initializeContainer();
-            
+            ruleContainerRegistry.recover();
             logger.info("容器错误恢复完成");
-            
         } catch (Exception e) {
             logger.error("容器错误恢复失败", e);
             throw new DroolsContainerException("Failed to recover container", e);
-        } finally {
-            writeLock.unlock();
         }
     }
 
     /**
-     * 获取容器健康状态
-     * 
-     * @return 容器健康状态信息
+     * 按触发顺序记录规则名称的议程监听器，每次评估使用独立实例
+     * 多线程评估的规则族在多个线程上触发规则，记录需要同步，各分区的触发交错记录
      */
-    public ContainerHealthStatus getContainerHealthStatus() {
-        readLock.lock();
-        try {
-            ContainerHealthStatus status = new ContainerHealthStatus();
-            status.setInitialized(kieContainer != null);
-            status.setLoadedRulesCount(rulePathMap.size());
-            status.setLoadedRuleIds(getLoadedRuleIds());
-            
-            if (kieContainer != null) {
-                try {
-                    // 尝试创建一个KieSession来测试容器健康状态
-                    KieSession testSession = kieContainer.newKieSession();
-                    testSession.dispose();
-                    status.setHealthy(true);
-                    status.setStatusMessage("Container is healthy");
-                } catch (Exception e) {
-                    status.setHealthy(false);
-                    status.setStatusMessage("Container error: " + e.getMessage());
-                }
-            } else {
-                status.setHealthy(false);
-                status.setStatusMessage("Container not initialized");
+    private static class FiredRulesListener extends DefaultAgendaEventListener {
+
+        private final List<String> firedRules = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void afterMatchFired(AfterMatchFiredEvent event) {
+            Rule rule = event.getMatch().getRule();
+            if (!RouteMarker.isEndRule(rule.getPackageName(), rule.getName())) {
+                firedRules.add(rule.getName());
             }
-            
-            return status;
-            
-        } finally {
-            readLock.unlock();
         }
     }
 
     /**
-     * 服务销毁方法
-     * 在Spring容器关闭前调用，清理资源
+     * 一次评估调用在同一容器代次上使用的会话、过滤条件与获得焦点的议程组，
+     * routeGroup 不为null时每次执行插入该议程组的 {@link RouteMarker}；
+     * firstMatch 不为null时为首个匹配模式，decisionScope 不为null时评估结果通过 {@link DecisionCache} 缓存，
+     * prefilter 不为null时先用 {@link NoMatchPrefilter} 排除不可能触发规则的事实，
+     * decisionIndex 不为null时先在 {@link DecisionIndex} 上评估，无法保证等价时再执行规则
      */
-    @PreDestroy
-    public void destroy() {
-        logger.info("开始销毁Drools容器服务...");
-        
-        try {
-            writeLock.lock();
-            
-            if (kieContainer != null) {
-                kieContainer.dispose();
-                kieContainer = null;
-            }
-            
-            kieFileSystem = null;
-            rulePathMap.clear();
-            
-            logger.info("Drools容器服务销毁完成");
-            
-        } catch (Exception e) {
-            logger.error("销毁Drools容器服务时发生错误", e);
-        } finally {
-            writeLock.unlock();
+    private record EvaluationPlan(ContainerGeneration generation, StatelessKieSession session, AgendaFilter agendaFilter,
+                                  List<String> focusGroups, String routeGroup, long timeoutMs, int maxFirings,
+                                  FirstMatchMeters firstMatch, DecisionCache.Scope decisionScope,
+                                  NoMatchPrefilter prefilter, PrefilterMeters prefilterCounters,
+                                  DecisionIndex decisionIndex, DecisionIndexMeters decisionIndexCounters) {
+    }
+
+    /**
+     * 首个匹配模式规则族的短路统计
+     */
+    private record FirstMatchMeters(Counter shortCircuits, Counter noMatches) {
+    }
+
+    /**
+     * 无匹配预过滤的统计
+     */
+    private record PrefilterMeters(Counter rejected, Counter passed) {
+    }
+
+    /**
+     * 决策索引的统计
+     */
+    private record DecisionIndexMeters(Counter hits, Counter fallbacks) {
+    }
+
+    /**
+     * 在批量命令中通过看门狗执行规则，执行结果保存在命令实例上，每次执行使用独立实例
+     * 继承 {@link FireAllRulesCommand}：无状态会话在批量命令中没有该类型的命令时会在最后再不加限制地执行一次全部规则
+     */
+    private static class GuardedFireAllRulesCommand extends FireAllRulesCommand {
+
+        private final EvaluationWatchdog watchdog;
+        private final AgendaFilter agendaFilter;
+        private final long timeoutMs;
+        private final int maxFirings;
+        private EvaluationWatchdog.FireResult result;
+
+        private GuardedFireAllRulesCommand(EvaluationWatchdog watchdog, AgendaFilter agendaFilter, long timeoutMs,
+                                           int maxFirings) {
+            this.watchdog = watchdog;
+            this.agendaFilter = agendaFilter;
+            this.timeoutMs = timeoutMs;
+            this.maxFirings = maxFirings;
+        }
+
+        @Override
+        public Integer execute(Context context) {
+            KieSession session = ((RegistryContext) context).lookup(KieSession.class);
+            result = watchdog.fireAllRules(session, agendaFilter, timeoutMs, maxFirings);
+            return result.firedRules();
         }
     }
-}
\ No newline at end of file
+}
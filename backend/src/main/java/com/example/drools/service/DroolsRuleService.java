@@ -6,12 +6,14 @@ import com.example.drools.dto.TestResult;
 import com.example.drools.dto.TestRuleRequest;
 import com.example.drools.dto.UpdateRuleRequest;
 import com.example.drools.entity.DroolsRule;
-import com.example.drools.exception.DroolsContainerException;
+import com.example.drools.entity.RuleChangeOutbox;
 import com.example.drools.exception.RuleValidationException;
 import com.example.drools.repository.DroolsRuleRepository;
+import com.example.drools.repository.RuleChangeOutboxRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,6 +25,8 @@ import java.util.List;
 /**
  * Drools规则管理服务
  * 提供规则的CRUD操作和业务逻辑处理
+ * 规则变更与发件箱记录在同一事务中写入，事务提交后由 {@link RuleChangeOutboxApplier} 异步同步到容器，
+ * 数据库事务不再等待Drools编译
  * 
  * @author System
  * @since 1.0.0
@@ -42,6 +46,12 @@ public class DroolsRuleService {
     @Autowired
     private DroolsRuleTestService droolsRuleTestService;
 
+    @Autowired
+    private RuleChangeOutboxRepository ruleChangeOutboxRepository;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
     /**
      * 创建新规则
      * 
@@ -71,6 +81,10 @@ public class DroolsRuleService {
             // 创建规则实体
             DroolsRule rule = new DroolsRule();
             rule.setRuleName(request.getRuleName());
+            if (StringUtils.hasText(request.getTenantId())) {
+                rule.setTenantId(request.getTenantId().trim());
+            }
+            rule.setRuleFamily(StringUtils.hasText(request.getRuleFamily()) ? request.getRuleFamily().trim() : null);
             rule.setRuleContent(request.getRuleContent());
             rule.setDescription(request.getDescription());
             rule.setEnabled(request.getEnabled());
@@ -80,24 +94,13 @@ public class DroolsRuleService {
             DroolsRule savedRule = droolsRuleRepository.save(rule);
             logger.info("规则已保存到数据库: {} (ID: {})", savedRule.getRuleName(), savedRule.getId());
 
-            // 如果规则启用，添加到容器
-            if (savedRule.getEnabled()) {
-                try {
-                    droolsContainerService.addRuleToContainer(savedRule);
-                    logger.info("规则已添加到容器: {} (ID: {})", savedRule.getRuleName(), savedRule.getId());
-                } catch (DroolsContainerException e) {
-                    logger.error("添加规则到容器失败，回滚数据库操作: {} (ID: {})", 
-                               savedRule.getRuleName(), savedRule.getId(), e);
-                    // 回滚数据库操作
-                    droolsRuleRepository.deleteById(savedRule.getId());
-                    throw new DroolsContainerException("规则添加到容器失败，操作已回滚", e);
-                }
-            }
+            // 记录规则变更，事务提交后同步到容器
+            recordRuleChange(savedRule, RuleChangeOutbox.CHANGE_CREATE);
 
             logger.info("规则创建成功: {} (ID: {})", savedRule.getRuleName(), savedRule.getId());
             return savedRule;
 
-        } catch (RuleValidationException | DataIntegrityViolationException | DroolsContainerException e) {
+        } catch (RuleValidationException | DataIntegrityViolationException e) {
             throw e;
         } catch (Exception e) {
             logger.error("创建规则失败: {}", request.getRuleName(), e);
@@ -223,12 +226,9 @@ public class DroolsRuleService {
                 throw new RuleValidationException("规则语法验证失败: " + validationResult.getErrorMessage());
             }
 
-            // 记录原始状态
-            boolean wasEnabled = existingRule.getEnabled();
-            boolean willBeEnabled = request.getEnabled();
-
             // 更新规则属性
             existingRule.setRuleName(request.getRuleName());
+            existingRule.setRuleFamily(StringUtils.hasText(request.getRuleFamily()) ? request.getRuleFamily().trim() : null);
             existingRule.setRuleContent(request.getRuleContent());
             existingRule.setDescription(request.getDescription());
             existingRule.setEnabled(request.getEnabled());
@@ -239,31 +239,13 @@ public class DroolsRuleService {
             DroolsRule updatedRule = droolsRuleRepository.save(existingRule);
             logger.info("规则已更新到数据库: {} (ID: {})", updatedRule.getRuleName(), updatedRule.getId());
 
-            // 同步容器状态
-            try {
-                if (wasEnabled && willBeEnabled) {
-                    // 规则保持启用状态，更新容器中的规则
-                    droolsContainerService.updateRuleInContainer(updatedRule);
-                    logger.info("容器中的规则已更新: {} (ID: {})", updatedRule.getRuleName(), updatedRule.getId());
-                } else if (wasEnabled && !willBeEnabled) {
-                    // 规则从启用变为禁用，从容器中移除
-                    droolsContainerService.removeRuleFromContainer(updatedRule.getId());
-                    logger.info("规则已从容器中移除: {} (ID: {})", updatedRule.getRuleName(), updatedRule.getId());
-                } else if (!wasEnabled && willBeEnabled) {
-                    // 规则从禁用变为启用，添加到容器
-                    droolsContainerService.addRuleToContainer(updatedRule);
-                    logger.info("规则已添加到容器: {} (ID: {})", updatedRule.getRuleName(), updatedRule.getId());
-                }
-                // 如果规则保持禁用状态，无需操作容器
-            } catch (DroolsContainerException e) {
-                logger.error("更新容器中的规则失败: {} (ID: {})", updatedRule.getRuleName(), updatedRule.getId(), e);
-                throw new DroolsContainerException("规则容器同步失败", e);
-            }
+            // 记录规则变更，事务提交后同步到容器
+            recordRuleChange(updatedRule, RuleChangeOutbox.CHANGE_UPDATE);
 
             logger.info("规则更新成功: {} (ID: {})", updatedRule.getRuleName(), updatedRule.getId());
             return updatedRule;
 
-        } catch (RuleValidationException | DataIntegrityViolationException | DroolsContainerException e) {
+        } catch (RuleValidationException | DataIntegrityViolationException e) {
             throw e;
         } catch (Exception e) {
             logger.error("更新规则失败: ID {}", id, e);
@@ -275,7 +257,6 @@ public class DroolsRuleService {
      * 删除规则
      * 
      * @param id 规则ID
-     * @throws DroolsContainerException 当从容器中移除规则失败时抛出
      */
     public void deleteRule(Long id) {
         logger.info("开始删除规则: ID {}", id);
@@ -292,28 +273,17 @@ public class DroolsRuleService {
                 return;
             }
 
-            // 如果规则启用，先从容器中移除
-            if (existingRule.getEnabled()) {
-                try {
-                    droolsContainerService.removeRuleFromContainer(id);
-                    logger.info("规则已从容器中移除: {} (ID: {})", existingRule.getRuleName(), id);
-                } catch (DroolsContainerException e) {
-                    logger.error("从容器中移除规则失败: {} (ID: {})", existingRule.getRuleName(), id, e);
-                    throw new DroolsContainerException("从容器中移除规则失败", e);
-                }
-            }
-
             // 从数据库中删除（逻辑删除）
             boolean deleted = droolsRuleRepository.deleteById(id);
             if (deleted) {
+                // 记录规则变更，事务提交后从容器中移除
+                recordRuleChange(existingRule, RuleChangeOutbox.CHANGE_DELETE);
                 logger.info("规则删除成功: {} (ID: {})", existingRule.getRuleName(), id);
             } else {
                 logger.warn("规则删除失败: ID {}", id);
                 throw new RuntimeException("规则删除失败");
             }
 
-        } catch (DroolsContainerException e) {
-            throw e;
         } catch (Exception e) {
             logger.error("删除规则失败: ID {}", id, e);
             throw new RuntimeException("删除规则失败: " + e.getMessage(), e);
@@ -384,30 +354,13 @@ public class DroolsRuleService {
             // 重新查询更新后的规则
             DroolsRule updatedRule = droolsRuleRepository.findById(id);
 
-            // 同步容器状态
-            try {
-                if (enabled) {
-                    // 启用规则，添加到容器
-                    droolsContainerService.addRuleToContainer(updatedRule);
-                    logger.info("规则已添加到容器: {} (ID: {})", updatedRule.getRuleName(), id);
-                } else {
-                    // 禁用规则，从容器中移除
-                    droolsContainerService.removeRuleFromContainer(id);
-                    logger.info("规则已从容器中移除: {} (ID: {})", updatedRule.getRuleName(), id);
-                }
-            } catch (DroolsContainerException e) {
-                logger.error("同步容器状态失败: {} (ID: {})", updatedRule.getRuleName(), id, e);
-                // 回滚数据库状态
-                droolsRuleRepository.updateRuleStatus(id, !enabled);
-                throw new DroolsContainerException("规则容器同步失败，操作已回滚", e);
-            }
+            // 记录规则变更，事务提交后同步到容器
+            recordRuleChange(updatedRule, RuleChangeOutbox.CHANGE_STATUS);
 
             logger.info("规则状态更新成功: {} (ID: {}) -> {}", 
                        updatedRule.getRuleName(), id, enabled ? "启用" : "禁用");
             return updatedRule;
 
-        } catch (DroolsContainerException e) {
-            throw e;
         } catch (Exception e) {
             logger.error("更新规则状态失败: ID {}", id, e);
             throw new RuntimeException("更新规则状态失败: " + e.getMessage(), e);
@@ -446,7 +399,7 @@ public class DroolsRuleService {
             return droolsRuleTestService.executeTest(request);
         } catch (Exception e) {
             logger.error("规则测试执行失败", e);
-            return new TestResult(e.getMessage(), getStackTrace(e));
+            return new TestResult(e.getMessage(), request != null && request.isDiagnostics() ? getStackTrace(e) : null);
         }
     }
 
@@ -487,6 +440,17 @@ public class DroolsRuleService {
 
     // 私有辅助方法
 
+    /**
+     * 记录规则变更到发件箱，并在事务提交后通知应用器
+     */
+    private void recordRuleChange(DroolsRule rule, String changeType) {
+        RuleChangeOutbox change = ruleChangeOutboxRepository.save(
+            new RuleChangeOutbox(rule.getId(), changeType, rule.getVersion()));
+        applicationEventPublisher.publishEvent(new RuleChangeRecordedEvent(change.getId(), rule.getId()));
+        logger.debug("规则变更已记录: {} (ID: {}) -> {}, 序号 {}", 
+                    rule.getRuleName(), rule.getId(), changeType, change.getId());
+    }
+
     /**
      * 验证创建规则请求
      */
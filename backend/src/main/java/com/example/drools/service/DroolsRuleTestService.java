@@ -1,29 +1,47 @@
 package com.example.drools.service;
 
+import com.example.drools.config.DroolsProperties;
 import com.example.drools.dto.RuleFactConfig;
 import com.example.drools.dto.TestResult;
 import com.example.drools.dto.TestRuleRequest;
 import com.example.drools.entity.DroolsRule;
 import com.example.drools.repository.DroolsRuleRepository;
 import com.example.drools.utils.ReflectionUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.drools.core.definitions.rule.impl.RuleImpl;
+import org.drools.core.spi.AgendaGroup;
+import org.kie.api.KieBase;
 import org.kie.api.KieServices;
 import org.kie.api.builder.*;
+import org.kie.api.definition.KiePackage;
+import org.kie.api.definition.rule.Rule;
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.AgendaEventListener;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
 import org.kie.api.event.rule.ObjectDeletedEvent;
 import org.kie.api.event.rule.ObjectInsertedEvent;
 import org.kie.api.event.rule.ObjectUpdatedEvent;
 import org.kie.api.event.rule.RuleRuntimeEventListener;
+import org.kie.api.io.Resource;
 import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.AgendaFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * Drools规则测试服务
@@ -38,9 +56,20 @@ public class DroolsRuleTestService {
     private static final Logger logger = LoggerFactory.getLogger(DroolsRuleTestService.class);
 
     private static final String TEST_RULES_PATH = "src/main/resources/test/";
-    private static final long DEFAULT_TIMEOUT_MS = 3000000L; // 30秒默认超时
+    private static final String TEST_RELEASE_GROUP_ID = "com.example.drools.test";
+    private static final long DEFAULT_TIMEOUT_MS = 30000L; // 30秒默认超时
+    // 看门狗在截止时间停止规则执行后，等待测试任务返回部分结果的时间
+    private static final long HALT_GRACE_MS = 1000L;
 
     private final DroolsRuleRepository droolsRuleRepository;
+    private final DroolsContainerService droolsContainerService;
+    private final KieServices kieServices = KieServices.Factory.get();
+    private final TestContainerCache testContainerCache;
+    private final EvaluationWatchdog evaluationWatchdog;
+    private final int maxFirings;
+
+    // 测试容器的ReleaseId序号，避免并发编译时在KieRepository中互相覆盖
+    private final AtomicLong testReleaseCounter = new AtomicLong();
 
     // 线程池用于执行测试任务
     private final ExecutorService executorService = Executors.newCachedThreadPool(r -> {
@@ -49,18 +78,47 @@ public class DroolsRuleTestService {
         return thread;
     });
 
-    public DroolsRuleTestService(DroolsRuleRepository droolsRuleRepository) {
+    public DroolsRuleTestService(DroolsRuleRepository droolsRuleRepository,
+                                 DroolsContainerService droolsContainerService,
+                                 EvaluationWatchdog evaluationWatchdog,
+                                 DroolsProperties droolsProperties,
+                                 MeterRegistry meterRegistry) {
 
         this.droolsRuleRepository = droolsRuleRepository;
+        this.droolsContainerService = droolsContainerService;
+        this.evaluationWatchdog = evaluationWatchdog;
+        this.maxFirings = droolsProperties.getEvaluation().getMaxFirings();
+        this.testContainerCache = new TestContainerCache(droolsProperties.getRuleTest().getContainerCacheSize(),
+                kieServices, meterRegistry);
+    }
+
+    /**
+     * 应用关闭时释放缓存的测试容器
+     */
+    @PreDestroy
+    public void shutdown() {
+        testContainerCache.clear();
     }
 
     /**
-     * 执行规则测试
+     * 执行规则测试，等待测试完成
      *
      * @param request 测试请求
      * @return 测试结果
      */
     public TestResult executeTest(TestRuleRequest request) {
+        return executeTestAsync(request).join();
+    }
+
+    /**
+     * 异步执行规则测试
+     * 测试在测试线程池中执行，调用线程不等待结果。规则执行由看门狗在截止时间停止并返回部分结果，
+     * 超过截止时间与宽限时间仍未返回时（如规则RHS中的死循环）中断测试线程并返回超时结果
+     *
+     * @param request 测试请求
+     * @return 测试结果，总是正常完成，测试失败或超时时结果的 success 为false
+     */
+    public CompletableFuture<TestResult> executeTestAsync(TestRuleRequest request) {
         logger.info("开始执行规则测试");
 
         long startTime = System.currentTimeMillis();
@@ -68,66 +126,78 @@ public class DroolsRuleTestService {
         try {
             // 验证请求参数
             validateTestRequest(request);
+        } catch (Exception e) {
+            logger.error("规则测试执行失败", e);
+            return CompletableFuture.completedFuture(failure(request, e));
+        }
 
-            // 确定测试超时时间
-            long timeoutMs = request.getMaxExecutionTime() != null ?
-                    request.getMaxExecutionTime() : DEFAULT_TIMEOUT_MS;
-
-            // 创建测试任务
-            Callable<TestResult> testTask = () -> {
-                // 测试指定的规则ID列表
-                return executeTestWithRuleIds(request);
-            };
+        // 确定测试超时时间
+        long timeoutMs = request.getMaxExecutionTime() != null ?
+                request.getMaxExecutionTime() : DEFAULT_TIMEOUT_MS;
 
-            // 执行测试任务（带超时控制）
-            Future<TestResult> future = executorService.submit(testTask);
-//            TestResult result = future.get(timeoutMs, TimeUnit.MILLISECONDS);
-            TestResult result = future.get();
+        CompletableFuture<TestResult> future = new CompletableFuture<>();
+        Future<?> task = executorService.submit(() -> {
+            try {
+                future.complete(executeTestWithRuleIds(request, timeoutMs));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+
+        // 等待超时只兜底无法被看门狗停止的情况，超时后中断测试线程
+        return future.orTimeout(timeoutMs + HALT_GRACE_MS, TimeUnit.MILLISECONDS).handle((result, error) -> {
+            if (error instanceof TimeoutException) {
+                task.cancel(true);
+                logger.error("规则测试执行超时");
+                return new TestResult("规则测试执行超时", "Execution timeout after " + timeoutMs + " ms");
+            }
+            if (error != null) {
+                logger.error("规则测试执行失败", error);
+                return failure(request, error);
+            }
 
             long executionTime = System.currentTimeMillis() - startTime;
             result.setExecutionTime(executionTime);
 
             logger.info("规则测试执行完成，耗时: {} ms", executionTime);
             return result;
-
-        }/* catch (TimeoutException e) {
-            logger.error("规则测试执行超时");
-            return new TestResult("规则测试执行超时", "Execution timeout after " + 
-                                (request.getMaxExecutionTime() != null ? request.getMaxExecutionTime() : DEFAULT_TIMEOUT_MS) + " ms");
-        }*/ catch (Exception e) {
-            logger.error("规则测试执行失败", e);
-            return new TestResult(e.getMessage(), getStackTrace(e));
-        }
+        });
     }
 
-
     /**
      * 使用规则ID列表执行测试
+     * 规则均已启用且以当前版本加载在同一租户的生效代次中时，直接在该代次借出的会话上只执行这些规则；
+     * 包含已禁用或尚未加载到容器的规则时，编译只包含这些规则的测试容器执行
      */
-    private TestResult executeTestWithRuleIds(TestRuleRequest request) {
+    private TestResult executeTestWithRuleIds(TestRuleRequest request, long timeoutMs) {
         logger.debug("使用规则ID列表执行测试: {}", request.getRuleIds());
 
         try {
-            // 查询指定的规则
-            List<DroolsRule> rules = new ArrayList<>();
-            for (Long ruleId : request.getRuleIds()) {
-                DroolsRule rule = droolsRuleRepository.findById(ruleId);
-                if (rule != null && rule.getEnabled()) {
-                    rules.add(rule);
-                } else {
-                    logger.warn("规则不存在或已禁用: ID {}", ruleId);
-                }
+            // 一次查询所有指定的规则
+            List<DroolsRule> rules = droolsRuleRepository.findByIds(request.getRuleIds());
+            if (rules.size() < new HashSet<>(request.getRuleIds()).size()) {
+                Set<Long> foundIds = new HashSet<>();
+                rules.forEach(rule -> foundIds.add(rule.getId()));
+                request.getRuleIds().stream()
+                        .filter(ruleId -> !foundIds.contains(ruleId))
+                        .forEach(ruleId -> logger.warn("规则不存在: ID {}", ruleId));
             }
 
             if (rules.isEmpty()) {
                 return new TestResult("没有找到有效的规则进行测试", "No valid rules found for testing");
             }
 
-            // 创建包含指定规则的测试容器
-            KieContainer testContainer = createTestContainerWithRules(rules);
+            TestResult liveResult = executeOnLiveContainer(rules, request, timeoutMs);
+            if (liveResult != null) {
+                return liveResult;
+            }
 
-            // 执行规则
-            return executeRulesWithContainer(testContainer, request);
+            // 使用包含指定规则的测试容器，相同的规则集合复用已编译的容器
+            try (TestContainerCache.Lease lease = testContainerCache.acquire(TestContainerCache.keyOf(rules),
+                    () -> createTestContainerWithRules(rules))) {
+                logger.debug("测试容器缓存{}: {}", lease.isCacheHit() ? "命中" : "未命中", lease.getContainer().getReleaseId());
+                return executeRulesWithContainer(lease.getContainer(), request, timeoutMs);
+            }
 
         } catch (Exception e) {
             logger.error("使用规则ID列表执行测试失败", e);
@@ -135,21 +205,124 @@ public class DroolsRuleTestService {
         }
     }
 
+    /**
+     * 在租户当前生效的代次上执行测试，议程过滤器只允许指定规则触发
+     *
+     * @return 测试结果；规则不满足在生效代次上执行的条件时返回null
+     */
+    private TestResult executeOnLiveContainer(List<DroolsRule> rules, TestRuleRequest request, long timeoutMs) {
+        String tenantId = rules.get(0).getTenantId();
+        Set<Long> ruleIds = new HashSet<>();
+        for (DroolsRule rule : rules) {
+            if (!Boolean.TRUE.equals(rule.getEnabled()) || !Objects.equals(tenantId, rule.getTenantId())) {
+                return null;
+            }
+            ruleIds.add(rule.getId());
+        }
+
+        ContainerGeneration generation = droolsContainerService.getActiveGeneration(tenantId);
+        for (DroolsRule rule : rules) {
+            if (!Objects.equals(rule.getVersion(), generation.getRuleVersion(rule.getId()))) {
+                logger.debug("规则 {} 的版本 {} 与生效代次中的版本 {} 不一致，使用测试容器执行",
+                        rule.getId(), rule.getVersion(), generation.getRuleVersion(rule.getId()));
+                return null;
+            }
+        }
+
+        try (PooledKieSession pooledSession = droolsContainerService.borrowKieSession(tenantId)) {
+            // 借出会话时代次已被替换，索引与会话不一致，使用测试容器执行
+            if (pooledSession.getGeneration() != generation.getGeneration()) {
+                return null;
+            }
+
+            KieSession kieSession = pooledSession.getSession();
+            Set<String> agendaGroups = agendaGroupsOf(kieSession.getKieBase(),
+                    rule -> ruleIds.contains(generation.getRuleId(RuleFamily.qualifiedName(rule))));
+            AgendaFilter agendaFilter = match ->
+                    ruleIds.contains(generation.getRuleId(RuleFamily.qualifiedName(match.getRule())));
+
+            logger.debug("在租户 {} 的生效代次 {} 上执行测试", tenantId, generation.getGeneration());
+            TestResult result = executeRules(kieSession, request, agendaGroups, agendaFilter,
+                    rule -> generation.getRuleId(RuleFamily.qualifiedName(rule)), timeoutMs);
+            result.setGeneration(generation.getGeneration());
+            return result;
+        }
+    }
 
     /**
      * 使用指定容器执行规则
      */
-    private TestResult executeRulesWithContainer(KieContainer container, TestRuleRequest request) {
-        logger.debug("开始执行规则");
-
+    private TestResult executeRulesWithContainer(KieContainer container, TestRuleRequest request, long timeoutMs) {
         KieSession kieSession = null;
         try {
             // 创建KieSession
             kieSession = container.newKieSession();
+            return executeRules(kieSession, request, agendaGroupsOf(container.getKieBase(), rule -> true), null,
+                    DroolsRuleTestService::testRuleId, timeoutMs);
+        } finally {
+            if (kieSession != null) {
+                kieSession.dispose();
+            }
+        }
+    }
+
+    /**
+     * 从测试容器中规则文件的名称（rule_&lt;规则ID&gt;.drl）解析规则ID
+     */
+    private static Long testRuleId(Rule rule) {
+        Resource resource = ((RuleImpl) rule).getResource();
+        String path = resource != null ? resource.getSourcePath() : null;
+        if (path == null) {
+            return null;
+        }
+        String fileName = path.substring(path.lastIndexOf('/') + 1);
+        if (!fileName.startsWith("rule_") || !fileName.endsWith(".drl")) {
+            return null;
+        }
+        try {
+            return Long.valueOf(fileName.substring("rule_".length(), fileName.length() - ".drl".length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 获取规则所在的议程组，这些议程组需要获得焦点规则才会执行
+     *
+     * @return MAIN以外的议程组
+     */
+    private Set<String> agendaGroupsOf(KieBase kieBase, Predicate<Rule> ruleFilter) {
+        Set<String> agendaGroups = new LinkedHashSet<>();
+        for (KiePackage kiePackage : kieBase.getKiePackages()) {
+            for (Rule rule : kiePackage.getRules()) {
+                String agendaGroup = ((RuleImpl) rule).getAgendaGroup();
+                if (!AgendaGroup.MAIN.equals(agendaGroup) && ruleFilter.test(rule)) {
+                    agendaGroups.add(agendaGroup);
+                }
+            }
+        }
+        return agendaGroups;
+    }
 
-            // 创建规则执行监听器
-            TestRuleExecutionListener listener = new TestRuleExecutionListener(request.getVerbose());
-            kieSession.addEventListener(listener);
+    /**
+     * 在会话上执行规则，执行结束后移除注册的监听器
+     *
+     * @param kieSession 会话
+     * @param request 测试请求
+     * @param agendaGroups 执行前需要获得焦点的议程组
+     * @param agendaFilter 议程过滤器，为null时执行全部规则
+     * @param ruleIds 触发的规则对应的规则ID
+     * @param timeoutMs 规则执行时间上限（毫秒）
+     */
+    private TestResult executeRules(KieSession kieSession, TestRuleRequest request, Collection<String> agendaGroups,
+                                    AgendaFilter agendaFilter, Function<Rule, Long> ruleIds, long timeoutMs) {
+        logger.debug("开始执行规则");
+
+        // 创建规则执行监听器
+        TestRuleExecutionListener listener = new TestRuleExecutionListener(request.getVerbose(), ruleIds);
+        try {
+            kieSession.addEventListener((RuleRuntimeEventListener) listener);
+            kieSession.addEventListener((AgendaEventListener) listener);
 
             // 插入测试数据到工作内存
             /*
@@ -178,17 +351,24 @@ public class DroolsRuleTestService {
                 return result;
             }
 
+            for (String agendaGroup : agendaGroups) {
+                kieSession.getAgenda().getAgendaGroup(agendaGroup).setFocus();
+            }
+
             // 记录执行开始时间
             long startTime = System.currentTimeMillis();
 
-            // 执行规则
-            int firedRulesCount = kieSession.fireAllRules();
+            // 执行规则，超过执行时间或触发次数上限时停止并返回部分结果
+            EvaluationWatchdog.FireResult fireResult =
+                    evaluationWatchdog.fireAllRules(kieSession, agendaFilter, timeoutMs, maxFirings);
+            evaluationWatchdog.recordHalt(fireResult);
+            int firedRulesCount = fireResult.firedRules();
 
             // 计算执行时间
             long executionTime = System.currentTimeMillis() - startTime;
 
-            // 收集执行结果
-            Map<String, Object> resultData = collectResultData(kieSession);
+            // 收集执行结果：工作内存快照只在请求诊断信息时序列化返回
+            Map<String, Object> resultData = request.isDiagnostics() ? collectResultData(kieSession) : null;
 
             // 创建测试结果
             TestResult result = new TestResult(
@@ -198,6 +378,8 @@ public class DroolsRuleTestService {
                     resultData
             );
 
+            result.setHaltReason(fireResult.haltReason());
+
             // 设置详细执行信息
             if (request.getVerbose()) {
                 result.setExecutionDetails(listener.getExecutionDetails());
@@ -210,9 +392,8 @@ public class DroolsRuleTestService {
             logger.error("执行规则失败", e);
             throw new RuntimeException("规则执行失败: " + e.getMessage(), e);
         } finally {
-            if (kieSession != null) {
-                kieSession.dispose();
-            }
+            kieSession.removeEventListener((RuleRuntimeEventListener) listener);
+            kieSession.removeEventListener((AgendaEventListener) listener);
         }
     }
 
@@ -223,13 +404,14 @@ public class DroolsRuleTestService {
         logger.debug("创建包含 {} 条规则的测试容器", rules.size());
 
         try {
-            KieServices kieServices = KieServices.Factory.get();
             KieFileSystem kieFileSystem = kieServices.newKieFileSystem();
+            ReleaseId releaseId = kieServices.newReleaseId(TEST_RELEASE_GROUP_ID, "rule-test",
+                    "1.0." + testReleaseCounter.incrementAndGet());
+            kieFileSystem.generateAndWritePomXML(releaseId);
 
-            // 添加所有规则到文件系统
-            for (int i = 0; i < rules.size(); i++) {
-                DroolsRule rule = rules.get(i);
-                String rulePath = TEST_RULES_PATH + "test_rule_" + i + ".drl";
+            // 添加所有规则到文件系统，按规则ID命名
+            for (DroolsRule rule : rules) {
+                String rulePath = TEST_RULES_PATH + "rule_" + rule.getId() + ".drl";
                 kieFileSystem.write(rulePath, rule.getRuleContent());
             }
 
@@ -246,8 +428,10 @@ public class DroolsRuleTestService {
                 throw new RuntimeException(errorMsg.toString());
             }
 
-            KieModule kieModule = kieBuilder.getKieModule();
-            return kieServices.newKieContainer(kieModule.getReleaseId());
+            KieContainer container = kieServices.newKieContainer(releaseId);
+            // 放入缓存前完成KieBase的创建，命中缓存的测试不再承担该开销
+            container.getKieBase();
+            return container;
 
         } catch (Exception e) {
             logger.error("创建测试容器失败", e);
@@ -296,10 +480,17 @@ public class DroolsRuleTestService {
         }
     }
 
+    /**
+     * 失败的测试结果，错误堆栈只在请求诊断信息时返回
+     */
+    private TestResult failure(TestRuleRequest request, Throwable e) {
+        return new TestResult(e.getMessage(), request != null && request.isDiagnostics() ? getStackTrace(e) : null);
+    }
+
     /**
      * 获取异常堆栈跟踪
      */
-    private String getStackTrace(Exception e) {
+    private String getStackTrace(Throwable e) {
         java.io.StringWriter sw = new java.io.StringWriter();
         java.io.PrintWriter pw = new java.io.PrintWriter(sw);
         e.printStackTrace(pw);
@@ -338,16 +529,26 @@ public class DroolsRuleTestService {
         }
 
     /**
-     * 规则执行监听器
+     * 规则执行监听器，记录触发的规则，verbose 时记录工作内存的变化
      */
-    private static class TestRuleExecutionListener implements RuleRuntimeEventListener {
+    private static class TestRuleExecutionListener extends DefaultAgendaEventListener
+            implements RuleRuntimeEventListener {
 
         private final boolean verbose;
+        private final Function<Rule, Long> ruleIds;
         private final List<TestResult.FiredRuleInfo> firedRules = new ArrayList<>();
         private final StringBuilder executionDetails = new StringBuilder();
 
-        public TestRuleExecutionListener(boolean verbose) {
+        public TestRuleExecutionListener(boolean verbose, Function<Rule, Long> ruleIds) {
             this.verbose = verbose;
+            this.ruleIds = ruleIds;
+        }
+
+        @Override
+        public void afterMatchFired(AfterMatchFiredEvent event) {
+            Rule rule = event.getMatch().getRule();
+            firedRules.add(new TestResult.FiredRuleInfo(rule.getName(), rule.getPackageName(), ruleIds.apply(rule),
+                    null));
         }
 
         @Override
@@ -0,0 +1,114 @@
+package com.example.drools.service;
+
+import java.util.List;
+
+/**
+ * 无状态评估选项
+ * 未设置的选项使用默认行为：评估租户的全部规则、不执行查询、不记录触发的规则名称，
+ * 执行时间与触发次数上限使用 drools.evaluation 中的配置
+ *
+ * @author System
+ * @since 1.0.0
+ */
+public class EvaluationOptions {
+
+    /**
+     * 规则族名称，为空时使用租户的全部规则
+     */
+    private String family;
+
+    /**
+     * 议程组名称，设置后只允许该议程组的规则触发
+     */
+    private String agendaGroup;
+
+    /**
+     * 规则执行后需要读取结果的查询名称
+     */
+    private List<String> queryNames;
+
+    /**
+     * 是否按触发顺序记录触发的规则名称
+     */
+    private boolean trackFiredRules;
+
+    /**
+     * 单组事实的执行时间上限（毫秒），0表示不限制，未设置时使用配置
+     */
+    private Long timeoutMs;
+
+    /**
+     * 单组事实的触发次数上限，0表示不限制，未设置时使用配置
+     */
+    private Integer maxFirings;
+
+    public static EvaluationOptions defaults() {
+        return new EvaluationOptions();
+    }
+
+    public EvaluationOptions family(String family) {
+        this.family = family;
+        return this;
+    }
+
+    public EvaluationOptions agendaGroup(String agendaGroup) {
+        this.agendaGroup = agendaGroup;
+        return this;
+    }
+
+    public EvaluationOptions queryNames(List<String> queryNames) {
+        this.queryNames = queryNames;
+        return this;
+    }
+
+    public EvaluationOptions trackFiredRules(boolean trackFiredRules) {
+        this.trackFiredRules = trackFiredRules;
+        return this;
+    }
+
+    public EvaluationOptions timeoutMs(Long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+        return this;
+    }
+
+    public EvaluationOptions maxFirings(Integer maxFirings) {
+        this.maxFirings = maxFirings;
+        return this;
+    }
+
+    public String getFamily() {
+        return family;
+    }
+
+    public String getAgendaGroup() {
+        return agendaGroup;
+    }
+
+    public List<String> getQueryNames() {
+        return queryNames != null ? queryNames : List.of();
+    }
+
+    public boolean isTrackFiredRules() {
+        return trackFiredRules;
+    }
+
+    public Long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public Integer getMaxFirings() {
+        return maxFirings;
+    }
+
+    @Override
+    public String toString() {
+        return "EvaluationOptions{" +
+                "family='" + family + '\'' +
+                ", agendaGroup='" + agendaGroup + '\'' +
+                ", queryNames=" + queryNames +
+                ", trackFiredRules=" + trackFiredRules +
+                ", timeoutMs=" + timeoutMs +
+                ", maxFirings=" + maxFirings +
+                '}';
+    }
+}
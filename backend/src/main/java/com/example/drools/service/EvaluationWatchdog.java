@@ -0,0 +1,193 @@
+package com.example.drools.service;
+
+import com.example.drools.config.DroolsProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.AgendaFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 规则执行看门狗
+ * 所有评估路径通过 {@link #fireAllRules(KieSession, AgendaFilter, long, int)} 执行规则：
+ * 执行期间会话登记在看门狗中，独立线程按 drools.evaluation.watchdog-interval-ms 扫描，超过截止时间的会话被 halt()；
+ * 同时通过 fireAllRules(max) 限制触发次数。任一限制生效时返回部分结果并按原因和最后触发的规则记录指标。
+ * <p>
+ * halt() 只在两次规则触发之间生效，无法中断在规则RHS中死循环的线程。
+ *
+ * @author System
+ * @since 1.0.0
+ */
+@Service
+public class EvaluationWatchdog {
+
+    private static final Logger logger = LoggerFactory.getLogger(EvaluationWatchdog.class);
+
+    /**
+     * 超过执行时间上限被停止
+     */
+    public static final String HALTED_BY_DEADLINE = "DEADLINE";
+
+    /**
+     * 达到触发次数上限被停止
+     */
+    public static final String HALTED_BY_MAX_FIRINGS = "MAX_FIRINGS";
+
+    private final MeterRegistry meterRegistry;
+    private final Set<Guard> guards = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scanner;
+
+    public EvaluationWatchdog(DroolsProperties droolsProperties, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        long intervalMs = Math.max(1, droolsProperties.getEvaluation().getWatchdogIntervalMs());
+        this.scanner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "drools-evaluation-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scanner.scheduleWithFixedDelay(this::haltExpired, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 在执行时间与触发次数限制下执行规则
+     *
+     * @param session 会话
+     * @param agendaFilter 议程过滤器，为null时执行全部规则
+     * @param timeoutMs 执行时间上限（毫秒），不大于0表示不限制
+     * @param maxFirings 触发次数上限，不大于0表示不限制
+     * @return 执行结果
+     */
+    public FireResult fireAllRules(KieSession session, AgendaFilter agendaFilter, long timeoutMs, int maxFirings) {
+        Guard guard = new Guard(session, timeoutMs > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs) : 0);
+        session.addEventListener(guard);
+        if (timeoutMs > 0) {
+            guards.add(guard);
+        }
+        int fired;
+        try {
+            if (maxFirings > 0) {
+                fired = agendaFilter != null ? session.fireAllRules(agendaFilter, maxFirings) : session.fireAllRules(maxFirings);
+            } else {
+                fired = agendaFilter != null ? session.fireAllRules(agendaFilter) : session.fireAllRules();
+            }
+        } finally {
+            guard.close();
+            guards.remove(guard);
+            session.removeEventListener(guard);
+        }
+
+        String haltReason = null;
+        if (guard.isExpired()) {
+            haltReason = HALTED_BY_DEADLINE;
+        } else if (maxFirings > 0 && fired >= maxFirings) {
+            haltReason = HALTED_BY_MAX_FIRINGS;
+        }
+        return new FireResult(fired, haltReason, guard.lastFiredRule);
+    }
+
+    /**
+     * 记录一次被限制停止的评估
+     * 由调用方在确认结果后记录，例如议程组路由的结束规则恰好是第 maxFirings 次触发时不算达到上限
+     *
+     * @param result 执行结果
+     */
+    public void recordHalt(FireResult result) {
+        if (result.haltReason() == null) {
+            return;
+        }
+        String rule = result.lastFiredRule() != null ? result.lastFiredRule() : "none";
+        Counter.builder("drools.evaluation.halted")
+                .description("因执行时间或触发次数达到上限而停止的评估")
+                .tag("reason", result.haltReason())
+                .tag("rule", rule)
+                .register(meterRegistry)
+                .increment();
+        logger.warn("规则执行被停止: 原因 {}, 已触发 {} 次, 最后触发的规则 {}", result.haltReason(), result.firedRules(), rule);
+    }
+
+    /**
+     * 停止超过截止时间的会话
+     */
+    private void haltExpired() {
+        long now = System.nanoTime();
+        for (Guard guard : guards) {
+            if (now - guard.deadline >= 0) {
+                guard.expire();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scanner.shutdownNow();
+    }
+
+    /**
+     * 规则执行结果
+     *
+     * @param firedRules 触发的规则数量
+     * @param haltReason 被停止的原因，正常结束时为null
+     * @param lastFiredRule 最后触发的规则名称，没有规则触发时为null
+     */
+    public record FireResult(int firedRules, String haltReason, String lastFiredRule) {
+
+        /**
+         * 去掉触发次数上限的停止原因，用于结束规则恰好是最后一次触发的情况
+         *
+         * @return 正常结束的执行结果
+         */
+        public FireResult completed() {
+            return HALTED_BY_MAX_FIRINGS.equals(haltReason) ? new FireResult(firedRules, null, lastFiredRule) : this;
+        }
+    }
+
+    /**
+     * 一次执行的截止时间登记，同时记录最后触发的规则
+     * 停止与结束在同一把锁下进行，执行结束后看门狗不会再停止该会话（会话可能已被下一次评估复用）
+     */
+    private static final class Guard extends DefaultAgendaEventListener {
+
+        private final KieSession session;
+        private final long deadline;
+        private boolean closed;
+        private volatile boolean expired;
+        // 多线程评估的规则族在多个线程上触发规则
+        private volatile String lastFiredRule;
+
+        private Guard(KieSession session, long deadline) {
+            this.session = session;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void afterMatchFired(AfterMatchFiredEvent event) {
+            lastFiredRule = event.getMatch().getRule().getName();
+        }
+
+        private synchronized void expire() {
+            if (!closed && !expired) {
+                expired = true;
+                session.halt();
+            }
+        }
+
+        private synchronized void close() {
+            closed = true;
+        }
+
+        private boolean isExpired() {
+            return expired;
+        }
+    }
+}
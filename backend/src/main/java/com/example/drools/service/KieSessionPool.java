@@ -0,0 +1,276 @@
+package com.example.drools.service;
+
+import com.example.drools.config.DroolsProperties;
+import com.example.drools.exception.DroolsContainerException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieContainerSessionsPool;
+import org.kie.api.runtime.KieSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 容器代次的KieSession池
+ * 基于Drools的 {@link KieContainerSessionsPool}：会话归还时由Drools重置（清空工作内存与议程）后复用，
+ * 避免每次评估重新分配议程、节点内存等会话结构。每个容器代次拥有独立的会话池，
+ * 代次被替换后会话池进入退役状态，最后一个借出的会话归还后才关闭，不影响进行中的评估。
+ * <p>
+ * 同时借出的会话数受 maxActive 限制，超过时等待至多 borrowTimeoutMs；借出未归还的会话由
+ * {@link #detectLeaks(long)} 定期检查。
+ *
+ * @author System
+ * @since 1.0.0
+ */
+public class KieSessionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(KieSessionPool.class);
+
+    // 借出计数的关闭标记，置为该值后不再借出
+    private static final int SHUTDOWN = -1;
+
+    private final String tenantId;
+    private final long generation;
+    private final DroolsProperties.SessionPool properties;
+    private final Meters meters;
+    private final KieContainerSessionsPool sessionsPool;
+    private final Map<String, RuleFamily> families;
+    private final Semaphore permits;
+
+    // 已见过的会话，用于区分复用与新建
+    private final Set<KieSession> knownSessions = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger prewarmedRemaining;
+    private final AtomicInteger sessionCount;
+    private final Set<PooledKieSession> borrowed = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peakActive = new AtomicInteger();
+    private volatile boolean retired;
+
+    /**
+     * 构造函数，按初始大小预创建会话
+     *
+     * @param tenantId 租户ID
+     * @param generation 代次编号
+     * @param kieContainer 该代次的KieContainer
+     * @param families 该代次的规则族，键为规则族名称
+     * @param properties 会话池配置
+     * @param initialSize 预创建的会话数
+     * @param meters 会话池指标
+     */
+    public KieSessionPool(String tenantId, long generation, KieContainer kieContainer, Map<String, RuleFamily> families,
+                          DroolsProperties.SessionPool properties, int initialSize, Meters meters) {
+        this.tenantId = tenantId;
+        this.generation = generation;
+        this.properties = properties;
+        this.meters = meters;
+        this.sessionsPool = kieContainer.newKieSessionsPool(initialSize);
+        this.families = Map.copyOf(families);
+        this.prewarmedRemaining = new AtomicInteger(initialSize);
+        this.sessionCount = new AtomicInteger(initialSize);
+        this.permits = properties.getMaxActive() > 0 ? new Semaphore(properties.getMaxActive(), true) : null;
+    }
+
+    /**
+     * 借出会话，会话全部借出时最多等待 borrowTimeoutMs
+     *
+     * @return 借出的会话；会话池已关闭时返回null，调用方应改用当前生效代次的会话池
+     * @throws DroolsContainerException 等待超时时抛出
+     */
+    public PooledKieSession borrow() {
+        acquirePermit();
+
+        if (!incrementActive()) {
+            releasePermit();
+            return null;
+        }
+
+        try {
+            KieSession session = sessionsPool.newKieSession();
+            // 首次见到的会话若不是预创建的，说明池中无空闲会话而新建了会话
+            boolean reused = !knownSessions.add(session)
+                    || prewarmedRemaining.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0;
+            if (reused) {
+                meters.hits().increment();
+            } else {
+                sessionCount.incrementAndGet();
+                meters.misses().increment();
+            }
+
+            PooledKieSession pooled = new PooledKieSession(this, session, properties.isCaptureBorrowStack());
+            borrowed.add(pooled);
+            return pooled;
+        } catch (RuntimeException e) {
+            decrementActive();
+            releasePermit();
+            throw e;
+        }
+    }
+
+    /**
+     * 归还会话，由 {@link PooledKieSession#close()} 调用
+     * 会话由Drools重置后放回池中；会话池已退役时直接随池关闭
+     */
+    void release(PooledKieSession pooled) {
+        borrowed.remove(pooled);
+        try {
+            pooled.getDelegate().dispose();
+            meters.resets().increment();
+        } catch (Exception e) {
+            logger.warn("重置会话失败: 租户 {}, 代次 {}", tenantId, generation, e);
+        } finally {
+            decrementActive();
+            releasePermit();
+        }
+    }
+
+    /**
+     * 退役会话池，不再作为当前代次使用
+     * 没有借出的会话时立即关闭，否则在最后一个会话归还后关闭
+     */
+    public void retire() {
+        retired = true;
+        tryShutdown();
+    }
+
+    /**
+     * 检查借出超过阈值仍未归还的会话，每次借出只告警一次
+     *
+     * @param thresholdMs 泄漏判定阈值（毫秒）
+     * @return 本次新发现的泄漏数量
+     */
+    public int detectLeaks(long thresholdMs) {
+        long now = System.currentTimeMillis();
+        int leaks = 0;
+        for (PooledKieSession pooled : borrowed) {
+            long heldMs = now - pooled.getBorrowTimeMillis();
+            if (heldMs > thresholdMs && pooled.markLeakReported()) {
+                leaks++;
+                meters.leaks().increment();
+                logger.warn("检测到疑似泄漏的KieSession: 租户 {}, 代次 {}, 借出线程 {}, 已借出 {} ms",
+                        tenantId, generation, pooled.getBorrowThread(), heldMs, pooled.getBorrowStack());
+            }
+        }
+        return leaks;
+    }
+
+    private void acquirePermit() {
+        if (permits == null || permits.tryAcquire()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(properties.getBorrowTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DroolsContainerException("Interrupted while waiting for KieSession of tenant: " + tenantId,
+                    e, "BORROW_SESSION", null);
+        } finally {
+            meters.waits().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        if (!acquired) {
+            meters.timeouts().increment();
+            throw new DroolsContainerException("KieSession pool exhausted for tenant " + tenantId + ": "
+                    + properties.getMaxActive() + " sessions in use", "BORROW_SESSION", null);
+        }
+    }
+
+    private void releasePermit() {
+        if (permits != null) {
+            permits.release();
+        }
+    }
+
+    /**
+     * 增加借出计数，会话池已关闭时返回false
+     */
+    private boolean incrementActive() {
+        while (true) {
+            int current = active.get();
+            if (current == SHUTDOWN) {
+                return false;
+            }
+            if (active.compareAndSet(current, current + 1)) {
+                peakActive.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    private void decrementActive() {
+        if (active.decrementAndGet() == 0 && retired) {
+            tryShutdown();
+        }
+    }
+
+    /**
+     * 没有借出的会话时关闭会话池，借出计数置为关闭标记后不会再有新的借出
+     */
+    private void tryShutdown() {
+        if (active.compareAndSet(0, SHUTDOWN)) {
+            try {
+                sessionsPool.shutdown();
+                logger.debug("会话池已关闭: 租户 {}, 代次 {}", tenantId, generation);
+            } catch (Exception e) {
+                logger.warn("关闭会话池时发生错误: 租户 {}, 代次 {}", tenantId, generation, e);
+            }
+            knownSessions.clear();
+        }
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    RuleFamily getFamily(String family) {
+        return families.get(family);
+    }
+
+    /**
+     * 获取当前借出的会话数
+     *
+     * @return 借出数量，会话池关闭后为0
+     */
+    public int getActiveCount() {
+        return Math.max(0, active.get());
+    }
+
+    /**
+     * 获取观测到的同时借出会话数峰值，用于确定下一代次会话池的预创建数量
+     *
+     * @return 并发峰值
+     */
+    public int getPeakActive() {
+        return peakActive.get();
+    }
+
+    /**
+     * 获取会话池已创建的会话数
+     *
+     * @return 会话数
+     */
+    public int getSessionCount() {
+        return sessionCount.get();
+    }
+
+    public boolean isShutdown() {
+        return active.get() == SHUTDOWN;
+    }
+
+    /**
+     * 会话池指标，由租户容器创建并在各代次的会话池之间共享
+     */
+    public record Meters(Counter hits, Counter misses, Timer waits, Counter timeouts, Counter resets,
+                         Counter leaks) {
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.drools.service;
+
+import org.drools.core.base.ClassFieldReader;
+import org.drools.core.base.ClassObjectType;
+import org.drools.core.definitions.rule.impl.RuleImpl;
+import org.drools.core.rule.GroupElement;
+import org.drools.core.rule.IndexableConstraint;
+import org.drools.core.rule.Pattern;
+import org.drools.core.rule.RuleConditionElement;
+import org.drools.core.spi.Constraint;
+import org.drools.core.spi.FieldValue;
+import org.drools.core.util.index.IndexUtil;
+import org.kie.api.definition.rule.Rule;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 规则族的无匹配预过滤
+ * 从规则族中每条规则LHS顶层的正向模式中提取字面量比较的alpha约束（如 Order(originalPrice &lt; 100)），
+ * 按 (事实类型, 约束) 建立索引。一组事实若对每条规则都至少有一个模式找不到满足其字面量约束的事实，
+ * 则没有规则能被激活，评估可以直接返回，无需在Drools中插入事实和执行规则。
+ * <p>
+ * 判断是保守的：只忽略条件而不增加条件，无法分析的约束（表达式、或条件、beta约束）、eval、not/exists/accumulate
+ * 以及 from 模式都视为可能满足；没有可分析模式的规则总是可能被激活，此时规则族不建立预过滤。
+ * 规则族的规则只能由提交的事实首先激活（RHS插入的事实来自已触发的规则），因此初始无激活即整次评估无触发。
+ *
+ * @author System
+ * @since 1.0.0
+ */
+public final class NoMatchPrefilter {
+
+    // double能精确表示的最大整数
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+    private final List<PatternCheck[]> rules;
+
+    private NoMatchPrefilter(List<PatternCheck[]> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * 为规则族建立预过滤
+     *
+     * @param familyRules 规则族的规则
+     * @return 预过滤，存在总是可能被激活的规则时返回null
+     */
+    public static NoMatchPrefilter of(Collection<? extends Rule> familyRules) {
+        Map<PatternCheck, PatternCheck> distinctChecks = new LinkedHashMap<>();
+        List<PatternCheck[]> rules = new ArrayList<>(familyRules.size());
+        for (Rule rule : familyRules) {
+            GroupElement lhs = ((RuleImpl) rule).getLhs();
+            if (!lhs.isAnd()) {
+                return null;
+            }
+            List<PatternCheck> patterns = new ArrayList<>();
+            for (RuleConditionElement element : lhs.getChildren()) {
+                PatternCheck check = element instanceof Pattern pattern ? PatternCheck.of(pattern) : null;
+                if (check != null) {
+                    // 相同的模式在多条规则中只保留一份
+                    patterns.add(distinctChecks.computeIfAbsent(check, key -> key));
+                }
+            }
+            if (patterns.isEmpty()) {
+                return null;
+            }
+            rules.add(patterns.toArray(new PatternCheck[0]));
+        }
+        return rules.isEmpty() ? null : new NoMatchPrefilter(rules);
+    }
+
+    /**
+     * 判断一组事实是否可能激活规则族中的规则
+     *
+     * @param facts 事实
+     * @return 可能激活任一规则时返回true；返回false时规则族的规则一定不会触发
+     */
+    public boolean mayMatch(Collection<?> facts) {
+        for (PatternCheck[] patterns : rules) {
+            if (allSatisfied(patterns, facts)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean allSatisfied(PatternCheck[] patterns, Collection<?> facts) {
+        for (PatternCheck pattern : patterns) {
+            if (!pattern.anySatisfies(facts)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getRuleCount() {
+        return rules.size();
+    }
+
+    /**
+     * 一个模式的事实类型与其字面量约束
+     */
+    private record PatternCheck(Class<?> type, List<LiteralCheck> literals) {
+
+        /**
+         * 提取模式的检查条件，模式的事实来自 from 等其他来源或类型无法确定时返回null
+         */
+        static PatternCheck of(Pattern pattern) {
+            if (pattern.getSource() != null || !(pattern.getObjectType() instanceof ClassObjectType objectType)) {
+                return null;
+            }
+            List<LiteralCheck> literals = new ArrayList<>();
+            for (Constraint constraint : pattern.getConstraints()) {
+                LiteralCheck literal = LiteralCheck.of(constraint);
+                if (literal != null) {
+                    literals.add(literal);
+                }
+            }
+            return new PatternCheck(objectType.getClassType(), List.copyOf(literals));
+        }
+
+        boolean anySatisfies(Collection<?> facts) {
+            for (Object fact : facts) {
+                if (type.isInstance(fact) && satisfies(fact)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean satisfies(Object fact) {
+            for (LiteralCheck literal : literals) {
+                if (!literal.test(fact)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 属性与字面量的比较，如 originalPrice &lt; 100、name == "x"
+     * 属性读取器用于判断相等性（不同规则中的相同约束），比较结果无法确定时视为满足
+     */
+    private record LiteralCheck(String property, ClassFieldReader reader, IndexUtil.ConstraintType operator,
+                                Object value) {
+
+        /**
+         * 提取字面量比较的alpha约束，其他约束返回null
+         */
+        static LiteralCheck of(Constraint constraint) {
+            if (constraint.getType() != Constraint.ConstraintType.ALPHA
+                    || !(constraint instanceof IndexableConstraint indexable)
+                    || !(indexable.getFieldExtractor() instanceof ClassFieldReader reader)) {
+                return null;
+            }
+            IndexUtil.ConstraintType operator = indexable.getConstraintType();
+            FieldValue field = indexable.getField();
+            if (field == null || !(operator.isEquality() || operator.isComparison())) {
+                return null;
+            }
+            return new LiteralCheck(reader.getFieldName(), reader, operator, field.getValue());
+        }
+
+        boolean test(Object fact) {
+            Object actual = reader.getValue(null, fact);
+            if (actual == null || value == null) {
+                // 与null比较：相等判断按引用，大小比较不成立
+                return switch (operator) {
+                    case EQUAL -> actual == value;
+                    case NOT_EQUAL -> actual != value;
+                    default -> actual != null || value == null;
+                };
+            }
+            Integer result = compareTo(actual);
+            if (result == null) {
+                return true;
+            }
+            return switch (operator) {
+                case EQUAL -> result == 0;
+                case NOT_EQUAL -> result != 0;
+                case GREATER_THAN -> result > 0;
+                case GREATER_OR_EQUAL -> result >= 0;
+                case LESS_THAN -> result < 0;
+                case LESS_OR_EQUAL -> result <= 0;
+                default -> true;
+            };
+        }
+
+        /**
+         * 比较属性值与字面量，类型不同且无法按数值比较、或结果无法确定（NaN、float、超出double精度的整数）时返回null
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Integer compareTo(Object actual) {
+            if (actual instanceof Number number && value instanceof Number literal) {
+                if (isIntegral(number) && isIntegral(literal)) {
+                    return Long.compare(number.longValue(), literal.longValue());
+                }
+                if (!isExactDouble(number) || !isExactDouble(literal)) {
+                    return null;
+                }
+                double left = number.doubleValue();
+                double right = literal.doubleValue();
+                return left < right ? -1 : (left > right ? 1 : 0);
+            }
+            if (actual.getClass() == value.getClass() && actual instanceof Comparable comparable) {
+                return Integer.signum(comparable.compareTo(value));
+            }
+            return null;
+        }
+
+        private static boolean isIntegral(Number number) {
+            return number instanceof Long || number instanceof Integer || number instanceof Short
+                    || number instanceof Byte;
+        }
+
+        private static boolean isExactDouble(Number number) {
+            // float与字面量比较时Drools可能把字面量转换为float，结果与按double比较不同
+            if (number instanceof Double) {
+                return !Double.isNaN(number.doubleValue());
+            }
+            return isIntegral(number) && Math.abs(number.longValue()) <= MAX_EXACT_DOUBLE;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof LiteralCheck check && property.equals(check.property)
+                    && reader.getClassName().equals(check.reader.getClassName())
+                    && operator == check.operator && Objects.equals(value, check.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(property, reader.getClassName(), operator, value);
+        }
+    }
+}
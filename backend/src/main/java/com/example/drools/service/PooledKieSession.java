@@ -0,0 +1,102 @@
+package com.example.drools.service;
+
+import org.kie.api.runtime.KieSession;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 从会话池借出的KieSession
+ * 使用完毕后调用 {@link #close()} 归还（推荐 try-with-resources），归还时会话被重置后放回所属代次的会话池。
+ * <p>
+ * 不要直接调用 {@link KieSession#dispose()}，否则会话池无法记录归还，会被判定为泄漏；
+ * 借出期间注册的事件监听器和设置的全局变量不会随重置清除，需在归还前自行移除。
+ *
+ * @author System
+ * @since 1.0.0
+ */
+public final class PooledKieSession implements AutoCloseable {
+
+    private final KieSessionPool pool;
+    private final KieSession session;
+    private final long borrowTimeMillis;
+    private final String borrowThread;
+    private final Throwable borrowStack;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    // 泄漏检测只对同一次借出告警一次
+    private volatile boolean leakReported;
+
+    PooledKieSession(KieSessionPool pool, KieSession session, boolean captureBorrowStack) {
+        this.pool = pool;
+        this.session = session;
+        this.borrowTimeMillis = System.currentTimeMillis();
+        this.borrowThread = Thread.currentThread().getName();
+        this.borrowStack = captureBorrowStack ? new Throwable("会话借出位置") : null;
+    }
+
+    /**
+     * 获取借出的KieSession
+     *
+     * @return KieSession实例
+     * @throws IllegalStateException 会话已归还时抛出
+     */
+    public KieSession getSession() {
+        if (closed.get()) {
+            throw new IllegalStateException("KieSession has already been returned to the pool");
+        }
+        return session;
+    }
+
+    /**
+     * 获取会话所属的容器代次编号
+     *
+     * @return 代次编号
+     */
+    public long getGeneration() {
+        return pool.getGeneration();
+    }
+
+    /**
+     * 获取会话所属代次的规则族，通过 {@link RuleFamily#fireAllRules(KieSession)} 只执行该规则族的规则
+     *
+     * @param family 规则族名称
+     * @return 规则族，该代次没有该规则族的规则时返回null
+     */
+    public RuleFamily getFamily(String family) {
+        return pool.getFamily(family);
+    }
+
+    /**
+     * 归还会话，重复调用无副作用
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            pool.release(this);
+        }
+    }
+
+    KieSession getDelegate() {
+        return session;
+    }
+
+    long getBorrowTimeMillis() {
+        return borrowTimeMillis;
+    }
+
+    String getBorrowThread() {
+        return borrowThread;
+    }
+
+    Throwable getBorrowStack() {
+        return borrowStack;
+    }
+
+    boolean markLeakReported() {
+        if (leakReported) {
+            return false;
+        }
+        leakReported = true;
+        return true;
+    }
+}
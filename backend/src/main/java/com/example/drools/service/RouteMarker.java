@@ -0,0 +1,83 @@
+package com.example.drools.service;
+
+/**
+ * 议程组路由的控制事实
+ * 按议程组路由评估规则族时随事实一起插入，使该议程组末尾的结束规则被激活：
+ * 议程组中的规则执行完后结束规则停止引擎，MAIN及其他议程组的规则不会被求值。
+ * 不按议程组路由的评估中不插入该事实，结束规则不会激活。
+ *
+ * @author System
+ * @since 1.0.0
+ */
+public final class RouteMarker {
+
+    /**
+     * 结束规则的名称前缀，完整名称为前缀加议程组名称
+     */
+    public static final String RULE_NAME_PREFIX = "__route_end_";
+
+    /**
+     * 结束规则所在的包
+     */
+    public static final String RULE_PACKAGE = "com.example.drools.routing";
+
+    private final String agendaGroup;
+    private boolean reached;
+
+    public RouteMarker(String agendaGroup) {
+        this.agendaGroup = agendaGroup;
+    }
+
+    /**
+     * 生成议程组的结束规则，显著性最低，在议程组的其他规则之后执行
+     *
+     * @param agendaGroup 议程组名称
+     * @return 结束规则的DRL片段
+     */
+    public static String endRule(String agendaGroup) {
+        String escaped = agendaGroup.replace("\\", "\\\\").replace("\"", "\\\"");
+        return "rule \"" + RULE_NAME_PREFIX + escaped + "\"\n" +
+                "    agenda-group \"" + escaped + "\"\n" +
+                "    salience " + Integer.MIN_VALUE + "\n" +
+                "    when\n" +
+                "        $marker : " + RouteMarker.class.getSimpleName() + "(agendaGroup == \"" + escaped + "\")\n" +
+                "    then\n" +
+                "        $marker.reach();\n" +
+                "        drools.halt();\n" +
+                "end\n";
+    }
+
+    /**
+     * 判断规则是否为议程组的结束规则
+     *
+     * @param packageName 规则所在包
+     * @param ruleName 规则名称
+     * @return 是否为结束规则
+     */
+    public static boolean isEndRule(String packageName, String ruleName) {
+        return RULE_PACKAGE.equals(packageName) && ruleName.startsWith(RULE_NAME_PREFIX);
+    }
+
+    public String getAgendaGroup() {
+        return agendaGroup;
+    }
+
+    /**
+     * 由结束规则调用，表示议程组的规则已全部执行
+     */
+    public void reach() {
+        this.reached = true;
+    }
+
+    public boolean isReached() {
+        return reached;
+    }
+
+    @Override
+    public String toString() {
+        return "RouteMarker{" +
+                "agendaGroup='" + agendaGroup + '\'' +
+                ", reached=" + reached +
+                '}';
+    }
+}
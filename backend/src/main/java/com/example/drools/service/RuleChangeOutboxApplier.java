@@ -0,0 +1,409 @@
+package com.example.drools.service;
+
+import com.example.drools.config.DroolsProperties;
+import com.example.drools.entity.DroolsRule;
+import com.example.drools.entity.RuleChangeOutbox;
+import com.example.drools.exception.DroolsContainerException;
+import com.example.drools.repository.DroolsRuleRepository;
+import com.example.drools.repository.RuleChangeOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 规则变更发件箱应用器
+ * 在数据库事务提交后按序号顺序读取 rule_change_outbox，将规则的最新状态同步到Drools容器。
+ * <p>
+ * 应用过程是幂等的：每条变更都以规则在数据库中的当前状态为准，并与容器中已加载的版本比较，
+ * 状态一致的变更直接跳过。因此启动时可以从头重放保留期内的变更，而不会引起多余的容器构建。
+ * <p>
+ * 自增序号在插入时分配、在提交时才可见，先分配序号的事务可能晚于后分配的事务提交。
+ * 游标推进时跳过的序号会作为缺口记录下来，在宽限期内每次处理时重新读取，晚提交的变更仍会被应用；
+ * 超过宽限期仍未出现的序号视为已回滚。
+ *
+ * @author System
+ * @since 1.0.0
+ */
+@Service
+public class RuleChangeOutboxApplier {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuleChangeOutboxApplier.class);
+
+    private final RuleChangeOutboxRepository ruleChangeOutboxRepository;
+    private final DroolsRuleRepository droolsRuleRepository;
+    private final DroolsContainerService droolsContainerService;
+    private final DroolsProperties.Outbox outboxProperties;
+
+    // 单线程执行器，保证变更按序号顺序应用
+    private final ExecutorService applierExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "drools-outbox-applier");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+    // 已应用到本节点容器的最大变更序号
+    private volatile long appliedCursor = 0L;
+    private volatile long pendingCount = 0L;
+    private volatile long lagMillis = 0L;
+
+    // 以下状态仅在应用线程中访问
+    private int failedAttempts = 0;
+    private long nextAttemptAtMillis = 0L;
+    private final List<SequenceGap> sequenceGaps = new ArrayList<>();
+
+    private final MeterRegistry meterRegistry;
+    private final Counter retryCounter;
+
+    public RuleChangeOutboxApplier(RuleChangeOutboxRepository ruleChangeOutboxRepository,
+                                   DroolsRuleRepository droolsRuleRepository,
+                                   DroolsContainerService droolsContainerService,
+                                   DroolsProperties droolsProperties,
+                                   MeterRegistry meterRegistry) {
+        this.ruleChangeOutboxRepository = ruleChangeOutboxRepository;
+        this.droolsRuleRepository = droolsRuleRepository;
+        this.droolsContainerService = droolsContainerService;
+        this.outboxProperties = droolsProperties.getOutbox();
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("drools.outbox.pending", this, applier -> applier.pendingCount)
+                .description("尚未应用到容器的规则变更数量")
+                .register(meterRegistry);
+        TimeGauge.builder("drools.outbox.lag", this, TimeUnit.MILLISECONDS, applier -> applier.lagMillis)
+                .description("最早一条未应用变更的等待时间")
+                .register(meterRegistry);
+        Gauge.builder("drools.outbox.cursor", this, applier -> applier.appliedCursor)
+                .description("已应用的最大变更序号")
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("drools.outbox.retries").register(meterRegistry);
+    }
+
+    /**
+     * 规则变更事务提交后触发处理
+     *
+     * @param event 规则变更已记录事件
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRuleChangeRecorded(RuleChangeRecordedEvent event) {
+        logger.debug("收到规则变更通知: 序号 {}, 规则ID {}", event.outboxId(), event.ruleId());
+        triggerDrain();
+    }
+
+    /**
+     * 定时轮询，兜底处理未收到通知的变更（例如其他节点写入的变更）
+     */
+    @Scheduled(fixedDelayString = "${drools.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        triggerDrain();
+    }
+
+    /**
+     * 清理保留期之前已应用的变更
+     */
+    @Scheduled(cron = "${drools.outbox.cleanup-cron:0 0 3 * * *}")
+    public void cleanup() {
+        LocalDateTime before = LocalDateTime.now().minusDays(outboxProperties.getRetentionDays());
+        int deleted = ruleChangeOutboxRepository.deleteAppliedBefore(appliedCursor, before);
+        if (deleted > 0) {
+            logger.info("已清理 {} 条过期的规则变更记录", deleted);
+        }
+    }
+
+    /**
+     * 提交一次处理任务，已有待执行的任务时不重复提交
+     */
+    public void triggerDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            applierExecutor.execute(() -> {
+                drainScheduled.set(false);
+                drain();
+            });
+        }
+    }
+
+    /**
+     * 获取已应用的最大变更序号
+     *
+     * @return 变更序号
+     */
+    public long getAppliedCursor() {
+        return appliedCursor;
+    }
+
+    /**
+     * 获取尚未应用的变更数量
+     *
+     * @return 变更数量
+     */
+    public long getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * 获取最早一条未应用变更的等待时间
+     *
+     * @return 等待时间（毫秒）
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    /**
+     * 按序号顺序处理发件箱中的变更
+     */
+    private void drain() {
+        if (System.currentTimeMillis() < nextAttemptAtMillis) {
+            return;
+        }
+
+        try {
+            if (!applySequenceGaps()) {
+                return;
+            }
+
+            int batchSize = outboxProperties.getBatchSize();
+            List<RuleChangeOutbox> changes;
+            do {
+                changes = ruleChangeOutboxRepository.findAfter(appliedCursor, batchSize);
+                if (changes.isEmpty() || !applyBatch(changes)) {
+                    break;
+                }
+                recordSequenceGaps(appliedCursor, changes);
+                appliedCursor = changes.get(changes.size() - 1).getId();
+            } while (changes.size() >= batchSize);
+
+            refreshLag();
+
+        } catch (Exception e) {
+            logger.error("处理规则变更发件箱失败", e);
+        }
+    }
+
+    /**
+     * 重新读取游标之下的序号缺口，应用其中晚提交的变更
+     *
+     * @return 缺口中的变更是否均已应用；返回false表示需要稍后重试
+     */
+    private boolean applySequenceGaps() {
+        if (sequenceGaps.isEmpty()) {
+            return true;
+        }
+
+        long now = System.currentTimeMillis();
+        sequenceGaps.removeIf(gap -> {
+            boolean expired = now - gap.firstSeenMillis() > outboxProperties.getGapGraceMs();
+            if (expired) {
+                logger.debug("序号缺口超过宽限期仍未出现，视为已回滚: {} - {}", gap.fromId(), gap.toId());
+            }
+            return expired;
+        });
+
+        for (SequenceGap gap : new ArrayList<>(sequenceGaps)) {
+            List<RuleChangeOutbox> lateChanges = ruleChangeOutboxRepository.findBetween(
+                    gap.fromId(), gap.toId(), outboxProperties.getBatchSize());
+            if (lateChanges.isEmpty()) {
+                continue;
+            }
+            if (!applyBatch(lateChanges)) {
+                return false;
+            }
+
+            // 用剩余仍未出现的序号替换原缺口，保留首次发现时间
+            int index = sequenceGaps.indexOf(gap);
+            sequenceGaps.remove(index);
+            List<SequenceGap> remaining = new ArrayList<>();
+            long fromId = gap.fromId();
+            for (RuleChangeOutbox change : lateChanges) {
+                if (change.getId() > fromId) {
+                    remaining.add(new SequenceGap(fromId, change.getId() - 1, gap.firstSeenMillis()));
+                }
+                fromId = change.getId() + 1;
+            }
+            if (fromId <= gap.toId()) {
+                remaining.add(new SequenceGap(fromId, gap.toId(), gap.firstSeenMillis()));
+            }
+            sequenceGaps.addAll(index, remaining);
+            logger.info("已应用晚提交的规则变更: 序号 {}",
+                    lateChanges.stream().map(RuleChangeOutbox::getId).collect(Collectors.toList()));
+        }
+        return true;
+    }
+
+    /**
+     * 记录游标推进时跳过的序号
+     *
+     * @param cursor 推进前的游标
+     * @param changes 按序号排序的变更
+     */
+    private void recordSequenceGaps(long cursor, List<RuleChangeOutbox> changes) {
+        long now = System.currentTimeMillis();
+        long expectedId = cursor + 1;
+        for (RuleChangeOutbox change : changes) {
+            if (change.getId() > expectedId) {
+                sequenceGaps.add(new SequenceGap(expectedId, change.getId() - 1, now));
+            }
+            expectedId = change.getId() + 1;
+        }
+    }
+
+    /**
+     * 应用一批变更
+     *
+     * @param changes 按序号排序的变更
+     * @return 是否已应用；返回false表示需要稍后重试
+     */
+    private boolean applyBatch(List<RuleChangeOutbox> changes) {
+        long lastId = changes.get(changes.size() - 1).getId();
+
+        Set<Long> ruleIds = changes.stream()
+                .map(RuleChangeOutbox::getRuleId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<Long, DroolsRule> currentRules = droolsRuleRepository.findByIds(ruleIds).stream()
+                .collect(Collectors.toMap(DroolsRule::getId, Function.identity()));
+
+        // 以数据库当前状态为准，计算需要同步到容器的差异
+        List<DroolsRule> upserts = new ArrayList<>();
+        List<Long> removals = new ArrayList<>();
+        Map<Long, String> tenantByRule = new HashMap<>();
+        for (Long ruleId : ruleIds) {
+            DroolsRule rule = currentRules.get(ruleId);
+            if (rule != null && Boolean.TRUE.equals(rule.getEnabled())) {
+                String loadedVersion = droolsContainerService.getLoadedRuleVersion(ruleId);
+                if (!String.valueOf(rule.getVersion()).equals(loadedVersion)) {
+                    upserts.add(rule);
+                }
+                tenantByRule.put(ruleId, rule.getTenantId());
+            } else {
+                String loadedTenant = droolsContainerService.getLoadedRuleTenant(ruleId);
+                if (loadedTenant != null) {
+                    removals.add(ruleId);
+                    tenantByRule.put(ruleId, loadedTenant);
+                } else if (rule != null) {
+                    tenantByRule.put(ruleId, rule.getTenantId());
+                }
+            }
+        }
+
+        try {
+            droolsContainerService.applyRuleChanges(upserts, removals);
+            upserts.forEach(rule -> countChange("applied", rule.getTenantId()));
+            removals.forEach(ruleId -> countChange("applied", tenantByRule.get(ruleId)));
+
+        } catch (DroolsContainerException e) {
+            failedAttempts++;
+            if (failedAttempts < outboxProperties.getMaxAttempts()) {
+                long backoffMs = outboxProperties.getRetryBackoffMs() << Math.min(failedAttempts - 1, 16);
+                nextAttemptAtMillis = System.currentTimeMillis() + backoffMs;
+                retryCounter.increment();
+                logger.warn("应用规则变更失败，第 {} 次尝试，{} ms 后重试: 序号 {} - {}",
+                        failedAttempts, backoffMs, changes.get(0).getId(), lastId, e);
+                return false;
+            }
+
+            logger.error("应用规则变更连续失败 {} 次，逐条隔离失败的规则: 序号 {} - {}",
+                    failedAttempts, changes.get(0).getId(), lastId, e);
+            applyIndividually(upserts, removals, tenantByRule);
+        }
+
+        Set<Long> changedRuleIds = new HashSet<>(removals);
+        upserts.forEach(rule -> changedRuleIds.add(rule.getId()));
+        ruleIds.stream()
+                .filter(ruleId -> !changedRuleIds.contains(ruleId))
+                .forEach(ruleId -> countChange("skipped", tenantByRule.get(ruleId)));
+        int skipped = ruleIds.size() - changedRuleIds.size();
+
+        failedAttempts = 0;
+        nextAttemptAtMillis = 0L;
+        logger.debug("规则变更已应用: 序号 {} - {}, 新增/更新 {} 条, 移除 {} 条, 跳过 {} 条",
+                changes.get(0).getId(), lastId, upserts.size(), removals.size(), skipped);
+        return true;
+    }
+
+    /**
+     * 逐条应用变更，跳过无法应用的规则
+     */
+    private void applyIndividually(List<DroolsRule> upserts, List<Long> removals, Map<Long, String> tenantByRule) {
+        for (Long ruleId : removals) {
+            try {
+                droolsContainerService.applyRuleChanges(List.of(), List.of(ruleId));
+                countChange("applied", tenantByRule.get(ruleId));
+            } catch (DroolsContainerException e) {
+                countChange("failed", tenantByRule.get(ruleId));
+                logger.error("从容器中移除规则失败，已跳过: ID {}", ruleId, e);
+            }
+        }
+        for (DroolsRule rule : upserts) {
+            try {
+                droolsContainerService.applyRuleChanges(List.of(rule), List.of());
+                countChange("applied", rule.getTenantId());
+            } catch (DroolsContainerException e) {
+                countChange("failed", rule.getTenantId());
+                logger.error("应用规则到容器失败，已跳过: {} (ID: {})", rule.getRuleName(), rule.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * 按租户记录变更处理结果
+     */
+    private void countChange(String result, String tenantId) {
+        Counter.builder("drools.outbox.changes")
+                .tag("result", result)
+                .tag("tenant", tenantId != null ? tenantId : DroolsRule.DEFAULT_TENANT)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 刷新积压数量与延迟
+     */
+    private void refreshLag() {
+        long cursor = appliedCursor;
+        pendingCount = ruleChangeOutboxRepository.countAfter(cursor);
+        if (pendingCount == 0) {
+            lagMillis = 0L;
+            return;
+        }
+
+        List<RuleChangeOutbox> oldest = ruleChangeOutboxRepository.findAfter(cursor, 1);
+        if (!oldest.isEmpty() && oldest.get(0).getCreateTime() != null) {
+            lagMillis = Math.max(0L, Duration.between(oldest.get(0).getCreateTime(), LocalDateTime.now()).toMillis());
+        }
+    }
+
+    /**
+     * 游标之下尚未出现的序号区间
+     *
+     * @param fromId 起始序号（包含）
+     * @param toId 结束序号（包含）
+     * @param firstSeenMillis 首次发现时间
+     */
+    private record SequenceGap(long fromId, long toId, long firstSeenMillis) {
+    }
+
+    /**
+     * 服务销毁时关闭应用线程
+     */
+    @PreDestroy
+    public void destroy() {
+        applierExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.drools.service;
+
+/**
+ * 规则变更已记录事件
+ * 规则变更写入发件箱后发布，事务提交后通知发件箱应用器尽快处理
+ *
+ * @param outboxId 发件箱变更序号
+ * @param ruleId 规则ID
+ * @author System
+ * @since 1.0.0
+ */
+public record RuleChangeRecordedEvent(Long outboxId, Long ruleId) {
+}
@@ -0,0 +1,470 @@
+package com.example.drools.service;
+
+import com.example.drools.config.DroolsProperties;
+import com.example.drools.entity.DroolsRule;
+import com.example.drools.exception.DroolsContainerException;
+import com.example.drools.exception.ResourceNotFoundException;
+import com.example.drools.repository.DroolsRuleRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.kie.api.KieServices;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 租户容器注册表
+ * 按租户ID管理 {@link TenantRuleContainer}，负责租户容器的按需加载、并行构建以及按最近最少使用淘汰。
+ * <p>
+ * 默认租户在启动时加载且不会被淘汰；其他租户在启动时按上限预加载，或在首次访问时加载。
+ * 只为存在启用规则的租户创建容器，其他租户ID视为不存在，不占用容器配额与按租户注册的指标；
+ * 淘汰的容器从注册表中移除并注销其指标，下次访问时重新创建。
+ * 启用集群分片时只预加载本节点负责的租户，分片分配变化后卸载不再负责的租户。
+ *
+ * @author System
+ * @since 1.0.0
+ */
+@Service
+public class RuleContainerRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuleContainerRegistry.class);
+
+    private final DroolsRuleRepository droolsRuleRepository;
+    private final ClusterMembershipService clusterMembershipService;
+    private final DroolsProperties.Tenants tenantsProperties;
+    private final DroolsProperties.SessionPool sessionPoolProperties;
+    private final DroolsProperties droolsProperties;
+    private final MeterRegistry meterRegistry;
+    private final KieServices kieServices = KieServices.Factory.get();
+    private final Counter evictionCounter;
+
+    // 已知租户列表在未命中时重新查询的最小间隔（毫秒）
+    private static final long KNOWN_TENANTS_REFRESH_INTERVAL_MS = 1000L;
+
+    private final ConcurrentHashMap<String, TenantRuleContainer> containers = new ConcurrentHashMap<>();
+
+    // 存在启用规则的租户ID，未命中时按最小间隔从数据库刷新
+    private volatile Set<String> knownTenantIds = Set.of();
+    private volatile long knownTenantsRefreshedAt = 0L;
+
+    // 租户容器构建线程池，不同租户的变更并行构建
+    private final ExecutorService buildExecutor;
+
+    public RuleContainerRegistry(DroolsRuleRepository droolsRuleRepository,
+                                 ClusterMembershipService clusterMembershipService,
+                                 DroolsProperties droolsProperties,
+                                 MeterRegistry meterRegistry) {
+        this.droolsRuleRepository = droolsRuleRepository;
+        this.clusterMembershipService = clusterMembershipService;
+        this.tenantsProperties = droolsProperties.getTenants();
+        this.sessionPoolProperties = droolsProperties.getSessionPool();
+        this.droolsProperties = droolsProperties;
+        this.meterRegistry = meterRegistry;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.buildExecutor = Executors.newFixedThreadPool(Math.max(1, tenantsProperties.getBuildThreads()), r -> {
+            Thread thread = new Thread(r, "drools-tenant-build-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.evictionCounter = Counter.builder("drools.container.evictions")
+                .description("被淘汰的租户容器数量")
+                .register(meterRegistry);
+        Gauge.builder("drools.container.tenants.active", this, registry -> registry.getLoadedContainers().size())
+                .description("当前已加载的租户容器数量")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 启动时加载默认租户，并按上限预加载其他由本节点负责且存在启用规则的租户
+     */
+    @PostConstruct
+    public void initialize() {
+        logger.info("开始初始化租户容器...");
+
+        getContainer(DroolsRule.DEFAULT_TENANT);
+        preloadLocalTenants();
+
+        logger.info("租户容器初始化完成，共加载 {} 个租户", getLoadedContainers().size());
+    }
+
+    /**
+     * 分片分配变化后重新平衡：卸载不再由本节点负责的租户，预加载新分配到本节点的租户
+     *
+     * @param event 分片分配变更事件
+     */
+    @EventListener
+    public void onShardAssignmentChanged(ShardAssignmentChangedEvent event) {
+        logger.info("开始重新平衡租户容器: 集群节点 {}", event.currentNodes());
+
+        for (TenantRuleContainer container : getLoadedContainers()) {
+            if (!clusterMembershipService.isLocal(container.getTenantId())) {
+                logger.info("租户已分配到其他节点，卸载本地容器: {}", container.getTenantId());
+                evict(container);
+            }
+        }
+        preloadLocalTenants();
+
+        logger.info("租户容器重新平衡完成，当前加载 {} 个租户", getLoadedContainers().size());
+    }
+
+    /**
+     * 按上限预加载由本节点负责且尚未加载的租户
+     */
+    private void preloadLocalTenants() {
+        for (String tenantId : refreshKnownTenants()) {
+            if (!clusterMembershipService.isLocal(tenantId) || findLoadedContainer(tenantId) != null) {
+                continue;
+            }
+            if (getLoadedContainers().size() >= tenantsProperties.getMaxActiveContainers()) {
+                logger.info("已达到租户容器上限 {}，其余租户将在首次访问时加载", tenantsProperties.getMaxActiveContainers());
+                break;
+            }
+            try {
+                getContainer(tenantId);
+            } catch (DroolsContainerException e) {
+                logger.error("预加载租户容器失败，将在首次访问时重试: {}", tenantId, e);
+            }
+        }
+    }
+
+    /**
+     * 获取存在启用规则的租户ID
+     *
+     * @return 租户ID列表
+     */
+    public List<String> getEnabledTenantIds() {
+        return droolsRuleRepository.findEnabledTenantIds();
+    }
+
+    /**
+     * 判断租户是否存在：默认租户、已注册容器的租户或存在启用规则的租户
+     * 未命中时按最小间隔重新查询，不存在的租户ID不会在每次请求时查询数据库
+     *
+     * @param tenantId 租户ID
+     * @return 租户是否存在
+     */
+    public boolean isKnownTenant(String tenantId) {
+        if (!isEvictable(tenantId) || containers.containsKey(tenantId) || knownTenantIds.contains(tenantId)) {
+            return true;
+        }
+        if (System.currentTimeMillis() - knownTenantsRefreshedAt < KNOWN_TENANTS_REFRESH_INTERVAL_MS) {
+            return false;
+        }
+        return refreshKnownTenants().contains(tenantId);
+    }
+
+    private synchronized Set<String> refreshKnownTenants() {
+        if (System.currentTimeMillis() - knownTenantsRefreshedAt >= KNOWN_TENANTS_REFRESH_INTERVAL_MS) {
+            knownTenantIds = Set.copyOf(droolsRuleRepository.findEnabledTenantIds());
+            knownTenantsRefreshedAt = System.currentTimeMillis();
+        }
+        return knownTenantIds;
+    }
+
+    /**
+     * 获取租户容器，未加载时从数据库加载
+     * 容器已加载时不加锁；加载只阻塞同一租户的调用方
+     *
+     * @param tenantId 租户ID
+     * @return 已加载的租户容器
+     * @throws ResourceNotFoundException 当租户不存在时抛出
+     * @throws DroolsContainerException 当加载失败时抛出
+     */
+    public TenantRuleContainer getContainer(String tenantId) {
+        TenantRuleContainer container = registerContainer(tenantId);
+        if (container.ensureLoaded(() -> droolsRuleRepository.findEnabledRulesByTenant(tenantId))) {
+            enforceCapacity(tenantId);
+        }
+        container.touch();
+        return container;
+    }
+
+    /**
+     * 从租户当前代次的会话池借出KieSession，租户容器未加载时先加载
+     *
+     * @param tenantId 租户ID
+     * @return 借出的会话，使用完毕后需调用 {@link PooledKieSession#close()} 归还
+     * @throws DroolsContainerException 当加载失败或等待会话超时时抛出
+     */
+    public PooledKieSession borrowSession(String tenantId) {
+        PooledKieSession session = getContainer(tenantId).borrowSession();
+        if (session == null) {
+            // 加载后恰好被淘汰，重新加载一次
+            session = getContainer(tenantId).borrowSession();
+        }
+        if (session == null) {
+            throw new IllegalStateException("Drools container is not initialized for tenant: " + tenantId);
+        }
+        return session;
+    }
+
+    /**
+     * 获取租户当前生效的容器代次，未加载时先加载
+     *
+     * @param tenantId 租户ID
+     * @return 容器代次
+     */
+    public ContainerGeneration getActiveGeneration(String tenantId) {
+        TenantRuleContainer container = getContainer(tenantId);
+        ContainerGeneration generation = container.getActiveGeneration();
+        if (generation == null) {
+            // 加载后恰好被淘汰，重新加载一次
+            generation = getContainer(tenantId).getActiveGeneration();
+        }
+        if (generation == null) {
+            throw new IllegalStateException("Drools container is not initialized for tenant: " + tenantId);
+        }
+        return generation;
+    }
+
+    /**
+     * 获取已加载的租户容器，不触发加载
+     *
+     * @param tenantId 租户ID
+     * @return 租户容器，未加载时返回null
+     */
+    public TenantRuleContainer findLoadedContainer(String tenantId) {
+        TenantRuleContainer container = containers.get(tenantId);
+        return container != null && container.isLoaded() ? container : null;
+    }
+
+    /**
+     * 获取所有已加载的租户容器
+     *
+     * @return 租户容器列表
+     */
+    public List<TenantRuleContainer> getLoadedContainers() {
+        return containers.values().stream()
+                .filter(TenantRuleContainer::isLoaded)
+                .toList();
+    }
+
+    /**
+     * 获取所有已注册的租户容器（包括加载失败的）
+     *
+     * @return 租户容器列表
+     */
+    public List<TenantRuleContainer> getAllContainers() {
+        return List.copyOf(containers.values());
+    }
+
+    /**
+     * 查找已加载指定规则的租户容器
+     *
+     * @param ruleId 规则ID
+     * @return 租户容器，未加载该规则时返回null
+     */
+    public TenantRuleContainer findContainerOfRule(Long ruleId) {
+        for (TenantRuleContainer container : containers.values()) {
+            if (container.isRuleLoaded(ruleId)) {
+                return container;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 批量应用规则变更
+     * 变更按租户分组，各租户在构建线程池中并行构建，互不等待；
+     * 未加载的租户直接跳过，其下次加载时会读取数据库中的最新状态
+     *
+     * @param upserts 需要新增或更新的规则
+     * @param removals 需要移除的规则ID
+     * @throws DroolsContainerException 当任一租户构建失败时抛出，其他租户的变更已生效
+     */
+    public void applyRuleChanges(List<DroolsRule> upserts, List<Long> removals) {
+        Map<String, List<DroolsRule>> upsertsByTenant = new LinkedHashMap<>();
+        Map<String, List<Long>> removalsByTenant = new LinkedHashMap<>();
+
+        for (DroolsRule rule : upserts) {
+            upsertsByTenant.computeIfAbsent(tenantOf(rule), id -> new ArrayList<>()).add(rule);
+        }
+        for (Long ruleId : removals) {
+            TenantRuleContainer container = findContainerOfRule(ruleId);
+            if (container != null) {
+                removalsByTenant.computeIfAbsent(container.getTenantId(), id -> new ArrayList<>()).add(ruleId);
+            }
+        }
+
+        Set<String> tenantIds = new LinkedHashSet<>(upsertsByTenant.keySet());
+        tenantIds.addAll(removalsByTenant.keySet());
+        if (tenantIds.isEmpty()) {
+            return;
+        }
+
+        Map<String, Future<Boolean>> futures = new LinkedHashMap<>();
+        for (String tenantId : tenantIds) {
+            TenantRuleContainer container = containers.get(tenantId);
+            if (container == null) {
+                continue;
+            }
+            List<DroolsRule> tenantUpserts = upsertsByTenant.getOrDefault(tenantId, List.of());
+            List<Long> tenantRemovals = removalsByTenant.getOrDefault(tenantId, List.of());
+            futures.put(tenantId, buildExecutor.submit(() -> container.applyRuleChanges(tenantUpserts, tenantRemovals)));
+        }
+
+        DroolsContainerException failure = null;
+        for (Map.Entry<String, Future<Boolean>> entry : futures.entrySet()) {
+            try {
+                entry.getValue().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DroolsContainerException("Interrupted while applying rule changes", e, "APPLY_CHANGES", null);
+            } catch (ExecutionException e) {
+                logger.error("租户规则变更应用失败: {}", entry.getKey(), e.getCause());
+                if (failure == null) {
+                    failure = new DroolsContainerException(
+                            "Failed to apply rule changes for tenant: " + entry.getKey(),
+                            e.getCause(), "APPLY_CHANGES", null);
+                } else {
+                    failure.addSuppressed(e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * 从数据库重新加载租户容器
+     *
+     * @param tenantId 租户ID
+     */
+    public void reload(String tenantId) {
+        TenantRuleContainer container = registerContainer(tenantId);
+        container.reload(droolsRuleRepository.findEnabledRulesByTenant(tenantId));
+        container.touch();
+    }
+
+    /**
+     * 从数据库重新加载所有已加载的租户容器
+     */
+    public void reloadAll() {
+        for (TenantRuleContainer container : getLoadedContainers()) {
+            reload(container.getTenantId());
+        }
+    }
+
+    /**
+     * 卸载所有租户容器并重新初始化
+     */
+    public void recover() {
+        logger.warn("开始重置所有租户容器...");
+        containers.values().forEach(TenantRuleContainer::dispose);
+        initialize();
+    }
+
+    /**
+     * 定时淘汰空闲的租户容器
+     */
+    @Scheduled(fixedDelayString = "${drools.tenants.eviction-check-interval-ms:60000}")
+    public void evictIdleContainers() {
+        long idleEvictionMs = tenantsProperties.getIdleEvictionMs();
+        if (idleEvictionMs <= 0) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (TenantRuleContainer container : getLoadedContainers()) {
+            if (isEvictable(container.getTenantId()) && now - container.getLastAccessMillis() > idleEvictionMs) {
+                logger.info("租户容器空闲超过 {} ms，开始淘汰: {}", idleEvictionMs, container.getTenantId());
+                evict(container);
+            }
+        }
+    }
+
+    /**
+     * 定时检查借出超过阈值未归还的KieSession
+     */
+    @Scheduled(fixedDelayString = "${drools.session-pool.leak-check-interval-ms:10000}")
+    public void detectSessionLeaks() {
+        if (sessionPoolProperties.getLeakThresholdMs() <= 0) {
+            return;
+        }
+        for (TenantRuleContainer container : containers.values()) {
+            container.detectSessionLeaks();
+        }
+    }
+
+    /**
+     * 已加载容器超过上限时，按最近最少使用淘汰
+     *
+     * @param justLoadedTenantId 刚加载的租户，不参与本次淘汰
+     */
+    private void enforceCapacity(String justLoadedTenantId) {
+        int maxActiveContainers = tenantsProperties.getMaxActiveContainers();
+        List<TenantRuleContainer> candidates = getLoadedContainers().stream()
+                .filter(container -> isEvictable(container.getTenantId()))
+                .filter(container -> !container.getTenantId().equals(justLoadedTenantId))
+                .sorted(Comparator.comparingLong(TenantRuleContainer::getLastAccessMillis))
+                .toList();
+
+        int excess = getLoadedContainers().size() - maxActiveContainers;
+        for (int i = 0; i < excess && i < candidates.size(); i++) {
+            TenantRuleContainer container = candidates.get(i);
+            logger.info("租户容器数量超过上限 {}，淘汰最近最少使用的租户: {}", maxActiveContainers, container.getTenantId());
+            evict(container);
+        }
+    }
+
+    /**
+     * 获取租户的容器，尚未注册时为存在的租户创建
+     *
+     * @throws ResourceNotFoundException 当租户不存在时抛出
+     */
+    private TenantRuleContainer registerContainer(String tenantId) {
+        TenantRuleContainer container = containers.get(tenantId);
+        if (container != null) {
+            return container;
+        }
+        if (!isKnownTenant(tenantId)) {
+            throw ResourceNotFoundException.tenantNotFound(tenantId);
+        }
+        return containers.computeIfAbsent(tenantId, this::createContainer);
+    }
+
+    /**
+     * 淘汰容器：从注册表中移除并关闭，注销其按租户注册的指标
+     * 仍持有该容器的调用方不会再加载它，而是重新获取新的容器
+     */
+    private void evict(TenantRuleContainer container) {
+        containers.remove(container.getTenantId(), container);
+        container.close();
+        evictionCounter.increment();
+    }
+
+    private TenantRuleContainer createContainer(String tenantId) {
+        return new TenantRuleContainer(tenantId, kieServices, droolsProperties, meterRegistry);
+    }
+
+    private boolean isEvictable(String tenantId) {
+        return !DroolsRule.DEFAULT_TENANT.equals(tenantId);
+    }
+
+    private String tenantOf(DroolsRule rule) {
+        return rule.getTenantId() != null ? rule.getTenantId() : DroolsRule.DEFAULT_TENANT;
+    }
+
+    /**
+     * 服务销毁时释放所有租户容器
+     */
+    @PreDestroy
+    public void destroy() {
+        logger.info("开始销毁租户容器...");
+        buildExecutor.shutdownNow();
+        containers.values().forEach(TenantRuleContainer::dispose);
+        containers.clear();
+    }
+}
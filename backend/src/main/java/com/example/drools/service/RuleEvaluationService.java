@@ -0,0 +1,686 @@
+package com.example.drools.service;
+
+import com.example.drools.config.DroolsProperties;
+import com.example.drools.dto.BatchEvaluateRequest;
+import com.example.drools.dto.ColumnarEvaluateRequest;
+import com.example.drools.dto.ColumnarEvaluateResponse;
+import com.example.drools.dto.EvaluateRequest;
+import com.example.drools.dto.EvaluateResponse;
+import com.example.drools.dto.EvaluationResult;
+import com.example.drools.dto.StreamEvaluationResult;
+import com.example.drools.dto.TypedFact;
+import com.example.drools.exception.BusinessException;
+import com.example.drools.exception.ResourceNotFoundException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ReflectionUtils;
+
+import java.beans.PropertyDescriptor;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 规则评估服务
+ * 将请求中的带类型事实转换为事实对象，在租户当前生效的容器代次上进行无状态评估。
+ * 评估路径上不编译规则、不创建KieContainer，只允许配置中列出的事实类型，类型在启动时解析一次。
+ * 批量评估在独立的线程池中按分区并行执行，并行度由 drools.evaluation.parallelism 配置，异步评估也在该线程池中执行，
+ * 调用线程（如Servlet请求线程）不等待规则执行；
+ * 流式评估逐条读取NDJSON记录并逐行写出结果，内存占用与输入总量无关。
+ * 按键分片评估把一次请求的事实按配置的分片键分组，各分片在批量评估线程池中并行评估后合并为一个结果。
+ *
+ * @author System
+ * @since 1.0.0
+ */
+@Service
+public class RuleEvaluationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuleEvaluationService.class);
+
+    private final DroolsContainerService droolsContainerService;
+    private final ObjectMapper objectMapper;
+    private final DroolsProperties.Evaluation properties;
+    private final int maxFacts;
+
+    // 评估线程池，批量评估的每个分区与每个异步评估在一个工作线程上执行
+    private final ForkJoinPool evaluationPool;
+    private final int parallelism;
+
+    // 类型名 -> 事实类，以及反向映射用于响应中的类型名
+    private final Map<String, Class<?>> factTypes = new HashMap<>();
+    private final Map<Class<?>, String> factTypeNames = new HashMap<>();
+
+    // 事实类 -> 预先构建的读取器，绑定事实时不再按类型查找反序列化器
+    private final Map<Class<?>, ObjectReader> factReaders = new HashMap<>();
+
+    // 事实类 -> 分片键属性的读取方法
+    private final Map<Class<?>, Method> shardKeyReaders = new HashMap<>();
+
+    public RuleEvaluationService(DroolsContainerService droolsContainerService,
+                                 DroolsProperties droolsProperties,
+                                 ObjectMapper objectMapper) {
+        this.droolsContainerService = droolsContainerService;
+        this.objectMapper = objectMapper;
+        this.properties = droolsProperties.getEvaluation();
+        this.maxFacts = properties.getMaxFacts();
+        this.parallelism = properties.resolveParallelism();
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.evaluationPool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("drools-evaluation-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            // ForkJoinPool的工作线程默认使用系统类加载器，打包运行时Drools在其中加载租户容器会找不到类
+            thread.setContextClassLoader(RuleEvaluationService.class.getClassLoader());
+            return thread;
+        }, null, false);
+
+        properties.getFactTypes().forEach((name, className) -> {
+            try {
+                Class<?> factClass = Class.forName(className);
+                factTypes.put(name, factClass);
+                factTypeNames.put(factClass, name);
+                factReaders.put(factClass, objectMapper.readerFor(factClass));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("Fact type " + name + " refers to unknown class: " + className, e);
+            }
+        });
+
+        properties.getShardKeys().forEach((name, property) -> {
+            Class<?> factClass = factTypes.get(name);
+            if (factClass == null) {
+                throw new IllegalStateException("Shard key refers to unknown fact type: " + name);
+            }
+            PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(factClass, property);
+            if (descriptor == null || descriptor.getReadMethod() == null) {
+                throw new IllegalStateException("Shard key refers to unknown property of " + name + ": " + property);
+            }
+            shardKeyReaders.put(factClass, descriptor.getReadMethod());
+        });
+    }
+
+    /**
+     * 评估一组事实
+     *
+     * @param tenantId 租户ID
+     * @param request 评估请求
+     * @return 评估结果，包括触发的规则和评估后的事实；精简响应只包括触发的规则与选择的事实属性
+     * @throws BusinessException 事实类型不被允许、字段无法转换、事实数量超过上限、输出属性不存在，
+     *                           或分片评估时事实缺少分片键时抛出
+     */
+    public EvaluateResponse evaluate(String tenantId, EvaluateRequest request) {
+        long startTime = System.nanoTime();
+        List<Object> facts = toFacts(request.getFacts());
+        OutputFields outputFields = outputFields(request.isCompact(), request.getOutputFields());
+
+        EvaluationOptions options = EvaluationOptions.defaults()
+                .family(request.getFamily())
+                .agendaGroup(request.getAgendaGroup())
+                .queryNames(request.getQueries())
+                .trackFiredRules(true);
+        EvaluateResponse response;
+        if (request.isSharded()) {
+            response = evaluateSharded(tenantId, options, facts, request.getQueries(), outputFields);
+        } else {
+            EvaluationResult result = droolsContainerService.evaluate(tenantId, options, facts);
+            response = toResponse(tenantId, result, request.getQueries(), outputFields);
+        }
+        response.setExecutionTimeMicros((System.nanoTime() - startTime) / 1000);
+        return response;
+    }
+
+    /**
+     * 按分片键分组评估一组事实
+     * 分片键取值相同的事实在同一个会话中评估，各分片在批量评估线程池中并行执行，不同分片的事实之间不会产生连接匹配。
+     * 合并结果中触发的规则与事实按分片首次出现的顺序拼接，查询结果按查询名合并；执行时间与触发次数上限对每个分片单独生效，
+     * 任一分片被中止时返回第一个中止原因；首个匹配模式的规则族在每个分片中各自停止于第一条触发的规则
+     */
+    private EvaluateResponse evaluateSharded(String tenantId, EvaluationOptions options, List<Object> facts,
+                                             List<String> queries, OutputFields outputFields) {
+        Map<Object, List<Object>> shards = new LinkedHashMap<>();
+        for (Object fact : facts) {
+            shards.computeIfAbsent(shardKey(fact), key -> new ArrayList<>()).add(fact);
+        }
+        List<List<Object>> factGroups = new ArrayList<>(shards.values());
+        if (factGroups.isEmpty()) {
+            factGroups.add(facts);
+        }
+        List<EvaluationResult> results = droolsContainerService.evaluateBatch(tenantId, options, factGroups,
+                evaluationPool, Math.min(parallelism, factGroups.size()));
+
+        EvaluationResult merged = new EvaluationResult();
+        List<String> firedRules = new ArrayList<>();
+        List<Long> firedRuleIds = new ArrayList<>();
+        List<Object> mergedFacts = new ArrayList<>(facts.size());
+        Map<String, List<Map<String, Object>>> queryResults = new LinkedHashMap<>();
+        int firedRulesCount = 0;
+        for (EvaluationResult result : results) {
+            merged.setGeneration(result.getGeneration());
+            firedRulesCount += result.getFiredRulesCount();
+            firedRules.addAll(result.getFiredRules());
+            firedRuleIds.addAll(result.getFiredRuleIds());
+            mergedFacts.addAll(result.getFacts());
+            if (result.getQueryResults() != null) {
+                result.getQueryResults().forEach((query, rows) ->
+                        queryResults.computeIfAbsent(query, key -> new ArrayList<>()).addAll(rows));
+            }
+            if (merged.getHaltReason() == null) {
+                merged.setHaltReason(result.getHaltReason());
+            }
+        }
+        merged.setFiredRulesCount(firedRulesCount);
+        merged.setFiredRules(firedRules);
+        merged.setFiredRuleIds(firedRuleIds);
+        merged.setFacts(mergedFacts);
+        merged.setQueryResults(queryResults);
+
+        EvaluateResponse response = toResponse(tenantId, merged, queries, outputFields);
+        response.setShards(results.size());
+        return response;
+    }
+
+    /**
+     * 读取事实的分片键
+     */
+    private Object shardKey(Object fact) {
+        Method reader = shardKeyReaders.get(fact.getClass());
+        String type = factTypeNames.get(fact.getClass());
+        if (reader == null) {
+            throw new BusinessException("事实类型未配置分片键: " + type, "SHARD_KEY_NOT_CONFIGURED")
+                    .addContext("shardKeys", properties.getShardKeys());
+        }
+        Object key;
+        try {
+            key = reader.invoke(fact);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw invalidFact(type, e);
+        }
+        if (key == null) {
+            throw new BusinessException("事实缺少分片键 " + properties.getShardKeys().get(type), "INVALID_FACT")
+                    .addContext("factType", type);
+        }
+        return key;
+    }
+
+    /**
+     * 在评估线程池中异步评估一组事实
+     *
+     * @param tenantId 租户ID
+     * @param request 评估请求
+     * @return 评估结果，校验或评估失败时以同样的异常异常完成
+     */
+    public CompletableFuture<EvaluateResponse> evaluateAsync(String tenantId, EvaluateRequest request) {
+        return CompletableFuture.supplyAsync(() -> evaluate(tenantId, request), evaluationPool);
+    }
+
+    /**
+     * 在评估线程池中异步批量评估相互独立的事实组，各分区在同一线程池中并行执行
+     *
+     * @param tenantId 租户ID
+     * @param request 批量评估请求
+     * @return 与事实组顺序一致的评估结果，校验或评估失败时以同样的异常异常完成
+     */
+    public CompletableFuture<List<EvaluateResponse>> evaluateBatchAsync(String tenantId, BatchEvaluateRequest request) {
+        return CompletableFuture.supplyAsync(() -> evaluateBatch(tenantId, request), evaluationPool);
+    }
+
+    /**
+     * 在评估线程池中异步按列评估
+     *
+     * @param tenantId 租户ID
+     * @param request 列式评估请求
+     * @return 各规则触发的行与输出列，校验失败或规则族不能按列评估时以同样的异常异常完成
+     */
+    public CompletableFuture<ColumnarEvaluateResponse> evaluateColumnarAsync(String tenantId,
+                                                                            ColumnarEvaluateRequest request) {
+        return CompletableFuture.supplyAsync(() -> evaluateColumnar(tenantId, request), evaluationPool);
+    }
+
+    /**
+     * 批量评估相互独立的事实组
+     *
+     * @param tenantId 租户ID
+     * @param request 批量评估请求
+     * @return 与事实组顺序一致的评估结果
+     * @throws BusinessException 事实组数量超过上限，或事实类型不被允许、字段无法转换时抛出
+     */
+    public List<EvaluateResponse> evaluateBatch(String tenantId, BatchEvaluateRequest request) {
+        List<List<TypedFact>> groups = request.getGroups();
+        int maxBatchGroups = properties.getMaxBatchGroups();
+        if (maxBatchGroups > 0 && groups.size() > maxBatchGroups) {
+            throw new BusinessException("事实组数量超过上限: " + groups.size() + " > " + maxBatchGroups,
+                    "TOO_MANY_GROUPS", HttpStatus.PAYLOAD_TOO_LARGE);
+        }
+
+        List<List<Object>> factGroups = new ArrayList<>(groups.size());
+        for (List<TypedFact> group : groups) {
+            factGroups.add(toFacts(group));
+        }
+        OutputFields outputFields = outputFields(request.isCompact(), request.getOutputFields());
+
+        EvaluationOptions options = EvaluationOptions.defaults()
+                .family(request.getFamily())
+                .agendaGroup(request.getAgendaGroup())
+                .queryNames(request.getQueries())
+                .trackFiredRules(true);
+        List<EvaluationResult> results = evaluateBatch(tenantId, options, factGroups);
+
+        List<EvaluateResponse> responses = new ArrayList<>(results.size());
+        for (EvaluationResult result : results) {
+            responses.add(toResponse(tenantId, result, request.getQueries(), outputFields));
+        }
+        return responses;
+    }
+
+    /**
+     * 按列评估只包含单个事实的事实组
+     * 每行是一个独立的事实组，在规则族的决策索引上按列判断触发的规则并计算输出列，不创建事实对象、不进入Drools。
+     * 只支持启用了决策索引、比较属性与修改的属性都是double的规则族，规则RHS中的打印不执行
+     *
+     * @param tenantId 租户ID
+     * @param request 列式评估请求
+     * @return 各规则触发的行与输出列
+     * @throws BusinessException 列长度不同、行数超过上限、事实类型不符或规则族不能按列评估时抛出
+     * @throws ResourceNotFoundException 租户当前代次没有该规则族时抛出
+     */
+    public ColumnarEvaluateResponse evaluateColumnar(String tenantId, ColumnarEvaluateRequest request) {
+        Map<String, double[]> columns = request.getColumns();
+        int rows = -1;
+        for (Map.Entry<String, double[]> column : columns.entrySet()) {
+            int length = column.getValue() != null ? column.getValue().length : 0;
+            if (rows >= 0 && length != rows) {
+                throw new BusinessException("列 " + column.getKey() + " 的长度与其他列不同: " + length + " != " + rows,
+                        "INVALID_COLUMNS");
+            }
+            rows = length;
+        }
+        int maxRows = properties.getMaxColumnarRows();
+        if (maxRows > 0 && rows > maxRows) {
+            throw new BusinessException("行数超过上限: " + rows + " > " + maxRows, "TOO_MANY_ROWS",
+                    HttpStatus.PAYLOAD_TOO_LARGE);
+        }
+
+        ContainerGeneration generation = droolsContainerService.getActiveGeneration(tenantId);
+        RuleFamily family = generation.getFamily(request.getFamily());
+        if (family == null) {
+            throw ResourceNotFoundException.ruleFamilyNotFound(tenantId, request.getFamily());
+        }
+        DecisionIndex index = family.getDecisionIndex();
+        if (index == null || index.getColumnarRestriction() != null) {
+            throw new BusinessException("规则族不能按列评估: " + (index == null
+                    ? "未启用决策索引或规则族无法编译为决策索引" : index.getColumnarRestriction()),
+                    "COLUMNAR_NOT_SUPPORTED").addContext("family", request.getFamily());
+        }
+        if (resolveFactType(request.getType()) != index.getFactType()) {
+            throw new BusinessException("规则族匹配的事实类型不是 " + request.getType(), "INVALID_FACT")
+                    .addContext("factType", index.getFactType().getSimpleName());
+        }
+
+        DecisionIndex.ColumnarDecision decision = index.evaluateColumns(columns, rows);
+        Map<String, long[]> firedRows = new LinkedHashMap<>();
+        decision.firedRows().forEach((rule, selected) -> firedRows.put(rule, selected.toLongArray()));
+        ColumnarEvaluateResponse response = new ColumnarEvaluateResponse();
+        response.setTenantId(tenantId);
+        response.setGeneration(generation.getGeneration());
+        response.setRows(rows);
+        response.setFiredRows(firedRows);
+        response.setErrorRows(decision.errorRows().toLongArray());
+        response.setOutputs(decision.outputs());
+        return response;
+    }
+
+    /**
+     * 在批量评估线程池中并行评估相互独立的事实组
+     * 事实组按顺序划分为连续分区，分区数不超过并行度，且每个分区至少包含 minPartitionSize 个事实组
+     *
+     * @param tenantId 租户ID
+     * @param options 评估选项
+     * @param factGroups 相互独立的事实组
+     * @return 与事实组顺序一致的评估结果
+     */
+    public List<EvaluationResult> evaluateBatch(String tenantId, EvaluationOptions options,
+                                                List<? extends Collection<?>> factGroups) {
+        int minPartitionSize = Math.max(1, properties.getMinPartitionSize());
+        int partitions = Math.min(parallelism, (factGroups.size() + minPartitionSize - 1) / minPartitionSize);
+        return droolsContainerService.evaluateBatch(tenantId, options, factGroups, evaluationPool, partitions);
+    }
+
+    /**
+     * 流式评估换行分隔的JSON记录（NDJSON）
+     * 每条记录形如 {"facts":[{"type":"Order","data":{...}}]}，读取一条评估一条，结果按输入顺序逐行写出。
+     * 记录在到达时即在租户当前生效的容器代次上评估，内存占用只与单条记录大小有关。
+     * 读取下一条记录需要等待客户端数据时先刷新已写出的结果；评估跟不上时不再读取输入，由TCP流控向客户端施加背压。
+     * <p>
+     * 单条记录的错误（事实类型不被允许、字段无法转换、评估失败）写为该记录的错误行后继续处理；
+     * 输入不是合法JSON时写出错误行并结束。
+     *
+     * @param tenantId 租户ID
+     * @param options 评估选项
+     * @param input 请求体
+     * @param output 响应体
+     * @return 处理的记录数
+     * @throws IOException 读写请求或响应失败时抛出
+     */
+    public long evaluateStream(String tenantId, EvaluationOptions options, InputStream input, OutputStream output)
+            throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(output)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null);
+        long index = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(new FlushBeforeBlockingInputStream(input, generator))) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                StreamEvaluationResult line;
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    line = StreamEvaluationResult.failure(index, "记录必须是JSON对象", "INVALID_RECORD");
+                } else {
+                    line = evaluateRecord(tenantId, options, parser, index);
+                }
+                generator.writeObject(line);
+                generator.writeRaw('\n');
+                index++;
+            }
+        } catch (JsonParseException e) {
+            generator.writeObject(StreamEvaluationResult.failure(index, "无法解析的记录: " + e.getOriginalMessage(),
+                    "MALFORMED_RECORD"));
+            generator.writeRaw('\n');
+        } finally {
+            generator.close();
+        }
+        return index;
+    }
+
+    /**
+     * 读取并评估一条记录，解析器位于记录的起始位置，返回时位于记录的结束位置
+     */
+    private StreamEvaluationResult evaluateRecord(String tenantId, EvaluationOptions options, JsonParser parser,
+                                                  long index) throws IOException {
+        try {
+            List<Object> facts = readRecord(parser);
+            EvaluationResult result = droolsContainerService.evaluate(tenantId, options, facts);
+            return StreamEvaluationResult.success(index, toResponse(tenantId, result, options.getQueryNames()));
+        } catch (BusinessException e) {
+            return StreamEvaluationResult.failure(index, e.getMessage(), e.getErrorCode());
+        } catch (ResourceNotFoundException e) {
+            return StreamEvaluationResult.failure(index, e.getMessage(), "NOT_FOUND");
+        } catch (RuntimeException e) {
+            logger.warn("流式评估记录 {} 失败: 租户 {}", index, tenantId, e);
+            return StreamEvaluationResult.failure(index, e.getMessage(), "EVALUATION_ERROR");
+        }
+    }
+
+    /**
+     * 读取一条记录中的事实，记录中的其他字段被忽略
+     * 记录总会被完整读取，出现错误时在读完记录后再抛出，保证解析器停在下一条记录之前
+     */
+    private List<Object> readRecord(JsonParser parser) throws IOException {
+        List<Object> facts = null;
+        BusinessException error = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (!"facts".equals(field) || value != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            facts = new ArrayList<>();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                try {
+                    Object fact = readFact(parser);
+                    if (maxFacts <= 0 || facts.size() < maxFacts) {
+                        facts.add(fact);
+                    } else if (error == null) {
+                        error = new BusinessException("事实数量超过上限: " + maxFacts, "TOO_MANY_FACTS",
+                                HttpStatus.PAYLOAD_TOO_LARGE);
+                    }
+                } catch (BusinessException e) {
+                    if (error == null) {
+                        error = e;
+                    }
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        if (facts == null || facts.isEmpty()) {
+            throw new BusinessException("记录缺少事实列表 facts", "INVALID_RECORD");
+        }
+        return facts;
+    }
+
+    /**
+     * 读取一个带类型的事实，data 字段按token缓冲后直接绑定到事实类，不构建中间的JSON树
+     */
+    private Object readFact(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            throw new BusinessException("事实必须是JSON对象", "INVALID_FACT");
+        }
+        String type = null;
+        TokenBuffer data = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("type".equals(field)) {
+                type = parser.getValueAsString();
+            } else if ("data".equals(field) && parser.currentToken() != JsonToken.VALUE_NULL) {
+                data = new TokenBuffer(parser);
+                data.copyCurrentStructure(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        Class<?> factClass = resolveFactType(type);
+        try {
+            if (data == null) {
+                return factClass.getDeclaredConstructor().newInstance();
+            }
+            return readFact(data, factClass);
+        } catch (IOException | ReflectiveOperationException e) {
+            throw invalidFact(type, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        evaluationPool.shutdownNow();
+    }
+
+    private EvaluateResponse toResponse(String tenantId, EvaluationResult result, List<String> queries) {
+        return toResponse(tenantId, result, queries, null);
+    }
+
+    /**
+     * 构建评估响应，outputFields 不为null时为精简响应：不转换评估后的全部事实，只返回触发规则的ID与选择的属性
+     */
+    private EvaluateResponse toResponse(String tenantId, EvaluationResult result, List<String> queries,
+                                        OutputFields outputFields) {
+        EvaluateResponse response = new EvaluateResponse();
+        response.setTenantId(tenantId);
+        response.setGeneration(result.getGeneration());
+        response.setFiredRulesCount(result.getFiredRulesCount());
+        response.setFiredRules(result.getFiredRules());
+        response.setHaltReason(result.getHaltReason());
+        if (outputFields == null) {
+            response.setFacts(toTypedFacts(result.getFacts()));
+        } else {
+            response.setFiredRuleIds(result.getFiredRuleIds());
+            response.setOutputs(outputFields.select(result.getFacts(), factTypeNames));
+        }
+        if (queries != null && !queries.isEmpty()) {
+            response.setQueryResults(result.getQueryResults());
+        }
+        return response;
+    }
+
+    /**
+     * 解析精简响应选择的事实属性
+     *
+     * @return 非精简响应时返回null
+     */
+    private OutputFields outputFields(boolean compact, Map<String, List<String>> fields) {
+        if (!compact) {
+            return null;
+        }
+        Map<Class<?>, Map<String, Method>> readers = new HashMap<>();
+        if (fields != null) {
+            fields.forEach((type, properties) -> {
+                Class<?> factClass = resolveFactType(type);
+                Map<String, Method> typeReaders = new LinkedHashMap<>();
+                for (String property : properties != null ? properties : List.<String>of()) {
+                    PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(factClass, property);
+                    if (descriptor == null || descriptor.getReadMethod() == null) {
+                        throw new BusinessException("事实类型 " + type + " 没有属性 " + property, "INVALID_OUTPUT_FIELD");
+                    }
+                    typeReaders.put(property, descriptor.getReadMethod());
+                }
+                readers.put(factClass, typeReaders);
+            });
+        }
+        return new OutputFields(readers);
+    }
+
+    /**
+     * 将请求中的带类型事实转换为事实对象
+     */
+    private List<Object> toFacts(List<TypedFact> typedFacts) {
+        if (maxFacts > 0 && typedFacts.size() > maxFacts) {
+            throw new BusinessException("事实数量超过上限: " + typedFacts.size() + " > " + maxFacts,
+                    "TOO_MANY_FACTS", HttpStatus.PAYLOAD_TOO_LARGE);
+        }
+
+        List<Object> facts = new ArrayList<>(typedFacts.size());
+        for (TypedFact typedFact : typedFacts) {
+            Class<?> factClass = resolveFactType(typedFact.getType());
+            Object data = typedFact.getData();
+            try {
+                if (data == null) {
+                    facts.add(factClass.getDeclaredConstructor().newInstance());
+                } else if (data instanceof TokenBuffer buffer) {
+                    facts.add(readFact(buffer, factClass));
+                } else {
+                    facts.add(objectMapper.convertValue(data, factClass));
+                }
+            } catch (IOException | IllegalArgumentException | ReflectiveOperationException e) {
+                throw invalidFact(typedFact.getType(), e);
+            }
+        }
+        return facts;
+    }
+
+    /**
+     * 使用事实类的读取器绑定缓冲的事实字段
+     */
+    private Object readFact(TokenBuffer data, Class<?> factClass) throws IOException {
+        try (JsonParser dataParser = data.asParser(objectMapper)) {
+            return factReaders.get(factClass).readValue(dataParser);
+        }
+    }
+
+    private Class<?> resolveFactType(String type) {
+        Class<?> factClass = factTypes.get(type);
+        if (factClass == null) {
+            throw new BusinessException("不支持的事实类型: " + type, "UNSUPPORTED_FACT_TYPE")
+                    .addContext("supportedTypes", factTypes.keySet());
+        }
+        return factClass;
+    }
+
+    private BusinessException invalidFact(String type, Exception cause) {
+        return new BusinessException("事实字段无法转换为 " + type + ": " + cause.getMessage(), "INVALID_FACT");
+    }
+
+    /**
+     * 将评估后的事实转换为带类型的事实，未在配置中列出的类型（如规则中声明的类型）使用类的简单名称
+     */
+    private List<TypedFact> toTypedFacts(List<Object> facts) {
+        List<TypedFact> typedFacts = new ArrayList<>(facts.size());
+        for (Object fact : facts) {
+            String type = factTypeNames.get(fact.getClass());
+            typedFacts.add(new TypedFact(type != null ? type : fact.getClass().getSimpleName(), fact));
+        }
+        return typedFacts;
+    }
+
+    /**
+     * 精简响应选择的事实属性，键为事实类，值为属性名到读取方法
+     */
+    private record OutputFields(Map<Class<?>, Map<String, Method>> readers) {
+
+        /**
+         * 按事实顺序读取选择的属性，未选择属性的事实类型不返回
+         */
+        List<TypedFact> select(List<Object> facts, Map<Class<?>, String> factTypeNames) {
+            List<TypedFact> outputs = new ArrayList<>();
+            for (Object fact : facts) {
+                Map<String, Method> typeReaders = readers.get(fact.getClass());
+                if (typeReaders == null) {
+                    continue;
+                }
+                Map<String, Object> data = new LinkedHashMap<>();
+                typeReaders.forEach((property, reader) -> data.put(property, ReflectionUtils.invokeMethod(reader, fact)));
+                outputs.add(new TypedFact(factTypeNames.get(fact.getClass()), data));
+            }
+            return outputs;
+        }
+    }
+
+    /**
+     * 在读取会阻塞等待客户端数据之前，先把已写出的结果刷新到客户端
+     * 客户端可以边发送边接收结果；输入连续到达时结果按缓冲区大小批量写出，避免逐条刷新
+     */
+    private static class FlushBeforeBlockingInputStream extends FilterInputStream {
+
+        private final JsonGenerator generator;
+
+        FlushBeforeBlockingInputStream(InputStream input, JsonGenerator generator) {
+            super(input);
+            this.generator = generator;
+        }
+
+        @Override
+        public int read() throws IOException {
+            flushIfBlocking();
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            flushIfBlocking();
+            return super.read(b, off, len);
+        }
+
+        private void flushIfBlocking() throws IOException {
+            if (in.available() == 0) {
+                generator.flush();
+            }
+        }
+    }
+}
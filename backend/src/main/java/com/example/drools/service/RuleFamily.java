@@ -0,0 +1,244 @@
+package com.example.drools.service;
+
+import com.example.drools.config.DroolsProperties;
+import com.example.drools.dto.RuleFamilyStatus;
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.kie.api.definition.rule.Rule;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.StatelessKieSession;
+import org.kie.api.runtime.rule.AgendaFilter;
+import org.kie.api.runtime.rule.FactHandle;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 容器代次中的规则族
+ * 规则族由规则的 rule_family 字段划分，规则文件按规则族存放在 rules/&lt;规则族&gt;/ 目录下。
+ * 需要独立KieBase的规则族（顺序模式、多线程评估）拥有自己的无状态会话；配置了议程组且规则都在该议程组中的规则族按议程组路由，
+ * 只让该议程组获得焦点；其他规则族在租户的KieBase上按规则名称索引过滤执行。
+ *
+ * @author System
+ * @since 1.0.0
+ */
+public final class RuleFamily {
+
+    private final String name;
+    private final DroolsProperties.Family options;
+    private final Map<String, Long> ruleIds;
+    private final String agendaGroup;
+    private final boolean mainAgendaGroup;
+    private final StatelessKieSession dedicatedSession;
+    private final AgendaFilter agendaFilter;
+    private final NoMatchPrefilter prefilter;
+    private final DecisionIndex decisionIndex;
+    private final List<String> multithreadRestrictions;
+
+    /**
+     * 构造函数
+     *
+     * @param name 规则族名称
+     * @param options 规则族配置
+     * @param ruleIds 规则族包含的规则，键为 包名.规则名，值为规则ID
+     * @param agendaGroup 路由使用的议程组，规则族不按议程组路由时为null
+     * @param mainAgendaGroup 规则族的规则是否都在MAIN议程组中
+     * @param dedicatedSession 独立KieBase的无状态会话，未构建独立KieBase时为null
+     * @param prefilter 无匹配预过滤，规则族中有总是可能被激活的规则时为null
+     * @param decisionIndex 决策索引，未启用或规则族无法编译时为null
+     * @param multithreadRestrictions 规则族不能使用多线程评估的原因，可以使用时为空
+     */
+    public RuleFamily(String name, DroolsProperties.Family options, Map<String, Long> ruleIds, String agendaGroup,
+                      boolean mainAgendaGroup, StatelessKieSession dedicatedSession, NoMatchPrefilter prefilter, DecisionIndex decisionIndex,
+                      List<String> multithreadRestrictions) {
+        this.name = name;
+        this.options = options;
+        this.ruleIds = Map.copyOf(ruleIds);
+        this.agendaGroup = agendaGroup;
+        this.mainAgendaGroup = mainAgendaGroup;
+        this.dedicatedSession = dedicatedSession;
+        this.prefilter = prefilter;
+        this.decisionIndex = decisionIndex;
+        this.multithreadRestrictions = List.copyOf(multithreadRestrictions);
+        this.agendaFilter = match -> this.ruleIds.containsKey(qualifiedName(match.getRule()));
+    }
+
+    /**
+     * 在有状态会话上执行该规则族的规则
+     * 按议程组路由时插入 {@link RouteMarker} 并让议程组获得焦点，议程组执行完即停止；否则按规则名称过滤执行。
+     * 首个匹配模式的规则族在第一条规则触发后停止
+     *
+     * @param session 当前代次的KieSession
+     * @return 触发的规则数量，不包括议程组的结束规则
+     */
+    public int fireAllRules(KieSession session) {
+        boolean firstMatch = options.isFirstMatch();
+        if (agendaGroup == null) {
+            return firstMatch ? session.fireAllRules(agendaFilter, 1) : session.fireAllRules(agendaFilter);
+        }
+        RouteMarker marker = new RouteMarker(agendaGroup);
+        FactHandle markerHandle = session.insert(marker);
+        try {
+            session.getAgenda().getAgendaGroup(agendaGroup).setFocus();
+            int fired = firstMatch ? session.fireAllRules(1) : session.fireAllRules();
+            return marker.isReached() ? fired - 1 : fired;
+        } finally {
+            session.delete(markerHandle);
+        }
+    }
+
+    /**
+     * 获取规则的限定名称
+     *
+     * @param rule 规则
+     * @return 包名.规则名
+     */
+    public static String qualifiedName(Rule rule) {
+        return rule.getPackageName() + "." + rule.getName();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DroolsProperties.Family getOptions() {
+        return options;
+    }
+
+    public Set<String> getRuleNames() {
+        return ruleIds.keySet();
+    }
+
+    /**
+     * 获取规则ID
+     *
+     * @param qualifiedName 包名.规则名
+     * @return 规则ID，不属于该规则族时返回null
+     */
+    public Long getRuleId(String qualifiedName) {
+        return ruleIds.get(qualifiedName);
+    }
+
+    /**
+     * 获取路由使用的议程组
+     *
+     * @return 议程组名称，规则族不按议程组路由时返回null
+     */
+    public String getAgendaGroup() {
+        return agendaGroup;
+    }
+
+    public boolean isRouted() {
+        return agendaGroup != null;
+    }
+
+    /**
+     * 规则族的规则是否都在MAIN议程组中，此时不需要议程组获得焦点规则即可触发
+     *
+     * @return 都在MAIN议程组中时返回true
+     */
+    public boolean isMainAgendaGroup() {
+        return mainAgendaGroup;
+    }
+
+    /**
+     * 获取独立KieBase的无状态会话
+     *
+     * @return 无状态会话，未构建独立KieBase时返回null
+     */
+    public StatelessKieSession getDedicatedSession() {
+        return dedicatedSession;
+    }
+
+    public boolean hasDedicatedKieBase() {
+        return dedicatedSession != null;
+    }
+
+    /**
+     * 获取只允许该规则族的规则触发的议程过滤器，在租户的KieBase上评估时使用
+     *
+     * @return 议程过滤器
+     */
+    public AgendaFilter getAgendaFilter() {
+        return agendaFilter;
+    }
+
+    /**
+     * 获取无匹配预过滤
+     *
+     * @return 预过滤，规则族中有总是可能被激活的规则时返回null
+     */
+    public NoMatchPrefilter getPrefilter() {
+        return prefilter;
+    }
+
+    /**
+     * 获取决策索引
+     *
+     * @return 决策索引，未启用或规则族无法编译时返回null
+     */
+    public DecisionIndex getDecisionIndex() {
+        return decisionIndex;
+    }
+
+    /**
+     * 获取规则族不能使用多线程评估的原因
+     * 未启用多线程评估的规则族只检查规则与配置，Rete网络能否分区在启用并构建KieBase后才能确定
+     *
+     * @return 原因列表，可以使用时为空
+     */
+    public List<String> getMultithreadRestrictions() {
+        return multithreadRestrictions;
+    }
+
+    /**
+     * 规则族是否在多线程评估的独立KieBase上执行
+     *
+     * @return 独立KieBase启用了多线程评估且Drools未将其关闭时返回true
+     */
+    public boolean isMultithreadEvaluation() {
+        return dedicatedSession != null && isMultithreadEvaluation(dedicatedSession);
+    }
+
+    /**
+     * 判断会话的KieBase是否实际使用多线程评估，Drools在构建时发现不支持的规则或Rete网络无法分区时会将其关闭
+     *
+     * @param session 无状态会话
+     * @return 是否使用多线程评估
+     */
+    public static boolean isMultithreadEvaluation(StatelessKieSession session) {
+        return ((InternalKnowledgeBase) session.getKieBase()).getConfiguration().isMultithreadEvaluation();
+    }
+
+    /**
+     * 获取规则族状态
+     *
+     * @return 状态快照
+     */
+    public RuleFamilyStatus getStatus() {
+        RuleFamilyStatus status = new RuleFamilyStatus();
+        status.setFamily(name);
+        status.setRulesCount(ruleIds.size());
+        status.setAgendaGroup(agendaGroup);
+        status.setDedicatedKieBase(hasDedicatedKieBase());
+        status.setPrefilter(prefilter != null);
+        status.setDecisionIndex(decisionIndex != null);
+        status.setMultithreadRequested(options.isMultithread());
+        status.setMultithreadEvaluation(isMultithreadEvaluation());
+        status.setMultithreadRestrictions(multithreadRestrictions);
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        return "RuleFamily{" +
+                "name='" + name + '\'' +
+                ", rules=" + ruleIds.size() +
+                ", agendaGroup='" + agendaGroup + '\'' +
+                ", dedicatedKieBase=" + hasDedicatedKieBase() +
+                ", prefilter=" + (prefilter != null) +
+                ", decisionIndex=" + (decisionIndex != null) +
+                ", multithread=" + isMultithreadEvaluation() +
+                '}';
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.drools.service;
+
+import java.util.List;
+
+/**
+ * 分片分配变更事件
+ * 存活节点集合变化、哈希环重建后发布，租户容器注册表据此卸载不再负责的租户并预加载新分配的租户
+ *
+ * @param previousNodes 变更前的节点ID列表
+ * @param currentNodes 变更后的节点ID列表
+ * @author System
+ * @since 1.0.0
+ */
+public record ShardAssignmentChangedEvent(List<String> previousNodes, List<String> currentNodes) {
+}
@@ -0,0 +1,935 @@
+package com.example.drools.service;
+
+import com.example.drools.config.DroolsProperties;
+import com.example.drools.dto.TenantContainerStatus;
+import com.example.drools.entity.DroolsRule;
+import com.example.drools.exception.DroolsContainerException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.drools.compiler.compiler.DrlParser;
+import org.drools.compiler.compiler.DroolsParserException;
+import org.drools.compiler.lang.descr.PackageDescr;
+import org.drools.compiler.lang.descr.RuleDescr;
+import org.drools.core.definitions.rule.impl.RuleImpl;
+import org.drools.core.spi.AgendaGroup;
+import org.kie.api.KieServices;
+import org.kie.api.builder.*;
+import org.kie.api.KieBase;
+import org.kie.api.conf.KieBaseOption;
+import org.kie.api.conf.SequentialOption;
+import org.kie.api.definition.KiePackage;
+import org.kie.api.definition.rule.Rule;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.StatelessKieSession;
+import org.kie.api.io.ResourceType;
+import org.kie.internal.conf.MultithreadEvaluationOption;
+import org.kie.internal.utils.KieHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 租户规则容器
+ * 每个租户拥有独立的KieFileSystem、容器代次和构建锁，一个租户的重建不会阻塞其他租户的读取与构建。
+ * <p>
+ * 读取方通过 {@link #getActiveGeneration()} 无锁获取当前代次；构建锁为公平锁，同一租户的构建请求按到达顺序排队执行。
+ * 每个代次带有独立的 {@link KieSessionPool}，代次被替换或卸载时会话池退役，借出的会话全部归还后关闭。
+ * 规则文件按规则族存放在 rules/&lt;规则族&gt;/ 目录下，配置了顺序模式等选项的规则族额外构建独立的KieBase。
+ *
+ * @author System
+ * @since 1.0.0
+ */
+public class TenantRuleContainer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TenantRuleContainer.class);
+
+    private static final String RULES_PATH = "src/main/resources/rules/";
+    private static final String RULES_FOLDER = "rules/";
+    private static final String RELEASE_GROUP_ID = "com.example.drools.tenant";
+    private static final String RESOURCES_PATH = "src/main/resources/";
+    private static final String ROUTING_RULES_PATH = "src/main/resources/com/example/drools/routing/routes.drl";
+
+    // 代次编号在所有租户容器间递增：淘汰后重新创建的容器不会复用旧容器的编号，按代次缓存的结果不会被误用
+    private static final AtomicLong GENERATION_COUNTER = new AtomicLong();
+
+    private final String tenantId;
+    private final KieServices kieServices;
+    private final DroolsProperties.Tenants tenantsProperties;
+    private final DroolsProperties.SessionPool sessionPoolProperties;
+    private final DroolsProperties droolsProperties;
+
+    private KieFileSystem kieFileSystem;
+    private ReleaseId activeReleaseId;
+
+    // 用于存储规则ID到文件路径的映射
+    private final ConcurrentHashMap<Long, String> rulePathMap = new ConcurrentHashMap<>();
+
+    // 用于存储规则ID到已加载规则版本的映射
+    private final ConcurrentHashMap<Long, String> ruleVersionMap = new ConcurrentHashMap<>();
+
+    // 构建锁，公平模式下同一租户的构建按到达顺序排队
+    private final ReentrantLock buildLock = new ReentrantLock(true);
+
+    // 当前生效的容器代次，每次构建成功后整体替换，读取时无需加锁；为null表示未加载或已被淘汰
+    private volatile ContainerGeneration activeGeneration;
+
+    // 已退役但仍有会话未归还的会话池，继续参与泄漏检测
+    private final Set<KieSessionPool> retiringSessionPools = ConcurrentHashMap.newKeySet();
+
+    private volatile long lastAccessMillis = System.currentTimeMillis();
+    private volatile long lastBuildAllocatedBytes = 0L;
+
+    private final Timer buildSuccessTimer;
+    private final Timer buildFailureTimer;
+    private final Counter quotaRejectionCounter;
+    private final KieSessionPool.Meters sessionPoolMeters;
+
+    // 按租户注册的指标，容器关闭时注销
+    private final MeterRegistry meterRegistry;
+    private final List<Meter> meters = new ArrayList<>();
+
+    // 已关闭的容器不再加载，由注册表为该租户创建新的容器
+    private volatile boolean closed = false;
+
+    /**
+     * 构造函数，创建时不加载规则
+     *
+     * @param tenantId 租户ID
+     * @param kieServices KieServices实例
+     * @param droolsProperties Drools配置（多租户、会话池与规则族）
+     * @param meterRegistry 指标注册表
+     */
+    public TenantRuleContainer(String tenantId, KieServices kieServices, DroolsProperties droolsProperties,
+                               MeterRegistry meterRegistry) {
+        this.tenantId = tenantId;
+        this.kieServices = kieServices;
+        this.droolsProperties = droolsProperties;
+        this.tenantsProperties = droolsProperties.getTenants();
+        this.sessionPoolProperties = droolsProperties.getSessionPool();
+        this.meterRegistry = meterRegistry;
+
+        track(Gauge.builder("drools.container.rules", this, container -> container.rulePathMap.size())
+                .description("租户容器已加载的规则数量")
+                .tag("tenant", tenantId)
+                .register(meterRegistry));
+        track(Gauge.builder("drools.container.generation", this, container -> {
+                    ContainerGeneration generation = container.activeGeneration;
+                    return generation != null ? generation.getGeneration() : 0L;
+                })
+                .description("租户容器当前生效的代次，0表示未加载")
+                .tag("tenant", tenantId)
+                .register(meterRegistry));
+        track(Gauge.builder("drools.container.build.allocated", this, container -> container.lastBuildAllocatedBytes)
+                .description("租户容器最近一次构建期间分配的堆内存")
+                .baseUnit("bytes")
+                .tag("tenant", tenantId)
+                .register(meterRegistry));
+        this.buildSuccessTimer = track(Timer.builder("drools.container.build")
+                .tag("tenant", tenantId).tag("result", "success").register(meterRegistry));
+        this.buildFailureTimer = track(Timer.builder("drools.container.build")
+                .tag("tenant", tenantId).tag("result", "failure").register(meterRegistry));
+        this.quotaRejectionCounter = track(Counter.builder("drools.container.quota.rejections")
+                .tag("tenant", tenantId).register(meterRegistry));
+
+        track(Gauge.builder("drools.session.pool.active", this, container -> {
+                    ContainerGeneration generation = container.activeGeneration;
+                    return generation != null ? generation.getSessionPool().getActiveCount() : 0;
+                })
+                .description("当前代次会话池借出的会话数")
+                .tag("tenant", tenantId)
+                .register(meterRegistry));
+        track(Gauge.builder("drools.session.pool.size", this, container -> {
+                    ContainerGeneration generation = container.activeGeneration;
+                    return generation != null ? generation.getSessionPool().getSessionCount() : 0;
+                })
+                .description("当前代次会话池已创建的会话数")
+                .tag("tenant", tenantId)
+                .register(meterRegistry));
+        this.sessionPoolMeters = new KieSessionPool.Meters(
+                track(Counter.builder("drools.session.pool.borrows")
+                        .description("从会话池借出会话的次数，hit为复用空闲会话，miss为新建会话")
+                        .tag("tenant", tenantId).tag("result", "hit").register(meterRegistry)),
+                track(Counter.builder("drools.session.pool.borrows")
+                        .description("从会话池借出会话的次数，hit为复用空闲会话，miss为新建会话")
+                        .tag("tenant", tenantId).tag("result", "miss").register(meterRegistry)),
+                track(Timer.builder("drools.session.pool.wait")
+                        .description("会话全部借出时等待的时间")
+                        .tag("tenant", tenantId).register(meterRegistry)),
+                track(Counter.builder("drools.session.pool.timeouts")
+                        .description("等待会话超时的次数")
+                        .tag("tenant", tenantId).register(meterRegistry)),
+                track(Counter.builder("drools.session.pool.resets")
+                        .description("会话归还时被重置的次数")
+                        .tag("tenant", tenantId).register(meterRegistry)),
+                track(Counter.builder("drools.session.pool.leaks")
+                        .description("借出超过阈值未归还的会话数")
+                        .tag("tenant", tenantId).register(meterRegistry)));
+    }
+
+    private <T extends Meter> T track(T meter) {
+        meters.add(meter);
+        return meter;
+    }
+
+    /**
+     * 确保容器已加载，未加载时从给定的规则来源加载
+     * 已加载时直接返回，不加锁
+     *
+     * @param ruleSource 租户启用规则的来源
+     * @return 是否在本次调用中执行了加载
+     */
+    public boolean ensureLoaded(Supplier<List<DroolsRule>> ruleSource) {
+        if (activeGeneration != null || closed) {
+            return false;
+        }
+
+        buildLock.lock();
+        try {
+            if (activeGeneration != null || closed) {
+                return false;
+            }
+            reload(ruleSource.get());
+            return true;
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    /**
+     * 使用给定的规则全量重新加载容器
+     *
+     * @param rules 租户的启用规则
+     * @throws DroolsContainerException 当构建失败时抛出，此时当前生效的代次保持不变
+     */
+    public void reload(List<DroolsRule> rules) {
+        logger.info("开始加载租户容器: {}, 共 {} 条规则", tenantId, rules.size());
+
+        buildLock.lock();
+        try {
+            checkRuleQuota(rules.size());
+
+            KieFileSystem previousFileSystem = kieFileSystem;
+            Map<Long, String> previousPaths = new HashMap<>(rulePathMap);
+            Map<Long, String> previousVersions = new HashMap<>(ruleVersionMap);
+
+            kieFileSystem = kieServices.newKieFileSystem();
+            rulePathMap.clear();
+            ruleVersionMap.clear();
+            try {
+                for (DroolsRule rule : rules) {
+                    addRuleToFileSystem(rule);
+                }
+                buildContainer();
+            } catch (Exception e) {
+                kieFileSystem = previousFileSystem;
+                rulePathMap.clear();
+                rulePathMap.putAll(previousPaths);
+                ruleVersionMap.clear();
+                ruleVersionMap.putAll(previousVersions);
+                throw e;
+            }
+
+            logger.info("租户容器加载完成: {}, 当前加载 {} 条规则", tenantId, rulePathMap.size());
+
+        } catch (DroolsContainerException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("加载租户容器失败: {}", tenantId, e);
+            throw new DroolsContainerException("Failed to load container for tenant: " + tenantId, e, "LOAD", null);
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    /**
+     * 批量应用规则变更
+     * 所有新增/更新与移除操作只触发一次容器构建；构建失败时文件系统恢复到变更前的状态，
+     * 当前生效的容器代次保持不变
+     *
+     * @param upserts 需要新增或更新的规则
+     * @param removals 需要移除的规则ID
+     * @return 是否已应用；容器未加载时返回false，下次加载时会直接读取数据库中的最新状态
+     * @throws DroolsContainerException 当构建失败或超出配额时抛出
+     */
+    public boolean applyRuleChanges(List<DroolsRule> upserts, List<Long> removals) {
+        if (upserts.isEmpty() && removals.isEmpty()) {
+            return true;
+        }
+
+        buildLock.lock();
+        try {
+            if (activeGeneration == null) {
+                logger.debug("租户容器未加载，跳过规则变更: {}", tenantId);
+                return false;
+            }
+
+            logger.info("开始批量应用规则变更: 租户 {}, 新增/更新 {} 条, 移除 {} 条",
+                    tenantId, upserts.size(), removals.size());
+
+            long projectedCount = rulePathMap.size()
+                    - removals.stream().filter(rulePathMap::containsKey).count()
+                    + upserts.stream().filter(rule -> !rulePathMap.containsKey(rule.getId())).count();
+            checkRuleQuota(projectedCount);
+
+            // 记录变更前的文件内容，用于构建失败时恢复
+            Map<Long, RuleFileSnapshot> snapshots = new HashMap<>();
+            for (DroolsRule rule : upserts) {
+                snapshots.computeIfAbsent(rule.getId(), this::snapshotRuleFile);
+            }
+            for (Long ruleId : removals) {
+                snapshots.computeIfAbsent(ruleId, this::snapshotRuleFile);
+            }
+
+            try {
+                for (Long ruleId : removals) {
+                    String rulePath = rulePathMap.remove(ruleId);
+                    ruleVersionMap.remove(ruleId);
+                    if (rulePath != null) {
+                        kieFileSystem.delete(rulePath);
+                    }
+                }
+                for (DroolsRule rule : upserts) {
+                    String oldRulePath = rulePathMap.remove(rule.getId());
+                    if (oldRulePath != null) {
+                        kieFileSystem.delete(oldRulePath);
+                    }
+                    addRuleToFileSystem(rule);
+                }
+
+                buildContainer();
+
+            } catch (Exception e) {
+                restoreRuleFiles(snapshots);
+                throw e;
+            }
+
+            logger.info("规则变更应用完成: 租户 {}, 当前加载 {} 条规则", tenantId, rulePathMap.size());
+            return true;
+
+        } catch (DroolsContainerException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("批量应用规则变更失败: 租户 {}", tenantId, e);
+            throw new DroolsContainerException("Failed to apply rule changes for tenant: " + tenantId,
+                    e, "APPLY_CHANGES", null);
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    /**
+     * 淘汰容器，释放KieBase占用的内存，并注销按租户注册的指标
+     * 规则文件与代次一并卸载；关闭后不再加载，该租户下次访问时由注册表创建新的容器并从数据库加载
+     */
+    public void close() {
+        buildLock.lock();
+        try {
+            closed = true;
+            if (activeGeneration != null) {
+                unload();
+                logger.info("租户容器已淘汰并关闭: {}", tenantId);
+            }
+        } finally {
+            buildLock.unlock();
+        }
+        meters.forEach(meterRegistry::remove);
+        meters.clear();
+    }
+
+    /**
+     * 销毁容器
+     */
+    public void dispose() {
+        buildLock.lock();
+        try {
+            unload();
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    /**
+     * 构建KieContainer并发布新的代次
+     * 每个代次使用独立的ReleaseId，避免不同租户并行构建时在KieRepository中互相覆盖
+     */
+    private void buildContainer() {
+        logger.info("开始构建租户容器: {}", tenantId);
+
+        long start = System.nanoTime();
+        long allocatedBefore = currentThreadAllocatedBytes();
+        long generation = GENERATION_COUNTER.incrementAndGet();
+        ReleaseId releaseId = kieServices.newReleaseId(RELEASE_GROUP_ID, tenantId, "1.0." + generation);
+        KieContainer kieContainer = null;
+        KieSessionPool sessionPool;
+        StatelessKieSession statelessSession;
+        Map<String, Long> ruleIndex;
+        Map<String, RuleFamily> families;
+
+        try {
+            writeRoutingRules();
+            kieFileSystem.generateAndWritePomXML(releaseId);
+
+            KieBuilder kieBuilder = kieServices.newKieBuilder(kieFileSystem);
+            kieBuilder.buildAll();
+
+            Results results = kieBuilder.getResults();
+            if (results.hasMessages(Message.Level.ERROR)) {
+                logger.error("构建租户容器时发现错误: {}", tenantId);
+                for (Message message : results.getMessages(Message.Level.ERROR)) {
+                    logger.error("  - {}", message.getText());
+                }
+                throw new RuntimeException("Failed to build Drools container due to compilation errors");
+            }
+
+            if (results.hasMessages(Message.Level.WARNING)) {
+                logger.warn("构建租户容器时发现警告: {}", tenantId);
+                for (Message message : results.getMessages(Message.Level.WARNING)) {
+                    logger.warn("  - {}", message.getText());
+                }
+            }
+
+            kieContainer = kieServices.newKieContainer(releaseId);
+            // 在构建线程中完成KieBase的创建，避免首个请求承担编译开销，也使内存估算包含KieBase本身
+            kieContainer.getKieBase();
+
+            long allocatedBytes = currentThreadAllocatedBytes() - allocatedBefore;
+            lastBuildAllocatedBytes = allocatedBytes;
+            checkHeapQuota(allocatedBytes);
+
+            // 无状态会话由独立的Drools会话池支撑，每次执行复用已重置的工作内存；
+            // 执行结束即归还，不参与借出计数，随代次一起被回收
+            statelessSession = kieContainer.newKieSessionsPool(Math.max(1, sessionPoolProperties.getMinIdle()))
+                    .newStatelessKieSession();
+            ruleIndex = buildRuleIndex(kieContainer);
+            families = buildRuleFamilies(kieContainer, ruleIndex);
+            sessionPool = new KieSessionPool(tenantId, generation, kieContainer, families, sessionPoolProperties,
+                    initialSessionPoolSize(activeGeneration), sessionPoolMeters);
+
+        } catch (RuntimeException e) {
+            if (kieContainer != null) {
+                kieContainer.dispose();
+            }
+            kieServices.getRepository().removeKieModule(releaseId);
+            buildFailureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+
+        ContainerGeneration previous = activeGeneration;
+        ReleaseId previousReleaseId = activeReleaseId;
+        activeGeneration = new ContainerGeneration(generation, kieContainer, sessionPool, statelessSession, families,
+                ruleIndex, ruleVersionMap, LocalDateTime.now());
+        activeReleaseId = releaseId;
+        touch();
+        if (previous != null) {
+            retireSessionPool(previous.getSessionPool());
+        }
+
+        // 旧代次的KieContainer可能仍被进行中的会话使用，只从仓库中移除其模块，由GC回收
+        if (previousReleaseId != null) {
+            kieServices.getRepository().removeKieModule(previousReleaseId);
+        }
+
+        buildSuccessTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        logger.info("租户容器构建成功: {}, 当前代次: {}{}", tenantId, generation,
+                previous != null ? "（替换代次 " + previous.getGeneration() + "）" : "");
+    }
+
+    /**
+     * 为配置了议程组的规则族生成议程组结束规则，没有这样的规则族时删除结束规则文件
+     */
+    private void writeRoutingRules() {
+        Set<String> agendaGroups = new TreeSet<>();
+        for (String family : getLoadedFamilies()) {
+            String agendaGroup = droolsProperties.resolveFamily(family).getAgendaGroup();
+            if (StringUtils.hasText(agendaGroup)) {
+                agendaGroups.add(agendaGroup);
+            }
+        }
+
+        if (agendaGroups.isEmpty()) {
+            kieFileSystem.delete(ROUTING_RULES_PATH);
+            return;
+        }
+
+        StringBuilder drl = new StringBuilder()
+                .append("package ").append(RouteMarker.RULE_PACKAGE).append("\n\n")
+                .append("import ").append(RouteMarker.class.getName()).append("\n\n");
+        for (String agendaGroup : agendaGroups) {
+            drl.append(RouteMarker.endRule(agendaGroup)).append('\n');
+        }
+        kieFileSystem.write(ROUTING_RULES_PATH, drl.toString());
+    }
+
+    /**
+     * 按规则文件路径建立规则名称到规则ID的索引，键为 包名.规则名
+     */
+    private Map<String, Long> buildRuleIndex(KieContainer kieContainer) {
+        Map<String, Long> ruleIdsByPath = new HashMap<>();
+        rulePathMap.forEach((ruleId, rulePath) -> ruleIdsByPath.put(rulePath, ruleId));
+
+        Map<String, Long> ruleIndex = new HashMap<>();
+        for (KiePackage kiePackage : kieContainer.getKieBase().getKiePackages()) {
+            for (Rule rule : kiePackage.getRules()) {
+                Long ruleId = ruleIdsByPath.get(RESOURCES_PATH + ((RuleImpl) rule).getResource().getSourcePath());
+                if (ruleId != null) {
+                    ruleIndex.put(RuleFamily.qualifiedName(rule), ruleId);
+                }
+            }
+        }
+        return ruleIndex;
+    }
+
+    /**
+     * 按规则文件所在目录划分规则族，确定按议程组路由的规则族，为需要独立KieBase的规则族创建无状态会话，
+     * 并从规则族的alpha约束建立无匹配预过滤
+     */
+    private Map<String, RuleFamily> buildRuleFamilies(KieContainer kieContainer, Map<String, Long> ruleIndex) {
+        Map<String, Map<String, Long>> familyRuleIds = new HashMap<>();
+        Map<String, Set<String>> familyAgendaGroups = new HashMap<>();
+        Map<String, List<Rule>> familyRules = new HashMap<>();
+        for (KiePackage kiePackage : kieContainer.getKieBase().getKiePackages()) {
+            for (Rule rule : kiePackage.getRules()) {
+                String family = familyOfResource(rule);
+                if (family != null) {
+                    String qualifiedName = RuleFamily.qualifiedName(rule);
+                    familyRuleIds.computeIfAbsent(family, key -> new HashMap<>())
+                            .put(qualifiedName, ruleIndex.get(qualifiedName));
+                    familyAgendaGroups.computeIfAbsent(family, key -> new HashSet<>())
+                            .add(((RuleImpl) rule).getAgendaGroup());
+                    familyRules.computeIfAbsent(family, key -> new ArrayList<>()).add(rule);
+                }
+            }
+        }
+
+        Map<String, RuleFamily> families = new HashMap<>();
+        familyRuleIds.forEach((family, ruleIds) -> {
+            DroolsProperties.Family options = droolsProperties.resolveFamily(family);
+            String agendaGroup = options.getAgendaGroup();
+            if (StringUtils.hasText(agendaGroup) && !Set.of(agendaGroup).equals(familyAgendaGroups.get(family))) {
+                logger.warn("租户 {} 的规则族 {} 中有规则不在议程组 {} 中（实际为 {}），改为按规则名称过滤评估",
+                        tenantId, family, agendaGroup, familyAgendaGroups.get(family));
+                agendaGroup = null;
+            }
+            List<String> multithreadRestrictions = multithreadRestrictions(options, familyRules.get(family));
+            boolean multithread = options.isMultithread() && multithreadRestrictions.isEmpty();
+            if (options.isMultithread() && !multithread) {
+                logger.warn("租户 {} 的规则族 {} 不能使用多线程评估: {}", tenantId, family, multithreadRestrictions);
+            }
+            StatelessKieSession dedicatedSession = options.isSequential() || multithread
+                    ? buildFamilySession(family, options, multithread)
+                    : null;
+            if (multithread && dedicatedSession != null && !RuleFamily.isMultithreadEvaluation(dedicatedSession)) {
+                // Drools构建时发现Rete网络无法分区，已改为单线程执行
+                multithreadRestrictions = List.of("Rete网络无法分区（规则共享节点或只有一个可用处理器）");
+                logger.warn("租户 {} 的规则族 {} 不能使用多线程评估: {}", tenantId, family, multithreadRestrictions);
+            }
+            boolean routed = StringUtils.hasText(agendaGroup);
+            boolean mainAgendaGroup = Set.of(AgendaGroup.MAIN).equals(familyAgendaGroups.get(family));
+            // 不按议程组路由时其他议程组中的规则不会获得焦点、不会触发，决策索引会触发它们，与Drools不等价
+            DecisionIndex decisionIndex = null;
+            if (options.isDecisionIndex()) {
+                if (routed || mainAgendaGroup) {
+                    decisionIndex = buildDecisionIndex(family, familyRules.get(family));
+                } else {
+                    logger.info("租户 {} 的规则族 {} 有规则在未路由的议程组 {} 中，不编译决策索引",
+                            tenantId, family, familyAgendaGroups.get(family));
+                }
+            }
+            families.put(family, new RuleFamily(family, options, ruleIds,
+                    routed ? agendaGroup : null, mainAgendaGroup, dedicatedSession,
+                    NoMatchPrefilter.of(familyRules.get(family)), decisionIndex, multithreadRestrictions));
+        });
+        return families;
+    }
+
+    /**
+     * 检查规则族能否使用多线程评估，返回不满足的条件，每类条件只列出第一条规则
+     * 议程组、激活组、显著性与查询会使Drools在构建KieBase时关闭多线程评估；
+     * 顺序模式与首个匹配模式依赖按顺序触发，而多线程评估时各分区分别触发
+     */
+    private static List<String> multithreadRestrictions(DroolsProperties.Family options, List<Rule> rules) {
+        Map<String, String> restrictions = new LinkedHashMap<>();
+        if (options.isSequential()) {
+            restrictions.put("sequential", "使用顺序模式");
+        }
+        if (options.isFirstMatch()) {
+            restrictions.put("first-match", "使用首个匹配模式");
+        }
+        for (Rule rule : rules) {
+            RuleImpl ruleImpl = (RuleImpl) rule;
+            if (ruleImpl.isQuery()) {
+                restrictions.putIfAbsent("query", "包含查询 " + rule.getName());
+                continue;
+            }
+            if (!ruleImpl.isMainAgendaGroup()) {
+                restrictions.putIfAbsent("agenda-group", "规则 " + rule.getName() + " 使用议程组 " + ruleImpl.getAgendaGroup());
+            }
+            if (ruleImpl.getActivationGroup() != null) {
+                restrictions.putIfAbsent("activation-group",
+                        "规则 " + rule.getName() + " 使用激活组 " + ruleImpl.getActivationGroup());
+            }
+            if (!ruleImpl.getSalience().isDefault()) {
+                restrictions.putIfAbsent("salience", "规则 " + rule.getName() + " 设置了显著性");
+            }
+        }
+        return List.copyOf(restrictions.values());
+    }
+
+    /**
+     * 将规则族编译为决策索引，需要规则的RHS源码，从规则族目录下的规则文件解析。
+     * 规则族不满足编译条件时记录原因并返回null，该规则族由Drools执行
+     */
+    private DecisionIndex buildDecisionIndex(String family, List<Rule> rules) {
+        String familyPath = RULES_PATH + family + "/";
+        Map<String, RuleDescr> ruleDescrs = new HashMap<>();
+        try {
+            for (String rulePath : rulePathMap.values()) {
+                if (!rulePath.startsWith(familyPath)) {
+                    continue;
+                }
+                DrlParser parser = new DrlParser();
+                PackageDescr packageDescr = parser.parse(false,
+                        new String(kieFileSystem.read(rulePath), StandardCharsets.UTF_8));
+                if (parser.hasErrors() || packageDescr == null) {
+                    continue;
+                }
+                boolean javaDialect = packageDescr.getAttributes().stream()
+                        .noneMatch(attribute -> "dialect".equals(attribute.getName())
+                                && !"java".equals(attribute.getValue()));
+                if (javaDialect) {
+                    for (RuleDescr ruleDescr : packageDescr.getRules()) {
+                        ruleDescrs.put(packageDescr.getNamespace() + "." + ruleDescr.getName(), ruleDescr);
+                    }
+                }
+            }
+            DecisionIndex decisionIndex = DecisionIndex.compile(rules, ruleDescrs);
+            logger.info("租户 {} 的规则族 {} 编译为决策索引: {} 条规则，按属性 {} 查找",
+                    tenantId, family, decisionIndex.getRuleCount(), decisionIndex.getKeyProperty());
+            return decisionIndex;
+        } catch (DroolsParserException | IllegalArgumentException e) {
+            logger.info("租户 {} 的规则族 {} 无法编译为决策索引，由Drools执行: {}", tenantId, family, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 用规则族目录下的规则文件构建独立的KieBase并创建无状态会话
+     * Drools的kmodule包过滤按DRL的package声明而非目录划分，无法按规则族隔离，因此直接从规则文件构建。
+     * 构建失败时记录警告并返回null，该规则族退回到在租户KieBase上按规则过滤评估
+     */
+    private StatelessKieSession buildFamilySession(String family, DroolsProperties.Family options, boolean multithread) {
+        String familyPath = RULES_PATH + family + "/";
+        KieHelper kieHelper = new KieHelper();
+        for (String rulePath : rulePathMap.values()) {
+            if (rulePath.startsWith(familyPath)) {
+                kieHelper.addContent(new String(kieFileSystem.read(rulePath), StandardCharsets.UTF_8), ResourceType.DRL);
+            }
+        }
+
+        List<KieBaseOption> kieBaseOptions = new ArrayList<>();
+        if (options.isSequential()) {
+            kieBaseOptions.add(SequentialOption.YES);
+        }
+        if (multithread) {
+            kieBaseOptions.add(MultithreadEvaluationOption.YES);
+        }
+        try {
+            KieBase kieBase = kieHelper.build(kieBaseOptions.toArray(new KieBaseOption[0]));
+            logger.debug("租户 {} 的规则族 {} 已构建独立KieBase, 顺序模式: {}, 多线程评估: {}",
+                    tenantId, family, options.isSequential(), multithread);
+            return kieBase.newStatelessKieSession();
+        } catch (RuntimeException e) {
+            logger.warn("租户 {} 的规则族 {} 构建独立KieBase失败，改为在租户KieBase上评估: {}",
+                    tenantId, family, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 根据规则的源文件路径确定规则族，位于 rules/ 根目录的规则不属于任何规则族
+     */
+    private static String familyOfResource(Rule rule) {
+        if (!(rule instanceof RuleImpl ruleImpl) || ruleImpl.getResource() == null
+                || ruleImpl.getResource().getSourcePath() == null) {
+            return null;
+        }
+        // 源文件路径相对于 src/main/resources/，形如 rules/<规则族>/<规则名>.drl
+        String sourcePath = ruleImpl.getResource().getSourcePath();
+        String rulesFolder = RULES_FOLDER;
+        int start = sourcePath.indexOf(rulesFolder);
+        if (start < 0) {
+            return null;
+        }
+        String relativePath = sourcePath.substring(start + rulesFolder.length());
+        int separator = relativePath.indexOf('/');
+        return separator > 0 ? relativePath.substring(0, separator) : null;
+    }
+
+    /**
+     * 获取已加载规则所属的规则族
+     */
+    private Set<String> getLoadedFamilies() {
+        Set<String> families = new HashSet<>();
+        for (String rulePath : rulePathMap.values()) {
+            String relativePath = rulePath.substring(RULES_PATH.length());
+            int separator = relativePath.indexOf('/');
+            if (separator > 0) {
+                families.add(relativePath.substring(0, separator));
+            }
+        }
+        return families;
+    }
+
+    /**
+     * 卸载容器，调用方需持有构建锁
+     */
+    private void unload() {
+        ContainerGeneration generation = activeGeneration;
+        activeGeneration = null;
+        if (generation != null) {
+            retireSessionPool(generation.getSessionPool());
+        }
+        // 与替换代次相同：进行中的评估可能仍持有该代次的会话或无状态会话，
+        // 不显式销毁KieContainer，只从仓库中移除其模块，会话池在最后一个会话归还后关闭，其余由GC回收
+        if (activeReleaseId != null) {
+            kieServices.getRepository().removeKieModule(activeReleaseId);
+            activeReleaseId = null;
+        }
+        kieFileSystem = null;
+        rulePathMap.clear();
+        ruleVersionMap.clear();
+    }
+
+    /**
+     * 新代次会话池的预创建数量：按上一代次观测到的并发峰值，不低于 minIdle，不超过 maxActive
+     */
+    private int initialSessionPoolSize(ContainerGeneration previous) {
+        int size = Math.max(sessionPoolProperties.getMinIdle(),
+                previous != null ? previous.getSessionPool().getPeakActive() : 0);
+        int maxActive = sessionPoolProperties.getMaxActive();
+        return maxActive > 0 ? Math.min(size, maxActive) : size;
+    }
+
+    private void retireSessionPool(KieSessionPool sessionPool) {
+        sessionPool.retire();
+        if (!sessionPool.isShutdown()) {
+            retiringSessionPools.add(sessionPool);
+        }
+    }
+
+    /**
+     * 从当前代次的会话池借出会话
+     *
+     * @return 借出的会话；容器未加载或被淘汰时返回null，由调用方重新加载
+     * @throws DroolsContainerException 等待会话超时时抛出
+     */
+    public PooledKieSession borrowSession() {
+        while (true) {
+            ContainerGeneration generation = activeGeneration;
+            if (generation == null) {
+                return null;
+            }
+            PooledKieSession session = generation.getSessionPool().borrow();
+            if (session != null) {
+                touch();
+                return session;
+            }
+            // 会话池所属代次刚被替换并已关闭，改用新的代次
+        }
+    }
+
+    /**
+     * 检查当前代次及退役中会话池的会话泄漏，并清理已关闭的退役会话池
+     *
+     * @return 本次新发现的泄漏数量
+     */
+    public int detectSessionLeaks() {
+        retiringSessionPools.removeIf(KieSessionPool::isShutdown);
+
+        long thresholdMs = sessionPoolProperties.getLeakThresholdMs();
+        int leaks = 0;
+        ContainerGeneration generation = activeGeneration;
+        if (generation != null) {
+            leaks += generation.getSessionPool().detectLeaks(thresholdMs);
+        }
+        for (KieSessionPool sessionPool : retiringSessionPools) {
+            leaks += sessionPool.detectLeaks(thresholdMs);
+        }
+        return leaks;
+    }
+
+    /**
+     * 将规则添加到KieFileSystem中
+     *
+     * @param rule 规则对象
+     */
+    private void addRuleToFileSystem(DroolsRule rule) {
+        if (rule == null || rule.getId() == null || rule.getRuleContent() == null) {
+            logger.warn("规则对象无效，跳过加载: {}", rule);
+            return;
+        }
+
+        String rulePath = RULES_PATH + (StringUtils.hasText(rule.getRuleFamily()) ? rule.getRuleFamily() + "/" : "")
+                + rule.getRuleName() + ".drl";
+        kieFileSystem.write(rulePath, rule.getRuleContent());
+        rulePathMap.put(rule.getId(), rulePath);
+        ruleVersionMap.put(rule.getId(), String.valueOf(rule.getVersion()));
+
+        logger.debug("规则已添加到文件系统: 租户 {}, {} -> {}", tenantId, rule.getRuleName(), rulePath);
+    }
+
+    /**
+     * 检查规则数量配额
+     */
+    private void checkRuleQuota(long ruleCount) {
+        int maxRules = tenantsProperties.resolveQuota(tenantId).getMaxRules();
+        if (maxRules > 0 && ruleCount > maxRules) {
+            quotaRejectionCounter.increment();
+            throw new DroolsContainerException(
+                    "Tenant " + tenantId + " exceeds rule quota: " + ruleCount + " > " + maxRules, "QUOTA", null);
+        }
+    }
+
+    /**
+     * 检查构建内存配额
+     */
+    private void checkHeapQuota(long allocatedBytes) {
+        long maxBuildHeapMb = tenantsProperties.resolveQuota(tenantId).getMaxBuildHeapMb();
+        if (maxBuildHeapMb > 0 && allocatedBytes > maxBuildHeapMb * 1024L * 1024L) {
+            quotaRejectionCounter.increment();
+            throw new DroolsContainerException("Tenant " + tenantId + " exceeds build heap quota: "
+                    + (allocatedBytes >> 20) + "MB > " + maxBuildHeapMb + "MB", "QUOTA", null);
+        }
+    }
+
+    /**
+     * 获取当前线程累计分配的堆内存，JVM不支持时返回0
+     */
+    private static long currentThreadAllocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadMXBean
+                && threadMXBean.isThreadAllocatedMemoryEnabled()) {
+            return threadMXBean.getCurrentThreadAllocatedBytes();
+        }
+        return 0L;
+    }
+
+    /**
+     * 记录规则文件当前状态
+     */
+    private RuleFileSnapshot snapshotRuleFile(Long ruleId) {
+        String rulePath = rulePathMap.get(ruleId);
+        if (rulePath == null) {
+            return new RuleFileSnapshot(null, null, null);
+        }
+        return new RuleFileSnapshot(rulePath, kieFileSystem.read(rulePath), ruleVersionMap.get(ruleId));
+    }
+
+    /**
+     * 将规则文件恢复到记录的状态
+     */
+    private void restoreRuleFiles(Map<Long, RuleFileSnapshot> snapshots) {
+        snapshots.forEach((ruleId, snapshot) -> {
+            String currentPath = rulePathMap.remove(ruleId);
+            ruleVersionMap.remove(ruleId);
+            if (currentPath != null) {
+                kieFileSystem.delete(currentPath);
+            }
+            if (snapshot.path() != null) {
+                kieFileSystem.write(snapshot.path(), snapshot.content());
+                rulePathMap.put(ruleId, snapshot.path());
+                ruleVersionMap.put(ruleId, snapshot.version());
+            }
+        });
+        logger.warn("规则文件已恢复到变更前的状态: 租户 {}, 涉及 {} 条规则", tenantId, snapshots.size());
+    }
+
+    /**
+     * 记录一次访问，用于空闲淘汰
+     */
+    public void touch() {
+        lastAccessMillis = System.currentTimeMillis();
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    /**
+     * 获取当前生效的容器代次
+     * 该方法不加锁，不会被正在进行的容器重建阻塞
+     *
+     * @return 当前容器代次，未加载或已淘汰时返回null
+     */
+    public ContainerGeneration getActiveGeneration() {
+        return activeGeneration;
+    }
+
+    public boolean isLoaded() {
+        return activeGeneration != null;
+    }
+
+    public long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+
+    public long getLastBuildAllocatedBytes() {
+        return lastBuildAllocatedBytes;
+    }
+
+    public int getLoadedRulesCount() {
+        return rulePathMap.size();
+    }
+
+    public boolean isRuleLoaded(Long ruleId) {
+        return rulePathMap.containsKey(ruleId);
+    }
+
+    public String getLoadedRuleVersion(Long ruleId) {
+        return ruleVersionMap.get(ruleId);
+    }
+
+    public List<Long> getLoadedRuleIds() {
+        return List.copyOf(rulePathMap.keySet());
+    }
+
+    /**
+     * 获取租户容器状态
+     *
+     * @return 状态快照
+     */
+    public TenantContainerStatus getStatus() {
+        ContainerGeneration generation = activeGeneration;
+        TenantContainerStatus status = new TenantContainerStatus();
+        status.setTenantId(tenantId);
+        status.setLoaded(generation != null);
+        status.setGeneration(generation != null ? generation.getGeneration() : null);
+        status.setLoadedRulesCount(generation != null ? generation.getRuleCount() : 0);
+        status.setBuiltTime(generation != null ? generation.getBuiltTime() : null);
+        status.setLastAccessTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(lastAccessMillis), ZoneId.systemDefault()));
+        status.setLastBuildAllocatedBytes(lastBuildAllocatedBytes);
+        status.setPooledSessions(generation != null ? generation.getSessionPool().getSessionCount() : 0);
+        status.setActiveSessions(generation != null ? generation.getSessionPool().getActiveCount() : 0);
+        return status;
+    }
+
+    /**
+     * 规则文件快照
+     */
+    private record RuleFileSnapshot(String path, byte[] content, String version) {
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.drools.service;
+
+import com.example.drools.entity.DroolsRule;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.kie.api.KieServices;
+import org.kie.api.runtime.KieContainer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 已编译测试容器的LRU缓存
+ * 键由参与测试的规则按ID排序后的 (规则ID, 版本, 内容摘要) 组成，规则内容或版本变化后自然对应新的键。
+ * 容器以租约方式借出：被淘汰的容器在最后一个租约归还后才释放，并从KieRepository中移除其模块。
+ *
+ * @author System
+ * @since 1.0.0
+ */
+public class TestContainerCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TestContainerCache.class);
+
+    private final int maxSize;
+    private final KieServices kieServices;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    /**
+     * 构造函数
+     *
+     * @param maxSize 缓存的容器数量上限，0表示不缓存
+     * @param kieServices KieServices实例
+     * @param meterRegistry 指标注册表
+     */
+    public TestContainerCache(int maxSize, KieServices kieServices, MeterRegistry meterRegistry) {
+        this.maxSize = Math.max(0, maxSize);
+        this.kieServices = kieServices;
+        this.hits = Counter.builder("drools.test.container.cache")
+                .tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("drools.test.container.cache")
+                .tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("drools.test.container.cache.evictions").register(meterRegistry);
+        Gauge.builder("drools.test.container.cache.size", this, TestContainerCache::size)
+                .description("缓存的已编译测试容器数量")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 计算规则集合的缓存键，与规则顺序无关
+     *
+     * @param rules 参与测试的规则
+     * @return 缓存键
+     */
+    public static String keyOf(List<DroolsRule> rules) {
+        StringBuilder key = new StringBuilder();
+        rules.stream()
+                .sorted(Comparator.comparing(DroolsRule::getId))
+                .forEach(rule -> key.append(rule.getId()).append(':')
+                        .append(rule.getVersion()).append(':')
+                        .append(digest(rule.getRuleContent())).append(';'));
+        return key.toString();
+    }
+
+    /**
+     * 借出缓存的容器，未命中时编译并放入缓存
+     * 并发的相同未命中会各自编译，后放入的一方改用已缓存的容器并释放自己编译的容器
+     *
+     * @param key 缓存键
+     * @param compiler 编译容器
+     * @return 容器租约，使用完毕后调用close归还
+     */
+    public Lease acquire(String key, Supplier<KieContainer> compiler) {
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits.increment();
+                entry.leases++;
+                return new Lease(entry, true);
+            }
+        }
+
+        misses.increment();
+        Entry compiled = new Entry(compiler.get());
+        compiled.leases = 1;
+        if (maxSize == 0) {
+            compiled.evicted = true;
+            return new Lease(compiled, false);
+        }
+
+        Entry existing;
+        synchronized (this) {
+            existing = entries.get(key);
+            if (existing != null) {
+                existing.leases++;
+            } else {
+                entries.put(key, compiled);
+                evictOverflow();
+            }
+        }
+        if (existing != null) {
+            dispose(compiled);
+            return new Lease(existing, true);
+        }
+        return new Lease(compiled, false);
+    }
+
+    /**
+     * 淘汰超出上限的最久未使用的容器，调用方持有锁
+     */
+    private void evictOverflow() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            evictions.increment();
+            eldest.evicted = true;
+            if (eldest.leases == 0) {
+                dispose(eldest);
+            }
+        }
+    }
+
+    /**
+     * 清空缓存，释放未被借出的容器
+     */
+    public synchronized void clear() {
+        for (Entry entry : entries.values()) {
+            entry.evicted = true;
+            if (entry.leases == 0) {
+                dispose(entry);
+            }
+        }
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized void release(Entry entry) {
+        entry.leases--;
+        if (entry.evicted && entry.leases == 0) {
+            dispose(entry);
+        }
+    }
+
+    private void dispose(Entry entry) {
+        try {
+            entry.container.dispose();
+            kieServices.getRepository().removeKieModule(entry.container.getReleaseId());
+        } catch (Exception e) {
+            logger.warn("释放测试容器失败: {}", entry.container.getReleaseId(), e);
+        }
+    }
+
+    private static String digest(String content) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = messageDigest.digest(content != null ? content.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class Entry {
+
+        private final KieContainer container;
+        private int leases;
+        private boolean evicted;
+
+        private Entry(KieContainer container) {
+            this.container = container;
+        }
+    }
+
+    /**
+     * 测试容器租约，重复关闭无副作用
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final Entry entry;
+        private final boolean cacheHit;
+        private boolean closed;
+
+        private Lease(Entry entry, boolean cacheHit) {
+            this.entry = entry;
+            this.cacheHit = cacheHit;
+        }
+
+        public KieContainer getContainer() {
+            return entry.container;
+        }
+
+        public boolean isCacheHit() {
+            return cacheHit;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(entry);
+            }
+        }
+    }
+}
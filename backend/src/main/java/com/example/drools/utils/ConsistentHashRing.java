@@ -0,0 +1,78 @@
+package com.example.drools.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * 一致性哈希环
+ * 每个节点在环上放置若干虚拟节点，键按顺时针方向归属到第一个虚拟节点对应的节点。
+ * 节点加入或离开时，只有相邻区间的键会改变归属。实例不可变，成员变化时整体重建。
+ *
+ * @author System
+ * @since 1.0.0
+ */
+public final class ConsistentHashRing {
+
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+    private final List<String> nodes;
+
+    /**
+     * 构造函数
+     *
+     * @param nodes 节点ID集合
+     * @param virtualNodes 每个节点的虚拟节点数量
+     */
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        this.nodes = List.copyOf(new TreeSet<>(nodes));
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    /**
+     * 获取键所属的节点
+     *
+     * @param key 键
+     * @return 节点ID，环为空时返回null
+     */
+    public String nodeFor(String key) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * 获取环上的节点ID列表
+     *
+     * @return 按节点ID排序的列表
+     */
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    /**
+     * 取MD5摘要的前8个字节作为哈希值，分布均匀且与JVM无关
+     */
+    private static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            long hash = 0L;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFFL);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 algorithm not available", e);
+        }
+    }
+}
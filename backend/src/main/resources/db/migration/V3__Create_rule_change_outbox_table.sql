@@ -0,0 +1,12 @@
+-- Create rule_change_outbox table for propagating rule changes to the Drools container
+CREATE TABLE rule_change_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键ID，即变更序号',
+    rule_id BIGINT NOT NULL COMMENT '规则ID',
+    change_type VARCHAR(20) NOT NULL COMMENT '变更类型(CREATE/UPDATE/STATUS/DELETE)',
+    rule_version VARCHAR(50) COMMENT '变更后的规则版本',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='规则变更发件箱表';
+
+-- Create indexes for better query performance
+CREATE INDEX idx_outbox_rule_id ON rule_change_outbox(rule_id);
+CREATE INDEX idx_outbox_create_time ON rule_change_outbox(create_time);
@@ -0,0 +1,6 @@
+-- Add tenant column to drools_rule, each tenant's rules are loaded into a separate container
+ALTER TABLE drools_rule
+    ADD COLUMN tenant_id VARCHAR(64) NOT NULL DEFAULT 'default' COMMENT '租户ID' AFTER id;
+
+-- Create indexes for better query performance
+CREATE INDEX idx_tenant_enabled ON drools_rule(tenant_id, enabled, deleted);
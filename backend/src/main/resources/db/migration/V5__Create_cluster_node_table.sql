@@ -0,0 +1,10 @@
+-- Create cluster_node table for backend node membership, used to assign tenant shards to nodes
+CREATE TABLE cluster_node (
+    node_id VARCHAR(128) PRIMARY KEY COMMENT '节点ID',
+    base_url VARCHAR(255) NOT NULL COMMENT '节点访问地址',
+    start_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '节点启动时间',
+    heartbeat_time DATETIME NOT NULL COMMENT '最近心跳时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='集群节点表';
+
+-- Create indexes for better query performance
+CREATE INDEX idx_cluster_node_heartbeat ON cluster_node(heartbeat_time);
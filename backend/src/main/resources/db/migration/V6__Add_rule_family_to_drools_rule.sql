@@ -0,0 +1,6 @@
+-- Add rule family column to drools_rule, rules of the same family are evaluated together and share family options
+ALTER TABLE drools_rule
+    ADD COLUMN rule_family VARCHAR(64) NULL COMMENT '规则族' AFTER rule_name;
+
+-- Create indexes for better query performance
+CREATE INDEX idx_tenant_family ON drools_rule(tenant_id, rule_family);
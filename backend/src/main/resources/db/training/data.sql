@@ -0,0 +1,45 @@
+-- Representative rule set loaded by the training profile
+INSERT INTO drools_rule (rule_name, rule_family, rule_content, description, enabled, version) VALUES
+('order_discount', 'order_discount', '//图书优惠规则
+package com.example.drools
+import com.example.drools.entity.Order
+
+//规则一：所购图书总价在100元以下的没有优惠
+rule "order_discount_1"
+    agenda-group "order_discount"
+    when
+        $order:Order(originalPrice < 100)
+    then
+        $order.setRealPrice($order.getOriginalPrice());
+        System.out.println("成功匹配到规则一：所购图书总价在100元以下的没有优惠");
+end
+
+//规则二：所购图书总价在100到200元的优惠20元
+rule "order_discount_2"
+    agenda-group "order_discount"
+    when
+        $order:Order(originalPrice < 200 && originalPrice >= 100)
+    then
+        $order.setRealPrice($order.getOriginalPrice() - 20);
+        System.out.println("成功匹配到规则二：所购图书总价在100到200元的优惠20元");
+end
+
+//规则三：所购图书总价在200到300元的优惠50元
+rule "order_discount_3"
+    agenda-group "order_discount"
+    when
+        $order:Order(originalPrice <= 300 && originalPrice >= 200)
+    then
+        $order.setRealPrice($order.getOriginalPrice() - 50);
+        System.out.println("成功匹配到规则三：所购图书总价在200到300元的优惠50元");
+end
+
+//规则四：所购图书总价在300元以上的优惠100元
+rule "order_discount_4"
+    agenda-group "order_discount"
+    when
+        $order:Order(originalPrice >= 300)
+    then
+        $order.setRealPrice($order.getOriginalPrice() - 100);
+        System.out.println("成功匹配到规则四：所购图书总价在300元以上的优惠100元");
+end', '图书订单优惠规则', TRUE, '1.0');
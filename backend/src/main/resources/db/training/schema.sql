@@ -0,0 +1,29 @@
+-- H2 schema used by the training profile (AppCDS training run and local startup benchmarks)
+CREATE TABLE IF NOT EXISTS drools_rule (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tenant_id VARCHAR(64) NOT NULL DEFAULT 'default',
+    rule_name VARCHAR(255) NOT NULL UNIQUE,
+    rule_family VARCHAR(64),
+    rule_content TEXT NOT NULL,
+    description TEXT,
+    enabled BOOLEAN DEFAULT TRUE,
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version VARCHAR(50) DEFAULT '1.0',
+    deleted TINYINT DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS rule_change_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    rule_id BIGINT NOT NULL,
+    change_type VARCHAR(20) NOT NULL,
+    rule_version VARCHAR(50),
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS cluster_node (
+    node_id VARCHAR(128) PRIMARY KEY,
+    base_url VARCHAR(255) NOT NULL,
+    start_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    heartbeat_time TIMESTAMP NOT NULL
+);
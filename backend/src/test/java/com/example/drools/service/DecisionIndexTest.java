@@ -0,0 +1,527 @@
+package com.example.drools.service;
+
+import com.example.drools.entity.Order;
+import org.drools.compiler.compiler.DrlParser;
+import org.drools.compiler.compiler.DroolsParserException;
+import org.drools.compiler.lang.descr.PackageDescr;
+import org.drools.compiler.lang.descr.RuleDescr;
+import org.junit.jupiter.api.Test;
+import org.kie.api.KieBase;
+import org.kie.api.definition.type.FactType;
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+import org.kie.api.io.Resource;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.internal.io.ResourceFactory;
+import org.kie.internal.utils.KieHelper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 决策索引的等价性测试
+ * 随机生成阈值规则族与事实组，同一组事实分别在决策索引与Drools中评估：索引给出结果时触发的规则与事实状态必须一致，
+ * 索引退回（返回null）时事实不能被修改，Drools执行出错（拆箱null、整数除零）时索引必须退回。
+ * 可以按列评估的规则族再将单个事实的事实组按列评估，每行的结果与逐个事实评估一致。
+ *
+ * @author System
+ * @since 1.0.0
+ */
+class DecisionIndexTest {
+
+    private static final int FAMILIES = 120;
+    private static final int FACT_SETS_PER_FAMILY = 40;
+    // 超过一个64行的字，覆盖按字处理的边界
+    private static final int COLUMNAR_ROWS = 150;
+    private static final String[] DOUBLE_FIELDS = {"amount", "price"};
+
+    private static final String DECLARE = """
+            declare Item
+                amount : double
+                price : Double
+                count : int
+                quantity : Integer
+                total : long
+                balance : Long
+                label : String
+                flag : boolean
+            end
+            """;
+
+    // 属性名到类型：D double, BD Double, I int, BI Integer, L long, BL Long
+    private static final Map<String, String> NUMERIC_FIELDS = Map.of(
+            "amount", "D", "price", "BD", "count", "I", "quantity", "BI", "total", "L", "balance", "BL");
+    private static final String[] NUMERIC_NAMES = {"amount", "price", "count", "quantity", "total", "balance"};
+
+    private static final String[] THRESHOLDS = {"-1", "0", "2", "10", "10.5", "100"};
+    private static final String[] LITERALS = {"0", "2", "-1", "3L", "2.5", "0.5d", "null"};
+    private static final String[] OPERATORS = {"+", "-", "*", "/"};
+    private static final String[] LABELS = {"a", "b", "c"};
+
+    private static final Double[] DOUBLES = {-1.0, 0.0, -0.0, 2.0, 10.0, 10.5, 100.0, 1e9, Double.NaN,
+            Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+    private static final Integer[] INTS = {-1, 0, 2, 10, 11, 100, Integer.MIN_VALUE, Integer.MAX_VALUE};
+    private static final Long[] LONGS = {-1L, 0L, 2L, 10L, 11L, 100L, (1L << 53) + 1, -(1L << 53) - 1,
+            Long.MAX_VALUE};
+
+    private final Random random = new Random(20261019L);
+
+    @Test
+    void indexedDecisionsMatchDrools() {
+        Counts counts = new Counts();
+        for (int f = 0; f < FAMILIES; f++) {
+            Family family = build(randomFamily(f));
+            if (family == null) {
+                continue;
+            }
+            DecisionIndex index;
+            try {
+                index = compile(family);
+            } catch (IllegalArgumentException e) {
+                counts.rejected++;
+                continue;
+            }
+            counts.indexed++;
+            for (int i = 0; i < FACT_SETS_PER_FAMILY; i++) {
+                check(family, index, randomItems(), random.nextInt(4) == 0, counts);
+            }
+            if (index.getColumnarRestriction() == null) {
+                counts.columnar++;
+                List<Map<String, Object>> rows = new ArrayList<>(COLUMNAR_ROWS);
+                for (int row = 0; row < COLUMNAR_ROWS; row++) {
+                    rows.add(randomItem());
+                }
+                checkColumns(family, index, rows);
+            }
+        }
+        assertTrue(counts.indexed > 0, "没有规则族编译为决策索引");
+        assertTrue(counts.rejected > 0, "没有规则族被拒绝编译");
+        assertTrue(counts.fired > 0, "决策索引没有触发任何规则");
+        assertTrue(counts.fallbacks > 0, "决策索引没有退回任何评估");
+        assertTrue(counts.columnar > 0, "没有规则族可以按列评估");
+    }
+
+    @Test
+    void fallsBackWhenEquivalenceCannotBeProven() {
+        Family longKey = build("""
+                rule "low" when $f: Item(total < 10) then $f.setCount($f.getQuantity()); end
+                rule "mid" when $f: Item(total >= 10, total < 100) then $f.setCount($f.getCount() / $f.getQuantity()); end
+                rule "high" when $f: Item(total >= 100) then $f.setBalance($f.getTotal() + 1L); end
+                """);
+        DecisionIndex index = compile(longKey);
+        Counts counts = new Counts();
+        // long超出double的精确范围
+        assertNull(check(longKey, index, List.of(item("total", (1L << 53) + 1)), false, counts));
+        assertEquals("high", check(longKey, index, List.of(item("total", 1L << 53)), false, counts).firedRule());
+        // getter返回null导致拆箱失败
+        assertNull(check(longKey, index, List.of(item("total", 5L, "quantity", null)), false, counts));
+        assertEquals("low", check(longKey, index, List.of(item("total", 5L, "quantity", 3)), false, counts).firedRule());
+        // 整数除零
+        assertNull(check(longKey, index, List.of(item("total", 50L, "count", 7, "quantity", 0)), false, counts));
+        assertEquals("mid",
+                check(longKey, index, List.of(item("total", 50L, "count", 7, "quantity", 2)), false, counts).firedRule());
+        // 多个该类型的事实
+        assertNull(check(longKey, index, List.of(item("total", 50L), item("total", 5L)), false, counts));
+
+        Family doubleKey = build("""
+                rule "below" when $f: Item(price < 10) then $f.setAmount($f.getPrice() * 2); end
+                rule "from" when $f: Item(price >= 10 && price <= 10.5) then $f.setAmount($f.getPrice() / 0); end
+                rule "above" when $f: Item(price > 10.5) then $f.setBalance(null); end
+                """);
+        index = compile(doubleKey);
+        // NaN
+        assertNull(check(doubleKey, index, List.of(item("price", Double.NaN)), false, counts));
+        // 与null的比较不成立（声明类型的包装类型属性默认为0）
+        assertNull(check(doubleKey, index, List.of(item("price", null)), true, counts).firedRule());
+        // 边界
+        assertEquals("from", check(doubleKey, index, List.of(item("price", 10.0)), false, counts).firedRule());
+        assertEquals("from", check(doubleKey, index, List.of(item("price", 10.5)), false, counts).firedRule());
+        assertEquals("below", check(doubleKey, index, List.of(item("price", Math.nextDown(10.0))), false, counts)
+                .firedRule());
+        assertEquals("above", check(doubleKey, index, List.of(item("price", Math.nextUp(10.5), "balance", 3L)), false,
+                counts).firedRule());
+    }
+
+    @Test
+    void settersReadValuesBeforeAnyAssignment() {
+        // 先读后写与Drools依次执行一致
+        Family family = build("""
+                rule "swap" when $f: Item(count > 0) then $f.setQuantity($f.getCount()); $f.setCount(1); end
+                """);
+        DecisionIndex.Decision decision = check(family, compile(family), List.of(item("count", 5)), false, new Counts());
+        assertEquals("swap", decision.firedRule());
+
+        // 读取前面语句修改的属性，统一计算参数时结果不同，不编译
+        Family reassigned = build("""
+                rule "chain" when $f: Item(count > 0) then $f.setCount(1); $f.setQuantity($f.getCount()); end
+                """);
+        assertThrows(IllegalArgumentException.class, () -> compile(reassigned));
+
+        Family overlapping = build("""
+                rule "low" when $f: Item(total <= 10) then end
+                rule "high" when $f: Item(total >= 10) then end
+                """);
+        assertThrows(IllegalArgumentException.class, () -> compile(overlapping));
+    }
+
+    /**
+     * 分别在决策索引与Drools中评估同一组事实并比较结果
+     *
+     * @return 决策索引的评估结果
+     */
+    private static DecisionIndex.Decision check(Family family, DecisionIndex index, List<Map<String, Object>> items,
+                                                boolean withOrder, Counts counts) {
+        List<Object> indexFacts = facts(family, items, withOrder);
+        List<Object> droolsFacts = facts(family, items, withOrder);
+        DecisionIndex.Decision decision = index.evaluate(indexFacts);
+        List<String> fired = new ArrayList<>();
+        RuntimeException error = fire(family, droolsFacts, fired);
+
+        String context = family.drl() + "\n事实: " + items;
+        if (error != null) {
+            assertNull(decision, () -> "Drools执行出错但决策索引给出了结果: " + error + "\n" + context);
+        }
+        if (decision == null) {
+            counts.fallbacks++;
+            assertEquals(states(family, facts(family, items, withOrder)), states(family, indexFacts),
+                    () -> "决策索引退回时修改了事实\n" + context);
+            return null;
+        }
+        assertEquals(decision.firedRule() != null ? List.of(decision.firedRule()) : List.of(), fired,
+                () -> "触发的规则不同\n" + context);
+        assertEquals(states(family, droolsFacts), states(family, indexFacts), () -> "事实状态不同\n" + context);
+        if (decision.firedRule() != null) {
+            counts.fired++;
+        }
+        return decision;
+    }
+
+    /**
+     * 按列评估与逐个事实评估比较：逐个评估给出结果的行，触发的规则与输出列必须一致；
+     * 逐个评估退回的行（NaN、拆箱null）在按列评估中不能算触发
+     */
+    private static void checkColumns(Family family, DecisionIndex index, List<Map<String, Object>> rows) {
+        Map<String, double[]> columns = new HashMap<>();
+        for (String field : DOUBLE_FIELDS) {
+            double[] column = new double[rows.size()];
+            for (int row = 0; row < rows.size(); row++) {
+                column[row] = toColumnValue(rows.get(row).get(field));
+            }
+            columns.put(field, column);
+        }
+        DecisionIndex.ColumnarDecision columnar = index.evaluateColumns(columns, rows.size());
+
+        for (int row = 0; row < rows.size(); row++) {
+            List<Object> facts = facts(family, List.of(rows.get(row)), false);
+            DecisionIndex.Decision decision = index.evaluate(facts);
+            String firedRule = null;
+            for (Map.Entry<String, BitSet> fired : columnar.firedRows().entrySet()) {
+                if (fired.getValue().get(row)) {
+                    assertNull(firedRule, "按列评估的一行触发了多条规则");
+                    firedRule = fired.getKey();
+                }
+            }
+            String context = family.drl() + "\n行 " + row + ": " + rows.get(row);
+            if (decision == null) {
+                assertNull(firedRule, () -> "逐个评估退回的行在按列评估中触发了规则\n" + context);
+                continue;
+            }
+            assertEquals(decision.firedRule(), firedRule, () -> "按列评估触发的规则不同\n" + context);
+            assertTrue(!columnar.errorRows().get(row), () -> "逐个评估成功的行在按列评估中是错误行\n" + context);
+            Map<String, Object> state = family.itemType().getAsMap(facts.get(0));
+            for (Map.Entry<String, double[]> output : columnar.outputs().entrySet()) {
+                double expected = toColumnValue(state.get(output.getKey()));
+                assertEquals(expected, output.getValue()[row], () -> "输出列 " + output.getKey() + " 不同\n" + context);
+            }
+        }
+    }
+
+    private static double toColumnValue(Object value) {
+        return value != null ? ((Number) value).doubleValue() : Double.NaN;
+    }
+
+    private static RuntimeException fire(Family family, List<Object> facts, List<String> fired) {
+        KieSession session = family.kieBase().newKieSession();
+        try {
+            session.addEventListener(new DefaultAgendaEventListener() {
+                @Override
+                public void afterMatchFired(AfterMatchFiredEvent event) {
+                    fired.add(event.getMatch().getRule().getName());
+                }
+            });
+            facts.forEach(session::insert);
+            session.fireAllRules();
+            return null;
+        } catch (RuntimeException e) {
+            return e;
+        } finally {
+            session.dispose();
+        }
+    }
+
+    private static Family build(String rules) {
+        String drl = "package test\nimport " + Order.class.getName() + "\n" + DECLARE + rules;
+        Resource resource = ResourceFactory.newByteArrayResource(drl.getBytes(StandardCharsets.UTF_8));
+        resource.setSourcePath("test/family.drl");
+        KieBase kieBase;
+        try {
+            kieBase = new KieHelper().addResource(resource, ResourceType.DRL).build();
+        } catch (RuntimeException e) {
+            // 随机生成的RHS类型不匹配时无法编译
+            return null;
+        }
+        return new Family(drl, kieBase, kieBase.getFactType("test", "Item"));
+    }
+
+    private static DecisionIndex compile(Family family) {
+        assertNotNull(family, "规则族无法编译");
+        Map<String, RuleDescr> ruleDescrs = new HashMap<>();
+        try {
+            PackageDescr packageDescr = new DrlParser().parse(false, family.drl());
+            for (RuleDescr ruleDescr : packageDescr.getRules()) {
+                ruleDescrs.put(packageDescr.getNamespace() + "." + ruleDescr.getName(), ruleDescr);
+            }
+        } catch (DroolsParserException e) {
+            throw new IllegalStateException(e);
+        }
+        return DecisionIndex.compile(family.kieBase().getKiePackage("test").getRules(), ruleDescrs);
+    }
+
+    private static List<Object> facts(Family family, List<Map<String, Object>> items, boolean withOrder) {
+        List<Object> facts = new ArrayList<>();
+        for (Map<String, Object> values : items) {
+            try {
+                Object item = family.itemType().newInstance();
+                values.forEach((field, value) -> family.itemType().set(item, field, value));
+                facts.add(item);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        if (withOrder) {
+            Order order = new Order();
+            order.setOriginalPrice(150.0);
+            facts.add(order);
+        }
+        return facts;
+    }
+
+    private static List<Map<String, Object>> states(Family family, List<Object> facts) {
+        List<Map<String, Object>> states = new ArrayList<>();
+        for (Object fact : facts) {
+            if (!(fact instanceof Order)) {
+                states.add(new LinkedHashMap<>(family.itemType().getAsMap(fact)));
+            }
+        }
+        return states;
+    }
+
+    private static Map<String, Object> item(Object... values) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        for (int i = 0; i < values.length; i += 2) {
+            item.put((String) values[i], values[i + 1]);
+        }
+        return item;
+    }
+
+    /**
+     * 生成一个规则族：在一个属性上的区间或相等比较，RHS为打印与setter
+     */
+    private String randomFamily(int family) {
+        StringBuilder drl = new StringBuilder();
+        List<String> conditions = random.nextInt(5) == 0 ? equalityConditions() : intervalConditions();
+        for (int rule = 0; rule < conditions.size(); rule++) {
+            drl.append("rule \"r").append(family).append('_').append(rule).append("\"\n");
+            if (random.nextInt(4) == 0) {
+                drl.append("    salience ").append(random.nextInt(10)).append('\n');
+            }
+            drl.append("when\n    $f: Item(").append(conditions.get(rule)).append(")\nthen\n");
+            int statements = random.nextInt(4);
+            for (int i = 0; i < statements; i++) {
+                drl.append("    ").append(randomStatement(family, rule)).append('\n');
+            }
+            drl.append("end\n");
+        }
+        return drl.toString();
+    }
+
+    /**
+     * 数值属性上相邻的区间，边界随机包含或不包含，相邻边界都包含时区间相交
+     */
+    private List<String> intervalConditions() {
+        String field = pick(NUMERIC_NAMES);
+        TreeSet<Integer> bounds = new TreeSet<>();
+        int rules = 1 + random.nextInt(4);
+        while (bounds.size() < rules + 1) {
+            bounds.add(random.nextInt(THRESHOLDS.length));
+        }
+        List<Integer> sorted = new ArrayList<>(bounds);
+        List<String> conditions = new ArrayList<>();
+        for (int rule = 0; rule < rules; rule++) {
+            String low = THRESHOLDS[sorted.get(rule)];
+            String high = THRESHOLDS[sorted.get(rule + 1)];
+            List<String> constraints = new ArrayList<>();
+            if (random.nextInt(6) == 0) {
+                constraints.add(field + " == " + low);
+            } else {
+                if (rule > 0 || random.nextInt(3) != 0) {
+                    constraints.add(field + (random.nextBoolean() ? " >= " : " > ") + low);
+                }
+                if (rule < rules - 1 || random.nextInt(3) != 0) {
+                    constraints.add(field + (random.nextBoolean() ? " <= " : " < ") + high);
+                }
+                if (constraints.isEmpty()) {
+                    constraints.add(field + " != null");
+                }
+            }
+            conditions.add(String.join(random.nextBoolean() ? ", " : " && ", constraints));
+        }
+        return conditions;
+    }
+
+    private List<String> equalityConditions() {
+        List<String> conditions = new ArrayList<>();
+        if (random.nextBoolean()) {
+            conditions.add("flag == true");
+            if (random.nextBoolean()) {
+                conditions.add("flag == false");
+            }
+            return conditions;
+        }
+        int rules = 1 + random.nextInt(LABELS.length);
+        for (int rule = 0; rule < rules; rule++) {
+            conditions.add("label == \"" + LABELS[rule] + "\"");
+        }
+        return conditions;
+    }
+
+    /**
+     * 生成打印或setter语句，setter参数的类型可以传给setter
+     */
+    private String randomStatement(int family, int rule) {
+        if (random.nextInt(4) == 0) {
+            return "System.out.println(\"r" + family + '_' + rule + "\");";
+        }
+        String target = pick(NUMERIC_NAMES);
+        String targetType = NUMERIC_FIELDS.get(target);
+        for (int attempt = 0; attempt < 50; attempt++) {
+            String[] left = randomOperand();
+            String expression = left[0];
+            String type = left[1];
+            if (random.nextBoolean()) {
+                String[] right = randomOperand();
+                if (type.equals("N") || right[1].equals("N")) {
+                    continue;
+                }
+                expression = left[0] + ' ' + pick(OPERATORS) + ' ' + right[0];
+                type = promote(type, right[1]);
+            }
+            if (isAssignable(targetType, type)) {
+                return "$f.set" + Character.toUpperCase(target.charAt(0)) + target.substring(1)
+                        + '(' + expression + ");";
+            }
+        }
+        return "System.out.println(\"r" + family + '_' + rule + "\");";
+    }
+
+    private String[] randomOperand() {
+        if (random.nextBoolean()) {
+            String field = pick(NUMERIC_NAMES);
+            return new String[]{"$f.get" + Character.toUpperCase(field.charAt(0)) + field.substring(1) + "()",
+                    NUMERIC_FIELDS.get(field)};
+        }
+        String literal = pick(LITERALS);
+        String type;
+        if (literal.equals("null")) {
+            type = "N";
+        } else if (literal.endsWith("L")) {
+            type = "L";
+        } else if (literal.contains(".") || literal.endsWith("d")) {
+            type = "D";
+        } else {
+            type = "I";
+        }
+        return new String[]{literal, type};
+    }
+
+    private static String promote(String left, String right) {
+        String a = left.replace("B", "");
+        String b = right.replace("B", "");
+        if (a.equals("D") || b.equals("D")) {
+            return "D";
+        }
+        return a.equals("L") || b.equals("L") ? "L" : "I";
+    }
+
+    /**
+     * Java方法调用的转换：基本类型参数接受拆箱后的宽化，包装类型参数只接受对应类型的装箱与null
+     */
+    private static boolean isAssignable(String target, String value) {
+        if (value.equals("N")) {
+            return target.startsWith("B");
+        }
+        String source = value.replace("B", "");
+        if (target.startsWith("B")) {
+            return target.substring(1).equals(source);
+        }
+        return target.equals(source) || target.equals("D") || (target.equals("L") && source.equals("I"));
+    }
+
+    /**
+     * 生成0到2个该类型的事实，大多数为1个
+     */
+    private List<Map<String, Object>> randomItems() {
+        int count = switch (random.nextInt(8)) {
+            case 0 -> 0;
+            case 1 -> 2;
+            default -> 1;
+        };
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(randomItem());
+        }
+        return items;
+    }
+
+    private Map<String, Object> randomItem() {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("amount", pick(DOUBLES));
+        item.put("price", random.nextInt(5) == 0 ? null : pick(DOUBLES));
+        item.put("count", pick(INTS));
+        item.put("quantity", random.nextInt(5) == 0 ? null : pick(INTS));
+        item.put("total", pick(LONGS));
+        item.put("balance", random.nextInt(5) == 0 ? null : pick(LONGS));
+        item.put("label", random.nextInt(4) == 0 ? null : pick(LABELS));
+        item.put("flag", random.nextBoolean());
+        return item;
+    }
+
+    private <T> T pick(T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private record Family(String drl, KieBase kieBase, FactType itemType) {
+    }
+
+    private static final class Counts {
+        private int indexed;
+        private int rejected;
+        private int fired;
+        private int fallbacks;
+        private int columnar;
+    }
+}
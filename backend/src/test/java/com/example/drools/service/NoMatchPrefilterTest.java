@@ -0,0 +1,180 @@
+package com.example.drools.service;
+
+import com.example.drools.entity.Order;
+import com.example.drools.entity.Student;
+import org.junit.jupiter.api.Test;
+import org.kie.api.KieBase;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.io.Resource;
+import org.kie.internal.io.ResourceFactory;
+import org.kie.internal.utils.KieHelper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 无匹配预过滤的等价性测试
+ * 随机生成规则族与事实组，预过滤判断不可能激活规则的每一组事实，都在Drools中执行一次确认没有规则触发。
+ *
+ * @author System
+ * @since 1.0.0
+ */
+class NoMatchPrefilterTest {
+
+    private static final int FAMILIES = 40;
+    private static final int FACT_SETS_PER_FAMILY = 50;
+
+    private static final String[] COMPARISONS = {"<", "<=", ">", ">=", "==", "!="};
+    private static final String[] PRICES = {"0", "50", "99.5", "100", "100.0", "150", "null"};
+    private static final Double[] FACT_PRICES = {null, 0.0, 50.0, 99.5, 100.0, 100.5, 150.0};
+    private static final String[] AGES = {"0", "5", "10", "18", "60"};
+    private static final int[] FACT_AGES = {0, 5, 10, 18, 60};
+    private static final String[] NAMES = {"\"a\"", "\"b\"", "null"};
+    private static final String[] FACT_NAMES = {"a", "b", null};
+
+    private final Random random = new Random(20261019L);
+
+    @Test
+    void rejectedFactsNeverFireRules() {
+        int prefilters = 0;
+        int rejections = 0;
+        for (int family = 0; family < FAMILIES; family++) {
+            String drl = randomFamily(family);
+            Resource resource = ResourceFactory.newByteArrayResource(drl.getBytes(StandardCharsets.UTF_8));
+            resource.setSourcePath("test/family" + family + ".drl");
+            KieBase kieBase = new KieHelper().addResource(resource, ResourceType.DRL).build();
+            NoMatchPrefilter prefilter = NoMatchPrefilter.of(kieBase.getKiePackage("test").getRules());
+            if (prefilter == null) {
+                continue;
+            }
+            prefilters++;
+            for (int i = 0; i < FACT_SETS_PER_FAMILY; i++) {
+                List<Object> facts = randomFacts();
+                if (!prefilter.mayMatch(facts)) {
+                    rejections++;
+                    assertEquals(0, fire(kieBase, facts),
+                            () -> "预过滤拒绝的事实触发了规则\n" + drl + "\n事实: " + describe(facts));
+                }
+            }
+        }
+        assertTrue(prefilters > 0, "没有规则族建立预过滤");
+        assertTrue(rejections > 0, "预过滤没有拒绝任何事实");
+    }
+
+    private static int fire(KieBase kieBase, List<Object> facts) {
+        KieSession session = kieBase.newKieSession();
+        try {
+            facts.forEach(session::insert);
+            return session.fireAllRules();
+        } finally {
+            session.dispose();
+        }
+    }
+
+    /**
+     * 生成一个规则族，规则的条件混合可分析的字面量约束与预过滤无法分析的条件
+     */
+    private String randomFamily(int family) {
+        StringBuilder drl = new StringBuilder()
+                .append("package test\n")
+                .append("import ").append(Order.class.getName()).append("\n")
+                .append("import ").append(Student.class.getName()).append("\n");
+        int rules = 1 + random.nextInt(4);
+        for (int rule = 0; rule < rules; rule++) {
+            drl.append("rule \"r").append(family).append('_').append(rule).append("\"\nwhen\n");
+            int patterns = 1 + random.nextInt(2);
+            for (int pattern = 0; pattern < patterns; pattern++) {
+                drl.append("    ").append(randomPattern(pattern)).append('\n');
+            }
+            switch (random.nextInt(8)) {
+                case 0 -> drl.append("    not Student(age > 50)\n");
+                case 1 -> drl.append("    eval(true)\n");
+                case 2 -> drl.append("    exists Order(originalPrice != null)\n");
+                default -> {
+                }
+            }
+            drl.append("then\nend\n");
+        }
+        return drl.toString();
+    }
+
+    private String randomPattern(int index) {
+        List<String> constraints = new ArrayList<>();
+        boolean order = random.nextBoolean();
+        int count = random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            constraints.add(order ? randomOrderConstraint() : randomStudentConstraint());
+        }
+        if (!order && random.nextInt(6) == 0) {
+            // beta约束，预过滤视为可能满足
+            return "$s" + index + ": Student(" + String.join(", ", constraints) + ")\n"
+                    + "    Order(originalPrice > $s" + index + ".age)";
+        }
+        return (order ? "Order(" : "Student(") + String.join(", ", constraints) + ")";
+    }
+
+    private String randomOrderConstraint() {
+        String field = random.nextInt(4) == 0 ? "realPrice" : "originalPrice";
+        String value = pick(PRICES);
+        return switch (random.nextInt(10)) {
+            // 表达式与或条件，预过滤无法分析
+            case 0 -> field + " != null && " + field + " * 2 > " + pick(AGES);
+            case 1 -> field + " < 50 || " + field + " > 100";
+            default -> value.equals("null")
+                    ? field + (random.nextBoolean() ? " == " : " != ") + value
+                    : field + ' ' + pick(COMPARISONS) + ' ' + value;
+        };
+    }
+
+    private String randomStudentConstraint() {
+        return switch (random.nextInt(4)) {
+            case 0 -> "name " + (random.nextBoolean() ? "== " : "!= ") + pick(NAMES);
+            case 1 -> "id " + pick(COMPARISONS) + ' ' + pick(AGES);
+            default -> "age " + pick(COMPARISONS) + ' ' + pick(AGES);
+        };
+    }
+
+    private List<Object> randomFacts() {
+        List<Object> facts = new ArrayList<>();
+        int orders = random.nextInt(3);
+        for (int i = 0; i < orders; i++) {
+            Order order = new Order();
+            order.setOriginalPrice(FACT_PRICES[random.nextInt(FACT_PRICES.length)]);
+            order.setRealPrice(FACT_PRICES[random.nextInt(FACT_PRICES.length)]);
+            facts.add(order);
+        }
+        int students = random.nextInt(3);
+        for (int i = 0; i < students; i++) {
+            Student student = new Student();
+            student.setId(FACT_AGES[random.nextInt(FACT_AGES.length)]);
+            student.setAge(FACT_AGES[random.nextInt(FACT_AGES.length)]);
+            student.setName(FACT_NAMES[random.nextInt(FACT_NAMES.length)]);
+            facts.add(student);
+        }
+        return facts;
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String describe(List<Object> facts) {
+        StringBuilder description = new StringBuilder();
+        for (Object fact : facts) {
+            if (fact instanceof Order order) {
+                description.append("Order(originalPrice=").append(order.getOriginalPrice())
+                        .append(", realPrice=").append(order.getRealPrice()).append(") ");
+            } else if (fact instanceof Student student) {
+                description.append("Student(id=").append(student.getId()).append(", age=").append(student.getAge())
+                        .append(", name=").append(student.getName()).append(") ");
+            }
+        }
+        return description.toString();
+    }
+}
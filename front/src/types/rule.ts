@@ -49,6 +49,7 @@ export interface TestRuleRequest {
   testData?: Record<string, any>
   ruleConfigs?: RuleFactConfig[]
   verbose?: boolean
+  diagnostics?: boolean // 是否返回工作内存快照与错误堆栈
   options?: {
     showExecutionDetails?: boolean
     saveToHistory?: boolean